@@ -1,6 +1,6 @@
 // Firebase configuration and service functions
 import { initializeApp } from 'firebase/app';
-import { getFirestore, collection, getDocs, addDoc, doc, updateDoc, deleteDoc } from 'firebase/firestore';
+import { getFirestore, collection, collectionGroup, getDocs, addDoc, doc, updateDoc, deleteDoc } from 'firebase/firestore';
 import { getDatabase, ref, get, child, push, set } from 'firebase/database';
 
 // Firebase configuration
@@ -128,6 +128,56 @@ const getMockClasses = () => {
   return mockClasses; // Return directly, not as a Promise
 };
 
+// Flatten one course instance into the class shape used by the screens
+const toClass = (courseId, instanceId, courseInfo, instance, lastUpdated) => ({
+  id: `${courseId}_${instanceId}`,
+  courseId: courseId,
+  instanceId: instanceId,
+  courseName: courseInfo.courseName || courseInfo.type,
+  instructor: instance.teacher || courseInfo.instructor,
+  startTime: instance.startTime || courseInfo.time,
+  endTime: instance.endTime,
+  duration: courseInfo.duration,
+  capacity: instance.capacity || courseInfo.capacity,
+  enrolled: instance.enrolled || 0,
+  price: courseInfo.price,
+  difficulty: courseInfo.difficulty,
+  description: courseInfo.description,
+  type: courseInfo.type,
+  daysOfWeek: courseInfo.daysOfWeek,
+  roomLocation: courseInfo.roomLocation,
+  date: instance.date,
+  comments: instance.comments,
+  imageUrl: courseInfo.imageUrl || 'https://example.com/yoga-class.jpg',
+  lastUpdated: lastUpdated
+});
+
+// Firestore layout: classes/{courseId} holds courseInfo, and each instance is its own
+// document in classes/{courseId}/instances. Two queries read the whole catalog.
+const fetchClassesFromFirestore = async () => {
+  const [courseSnapshot, instanceSnapshot] = await Promise.all([
+    getDocs(collection(db, 'classes')),
+    getDocs(collectionGroup(db, 'instances'))
+  ]);
+
+  const courses = {};
+  courseSnapshot.forEach(courseDoc => {
+    courses[courseDoc.id] = courseDoc.data();
+  });
+
+  const classes = [];
+  instanceSnapshot.forEach(instanceDoc => {
+    const courseId = instanceDoc.ref.parent.parent.id;
+    const courseData = courses[courseId];
+    const instance = instanceDoc.data();
+    // Skip orphaned instances and instances marked for deletion
+    if (courseData && courseData.courseInfo && instance.syncStatus !== 2) {
+      classes.push(toClass(courseId, instanceDoc.id, courseData.courseInfo, instance, courseData.lastUpdated));
+    }
+  });
+  return classes;
+};
+
 // Fetch all yoga classes from both Realtime Database and Firestore
 export const fetchClasses = async () => {
   try {
@@ -166,31 +216,7 @@ export const fetchClasses = async () => {
                 
                 // Skip instances that are marked for deletion (syncStatus = 2)
                 if (instance && instance.syncStatus !== 2) {
-                  const transformedClass = {
-                    id: `${courseId}_${instanceId}`,
-                    courseId: courseId,
-                    instanceId: instanceId,
-                    courseName: courseInfo.courseName || courseInfo.type,
-                    instructor: instance.teacher || courseInfo.instructor,
-                    startTime: instance.startTime || courseInfo.time,
-                    endTime: instance.endTime,
-                    duration: courseInfo.duration,
-                    capacity: instance.capacity || courseInfo.capacity,
-                    enrolled: instance.enrolled || 0,
-                    price: courseInfo.price,
-                    difficulty: courseInfo.difficulty,
-                    description: courseInfo.description,
-                    type: courseInfo.type,
-                    daysOfWeek: courseInfo.daysOfWeek,
-                    roomLocation: courseInfo.roomLocation,
-                    date: instance.date,
-                    comments: instance.comments,
-                    imageUrl: courseInfo.imageUrl || 'https://example.com/yoga-class.jpg',
-                    lastUpdated: courseData.lastUpdated
-                  };
-                  
-                  console.log(`Transformed class:`, transformedClass);
-                  transformedClasses.push(transformedClass);
+                  transformedClasses.push(toClass(courseId, instanceId, courseInfo, instance, courseData.lastUpdated));
                 } else {
                   console.log(`Skipping deleted instance ${instanceId} for course ${courseId}`);
                 }
@@ -210,20 +236,7 @@ export const fetchClasses = async () => {
         // Try Firestore as fallback
         if (db) {
           try {
-            const classesRef = collection(db, 'classes');
-            const querySnapshot = await getDocs(classesRef);
-            
-            classes = querySnapshot.docs.map(doc => {
-              const data = doc.data();
-              // Filter out deleted items from Firestore too
-              if (data.syncStatus === 2) {
-                return null;
-              }
-              return {
-                id: doc.id,
-                ...data
-              };
-            }).filter(Boolean); // Remove null items
+            classes = await fetchClassesFromFirestore();
           } catch (firestoreError) {
             console.log("Firestore error:", firestoreError);
             // Don't return mock data if Firebase fails - return empty array
@@ -238,20 +251,7 @@ export const fetchClasses = async () => {
       }
     } else if (db) {
       try {
-        const classesRef = collection(db, 'classes');
-        const querySnapshot = await getDocs(classesRef);
-        
-        classes = querySnapshot.docs.map(doc => {
-          const data = doc.data();
-          // Filter out deleted items
-          if (data.syncStatus === 2) {
-            return null;
-          }
-          return {
-            id: doc.id,
-            ...data
-          };
-        }).filter(Boolean); // Remove null items
+        classes = await fetchClassesFromFirestore();
       } catch (firestoreError) {
         console.log("Firestore error:", firestoreError);
         // Don't return mock data if Firebase fails - return empty array
@@ -583,7 +583,9 @@ export const fetchBookingsByEmail = async (email) => {
 export const updateClassEnrollment = async (classId, newEnrollmentCount) => {
   try {
     if (db) {
-      const classRef = doc(db, 'classes', classId);
+      // Class ids are "<courseId>_<instanceId>"; enrollment lives on the instance document
+      const [courseId, instanceId] = String(classId).split('_');
+      const classRef = doc(db, 'classes', courseId, 'instances', instanceId);
       await updateDoc(classRef, {
         enrolled: newEnrollmentCount
       });
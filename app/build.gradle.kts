@@ -37,6 +37,11 @@ android {
         viewBinding = true
         dataBinding = true
     }
+
+    testOptions {
+        // Plain JVM tests; android.util.Log and friends return defaults instead of throwing
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -52,12 +57,17 @@ dependencies {
     implementation("androidx.lifecycle:lifecycle-livedata:2.7.0")
     implementation("androidx.lifecycle:lifecycle-viewmodel:2.7.0")
     implementation("androidx.lifecycle:lifecycle-viewmodel-savedstate:2.7.0")
+    implementation("androidx.lifecycle:lifecycle-viewmodel-ktx:2.7.0")
     implementation("androidx.activity:activity:1.8.2")
     implementation("androidx.fragment:fragment:1.6.2")
     
     // Room Database
     implementation("androidx.room:room-runtime:2.6.1")
     annotationProcessor("androidx.room:room-compiler:2.6.1")
+    implementation("androidx.room:room-paging:2.6.1")
+    
+    // Paging
+    implementation("androidx.paging:paging-runtime:3.2.1")
     
     // Firebase
     implementation("com.google.firebase:firebase-database:20.3.0")
@@ -68,4 +78,12 @@ dependencies {
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
     implementation("com.squareup.okhttp3:logging-interceptor:4.12.0")
+    
+    // JSON (Room type converters)
+    implementation("com.google.code.gson:gson:2.10.1")
+
+    // Testing
+    testImplementation("junit:junit:4.13.2")
+    // Runs the migration and trigger SQL on the JVM
+    testImplementation("org.xerial:sqlite-jdbc:3.45.1.0")
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import android.app.Application;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.database.FirebaseDatabase;
 import com.universalyoga.adminapp.services.FirebaseService;
+import com.universalyoga.adminapp.services.FirestoreLayoutMigration;
+import com.universalyoga.adminapp.utils.AppExecutors;
 
 public class YogaApplication extends Application {
     
@@ -11,6 +13,9 @@ public class YogaApplication extends Application {
     public void onCreate() {
         super.onCreate();
         
+        // Shared thread pools used by every background task
+        AppExecutors executors = AppExecutors.getInstance();
+        
         // Initialize Firebase
         FirebaseApp.initializeApp(this);
         
@@ -18,6 +23,9 @@ public class YogaApplication extends Application {
         FirebaseDatabase.getInstance().setPersistenceEnabled(true);
         
         // Initialize Firebase services
-        FirebaseService.initialize();
+        FirebaseService.initialize(executors.diskIO());
+        
+        // Move Firestore instances out of the embedded array (no-op once done)
+        FirestoreLayoutMigration.runOnce(this);
     }
 } 
\ No newline at end of file
@@ -10,8 +10,8 @@ import android.widget.ArrayAdapter;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.MaterialAutoCompleteTextView;
 import androidx.appcompat.app.AppCompatActivity;
-import com.universalyoga.adminapp.database.CourseDao;
 import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.repository.CourseRepository;
 import com.universalyoga.adminapp.utils.ValidationUtils;
 import com.universalyoga.adminapp.utils.ToastHelper;
 import com.universalyoga.adminapp.R;
@@ -23,14 +23,12 @@ import android.widget.NumberPicker;
 import com.google.android.material.textfield.TextInputLayout;
 import android.text.Editable;
 import android.text.TextWatcher;
-import com.universalyoga.adminapp.database.AppDatabase;
 import android.content.Intent;
 import com.google.android.material.snackbar.Snackbar;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.card.MaterialCardView;
 import java.util.HashMap;
 import java.util.Map;
-import com.universalyoga.adminapp.services.AutoSyncService;
 
 public class AddCourseActivity extends AppCompatActivity {
 
@@ -48,9 +46,8 @@ public class AddCourseActivity extends AppCompatActivity {
     private MaterialButton btnSave, btnCancel;
     
     // Data
-    private CourseDao courseDao;
+    private CourseRepository courseRepository;
     private Map<String, String> errors = new HashMap<>();
-    private AutoSyncService autoSyncService;
     
     // Constants
     private static final String[] DAYS_OF_WEEK = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
@@ -68,8 +65,7 @@ public class AddCourseActivity extends AppCompatActivity {
         setupValidation();
         setupClickListeners();
         
-        courseDao = AppDatabase.getInstance(this).courseDao();
-        autoSyncService = new AutoSyncService(this);
+        courseRepository = new CourseRepository(this);
     }
     
     private void initializeViews() {
@@ -550,34 +546,25 @@ public class AddCourseActivity extends AppCompatActivity {
         );
         
         // Save to database
-        new Thread(() -> {
-            try {
-                courseDao.insert(course);
+        courseRepository.addCourse(course, new CourseRepository.OnCourseOperationCallback() {
+            @Override
+            public void onSuccess(YogaCourse added) {
                 runOnUiThread(() -> {
                     progressBar.setVisibility(View.GONE);
                     btnSave.setEnabled(true);
                     ToastHelper.showSuccessToast(AddCourseActivity.this, "Class created successfully!");
-                    
-                    // Trigger auto-sync after successful save
-                    autoSyncService.triggerAutoSync();
-                    
                     finish();
                 });
-        } catch (Exception e) {
+            }
+
+            @Override
+            public void onError(String error) {
                 runOnUiThread(() -> {
                     progressBar.setVisibility(View.GONE);
                     btnSave.setEnabled(true);
-                    ToastHelper.showErrorToast(AddCourseActivity.this, e.getMessage());
+                    ToastHelper.showErrorToast(AddCourseActivity.this, error);
                 });
             }
-        }).start();
-    }
-    
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (autoSyncService != null) {
-            autoSyncService.shutdown();
-        }
+        });
     }
-}
\ No newline at end of file
+}
@@ -12,8 +12,9 @@ import com.universalyoga.adminapp.database.CourseDao;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
 import com.universalyoga.adminapp.repository.InstanceRepository;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+import com.universalyoga.adminapp.utils.AppExecutors;
 import java.util.List;
-import java.util.concurrent.Executors;
 import com.google.android.material.snackbar.Snackbar;
 import android.view.View;
 import com.google.android.material.appbar.MaterialToolbar;
@@ -232,45 +233,8 @@ public class AddInstanceActivity extends AppCompatActivity {
     }
     
     private boolean validateDateMatchesCourseSchedule(Calendar selectedCalendar, YogaCourse course) {
-        if (course.getDaysOfWeek() == null || course.getDaysOfWeek().isEmpty()) {
-            return false; // No days set for course
-        }
-        
-        // Get the day of week from the selected date
-        String selectedDay = getDayOfWeekName(selectedCalendar.get(Calendar.DAY_OF_WEEK));
-        
-        // Get course days and split them
-        String[] courseDays = course.getDaysOfWeek().split(",");
-        
-        // Check if selected day matches any of the course days
-        for (String courseDay : courseDays) {
-            if (selectedDay.equalsIgnoreCase(courseDay.trim())) {
-                return true; // Day matches
-            }
-        }
-        
-        return false; // No match found
-    }
-    
-    private String getDayOfWeekName(int dayOfWeek) {
-        switch (dayOfWeek) {
-            case Calendar.SUNDAY:
-                return "Sunday";
-            case Calendar.MONDAY:
-                return "Monday";
-            case Calendar.TUESDAY:
-                return "Tuesday";
-            case Calendar.WEDNESDAY:
-                return "Wednesday";
-            case Calendar.THURSDAY:
-                return "Thursday";
-            case Calendar.FRIDAY:
-                return "Friday";
-            case Calendar.SATURDAY:
-                return "Saturday";
-            default:
-                return "";
-        }
+        // A course without days has an empty mask and matches nothing
+        return (course.getDaysMask() & ScheduleUtils.calendarDayBit(selectedCalendar.get(Calendar.DAY_OF_WEEK))) != 0;
     }
 
     private boolean validateTeacher() {
@@ -344,7 +308,7 @@ public class AddInstanceActivity extends AppCompatActivity {
 
     private void loadCourses() {
         showLoading(true);
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             allCourses = courseDao.getAll();
             runOnUiThread(() -> {
                 showLoading(false);
@@ -485,7 +449,7 @@ public class AddInstanceActivity extends AppCompatActivity {
         instance.setEnrolled(Integer.parseInt(attendees));
         instance.setCapacity(selectedCourse.getCapacity());
         instance.setStartTime(selectedCourse.getTime());
-        instance.setEndTime(calculateEndTime(selectedCourse.getTime(), selectedCourse.getDuration()));
+        instance.setEndTime(ScheduleUtils.toEndTime(selectedCourse.getTime(), selectedCourse.getDuration()));
 
         // Use repository to save
         instanceRepository.addInstance(instance, new InstanceRepository.OnInstanceOperationCallback() {
@@ -507,21 +471,6 @@ public class AddInstanceActivity extends AppCompatActivity {
         });
     }
 
-    private String calculateEndTime(String startTime, int durationMinutes) {
-        try {
-            SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-            Date start = timeFormat.parse(startTime);
-            
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(start);
-            calendar.add(Calendar.MINUTE, durationMinutes);
-            
-            return timeFormat.format(calendar.getTime());
-        } catch (Exception e) {
-            return startTime; // Fallback to start time if parsing fails
-        }
-    }
-
     private void showLoading(boolean show) {
         progressBar.setVisibility(show ? View.VISIBLE : View.GONE);
         btnSubmit.setEnabled(!show);
@@ -535,12 +484,4 @@ public class AddInstanceActivity extends AppCompatActivity {
             super.onBackPressed();
         }
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (instanceRepository != null) {
-            instanceRepository.cleanup();
-        }
-    }
 }
\ No newline at end of file
@@ -7,27 +7,28 @@ import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.universalyoga.adminapp.R;
 import com.universalyoga.adminapp.adapters.InstanceAdapter;
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.database.CourseDao;
-import com.universalyoga.adminapp.database.InstanceDao;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
-import java.util.List;
-import java.util.concurrent.Executors;
+import com.universalyoga.adminapp.repository.InstanceRepository;
+import com.universalyoga.adminapp.viewmodels.InstanceViewModel;
+import com.universalyoga.adminapp.viewmodels.AppViewModelFactory;
 import android.app.AlertDialog;
 import com.google.android.material.snackbar.Snackbar;
 import android.view.View;
 import com.universalyoga.adminapp.activities.EditInstanceActivity;
+import com.universalyoga.adminapp.utils.AppExecutors;
 
 public class ClassInstanceActivity extends AppCompatActivity implements InstanceAdapter.OnInstanceActionListener {
     private RecyclerView rvInstances;
-    private InstanceDao instanceDao;
     private CourseDao courseDao;
     private InstanceAdapter adapter;
+    private InstanceViewModel viewModel;
     private int courseId;
     private TextView tvCourseName;
     
@@ -45,7 +46,6 @@ public class ClassInstanceActivity extends AppCompatActivity implements Instance
             return;
         }
 
-        instanceDao = AppDatabase.getInstance(this).instanceDao();
         courseDao = AppDatabase.getInstance(this).courseDao();
         rvInstances = findViewById(R.id.instanceRecycler);
         rvInstances.setLayoutManager(new LinearLayoutManager(this));
@@ -64,7 +64,7 @@ public class ClassInstanceActivity extends AppCompatActivity implements Instance
     }
 
     private void loadCourseDetails() {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             YogaCourse course = courseDao.getById(courseId);
             runOnUiThread(() -> {
                 if (course != null) {
@@ -77,14 +77,11 @@ public class ClassInstanceActivity extends AppCompatActivity implements Instance
     }
     
     private void observeInstances() {
-        adapter = new InstanceAdapter(java.util.Collections.emptyList(), this);
+        adapter = new InstanceAdapter(this);
         rvInstances.setAdapter(adapter);
-        instanceDao.getByCourse(courseId).observe(this, new Observer<List<YogaInstance>>() {
-            @Override
-            public void onChanged(List<YogaInstance> instances) {
-                adapter.updateInstances(instances);
-            }
-        });
+        viewModel = new ViewModelProvider(this, AppViewModelFactory.getInstance(getApplication())).get(InstanceViewModel.class);
+        viewModel.setCourseId(courseId);
+        viewModel.getInstancePages().observe(this, pagingData -> adapter.submitData(getLifecycle(), pagingData));
     }
 
     public void onInstanceClick(YogaInstance instance) {
@@ -102,15 +99,16 @@ public class ClassInstanceActivity extends AppCompatActivity implements Instance
             .setTitle("Delete Instance")
             .setMessage("Are you sure you want to delete this instance?")
             .setPositiveButton("Delete", (dialog, which) -> {
-                Executors.newSingleThreadExecutor().execute(() -> {
-                    int result = instanceDao.delete(instance);
-                    runOnUiThread(() -> {
-                        if (result > 0) {
-                            Snackbar.make(findViewById(android.R.id.content), "Instance deleted!", Snackbar.LENGTH_SHORT).show();
-                        } else {
-                            Snackbar.make(findViewById(android.R.id.content), "Delete failed!", Snackbar.LENGTH_LONG).show();
-                        }
-                    });
+                viewModel.deleteInstance(instance, new InstanceRepository.OnInstanceOperationCallback() {
+                    @Override
+                    public void onSuccess(YogaInstance deleted) {
+                        runOnUiThread(() -> Snackbar.make(findViewById(android.R.id.content), "Instance deleted!", Snackbar.LENGTH_SHORT).show());
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        runOnUiThread(() -> Snackbar.make(findViewById(android.R.id.content), "Delete failed!", Snackbar.LENGTH_LONG).show());
+                    }
                 });
             })
             .setNegativeButton("Cancel", null)
@@ -14,7 +14,7 @@ import com.universalyoga.adminapp.database.ActivityDao;
 import com.universalyoga.adminapp.database.SyncHistoryDao;
 import com.universalyoga.adminapp.utils.DatabaseResetUtil;
 import com.universalyoga.adminapp.utils.ToastHelper;
-import java.util.concurrent.Executors;
+import com.universalyoga.adminapp.utils.AppExecutors;
 
 public class DatabaseManagementActivity extends AppCompatActivity {
     private Button btnResetAll;
@@ -43,7 +43,7 @@ public class DatabaseManagementActivity extends AppCompatActivity {
         initializeViews();
         setupListeners();
         
-        resetUtil = new DatabaseResetUtil(this);
+        resetUtil = new DatabaseResetUtil(this, AppExecutors.getInstance());
         database = AppDatabase.getInstance(this);
         
         // Load initial stats
@@ -68,7 +68,7 @@ public class DatabaseManagementActivity extends AppCompatActivity {
     }
     
     private void loadDatabaseStats() {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             try {
                 CourseDao courseDao = database.courseDao();
                 InstanceDao instanceDao = database.instanceDao();
@@ -91,8 +91,15 @@ public class DatabaseManagementActivity extends AppCompatActivity {
                     courseCount + instanceCount + activityCount + syncHistoryCount
                 );
                 
+                // Executor metrics: queue depth, active threads and task latency per pool
+                StringBuilder threads = new StringBuilder(stats).append("\n\n🧵 Background Threads");
+                for (AppExecutors.PoolStats pool : AppExecutors.getInstance().getStats()) {
+                    threads.append("\n").append(pool);
+                }
+                String text = threads.toString();
+                
                 runOnUiThread(() -> {
-                    tvDatabaseStats.setText(stats);
+                    tvDatabaseStats.setText(text);
                 });
                 
             } catch (Exception e) {
@@ -7,6 +7,7 @@ import android.widget.Toast;
 import com.universalyoga.adminapp.database.CourseDao;
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.repository.CourseRepository;
 import com.universalyoga.adminapp.utils.ToastHelper;
 import com.universalyoga.adminapp.R;
 import com.google.android.material.textfield.MaterialAutoCompleteTextView;
@@ -48,6 +49,7 @@ public class EditCourseActivity extends AppCompatActivity {
     // Data
     private int courseId;
     private CourseDao courseDao;
+    private CourseRepository courseRepository;
     private Map<String, String> errors = new HashMap<>();
     private YogaCourse originalCourse;
     
@@ -75,6 +77,7 @@ public class EditCourseActivity extends AppCompatActivity {
         setupClickListeners();
         
         courseDao = AppDatabase.getInstance(this).courseDao();
+        courseRepository = new CourseRepository(this);
         loadCourse();
     }
     
@@ -521,23 +524,26 @@ public class EditCourseActivity extends AppCompatActivity {
             0 // syncStatus
         );
         
-        // Update in database
-        new Thread(() -> {
-            try {
-                courseDao.update(updatedCourse);
+        // Update in database; the repository also moves the course's instances to the new time and capacity
+        courseRepository.updateCourse(updatedCourse, new CourseRepository.OnCourseOperationCallback() {
+            @Override
+            public void onSuccess(YogaCourse course) {
                 runOnUiThread(() -> {
                     progressBar.setVisibility(View.GONE);
                     btnSave.setEnabled(true);
                     ToastHelper.showSuccessToast(EditCourseActivity.this, "Class updated successfully!");
                     finish();
                 });
-        } catch (Exception e) {
+            }
+
+            @Override
+            public void onError(String error) {
                 runOnUiThread(() -> {
                     progressBar.setVisibility(View.GONE);
                     btnSave.setEnabled(true);
-                    Snackbar.make(findViewById(android.R.id.content), "Error: " + e.getMessage(), Snackbar.LENGTH_LONG).show();
+                    Snackbar.make(findViewById(android.R.id.content), "Error: " + error, Snackbar.LENGTH_LONG).show();
                 });
             }
-        }).start();
+        });
     }
 }
\ No newline at end of file
@@ -15,10 +15,12 @@ import com.universalyoga.adminapp.database.CourseDao;
 import com.universalyoga.adminapp.database.InstanceDao;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.repository.InstanceRepository;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+import com.universalyoga.adminapp.utils.AppExecutors;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Locale;
-import java.util.concurrent.Executors;
 import android.view.View;
 import com.google.android.material.appbar.MaterialToolbar;
 import android.app.TimePickerDialog;
@@ -37,6 +39,7 @@ public class EditInstanceActivity extends AppCompatActivity {
     private Button btnSave, btnCancel;
     private InstanceDao instanceDao;
     private CourseDao courseDao;
+    private InstanceRepository instanceRepository;
     private View progressBar;
     private int instanceId;
     private YogaCourse associatedCourse;
@@ -61,6 +64,7 @@ public class EditInstanceActivity extends AppCompatActivity {
 
         instanceDao = AppDatabase.getInstance(this).instanceDao();
         courseDao = AppDatabase.getInstance(this).courseDao();
+        instanceRepository = new InstanceRepository(this);
 
         autoCourse = findViewById(R.id.autoCourse);
         etDate = findViewById(R.id.etDate);
@@ -185,33 +189,13 @@ public class EditInstanceActivity extends AppCompatActivity {
                 throw new Exception("Unable to parse date in any supported format");
             }
             
-            // Get the day name from the selected date
-            String selectedDayFull = new SimpleDateFormat("EEEE", Locale.ENGLISH).format(selectedCalendar.getTime());
-
-            android.util.Log.d("EditInstanceActivity", "Validating date: " + date);
-            android.util.Log.d("EditInstanceActivity", "Selected day (full): " + selectedDayFull);
+            // Check the selected weekday against the course's day mask
+            int selectedDayBit = ScheduleUtils.calendarDayBit(selectedCalendar.get(Calendar.DAY_OF_WEEK));
 
             if (associatedCourse != null) {
-                String courseDays = associatedCourse.getDaysOfWeek();
-                android.util.Log.d("EditInstanceActivity", "Course days: " + courseDays);
-                
-                boolean match = false;
-                if (courseDays != null) {
-                    // Split by comma and check each day
-                    for (String day : courseDays.split(",")) {
-                        String trimmedDay = day.trim();
-                        android.util.Log.d("EditInstanceActivity", "Checking course day: '" + trimmedDay + "'");
-                        
-                        // Check if the selected day matches the course day (both should be full day names)
-                        if (selectedDayFull.equalsIgnoreCase(trimmedDay)) {
-                            android.util.Log.d("EditInstanceActivity", "Day match found!");
-                            match = true;
-                            break;
-                        }
-                    }
-                }
+                boolean match = (associatedCourse.getDaysMask() & selectedDayBit) != 0;
                 if (!match) {
-                    android.util.Log.e("EditInstanceActivity", "No day match found. Course days: " + courseDays + ", Selected: " + selectedDayFull);
+                    android.util.Log.e("EditInstanceActivity", "No day match found. Course days: " + associatedCourse.getDaysOfWeek() + ", Selected: " + ScheduleUtils.toDaysText(selectedDayBit));
                     Toast.makeText(this, "Selected date's day does not match course schedule", Toast.LENGTH_LONG).show();
                     return false;
                 }
@@ -288,7 +272,7 @@ public class EditInstanceActivity extends AppCompatActivity {
 
 
     private void loadInstanceData() {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             YogaInstance instance = instanceDao.getById(instanceId);
             if (instance != null) {
                 associatedCourse = courseDao.getById(instance.getCourseId());
@@ -454,58 +438,23 @@ public class EditInstanceActivity extends AppCompatActivity {
 
             // Use formattedDate for saving
             progressBar.setVisibility(View.VISIBLE);
-            Executors.newSingleThreadExecutor().execute(() -> {
-                try {
-                    android.util.Log.d("EditInstanceActivity", "Starting database update in background thread");
-                    
-                    // Get the current instance data on background thread
-                    YogaInstance currentInstance = instanceDao.getById(instanceId);
-                    if (currentInstance == null) {
-                        android.util.Log.e("EditInstanceActivity", "Current instance not found for ID: " + instanceId);
-                        runOnUiThread(() -> {
-                            progressBar.setVisibility(View.GONE);
-                            Toast.makeText(this, "Instance not found", Toast.LENGTH_SHORT).show();
-                        });
-                        return;
-                    }
-                    
-                    YogaInstance updatedInstance = new YogaInstance(instanceId, associatedCourse.getId(), formattedDate, teacher, comments, 0, startTime, endTime, attendees, capacity);
-                    android.util.Log.d("EditInstanceActivity", "Created updated instance with ID: " + updatedInstance.getId());
-                    android.util.Log.d("EditInstanceActivity", "Instance data - CourseID: " + updatedInstance.getCourseId() + 
-                                     ", Date: " + updatedInstance.getDate() + 
-                                     ", Teacher: " + updatedInstance.getTeacher() + 
-                                     ", Attendees: " + updatedInstance.getEnrolled() + 
-                                     ", Capacity: " + updatedInstance.getCapacity());
-                    
-                    int result = instanceDao.update(updatedInstance);
-                    android.util.Log.d("EditInstanceActivity", "Database update result: " + result);
-                    
-                    // Verify the update by reading back the instance
-                    YogaInstance verifyInstance = instanceDao.getById(instanceId);
-                    if (verifyInstance != null) {
-                        android.util.Log.d("EditInstanceActivity", "Verification - Updated instance data: " +
-                                         "Date: " + verifyInstance.getDate() + 
-                                         ", Teacher: " + verifyInstance.getTeacher() + 
-                                         ", Attendees: " + verifyInstance.getEnrolled());
-                    } else {
-                        android.util.Log.e("EditInstanceActivity", "Verification failed - Could not read back updated instance");
-                    }
-                    
+            YogaInstance updatedInstance = new YogaInstance(instanceId, associatedCourse.getId(), formattedDate, teacher, comments, 0, startTime, endTime, attendees, capacity);
+            instanceRepository.updateInstance(updatedInstance, new InstanceRepository.OnInstanceOperationCallback() {
+                @Override
+                public void onSuccess(YogaInstance instance) {
                     runOnUiThread(() -> {
                         progressBar.setVisibility(View.GONE);
-                        if (result > 0) {
-                            Toast.makeText(this, "Instance updated successfully!", Toast.LENGTH_SHORT).show();
-                            finish();
-                        } else {
-                            android.util.Log.e("EditInstanceActivity", "Update returned 0 rows affected");
-                            Snackbar.make(findViewById(android.R.id.content), "Update failed! No rows were updated.", Snackbar.LENGTH_LONG).show();
-                        }
+                        Toast.makeText(EditInstanceActivity.this, "Instance updated successfully!", Toast.LENGTH_SHORT).show();
+                        finish();
                     });
-                } catch (Exception e) {
-                    android.util.Log.e("EditInstanceActivity", "Error updating instance: " + e.getMessage(), e);
+                }
+
+                @Override
+                public void onError(String error) {
+                    android.util.Log.e("EditInstanceActivity", "Error updating instance: " + error);
                     runOnUiThread(() -> {
                         progressBar.setVisibility(View.GONE);
-                        Snackbar.make(findViewById(android.R.id.content), "Database error: " + e.getMessage(), Snackbar.LENGTH_LONG).show();
+                        Snackbar.make(findViewById(android.R.id.content), "Database error: " + error, Snackbar.LENGTH_LONG).show();
                     });
                 }
             });
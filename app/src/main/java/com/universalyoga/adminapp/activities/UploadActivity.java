@@ -15,13 +15,13 @@ import com.universalyoga.adminapp.models.YogaInstance;
 import com.universalyoga.adminapp.network.ApiClient;
 import com.universalyoga.adminapp.network.ApiService;
 import java.util.List;
-import java.util.concurrent.Executors;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.universalyoga.adminapp.services.FirebaseService;
 import com.universalyoga.adminapp.utils.NetworkUtils;
+import com.universalyoga.adminapp.utils.AppExecutors;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -59,7 +59,7 @@ public class UploadActivity extends AppCompatActivity {
         tvStatus.setText("Preparing data for upload...");
         progressBar.setProgress(0);
 
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             List<YogaCourse> coursesToUpload = courseDao.getAll();
             List<YogaInstance> instancesToUpload = instanceDao.getAll();
 
@@ -6,22 +6,35 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.universalyoga.adminapp.R;
 import com.universalyoga.adminapp.models.Activity;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
-public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.ActivityViewHolder> {
-    private List<Activity> activities = new ArrayList<>();
+public class ActivityAdapter extends PagingDataAdapter<Activity, ActivityAdapter.ActivityViewHolder> {
 
-    public void setActivities(List<Activity> activities) {
-        this.activities = activities != null ? activities : new ArrayList<>();
-        notifyDataSetChanged();
+    private static final DiffUtil.ItemCallback<Activity> DIFF_CALLBACK = new DiffUtil.ItemCallback<Activity>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Activity oldItem, @NonNull Activity newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Activity oldItem, @NonNull Activity newItem) {
+            return Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getTimestamp(), newItem.getTimestamp())
+                    && Objects.equals(oldItem.getType(), newItem.getType());
+        }
+    };
+
+    public ActivityAdapter() {
+        super(DIFF_CALLBACK);
     }
 
     @NonNull
@@ -35,7 +48,7 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
     @Override
     public void onBindViewHolder(@NonNull ActivityViewHolder holder, int position) {
         try {
-            Activity activity = activities.get(position);
+            Activity activity = getItem(position);
             if (activity != null) {
                 holder.bind(activity);
             } else {
@@ -46,11 +59,6 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return activities.size();
-    }
-
     static class ActivityViewHolder extends RecyclerView.ViewHolder {
         private ImageView ivActivityIcon;
         private TextView tvActivityDescription;
@@ -5,6 +5,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.universalyoga.adminapp.R;
 import com.universalyoga.adminapp.models.YogaCourse;
@@ -12,11 +14,26 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
-public class CourseListAdapter extends RecyclerView.Adapter<CourseListAdapter.ViewHolder> {
-    private List<YogaCourse> courses;
+public class CourseListAdapter extends PagingDataAdapter<YogaCourse, CourseListAdapter.ViewHolder> {
+    private static final Object PAYLOAD_INSTANCE_COUNT = new Object();
+    
     private Map<Integer, Integer> courseInstanceCounts = new HashMap<>();
     
+    // Rows are edited in place; updatedAt changes with every content edit
+    private static final DiffUtil.ItemCallback<YogaCourse> DIFF_CALLBACK = new DiffUtil.ItemCallback<YogaCourse>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull YogaCourse oldItem, @NonNull YogaCourse newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull YogaCourse oldItem, @NonNull YogaCourse newItem) {
+            return oldItem.getUpdatedAt() == newItem.getUpdatedAt();
+        }
+    };
+    
     public interface OnCourseClickListener {
         void onCourseClick(YogaCourse course);
     }
@@ -29,8 +46,8 @@ public class CourseListAdapter extends RecyclerView.Adapter<CourseListAdapter.Vi
     }
     private OnCourseActionListener actionListener;
 
-    public CourseListAdapter(List<YogaCourse> courses, OnCourseClickListener listener, OnCourseActionListener actionListener) {
-        this.courses = courses;
+    public CourseListAdapter(OnCourseClickListener listener, OnCourseActionListener actionListener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
         this.actionListener = actionListener;
     }
@@ -44,28 +61,41 @@ public class CourseListAdapter extends RecyclerView.Adapter<CourseListAdapter.Vi
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        YogaCourse course = courses.get(position);
-        holder.bind(course, listener, actionListener);
+        YogaCourse course = getItem(position);
+        if (course != null) {
+            holder.bind(course, listener, actionListener);
+        } else {
+            holder.bindPlaceholder();
+        }
     }
-
+    
     @Override
-    public int getItemCount() {
-        return courses.size();
-    }
-
-    public void updateCourses(List<YogaCourse> newCourses) {
-        this.courses = newCourses;
-        notifyDataSetChanged();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        YogaCourse course = getItem(position);
+        if (course != null && !payloads.isEmpty() && payloads.stream().allMatch(p -> p == PAYLOAD_INSTANCE_COUNT)) {
+            holder.bindInstanceCount(course);
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
     
+    /**
+     * Replace the instance counts, rebinding only the loaded rows whose badge changed
+     */
     public void updateInstanceCounts(Map<Integer, Integer> instanceCounts) {
-        this.courseInstanceCounts.clear();
-        this.courseInstanceCounts.putAll(instanceCounts);
-        notifyDataSetChanged();
+        Map<Integer, Integer> previous = courseInstanceCounts;
+        courseInstanceCounts = new HashMap<>(instanceCounts);
+        for (int position = 0; position < getItemCount(); position++) {
+            // peek reads loaded rows without triggering page loads
+            YogaCourse course = peek(position);
+            if (course != null && !Objects.equals(previous.get(course.getId()), courseInstanceCounts.get(course.getId()))) {
+                notifyItemChanged(position, PAYLOAD_INSTANCE_COUNT);
+            }
+        }
     }
 
     public YogaCourse getCourseAt(int position) {
-        return courses.get(position);
+        return getItem(position);
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -93,6 +123,35 @@ public class CourseListAdapter extends RecyclerView.Adapter<CourseListAdapter.Vi
             btnDelete = itemView.findViewById(R.id.btnDelete);
         }
 
+        // Row not loaded yet; blank it until its page arrives
+        public void bindPlaceholder() {
+            tvCourseTitle.setText("");
+            tvCourseSchedule.setText("");
+            tvCourseTime.setText("");
+            tvPrice.setText("");
+            tvDuration.setText("");
+            tvCapacity.setText("");
+            tvLocation.setText("");
+            tvInstructor.setText("");
+            tvInstancesCount.setText("");
+            tvAdditionalInfo.setVisibility(View.GONE);
+            tvDifficultyBadge.setVisibility(View.GONE);
+            itemView.setOnClickListener(null);
+            if (btnViewInstances != null) btnViewInstances.setOnClickListener(null);
+            if (btnEdit != null) btnEdit.setOnClickListener(null);
+            if (btnDelete != null) btnDelete.setOnClickListener(null);
+        }
+
+        void bindInstanceCount(YogaCourse course) {
+            // Instances count - show actual count or placeholder
+            Integer instanceCount = courseInstanceCounts.get(course.getId());
+            if (instanceCount != null && instanceCount > 0) {
+                tvInstancesCount.setText(instanceCount + " instance" + (instanceCount > 1 ? "s" : ""));
+            } else {
+                tvInstancesCount.setText("0 instances");
+            }
+        }
+        
         public void bind(final YogaCourse course, final OnCourseClickListener listener, final OnCourseActionListener actionListener) {
             // Basic course information - use type as course name
             tvCourseTitle.setText(course.getType());
@@ -129,13 +188,7 @@ public class CourseListAdapter extends RecyclerView.Adapter<CourseListAdapter.Vi
                 tvAdditionalInfo.setVisibility(View.GONE);
             }
             
-            // Instances count - show actual count or placeholder
-            Integer instanceCount = courseInstanceCounts.get(course.getId());
-            if (instanceCount != null && instanceCount > 0) {
-                tvInstancesCount.setText(instanceCount + " instance" + (instanceCount > 1 ? "s" : ""));
-            } else {
-                tvInstancesCount.setText("0 instances");
-            }
+            bindInstanceCount(course);
             
             // Difficulty badge
             String difficulty = course.getDifficulty();
@@ -6,6 +6,8 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.universalyoga.adminapp.R;
@@ -13,20 +15,45 @@ import com.universalyoga.adminapp.models.CustomerBooking;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.text.ParseException;
 import java.util.TimeZone;
 
-public class CustomerBookingAdapter extends RecyclerView.Adapter<CustomerBookingAdapter.ViewHolder> {
-    private List<CustomerBooking> bookings;
+public class CustomerBookingAdapter extends ListAdapter<CustomerBooking, CustomerBookingAdapter.ViewHolder> {
+    private static final Object PAYLOAD_STATUS = new Object();
+
+    // Compares only what a row shows; a change of status alone rebinds just the status
+    private static final DiffUtil.ItemCallback<CustomerBooking> DIFF_CALLBACK = new DiffUtil.ItemCallback<CustomerBooking>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CustomerBooking oldItem, @NonNull CustomerBooking newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CustomerBooking oldItem, @NonNull CustomerBooking newItem) {
+            return sameDetails(oldItem, newItem) && Objects.equals(oldItem.getStatus(), newItem.getStatus());
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull CustomerBooking oldItem, @NonNull CustomerBooking newItem) {
+            return sameDetails(oldItem, newItem) ? PAYLOAD_STATUS : null;
+        }
+    };
+
+    // Booking keys are strings; each is given a number once so that ids stay stable and unique
+    private final Map<String, Long> itemIds = new HashMap<>();
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy 'at' HH:mm", Locale.getDefault());
     private SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
     private SimpleDateFormat isoFormatNoMs = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
 
-    public CustomerBookingAdapter(List<CustomerBooking> bookings) {
-        this.bookings = bookings;
+    public CustomerBookingAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
         
         // Set timezone to UTC for ISO parsing
         isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -43,18 +70,62 @@ public class CustomerBookingAdapter extends RecyclerView.Adapter<CustomerBooking
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        CustomerBooking booking = bookings.get(position);
-        holder.bind(booking);
+        holder.bind(getItem(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(p -> p == PAYLOAD_STATUS)) {
+            holder.bindStatus(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     @Override
-    public int getItemCount() {
-        return bookings.size();
+    public long getItemId(int position) {
+        String id = getItem(position).getId();
+        Long itemId = itemIds.get(id);
+        if (itemId == null) {
+            itemId = (long) itemIds.size();
+            itemIds.put(id, itemId);
+        }
+        return itemId;
     }
 
-    public void updateBookings(List<CustomerBooking> newBookings) {
-        this.bookings = newBookings;
-        notifyDataSetChanged();
+    /**
+     * Show a new list of bookings; rows are diffed in the background and only changed rows rebind
+     */
+    public void updateBookings(List<CustomerBooking> newBookings, Runnable onApplied) {
+        submitList(newBookings, onApplied);
+    }
+
+    private static boolean sameDetails(CustomerBooking a, CustomerBooking b) {
+        if (!Objects.equals(a.getEmail(), b.getEmail())
+                || !Objects.equals(a.getBookingDate(), b.getBookingDate())
+                || a.getTotalAmount() != b.getTotalAmount()
+                || a.getTotalClasses() != b.getTotalClasses()) {
+            return false;
+        }
+        List<CustomerBooking.BookingClass> classesA = a.getClasses();
+        List<CustomerBooking.BookingClass> classesB = b.getClasses();
+        if (classesA == null || classesB == null) {
+            return classesA == classesB;
+        }
+        if (classesA.size() != classesB.size()) {
+            return false;
+        }
+        for (int i = 0; i < classesA.size(); i++) {
+            CustomerBooking.BookingClass classA = classesA.get(i);
+            CustomerBooking.BookingClass classB = classesB.get(i);
+            if (!Objects.equals(classA.getCourseName(), classB.getCourseName())
+                    || !Objects.equals(classA.getInstructor(), classB.getInstructor())
+                    || classA.getQuantity() != classB.getQuantity()
+                    || classA.getPrice() != classB.getPrice()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private String formatBookingDate(String bookingDate) {
@@ -157,7 +228,6 @@ public class CustomerBookingAdapter extends RecyclerView.Adapter<CustomerBooking
             
             tvTotalAmount.setText(String.format("£%.2f", booking.getTotalAmount()));
             tvTotalClasses.setText(booking.getTotalClasses() + " class(es)");
-            tvStatus.setText(booking.getStatus());
             
             // Build classes list
             StringBuilder classesText = new StringBuilder();
@@ -176,6 +246,12 @@ public class CustomerBookingAdapter extends RecyclerView.Adapter<CustomerBooking
             }
             tvClassesList.setText(classesText.toString());
             
+            bindStatus(booking);
+        }
+
+        public void bindStatus(CustomerBooking booking) {
+            tvStatus.setText(booking.getStatus());
+            
             // Set status color
             if ("confirmed".equalsIgnoreCase(booking.getStatus())) {
                 tvStatus.setTextColor(itemView.getContext().getResources().getColor(android.R.color.holo_green_dark));
@@ -7,27 +7,63 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.appcompat.widget.PopupMenu;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.core.content.ContextCompat;
 import android.content.res.ColorStateList;
 import com.universalyoga.adminapp.R;
-import com.universalyoga.adminapp.database.AppDatabase;
-import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.InstanceWithCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
 import java.util.List;
-import java.util.concurrent.Executors;
+import java.util.Objects;
 
-public class InstanceAdapter extends RecyclerView.Adapter<InstanceAdapter.ViewHolder> {
-    private List<YogaInstance> instances;
+public class InstanceAdapter extends PagingDataAdapter<InstanceWithCourse, InstanceAdapter.ViewHolder> {
     private OnInstanceActionListener listener;
 
+    private static final Object PAYLOAD_ENROLLMENT = new Object();
+
+    // Compares only what a row shows, so sync status changes do not rebind rows;
+    // a change to enrollment alone rebinds just the enrollment views
+    private static final DiffUtil.ItemCallback<InstanceWithCourse> DIFF_CALLBACK = new DiffUtil.ItemCallback<InstanceWithCourse>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull InstanceWithCourse oldItem, @NonNull InstanceWithCourse newItem) {
+            return oldItem.instance.getId() == newItem.instance.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull InstanceWithCourse oldItem, @NonNull InstanceWithCourse newItem) {
+            return sameDetails(oldItem, newItem) && sameEnrollment(oldItem.instance, newItem.instance);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull InstanceWithCourse oldItem, @NonNull InstanceWithCourse newItem) {
+            return sameDetails(oldItem, newItem) ? PAYLOAD_ENROLLMENT : null;
+        }
+    };
+
+    private static boolean sameDetails(InstanceWithCourse oldItem, InstanceWithCourse newItem) {
+        YogaInstance a = oldItem.instance;
+        YogaInstance b = newItem.instance;
+        return Objects.equals(a.getDate(), b.getDate())
+                && Objects.equals(a.getStartTime(), b.getStartTime())
+                && Objects.equals(a.getEndTime(), b.getEndTime())
+                && Objects.equals(a.getTeacher(), b.getTeacher())
+                && Objects.equals(a.getComments(), b.getComments())
+                && oldItem.sameCourseAs(newItem);
+    }
+
+    private static boolean sameEnrollment(YogaInstance a, YogaInstance b) {
+        return a.getEnrolled() == b.getEnrolled() && a.getCapacity() == b.getCapacity();
+    }
+
     public interface OnInstanceActionListener {
         void onEditClick(YogaInstance instance);
         void onDeleteClick(YogaInstance instance);
     }
 
-    public InstanceAdapter(List<YogaInstance> instances, OnInstanceActionListener listener) {
-        this.instances = instances;
+    public InstanceAdapter(OnInstanceActionListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
     }
 
@@ -41,18 +77,22 @@ public class InstanceAdapter extends RecyclerView.Adapter<InstanceAdapter.ViewHo
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        YogaInstance instance = instances.get(position);
-        holder.bind(instance);
+        InstanceWithCourse item = getItem(position);
+        if (item != null) {
+            holder.bind(item);
+        } else {
+            holder.bindPlaceholder();
+        }
     }
 
     @Override
-    public int getItemCount() {
-        return instances.size();
-    }
-
-    public void updateInstances(List<YogaInstance> newInstances) {
-        this.instances = newInstances;
-        notifyDataSetChanged();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        InstanceWithCourse item = getItem(position);
+        if (item != null && !payloads.isEmpty() && payloads.stream().allMatch(p -> p == PAYLOAD_ENROLLMENT)) {
+            holder.bindEnrollment(item.instance);
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -75,39 +115,54 @@ public class InstanceAdapter extends RecyclerView.Adapter<InstanceAdapter.ViewHo
             btnDelete = itemView.findViewById(R.id.btnDelete);
         }
 
-        public void bind(YogaInstance instance) {
-            AppDatabase db = AppDatabase.getInstance(itemView.getContext());
-            // Fetch course details on a background thread
-            Executors.newSingleThreadExecutor().execute(() -> {
-                YogaCourse course = db.courseDao().getById(instance.getCourseId());
-                itemView.post(() -> {
-                    if (course != null) {
-                        tvCourseName.setText(course.getCourseName());
-                        // Display comments if available, otherwise show a default message
-                        String comments = instance.getComments();
-                        if (comments != null && !comments.trim().isEmpty()) {
-                            tvInstanceDetails.setText(comments);
-                        } else {
-                            tvInstanceDetails.setText(String.format("Class instance for %s", course.getCourseName()));
-                        }
-                        tvLocation.setText(course.getRoomLocation() != null ? course.getRoomLocation() : "TBD");
-                    } else {
-                        tvCourseName.setText("Unknown Course"); // Fallback for missing course
-                        // Display comments if available, otherwise show a default message
-                        String comments = instance.getComments();
-                        if (comments != null && !comments.trim().isEmpty()) {
-                            tvInstanceDetails.setText(comments);
-                        } else {
-                            tvInstanceDetails.setText("Class instance details");
-                        }
-                        tvLocation.setText("TBD");
-                    }
-                });
-            });
+        // Row not loaded yet; blank it until its page arrives
+        public void bindPlaceholder() {
+            tvCourseName.setText("");
+            tvDate.setText("");
+            tvInstanceDetails.setText("");
+            tvTime.setText("");
+            tvTeacher.setText("");
+            tvEnrollment.setText("");
+            tvLocation.setText("");
+            tvEnrollmentProgress.setText("");
+            progressEnrollment.setProgress(0);
+            if (btnEdit != null) btnEdit.setOnClickListener(null);
+            if (btnDelete != null) btnDelete.setOnClickListener(null);
+        }
+
+        public void bind(InstanceWithCourse item) {
+            YogaInstance instance = item.instance;
+            // Course fields come joined with the row, so binding never touches the database
+            String courseName = item.courseType;
+            String comments = instance.getComments();
+            if (courseName != null) {
+                tvCourseName.setText(courseName);
+                // Display comments if available, otherwise show a default message
+                if (comments != null && !comments.trim().isEmpty()) {
+                    tvInstanceDetails.setText(comments);
+                } else {
+                    tvInstanceDetails.setText(String.format("Class instance for %s", courseName));
+                }
+                tvLocation.setText(item.courseRoomLocation != null ? item.courseRoomLocation : "TBD");
+            } else {
+                tvCourseName.setText("Unknown Course"); // Fallback for missing course
+                // Display comments if available, otherwise show a default message
+                if (comments != null && !comments.trim().isEmpty()) {
+                    tvInstanceDetails.setText(comments);
+                } else {
+                    tvInstanceDetails.setText("Class instance details");
+                }
+                tvLocation.setText("TBD");
+            }
 
             tvDate.setText(instance.getDate());
             tvTime.setText(instance.getStartTime() + " - " + instance.getEndTime());
             tvTeacher.setText(instance.getTeacher());
+            bindEnrollment(instance);
+        }
+
+        // Enrollment views only, for rows whose other fields did not change
+        public void bindEnrollment(YogaInstance instance) {
             tvEnrollment.setText(instance.getEnrolled() + "/" + instance.getCapacity() + " enrolled");
 
             // Calculate and set enrollment progress
@@ -116,8 +171,11 @@ public class InstanceAdapter extends RecyclerView.Adapter<InstanceAdapter.ViewHo
             int progress = capacity > 0 ? (enrolled * 100) / capacity : 0;
             tvEnrollmentProgress.setText(progress + "%");
             progressEnrollment.setProgress(progress);
+            bindActions(instance);
+        }
 
-            // Button click listeners
+        // Rebound with every bind so that the buttons hand out the current row
+        private void bindActions(YogaInstance instance) {
             if (btnEdit != null) {
                 btnEdit.setOnClickListener(v -> {
                     if (listener != null) {
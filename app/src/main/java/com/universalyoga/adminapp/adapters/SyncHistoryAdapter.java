@@ -5,24 +5,36 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.universalyoga.adminapp.R;
 import com.universalyoga.adminapp.models.SyncHistory;
-import java.util.List;
-import java.util.ArrayList;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Objects;
 
-public class SyncHistoryAdapter extends RecyclerView.Adapter<SyncHistoryAdapter.ViewHolder> {
-    private List<SyncHistory> syncHistories;
+public class SyncHistoryAdapter extends PagingDataAdapter<SyncHistory, SyncHistoryAdapter.ViewHolder> {
 
-    public SyncHistoryAdapter() {
-        this.syncHistories = new ArrayList<>();
-    }
+    // A history row is written when a sync starts and updated once when it ends
+    private static final DiffUtil.ItemCallback<SyncHistory> DIFF_CALLBACK = new DiffUtil.ItemCallback<SyncHistory>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull SyncHistory oldItem, @NonNull SyncHistory newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull SyncHistory oldItem, @NonNull SyncHistory newItem) {
+            return Objects.equals(oldItem.getStatus(), newItem.getStatus())
+                    && Objects.equals(oldItem.getDuration(), newItem.getDuration())
+                    && oldItem.getRecordsAcked() == newItem.getRecordsAcked()
+                    && oldItem.getRetryCount() == newItem.getRetryCount();
+        }
+    };
 
-    public SyncHistoryAdapter(List<SyncHistory> syncHistories) {
-        this.syncHistories = syncHistories != null ? syncHistories : new ArrayList<>();
+    public SyncHistoryAdapter() {
+        super(DIFF_CALLBACK);
     }
 
     @NonNull
@@ -35,22 +47,16 @@ public class SyncHistoryAdapter extends RecyclerView.Adapter<SyncHistoryAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        SyncHistory syncHistory = syncHistories.get(position);
-        holder.bind(syncHistory);
-    }
-
-    @Override
-    public int getItemCount() {
-        return syncHistories.size();
-    }
-
-    public void setData(List<SyncHistory> newSyncHistories) {
-        this.syncHistories = newSyncHistories != null ? newSyncHistories : new ArrayList<>();
-        notifyDataSetChanged();
+        SyncHistory syncHistory = getItem(position);
+        if (syncHistory != null) {
+            holder.bind(syncHistory);
+        } else {
+            holder.bindPlaceholder();
+        }
     }
 
     public SyncHistory getSyncHistoryAt(int position) {
-        return syncHistories.get(position);
+        return getItem(position);
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -64,6 +70,14 @@ public class SyncHistoryAdapter extends RecyclerView.Adapter<SyncHistoryAdapter.
             tvSyncDetails = itemView.findViewById(R.id.tvSyncDetails);
         }
 
+        // Row not loaded yet; blank it until its page arrives
+        public void bindPlaceholder() {
+            tvSyncType.setText("");
+            tvSyncStatus.setText("");
+            tvSyncTime.setText("");
+            tvSyncDetails.setVisibility(View.GONE);
+        }
+
         public void bind(SyncHistory syncHistory) {
             // Set sync type
             String type = syncHistory.getType() != null ? syncHistory.getType() : "Unknown";
@@ -95,23 +109,20 @@ public class SyncHistoryAdapter extends RecyclerView.Adapter<SyncHistoryAdapter.
             tvSyncStatus.setTextColor(statusColor);
 
             // Set sync time
-            String timestamp = syncHistory.getTimestamp();
-            if (timestamp != null && !timestamp.isEmpty()) {
-                try {
-                    long timeInMillis = Long.parseLong(timestamp);
-                    SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, HH:mm", Locale.getDefault());
-                    String formattedTime = sdf.format(new Date(timeInMillis));
-                    tvSyncTime.setText(formattedTime);
-                } catch (NumberFormatException e) {
-                    tvSyncTime.setText(timestamp);
-                }
+            long timestamp = syncHistory.getTimestamp();
+            if (timestamp > 0) {
+                SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, HH:mm", Locale.getDefault());
+                tvSyncTime.setText(sdf.format(new Date(timestamp)));
             } else {
                 tvSyncTime.setText("Unknown time");
             }
 
             // Set sync details based on available data
             StringBuilder details = new StringBuilder();
-            if (syncHistory.getRecordsUploaded() != null) {
+            if (syncHistory.getRecordsTotal() > 0) {
+                details.append(syncHistory.getRecordsAcked()).append("/")
+                        .append(syncHistory.getRecordsTotal()).append(" records acknowledged");
+            } else if (syncHistory.getRecordsUploaded() != null) {
                 SyncHistory.Records records = syncHistory.getRecordsUploaded();
                 if (records.total > 0) {
                     details.append(records.total).append(" records uploaded");
@@ -119,7 +130,31 @@ public class SyncHistoryAdapter extends RecyclerView.Adapter<SyncHistoryAdapter.
             }
             if (syncHistory.getDataSize() > 0) {
                 if (details.length() > 0) details.append(", ");
-                details.append(syncHistory.getDataSize()).append("KB");
+                details.append("~").append(syncHistory.getDataSize()).append("KB"); // Estimated
+            }
+            Integer duration = syncHistory.getDuration();
+            if (syncHistory.getRecordsPerSecond() > 0) {
+                details.append(String.format(Locale.UK, ", %.1f records/s", syncHistory.getRecordsPerSecond()));
+            } else if (syncHistory.getRecordsAcked() > 0 && duration != null && duration > 0) {
+                details.append(String.format(Locale.UK, ", %.1f records/s",
+                        syncHistory.getRecordsAcked() * 1000.0 / duration));
+            }
+            if (syncHistory.getRetryCount() > 0) {
+                details.append(", ").append(syncHistory.getRetryCount()).append(" retried");
+            }
+            
+            // Where the time went
+            SyncHistory.PhaseTimings timings = syncHistory.getPhaseTimings();
+            if (timings != null) {
+                if (details.length() > 0) details.append("\n");
+                details.append(String.format(Locale.UK,
+                        "%dms: read %dms, serialize %dms, RTDB %dms, Firestore %dms, deletes %dms, local %dms",
+                        duration != null ? duration : 0, timings.localRead, timings.serialization,
+                        timings.realtimeWrite, timings.firestoreWrite, timings.deletionSync, timings.localUpdate));
+            }
+            if (syncHistory.getErrors() != null && !syncHistory.getErrors().isEmpty()) {
+                if (details.length() > 0) details.append("\n");
+                details.append(syncHistory.getErrors().get(0));
             }
             
             if (details.length() > 0) {
@@ -8,6 +8,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 import com.google.android.material.snackbar.Snackbar;
 import com.universalyoga.adminapp.R;
+import com.universalyoga.adminapp.viewmodels.AppViewModelFactory;
 
 /**
  * Base activity class that provides common functionality for all activities.
@@ -123,7 +124,7 @@ public abstract class BaseActivity extends AppCompatActivity {
      * Get ViewModel with proper lifecycle management
      */
     protected <T extends androidx.lifecycle.ViewModel> T getViewModel(Class<T> modelClass) {
-        return new ViewModelProvider(this).get(modelClass);
+        return new ViewModelProvider(this, AppViewModelFactory.getInstance(getApplication())).get(modelClass);
     }
     
     /**
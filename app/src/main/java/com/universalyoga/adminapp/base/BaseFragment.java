@@ -9,6 +9,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import com.google.android.material.snackbar.Snackbar;
 import com.universalyoga.adminapp.R;
+import com.universalyoga.adminapp.viewmodels.AppViewModelFactory;
 
 /**
  * Base fragment class that provides common functionality for all fragments.
@@ -122,7 +123,7 @@ public abstract class BaseFragment extends Fragment {
      * Get ViewModel with proper lifecycle management
      */
     protected <T extends androidx.lifecycle.ViewModel> T getViewModel(Class<T> modelClass) {
-        return new ViewModelProvider(this).get(modelClass);
+        return new ViewModelProvider(this, AppViewModelFactory.getInstance(requireActivity().getApplication())).get(modelClass);
     }
     
     /**
@@ -3,8 +3,7 @@ package com.universalyoga.adminapp.base;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 /**
  * Base ViewModel class that provides common functionality for all ViewModels.
@@ -12,12 +11,17 @@ import java.util.concurrent.Executors;
  */
 public abstract class BaseViewModel extends ViewModel {
     
-    protected final ExecutorService executor = Executors.newFixedThreadPool(4);
+    // Shared pool; it outlives the ViewModel and is never shut down here
+    protected final Executor executor;
     
     protected final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     protected final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     protected final MutableLiveData<String> successMessage = new MutableLiveData<>();
     
+    protected BaseViewModel(Executor executor) {
+        this.executor = executor;
+    }
+    
     /**
      * Get loading state LiveData
      */
@@ -105,10 +109,4 @@ public abstract class BaseViewModel extends ViewModel {
             }
         });
     }
-    
-    @Override
-    protected void onCleared() {
-        super.onCleared();
-        executor.shutdown();
-    }
 } 
\ No newline at end of file
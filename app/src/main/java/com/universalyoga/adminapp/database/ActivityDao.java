@@ -3,6 +3,7 @@ package com.universalyoga.adminapp.database;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 import androidx.room.Delete;
 import androidx.lifecycle.LiveData;
@@ -14,6 +15,10 @@ public interface ActivityDao {
     @Insert
     void insert(Activity activity);
 
+    // One transaction for the whole batch
+    @Insert
+    void insertAll(List<Activity> activities);
+
     @Update
     void update(Activity activity);
 
@@ -23,15 +28,29 @@ public interface ActivityDao {
     @Query("DELETE FROM activity")
     void deleteAll();
 
-    @Query("SELECT * FROM activity ORDER BY timestamp DESC")
-    LiveData<List<Activity>> getAllLive();
-
-    @Query("SELECT * FROM activity ORDER BY timestamp DESC LIMIT :limit")
+    @Query("SELECT * FROM activity ORDER BY loggedAt DESC LIMIT :limit")
     LiveData<List<Activity>> getRecentLive(int limit);
 
     @Query("SELECT * FROM activity WHERE id = :id LIMIT 1")
     Activity getById(String id);
     
+    // Newest loggedAt, 0 if the log is empty
+    @Query("SELECT IFNULL(MAX(loggedAt), 0) FROM activity")
+    long getLastLoggedAt();
+
+    @Query("DELETE FROM activity WHERE loggedAt < :cutoffMillis")
+    int deleteOlderThan(long cutoffMillis);
+
+    @Query("DELETE FROM activity WHERE id IN " +
+           "(SELECT id FROM activity ORDER BY loggedAt DESC LIMIT -1 OFFSET :maxRows)")
+    int deleteBeyond(int maxRows);
+
+    // Retention pass: drops entries logged before cutoffMillis, then all but the newest maxRows
+    @Transaction
+    default int compact(long cutoffMillis, int maxRows) {
+        return deleteOlderThan(cutoffMillis) + deleteBeyond(maxRows);
+    }
+
     // Count method for database management
     @Query("SELECT COUNT(*) FROM activity")
     int getActivityCount();
@@ -1,21 +1,415 @@
 package com.universalyoga.adminapp.database;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
 import com.universalyoga.adminapp.models.Activity;
 import com.universalyoga.adminapp.models.SyncHistory;
+import com.universalyoga.adminapp.models.OutboxOperation;
+import com.universalyoga.adminapp.models.CourseFts;
+import com.universalyoga.adminapp.models.InstanceFts;
+import com.universalyoga.adminapp.models.DashboardStats;
+import com.universalyoga.adminapp.models.SyncDailySummary;
 
-@Database(entities = {YogaCourse.class, YogaInstance.class, Activity.class, SyncHistory.class}, version = 2, exportSchema = false)
+@Database(entities = {YogaCourse.class, YogaInstance.class, Activity.class, SyncHistory.class, OutboxOperation.class,
+        CourseFts.class, InstanceFts.class, DashboardStats.class,
+        SyncDailySummary.class}, version = 13, exportSchema = false)
+@TypeConverters(Converters.class)
 public abstract class AppDatabase extends RoomDatabase {
     private static volatile AppDatabase INSTANCE;
     public abstract CourseDao courseDao();
     public abstract InstanceDao instanceDao();
     public abstract ActivityDao activityDao();
     public abstract SyncHistoryDao syncHistoryDao();
+    public abstract OutboxDao outboxDao();
+    public abstract DashboardDao dashboardDao();
+
+    // Current time in epoch millis, evaluated inside SQLite
+    private static final String SQL_NOW_MILLIS = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    // Epoch day of an instance date ("EEEE, dd/MM/yyyy", "dd/MM/yyyy" or "yyyy-MM-dd"), -1 if unparseable.
+    // Must accept the same formats as ScheduleUtils.toEpochDay.
+    static String sqlEpochDay(String date) {
+        String trimmed = "trim(" + date + ")";
+        return "IFNULL(CASE " +
+                "WHEN " + trimmed + " GLOB '*[0-9][0-9]/[0-9][0-9]/[0-9][0-9][0-9][0-9]' THEN CAST(julianday(" +
+                "substr(" + trimmed + ", -4) || '-' || substr(" + trimmed + ", -7, 2) || '-' || substr(" + trimmed + ", -10, 2)" +
+                ") - 2440587.5 AS INTEGER) " +
+                "WHEN " + trimmed + " GLOB '[0-9][0-9][0-9][0-9]-[0-9][0-9]-[0-9][0-9]*' THEN CAST(julianday(" +
+                "substr(" + trimmed + ", 1, 10)) - 2440587.5 AS INTEGER) " +
+                "END, -1)";
+    }
+
+    // Minutes after midnight of an "HH:mm" or "H:mm" time, -1 if unparseable
+    static String sqlStartMinute(String time) {
+        String trimmed = "trim(" + time + ")";
+        return "CASE " +
+                "WHEN " + trimmed + " GLOB '[0-9][0-9]:[0-9][0-9]*' THEN " +
+                "CAST(substr(" + trimmed + ", 1, 2) AS INTEGER) * 60 + CAST(substr(" + trimmed + ", 4, 2) AS INTEGER) " +
+                "WHEN " + trimmed + " GLOB '[0-9]:[0-9][0-9]*' THEN " +
+                "CAST(substr(" + trimmed + ", 1, 1) AS INTEGER) * 60 + CAST(substr(" + trimmed + ", 3, 2) AS INTEGER) " +
+                "ELSE -1 END";
+    }
+
+    // Day mask of a comma-separated day list; each entry counts by its first three letters.
+    // Must match ScheduleUtils.parseDays.
+    static String sqlDaysMask(String days) {
+        String normalized = "(',' || replace(lower(" + days + "), ' ', ''))";
+        String[] abbreviations = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+        StringBuilder mask = new StringBuilder("IFNULL(");
+        for (int day = 0; day < abbreviations.length; day++) {
+            if (day > 0) {
+                mask.append(" | ");
+            }
+            mask.append("(CASE WHEN instr(").append(normalized).append(", ',").append(abbreviations[day])
+                    .append("') > 0 THEN ").append(1 << day).append(" ELSE 0 END)");
+        }
+        return mask.append(", 0)").toString();
+    }
+
+    // Version 3: change tracking columns and triggers for delta sync
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE courses ADD COLUMN updatedAt INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE instances ADD COLUMN updatedAt INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE courses SET updatedAt = " + SQL_NOW_MILLIS);
+            db.execSQL("UPDATE instances SET updatedAt = " + SQL_NOW_MILLIS);
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_courses_syncStatus ON courses (syncStatus)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_instances_syncStatus ON instances (syncStatus)");
+            createChangeTrackingTriggers(db);
+        }
+    };
+
+    // Version 4: acknowledged upload progress on sync history
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN recordsAcked INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN recordsTotal INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN bytesUploaded INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Version 5: durable sync outbox, seeded from rows that were not yet synced
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS sync_outbox (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "entityType TEXT NOT NULL, entityId INTEGER NOT NULL, courseId INTEGER NOT NULL, " +
+                    "operation TEXT NOT NULL, enqueuedAt INTEGER NOT NULL, attempts INTEGER NOT NULL, " +
+                    "nextAttemptAt INTEGER NOT NULL, lastError TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS index_sync_outbox_entityType_entityId ON sync_outbox (entityType, entityId)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_sync_outbox_nextAttemptAt ON sync_outbox (nextAttemptAt)");
+            db.execSQL("INSERT OR REPLACE INTO sync_outbox (entityType, entityId, courseId, operation, enqueuedAt, attempts, nextAttemptAt) " +
+                    "SELECT 'course', id, id, CASE WHEN syncStatus = 2 THEN 'delete' ELSE 'upsert' END, " +
+                    SQL_NOW_MILLIS + ", 0, 0 FROM courses WHERE syncStatus != 1");
+            db.execSQL("INSERT OR REPLACE INTO sync_outbox (entityType, entityId, courseId, operation, enqueuedAt, attempts, nextAttemptAt) " +
+                    "SELECT 'instance', id, courseId, CASE WHEN syncStatus = 2 THEN 'delete' ELSE 'upsert' END, " +
+                    SQL_NOW_MILLIS + ", 0, 0 FROM instances WHERE syncStatus != 1");
+            createOutboxTriggers(db);
+        }
+    };
+
+    // Version 6: sync telemetry (structured fields stored as JSON via Converters)
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN recordsProcessed TEXT");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN recordsUploaded TEXT");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN recordsSkipped TEXT");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN errors TEXT");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN recordsPerSecond REAL NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN phaseTimings TEXT");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN networkSpeed TEXT");
+            db.execSQL("ALTER TABLE sync_history ADD COLUMN deviceInfo TEXT");
+        }
+    };
+
+    // Version 7: per-backend retry state on outbox operations (3 = both backends)
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE sync_outbox ADD COLUMN pendingBackends INTEGER NOT NULL DEFAULT 3");
+        }
+    };
+
+    // Version 8: indexed epoch day and start minute parsed from the instance date strings
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE instances ADD COLUMN epochDay INTEGER NOT NULL DEFAULT -1");
+            db.execSQL("ALTER TABLE instances ADD COLUMN startMinute INTEGER NOT NULL DEFAULT -1");
+            // Derived columns only: the change tracking and outbox triggers ignore this update
+            db.execSQL("UPDATE instances SET epochDay = " + sqlEpochDay("date") +
+                    ", startMinute = " + sqlStartMinute("startTime"));
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_instances_epochDay_startMinute ON instances (epochDay, startMinute)");
+            createScheduleTriggers(db);
+        }
+    };
+
+    // Version 9: FTS4 search tables. Room recreates the courses_fts content sync triggers
+    // after every migration; instances_fts is filled and kept current by our own triggers.
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `courses_fts` USING FTS4(`type` TEXT, `instructor` TEXT, " +
+                    "`daysOfWeek` TEXT, `difficulty` TEXT, `roomLocation` TEXT, `description` TEXT, content=`courses`)");
+            db.execSQL("INSERT INTO courses_fts(courses_fts) VALUES ('rebuild')");
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `instances_fts` USING FTS4(`courseType` TEXT, `teacher` TEXT, " +
+                    "`date` TEXT, `comments` TEXT)");
+            db.execSQL("INSERT INTO instances_fts (docid, courseType, teacher, date, comments) " +
+                    "SELECT instances.id, courses.type, instances.teacher, instances.date, instances.comments " +
+                    "FROM instances LEFT JOIN courses ON courses.id = instances.courseId");
+            createSearchTriggers(db);
+        }
+    };
+
+    // Version 10: day-of-week bitmask parsed from the course day lists
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE courses ADD COLUMN daysMask INTEGER NOT NULL DEFAULT 0");
+            // Derived column only: the change tracking and outbox triggers ignore this update
+            db.execSQL("UPDATE courses SET daysMask = " + sqlDaysMask("daysOfWeek"));
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_courses_daysMask ON courses (daysMask)");
+            createDaysMaskTriggers(db);
+        }
+    };
+
+    // Version 11: single-row dashboard totals maintained by triggers
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `dashboard_stats` (`id` INTEGER NOT NULL, " +
+                    "`courseCount` INTEGER NOT NULL DEFAULT 0, `totalCapacity` INTEGER NOT NULL DEFAULT 0, " +
+                    "`instanceCount` INTEGER NOT NULL DEFAULT 0, `totalEnrolled` INTEGER NOT NULL DEFAULT 0, " +
+                    "`revenue` REAL NOT NULL DEFAULT 0, PRIMARY KEY(`id`))");
+            db.execSQL(DashboardDao.REBUILD);
+            createDashboardTriggers(db);
+        }
+    };
+
+    // Version 12: sync_history timestamps become indexed epoch millis (SQLite cannot change
+    // a column's type, so the table is rebuilt), plus daily roll-ups of pruned syncs
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sync_history_new` (`id` TEXT NOT NULL, `timestamp` INTEGER NOT NULL, " +
+                    "`status` TEXT, `type` TEXT, `trigger` TEXT, `duration` INTEGER, `recordsProcessed` TEXT, " +
+                    "`recordsUploaded` TEXT, `recordsSkipped` TEXT, `errors` TEXT, `retryCount` INTEGER NOT NULL, " +
+                    "`dataSize` INTEGER NOT NULL, `recordsAcked` INTEGER NOT NULL DEFAULT 0, " +
+                    "`recordsTotal` INTEGER NOT NULL DEFAULT 0, `bytesUploaded` INTEGER NOT NULL DEFAULT 0, " +
+                    "`recordsPerSecond` REAL NOT NULL DEFAULT 0, `phaseTimings` TEXT, `networkSpeed` TEXT, " +
+                    "`deviceInfo` TEXT, PRIMARY KEY(`id`))");
+            // Millis strings convert directly; "yyyy-MM-dd HH:mm:ss" strings (sample data) go through julianday
+            db.execSQL("INSERT INTO sync_history_new SELECT id, " +
+                    "CASE WHEN trim(timestamp) != '' AND trim(timestamp) NOT GLOB '*[^0-9]*' THEN CAST(trim(timestamp) AS INTEGER) " +
+                    "ELSE IFNULL(CAST((julianday(timestamp) - 2440587.5) * 86400000 AS INTEGER), 0) END, " +
+                    "status, type, `trigger`, duration, recordsProcessed, recordsUploaded, recordsSkipped, errors, " +
+                    "retryCount, dataSize, recordsAcked, recordsTotal, bytesUploaded, recordsPerSecond, " +
+                    "phaseTimings, networkSpeed, deviceInfo FROM sync_history");
+            db.execSQL("DROP TABLE sync_history");
+            db.execSQL("ALTER TABLE sync_history_new RENAME TO sync_history");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_sync_history_timestamp` ON `sync_history` (`timestamp`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sync_history_daily` (`epochDay` INTEGER NOT NULL, " +
+                    "`syncCount` INTEGER NOT NULL, `successCount` INTEGER NOT NULL, `totalDuration` INTEGER NOT NULL, " +
+                    "`recordsAcked` INTEGER NOT NULL, `bytesUploaded` INTEGER NOT NULL, PRIMARY KEY(`epochDay`))");
+        }
+    };
+
+    // Version 13: activity entries sort and expire by epoch millis. All-digit ids (millis from
+    // the repositories, zero-padded millis from ActivityLogger) carry the time they were
+    // logged; UUID ids only have the local "yyyy-MM-dd HH:mm:ss" timestamp.
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE activity ADD COLUMN loggedAt INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE activity SET loggedAt = " +
+                    "CASE WHEN id != '' AND id NOT GLOB '*[^0-9]*' THEN CAST(id AS INTEGER) " +
+                    "ELSE IFNULL(CAST(strftime('%s', timestamp, 'utc') AS INTEGER) * 1000, 0) END");
+            db.execSQL("DROP INDEX IF EXISTS index_activity_timestamp");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_activity_loggedAt` ON `activity` (`loggedAt`)");
+        }
+    };
+
+    private static final String COURSE_CONTENT_CHANGED =
+            "(OLD.daysOfWeek IS NOT NEW.daysOfWeek OR OLD.time IS NOT NEW.time " +
+            "OR OLD.capacity IS NOT NEW.capacity OR OLD.duration IS NOT NEW.duration " +
+            "OR OLD.price IS NOT NEW.price OR OLD.type IS NOT NEW.type " +
+            "OR OLD.description IS NOT NEW.description OR OLD.roomLocation IS NOT NEW.roomLocation " +
+            "OR OLD.instructor IS NOT NEW.instructor OR OLD.difficulty IS NOT NEW.difficulty)";
+
+    private static final String INSTANCE_CONTENT_CHANGED =
+            "(OLD.courseId IS NOT NEW.courseId OR OLD.date IS NOT NEW.date " +
+            "OR OLD.teacher IS NOT NEW.teacher OR OLD.comments IS NOT NEW.comments " +
+            "OR OLD.startTime IS NOT NEW.startTime OR OLD.endTime IS NOT NEW.endTime " +
+            "OR OLD.enrolled IS NOT NEW.enrolled OR OLD.capacity IS NOT NEW.capacity)";
+
+    /**
+     * Triggers that keep updatedAt and syncStatus current whenever a row's content changes,
+     * so every write path (repositories, activities, utilities) feeds the delta sync.
+     * Rows pending deletion (syncStatus = 2) keep their status.
+     */
+    static void createChangeTrackingTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_track_insert AFTER INSERT ON courses " +
+                "BEGIN UPDATE courses SET updatedAt = " + SQL_NOW_MILLIS + " WHERE id = NEW.id; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_track_update AFTER UPDATE ON courses " +
+                "WHEN " + COURSE_CONTENT_CHANGED + " " +
+                "BEGIN UPDATE courses SET updatedAt = " + SQL_NOW_MILLIS + ", " +
+                "syncStatus = CASE WHEN NEW.syncStatus = 2 THEN 2 ELSE 0 END WHERE id = NEW.id; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_track_insert AFTER INSERT ON instances " +
+                "BEGIN UPDATE instances SET updatedAt = " + SQL_NOW_MILLIS + " WHERE id = NEW.id; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_track_update AFTER UPDATE ON instances " +
+                "WHEN " + INSTANCE_CONTENT_CHANGED + " " +
+                "BEGIN UPDATE instances SET updatedAt = " + SQL_NOW_MILLIS + ", " +
+                "syncStatus = CASE WHEN NEW.syncStatus = 2 THEN 2 ELSE 0 END WHERE id = NEW.id; END");
+    }
+
+    /**
+     * Triggers that enqueue an upsert in sync_outbox for every inserted or edited row.
+     * INSERT OR REPLACE coalesces with any upsert already pending for the same row.
+     * Deletes are enqueued explicitly by the repositories.
+     */
+    static void createOutboxTriggers(SupportSQLiteDatabase db) {
+        String enqueueCourse = "INSERT OR REPLACE INTO sync_outbox " +
+                "(entityType, entityId, courseId, operation, enqueuedAt, attempts, nextAttemptAt) " +
+                "VALUES ('course', NEW.id, NEW.id, 'upsert', " + SQL_NOW_MILLIS + ", 0, 0); ";
+        String enqueueInstance = "INSERT OR REPLACE INTO sync_outbox " +
+                "(entityType, entityId, courseId, operation, enqueuedAt, attempts, nextAttemptAt) " +
+                "VALUES ('instance', NEW.id, NEW.courseId, 'upsert', " + SQL_NOW_MILLIS + ", 0, 0); ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_outbox_insert AFTER INSERT ON courses " +
+                "WHEN NEW.syncStatus != 2 BEGIN " + enqueueCourse + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_outbox_update AFTER UPDATE ON courses " +
+                "WHEN NEW.syncStatus != 2 AND " + COURSE_CONTENT_CHANGED + " BEGIN " + enqueueCourse + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_outbox_insert AFTER INSERT ON instances " +
+                "WHEN NEW.syncStatus != 2 BEGIN " + enqueueInstance + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_outbox_update AFTER UPDATE ON instances " +
+                "WHEN NEW.syncStatus != 2 AND " + INSTANCE_CONTENT_CHANGED + " BEGIN " + enqueueInstance + "END");
+    }
+
+    /**
+     * Triggers that derive epochDay and startMinute from date and startTime on every insert
+     * and update, whatever value the writer supplied, so the indexed columns never go stale.
+     */
+    static void createScheduleTriggers(SupportSQLiteDatabase db) {
+        String derive = "UPDATE instances SET epochDay = " + sqlEpochDay("NEW.date") +
+                ", startMinute = " + sqlStartMinute("NEW.startTime") + " WHERE id = NEW.id; ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_schedule_insert AFTER INSERT ON instances " +
+                "BEGIN " + derive + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_schedule_update AFTER UPDATE ON instances " +
+                "WHEN NEW.epochDay IS NOT " + sqlEpochDay("NEW.date") +
+                " OR NEW.startMinute IS NOT " + sqlStartMinute("NEW.startTime") + " " +
+                "BEGIN " + derive + "END");
+    }
+
+    /**
+     * Triggers that derive daysMask from daysOfWeek on every insert and update.
+     */
+    static void createDaysMaskTriggers(SupportSQLiteDatabase db) {
+        String derive = "UPDATE courses SET daysMask = " + sqlDaysMask("NEW.daysOfWeek") + " WHERE id = NEW.id; ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_days_insert AFTER INSERT ON courses " +
+                "BEGIN " + derive + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_days_update AFTER UPDATE ON courses " +
+                "WHEN NEW.daysMask IS NOT " + sqlDaysMask("NEW.daysOfWeek") + " " +
+                "BEGIN " + derive + "END");
+    }
+
+    /**
+     * Triggers that mirror instances, joined with their course type, into instances_fts.
+     * Course deletes cascade to instances and so reach the index through the delete trigger.
+     */
+    static void createSearchTriggers(SupportSQLiteDatabase db) {
+        String index = "INSERT INTO instances_fts (docid, courseType, teacher, date, comments) " +
+                "VALUES (NEW.id, (SELECT type FROM courses WHERE id = NEW.courseId), " +
+                "NEW.teacher, NEW.date, NEW.comments); ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_search_insert AFTER INSERT ON instances " +
+                "BEGIN " + index + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_search_update AFTER UPDATE ON instances " +
+                "WHEN OLD.id IS NOT NEW.id OR OLD.courseId IS NOT NEW.courseId OR OLD.teacher IS NOT NEW.teacher " +
+                "OR OLD.date IS NOT NEW.date OR OLD.comments IS NOT NEW.comments " +
+                "BEGIN DELETE FROM instances_fts WHERE docid = OLD.id; " + index + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_search_delete AFTER DELETE ON instances " +
+                "BEGIN DELETE FROM instances_fts WHERE docid = OLD.id; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_search_update AFTER UPDATE ON courses " +
+                "WHEN OLD.type IS NOT NEW.type " +
+                "BEGIN UPDATE instances_fts SET courseType = NEW.type " +
+                "WHERE docid IN (SELECT id FROM instances WHERE courseId = NEW.id); END");
+    }
+
+    // Price of a course not pending deletion, 0 otherwise
+    private static String sqlActivePrice(String courseId) {
+        return "IFNULL((SELECT price FROM courses WHERE id = " + courseId + " AND syncStatus != 2), 0)";
+    }
+
+    // Enrollment over a course's instances not pending deletion
+    private static String sqlActiveEnrolled(String courseId) {
+        return "(SELECT IFNULL(SUM(enrolled), 0) FROM instances WHERE courseId = " + courseId + " AND syncStatus != 2)";
+    }
+
+    // SET clause adding (sign "+") or removing (sign "-") one course's share of dashboard_stats.
+    // column is a format turning a column name into its value, e.g. "OLD.%s".
+    private static String courseStats(String sign, String column) {
+        String active = "IFNULL(" + String.format(column, "syncStatus") + " != 2, 0)";
+        return "courseCount = courseCount " + sign + " " + active + ", " +
+                "totalCapacity = totalCapacity " + sign + " (CASE WHEN " + active + " THEN " +
+                String.format(column, "capacity") + " ELSE 0 END), " +
+                "revenue = revenue " + sign + " (CASE WHEN " + active + " THEN " + String.format(column, "price") +
+                " * " + sqlActiveEnrolled(String.format(column, "id")) + " ELSE 0 END)";
+    }
+
+    // SET clause adding or removing one instance's share of dashboard_stats, as courseStats
+    private static String instanceStats(String sign, String column) {
+        String active = "IFNULL(" + String.format(column, "syncStatus") + " != 2, 0)";
+        return "instanceCount = instanceCount " + sign + " " + active + ", " +
+                "totalEnrolled = totalEnrolled " + sign + " (CASE WHEN " + active + " THEN " +
+                String.format(column, "enrolled") + " ELSE 0 END), " +
+                "revenue = revenue " + sign + " (CASE WHEN " + active + " THEN " + String.format(column, "enrolled") +
+                " * " + sqlActivePrice(String.format(column, "courseId")) + " ELSE 0 END)";
+    }
+
+    /**
+     * Triggers that apply every course and instance change to the dashboard_stats row as a delta.
+     * INSERT OR REPLACE removes the row it replaces without firing delete triggers, so a
+     * BEFORE INSERT trigger takes that row's share out first. A deleted or replaced course
+     * takes its instances' revenue with it; its cascaded instances then find no course and
+     * remove only their count and enrollment.
+     */
+    static void createDashboardTriggers(SupportSQLiteDatabase db) {
+        String update = "UPDATE dashboard_stats SET ";
+        String row = " WHERE id = 0; ";
+        String existingCourse = "(SELECT %s FROM courses WHERE id = NEW.id)";
+        String existingInstance = "(SELECT %s FROM instances WHERE id = NEW.id)";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_stats_replace BEFORE INSERT ON courses " +
+                "BEGIN " + update + courseStats("-", existingCourse) + row + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_stats_insert AFTER INSERT ON courses " +
+                "BEGIN " + update + courseStats("+", "NEW.%s") + row + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_stats_update AFTER UPDATE ON courses " +
+                "WHEN (OLD.syncStatus != 2) IS NOT (NEW.syncStatus != 2) OR OLD.capacity IS NOT NEW.capacity " +
+                "OR OLD.price IS NOT NEW.price OR OLD.id IS NOT NEW.id " +
+                "BEGIN " + update + courseStats("-", "OLD.%s") + row +
+                update + courseStats("+", "NEW.%s") + row + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_stats_delete BEFORE DELETE ON courses " +
+                "BEGIN " + update + courseStats("-", "OLD.%s") + row + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_stats_replace BEFORE INSERT ON instances " +
+                "BEGIN " + update + instanceStats("-", existingInstance) + row + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_stats_insert AFTER INSERT ON instances " +
+                "BEGIN " + update + instanceStats("+", "NEW.%s") + row + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_stats_update AFTER UPDATE ON instances " +
+                "WHEN (OLD.syncStatus != 2) IS NOT (NEW.syncStatus != 2) OR OLD.enrolled IS NOT NEW.enrolled " +
+                "OR OLD.courseId IS NOT NEW.courseId OR OLD.id IS NOT NEW.id " +
+                "BEGIN " + update + instanceStats("-", "OLD.%s") + row +
+                update + instanceStats("+", "NEW.%s") + row + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS instances_stats_delete AFTER DELETE ON instances " +
+                "BEGIN " + update + instanceStats("-", "OLD.%s") + row + "END");
+    }
 
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
@@ -23,10 +417,23 @@ public abstract class AppDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             AppDatabase.class, "yoga_courses.db")
+                            .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13)
+                            .addCallback(new Callback() {
+                                @Override
+                                public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                    createChangeTrackingTriggers(db);
+                                    createOutboxTriggers(db);
+                                    createScheduleTriggers(db);
+                                    createSearchTriggers(db);
+                                    createDaysMaskTriggers(db);
+                                    db.execSQL(DashboardDao.REBUILD);
+                                    createDashboardTriggers(db);
+                                }
+                            })
                             .build();
                 }
             }
         }
         return INSTANCE;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.universalyoga.adminapp.database;
+
+import androidx.room.TypeConverter;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.universalyoga.adminapp.models.SyncHistory;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Stores the structured sync history fields as JSON text columns.
+ */
+public class Converters {
+    private static final Gson GSON = new Gson();
+    private static final Type STRING_LIST = new TypeToken<List<String>>() {}.getType();
+
+    @TypeConverter
+    public static String fromRecords(SyncHistory.Records records) {
+        return records == null ? null : GSON.toJson(records);
+    }
+
+    @TypeConverter
+    public static SyncHistory.Records toRecords(String json) {
+        return json == null ? null : GSON.fromJson(json, SyncHistory.Records.class);
+    }
+
+    @TypeConverter
+    public static String fromPhaseTimings(SyncHistory.PhaseTimings timings) {
+        return timings == null ? null : GSON.toJson(timings);
+    }
+
+    @TypeConverter
+    public static SyncHistory.PhaseTimings toPhaseTimings(String json) {
+        return json == null ? null : GSON.fromJson(json, SyncHistory.PhaseTimings.class);
+    }
+
+    @TypeConverter
+    public static String fromDeviceInfo(SyncHistory.DeviceInfo deviceInfo) {
+        return deviceInfo == null ? null : GSON.toJson(deviceInfo);
+    }
+
+    @TypeConverter
+    public static SyncHistory.DeviceInfo toDeviceInfo(String json) {
+        return json == null ? null : GSON.fromJson(json, SyncHistory.DeviceInfo.class);
+    }
+
+    @TypeConverter
+    public static String fromStringList(List<String> values) {
+        return values == null ? null : GSON.toJson(values);
+    }
+
+    @TypeConverter
+    public static List<String> toStringList(String json) {
+        return json == null ? null : GSON.fromJson(json, STRING_LIST);
+    }
+}
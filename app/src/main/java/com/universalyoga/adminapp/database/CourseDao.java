@@ -1,8 +1,12 @@
 package com.universalyoga.adminapp.database;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.*;
+import androidx.sqlite.db.SupportSQLiteQuery;
 import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+import java.util.ArrayList;
 import java.util.List;
 
 @Dao
@@ -25,22 +29,44 @@ public interface CourseDao {
     @Query("SELECT * FROM courses ORDER BY id DESC")
     List<YogaCourse> getAll();
     
+    // Paged course list; build the query with CourseFilter.toQuery
+    @RawQuery(observedEntities = YogaCourse.class)
+    PagingSource<Integer, YogaCourse> getPaged(SupportSQLiteQuery query);
+    
     @Query("SELECT * FROM courses WHERE id = :id LIMIT 1")
     YogaCourse getById(int id);
 
     @Query("SELECT * FROM courses WHERE id = :id LIMIT 1")
     LiveData<YogaCourse> getByIdLive(int id);
 
-    @Query("SELECT * FROM courses WHERE " +
-           "type LIKE :query OR " +
-           "daysOfWeek LIKE :query OR " +
-           "difficulty LIKE :query OR " +
-           "instructor LIKE :query")
+    // Full-text search; query is a MATCH expression from FtsSearch.toMatchQuery
+    @Query("SELECT courses.* FROM courses JOIN courses_fts ON courses.id = courses_fts.docid " +
+           "WHERE courses_fts MATCH :query AND courses.syncStatus != 2")
     LiveData<List<YogaCourse>> searchCourses(String query);
     
+    @Query("SELECT courses_fts.docid AS id, matchinfo(courses_fts, 'pcx') AS matchInfo FROM courses_fts " +
+           "JOIN courses ON courses.id = courses_fts.docid " +
+           "WHERE courses_fts MATCH :query AND courses.syncStatus != 2")
+    List<FtsSearch.Match> searchMatches(String query);
+    
+    // Column weights for ranking, in CourseFts column order
+    double[] SEARCH_WEIGHTS = {3.0, 2.0, 1.0, 1.0, 1.0, 0.5};
+    
+    // Ids of the courses matching free text by word prefix, most relevant first
+    default List<Integer> searchCourseIds(String text) {
+        String query = FtsSearch.toMatchQuery(text);
+        if (query == null) {
+            return new ArrayList<>();
+        }
+        return FtsSearch.rank(searchMatches(query), SEARCH_WEIGHTS, FtsSearch.MAX_RESULTS);
+    }
+    
     // Filter methods
-    @Query("SELECT * FROM courses WHERE daysOfWeek LIKE :day")
-    LiveData<List<YogaCourse>> getByDay(String day);
+    // Courses running on any of the given days. Pass ScheduleUtils.overlappingMasks(days):
+    // matching the stored mask against that list seeks the daysMask index, where a
+    // bitwise predicate would scan every row.
+    @Query("SELECT * FROM courses WHERE daysMask IN (:masks)")
+    LiveData<List<YogaCourse>> getByDay(int[] masks);
     
     @Query("SELECT * FROM courses WHERE type LIKE :type")
     LiveData<List<YogaCourse>> getByType(String type);
@@ -58,14 +84,57 @@ public interface CourseDao {
     @Query("UPDATE courses SET syncStatus = :status WHERE id = :courseId")
     void updateSyncStatus(int courseId, int status);
     
+    // Delta sync: rows named by pending outbox operations
+    @Query("SELECT * FROM courses WHERE id IN (:courseIds) AND syncStatus != 2")
+    List<YogaCourse> getByIds(List<Integer> courseIds);
+    
+    @Query("SELECT id FROM courses WHERE id IN (:courseIds) AND syncStatus != 2")
+    List<Integer> getActiveIds(List<Integer> courseIds);
+    
+    // Only flips the row if it has not been edited again since it was read for upload
+    @Query("UPDATE courses SET syncStatus = 1 WHERE id = :courseId AND syncStatus = 0 AND updatedAt = :updatedAt")
+    int markSyncedIfUnchanged(int courseId, long updatedAt);
+    
+    @Transaction
+    default int markSynced(List<YogaCourse> courses) {
+        int marked = 0;
+        for (YogaCourse course : courses) {
+            marked += markSyncedIfUnchanged(course.getId(), course.getUpdatedAt());
+        }
+        return marked;
+    }
+    
+    // Copies a course's schedule to its instances, clamping enrollment to the new capacity;
+    // instances pending deletion are left alone
+    @Query("UPDATE instances SET startTime = :startTime, endTime = :endTime, capacity = :capacity, " +
+           "enrolled = MIN(enrolled, :capacity) WHERE courseId = :courseId AND syncStatus != 2")
+    int updateInstanceSchedules(int courseId, String startTime, String endTime, int capacity);
+    
+    // Updates the course and cascades its schedule to its instances in one transaction.
+    // Returns the number of instances updated.
+    @Transaction
+    default int updateWithInstances(YogaCourse course) {
+        update(course);
+        return updateInstanceSchedules(course.getId(), course.getTime(),
+                ScheduleUtils.toEndTime(course.getTime(), course.getDuration()), course.getCapacity());
+    }
+    
     // Delete by ID
     @Query("DELETE FROM courses WHERE id = :courseId")
     void deleteById(int courseId);
     
+    // Purge synced tombstones; rows that are not pending delete are left alone
+    @Query("DELETE FROM courses WHERE syncStatus = 2 AND id IN (:courseIds)")
+    int deletePendingByIds(List<Integer> courseIds);
+    
     // Statistics
     @Query("SELECT COUNT(*) FROM courses")
     LiveData<Integer> getCount();
     
+    // Courses shown in lists, i.e. not pending deletion
+    @Query("SELECT COUNT(*) FROM courses WHERE syncStatus != 2")
+    LiveData<Integer> getActiveCount();
+    
     @Query("SELECT SUM(capacity) FROM courses")
     LiveData<Integer> getTotalCapacity();
     
@@ -91,8 +160,12 @@ public interface CourseDao {
     @Query("DELETE FROM courses")
     void deleteAllCourses();
     
-    @Query("SELECT * FROM courses WHERE daysOfWeek LIKE :dayOfWeek")
-    List<YogaCourse> getCoursesByDay(String dayOfWeek);
+    @Query("SELECT * FROM courses WHERE daysMask IN (:masks)")
+    List<YogaCourse> getCoursesByDay(int[] masks);
+    
+    // Courses running on every one of the given days
+    @Query("SELECT * FROM courses WHERE (daysMask & :days) = :days")
+    List<YogaCourse> getCoursesOnAllDays(int days);
     
     @Query("SELECT COUNT(*) FROM courses")
     int getCourseCount();
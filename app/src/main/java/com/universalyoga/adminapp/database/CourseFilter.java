@@ -0,0 +1,123 @@
+package com.universalyoga.adminapp.database;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search, filter and sort state of the course list, turned into one SQL query so the
+ * list can be paged straight from the database.
+ */
+public class CourseFilter {
+
+    public static final String SORT_NEWEST = "newest";
+    public static final String SORT_NAME = "name";
+    public static final String SORT_PRICE = "price";
+    public static final String SORT_CAPACITY = "capacity";
+    public static final String SORT_DURATION = "duration";
+    public static final String SORT_TIME = "time";
+
+    public int days;                 // ScheduleUtils day bits, 0 for any day
+    public String type;              // Exact type, case-insensitive; null or empty for any
+    public String difficulty;        // Exact difficulty, case-insensitive; null or empty for any
+    public List<Integer> rankedIds;  // Search hits best first, at most FtsSearch.MAX_RESULTS; null when not searching
+    public String sortBy = SORT_NEWEST;
+    public boolean ascending = true;
+
+    public CourseFilter copy() {
+        CourseFilter copy = new CourseFilter();
+        copy.days = days;
+        copy.type = type;
+        copy.difficulty = difficulty;
+        copy.rankedIds = rankedIds;
+        copy.sortBy = sortBy;
+        copy.ascending = ascending;
+        return copy;
+    }
+
+    public boolean isFiltered() {
+        return days != 0 || !isEmpty(type) || !isEmpty(difficulty) || rankedIds != null;
+    }
+
+    /**
+     * Courses passing the filter, excluding rows pending deletion. Search hits keep their
+     * rank order unless an explicit sort is set.
+     */
+    public SupportSQLiteQuery toQuery() {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT courses.* FROM ");
+        if (rankedIds != null) {
+            // Join the hits as (id, rank) rows so each one is a primary key lookup
+            sql.append(hitsTable(rankedIds, args)).append(" JOIN courses ON courses.id = hits.column1 ");
+        } else {
+            sql.append("courses ");
+        }
+        sql.append("WHERE courses.syncStatus != 2");
+        if (days != 0) {
+            sql.append(" AND courses.daysMask IN (").append(join(ScheduleUtils.overlappingMasks(days))).append(')');
+        }
+        if (!isEmpty(type)) {
+            sql.append(" AND courses.type = ? COLLATE NOCASE");
+            args.add(type.trim());
+        }
+        if (!isEmpty(difficulty)) {
+            sql.append(" AND courses.difficulty = ? COLLATE NOCASE");
+            args.add(difficulty.trim());
+        }
+        sql.append(" ORDER BY ").append(orderBy());
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    private String orderBy() {
+        String direction = ascending ? " ASC" : " DESC";
+        switch (sortBy != null ? sortBy : SORT_NEWEST) {
+            case SORT_NAME:
+                return "courses.type COLLATE NOCASE" + direction;
+            case SORT_PRICE:
+                return "courses.price" + direction;
+            case SORT_CAPACITY:
+                return "courses.capacity" + direction;
+            case SORT_DURATION:
+                return "courses.duration" + direction;
+            case SORT_TIME:
+                return "courses.time" + direction;
+            default:
+                return rankedIds != null ? "hits.column2" : "courses.id DESC";
+        }
+    }
+
+    // VALUES table of (id, rank) for ranked search hits. Ids are bound and capped at
+    // FtsSearch.MAX_RESULTS, so the SQL stays short and only changes with the hit count
+    static String hitsTable(List<Integer> rankedIds, List<Object> args) {
+        int count = Math.min(rankedIds.size(), FtsSearch.MAX_RESULTS);
+        if (count == 0) {
+            return "(SELECT NULL AS column1, NULL AS column2 LIMIT 0) AS hits";
+        }
+        StringBuilder values = new StringBuilder("(VALUES ");
+        for (int rank = 0; rank < count; rank++) {
+            if (rank > 0) {
+                values.append(',');
+            }
+            values.append("(?,").append(rank).append(')');
+            args.add(rankedIds.get(rank));
+        }
+        return values.append(") AS hits").toString();
+    }
+
+    static String join(int[] values) {
+        StringBuilder joined = new StringBuilder();
+        for (int value : values) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+
+    static boolean isEmpty(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,29 @@
+package com.universalyoga.adminapp.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+import com.universalyoga.adminapp.models.DashboardStats;
+
+@Dao
+public interface DashboardDao {
+    // Recomputes the stats row from scratch; the triggers in AppDatabase keep it current afterwards
+    String REBUILD = "INSERT OR REPLACE INTO dashboard_stats " +
+            "(id, courseCount, totalCapacity, instanceCount, totalEnrolled, revenue) SELECT 0, " +
+            "(SELECT COUNT(*) FROM courses WHERE syncStatus != 2), " +
+            "(SELECT IFNULL(SUM(capacity), 0) FROM courses WHERE syncStatus != 2), " +
+            "(SELECT COUNT(*) FROM instances WHERE syncStatus != 2), " +
+            "(SELECT IFNULL(SUM(enrolled), 0) FROM instances WHERE syncStatus != 2), " +
+            "(SELECT IFNULL(SUM(instances.enrolled * courses.price), 0) FROM instances " +
+            "JOIN courses ON courses.id = instances.courseId " +
+            "WHERE instances.syncStatus != 2 AND courses.syncStatus != 2)";
+
+    @Query("SELECT * FROM dashboard_stats WHERE id = 0")
+    LiveData<DashboardStats> getStatsLive();
+
+    @Query("SELECT * FROM dashboard_stats WHERE id = 0")
+    DashboardStats getStats();
+
+    @Query(REBUILD)
+    void rebuild();
+}
@@ -0,0 +1,110 @@
+package com.universalyoga.adminapp.database;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Query building and relevance ranking for the FTS4 search tables.
+ */
+public class FtsSearch {
+
+    // Most search hits ranked and listed; beyond this a query is too broad to be useful
+    public static final int MAX_RESULTS = 200;
+
+    /**
+     * One FTS hit: the matched row id plus matchinfo(table, 'pcx') for ranking.
+     */
+    public static class Match {
+        public int id;
+        public byte[] matchInfo;
+    }
+
+    private static class Scored {
+        final int id;
+        final int index;
+        final double score;
+
+        Scored(int id, int index, double score) {
+            this.id = id;
+            this.index = index;
+            this.score = score;
+        }
+    }
+
+    private FtsSearch() {
+    }
+
+    /**
+     * Turn free text into a prefix MATCH expression ("flo yo" -> "flo* yo*"), so every
+     * word must match the start of some token. Returns null if there is nothing to search.
+     */
+    public static String toMatchQuery(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        // Lower case keeps AND/OR/NOT/NEAR from being read as operators
+        for (String term : input.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append(term).append('*');
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * Ids of at most limit matches, most relevant first. Each column's hits in the row are
+     * weighted by how rare the term is across the table, then by the column's weight. Only
+     * the best limit hits are kept while scoring, so a broad query costs one pass over its
+     * hits and never sorts or returns all of them.
+     */
+    public static List<Integer> rank(List<Match> matches, double[] columnWeights, int limit) {
+        // Weakest kept hit at the head; on equal scores the earlier hit ranks higher
+        PriorityQueue<Scored> best = new PriorityQueue<>(Math.max(1, Math.min(limit, matches.size())),
+                (a, b) -> a.score != b.score ? Double.compare(a.score, b.score) : Integer.compare(b.index, a.index));
+        for (int index = 0; index < matches.size() && limit > 0; index++) {
+            Match match = matches.get(index);
+            best.add(new Scored(match.id, index, score(match.matchInfo, columnWeights)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        Integer[] ids = new Integer[best.size()];
+        for (int rank = ids.length - 1; rank >= 0; rank--) {
+            ids[rank] = best.poll().id;
+        }
+        return Arrays.asList(ids);
+    }
+
+    private static double score(byte[] matchInfo, double[] columnWeights) {
+        if (matchInfo == null) {
+            return 0;
+        }
+        // matchinfo returns native-order 32-bit ints: phrases, columns, then for every
+        // phrase and column (hits in this row, hits in all rows, rows with a hit)
+        ByteBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = info.getInt(0);
+        int columns = info.getInt(4);
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int offset = 8 + (phrase * columns + column) * 12;
+                int rowHits = info.getInt(offset);
+                int allHits = info.getInt(offset + 4);
+                if (rowHits > 0 && allHits > 0) {
+                    double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                    score += weight * rowHits / allHits;
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -1,12 +1,25 @@
 package com.universalyoga.adminapp.database;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.*;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import com.universalyoga.adminapp.models.InstanceWithCourse;
+import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
+import java.util.ArrayList;
 import java.util.List;
 
 @Dao
 public interface InstanceDao {
+    /**
+     * Number of listed instances of one course.
+     */
+    class CourseInstanceCount {
+        public int courseId;
+        public int instanceCount;
+    }
+    
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insert(YogaInstance instance);
     
@@ -25,6 +38,14 @@ public interface InstanceDao {
     @Query("SELECT * FROM instances ORDER BY id DESC")
     List<YogaInstance> getAll();
     
+    // Paged instance list joined with course fields; build the query with InstanceFilter.toQuery
+    @RawQuery(observedEntities = {YogaInstance.class, YogaCourse.class})
+    PagingSource<Integer, InstanceWithCourse> getPaged(SupportSQLiteQuery query);
+    
+    // Count and enrollment of a filtered list; build the query with InstanceFilter.toSummaryQuery
+    @RawQuery(observedEntities = {YogaInstance.class, YogaCourse.class})
+    LiveData<InstanceFilter.Summary> getSummary(SupportSQLiteQuery query);
+    
     @Query("SELECT * FROM instances WHERE courseId = :courseId")
     LiveData<List<YogaInstance>> getByCourse(int courseId);
     
@@ -40,25 +61,45 @@ public interface InstanceDao {
     @Query("SELECT * FROM instances WHERE courseId = :courseId")
     LiveData<List<YogaInstance>> getByCourseIdLive(int courseId);
     
-    // Search methods
-    @Query("SELECT * FROM instances WHERE " +
-           "teacher LIKE :query OR " +
-           "date LIKE :query OR " +
-           "comments LIKE :query")
+    // Full-text search; query is a MATCH expression from FtsSearch.toMatchQuery
+    @Query("SELECT instances.* FROM instances JOIN instances_fts ON instances.id = instances_fts.docid " +
+           "WHERE instances_fts MATCH :query AND instances.syncStatus != 2")
     LiveData<List<YogaInstance>> searchInstances(String query);
     
+    @Query("SELECT instances_fts.docid AS id, matchinfo(instances_fts, 'pcx') AS matchInfo FROM instances_fts " +
+           "JOIN instances ON instances.id = instances_fts.docid " +
+           "WHERE instances_fts MATCH :query AND instances.syncStatus != 2")
+    List<FtsSearch.Match> searchMatches(String query);
+    
+    // Column weights for ranking, in InstanceFts column order
+    double[] SEARCH_WEIGHTS = {3.0, 2.0, 1.0, 0.5};
+    
+    // Ids of the instances matching free text (course type included) by word prefix,
+    // most relevant first
+    default List<Integer> searchInstanceIds(String text) {
+        String query = FtsSearch.toMatchQuery(text);
+        if (query == null) {
+            return new ArrayList<>();
+        }
+        return FtsSearch.rank(searchMatches(query), SEARCH_WEIGHTS, FtsSearch.MAX_RESULTS);
+    }
+    
     // Filter methods
     @Query("SELECT * FROM instances WHERE date = :date")
     LiveData<List<YogaInstance>> getByDate(String date);
     
+    // Day and range queries seek the (epochDay, startMinute) index; days are epoch days
+    @Query("SELECT * FROM instances WHERE epochDay = :epochDay ORDER BY startMinute ASC")
+    LiveData<List<YogaInstance>> getByEpochDay(int epochDay);
+    
     @Query("SELECT * FROM instances WHERE teacher LIKE :teacher")
     LiveData<List<YogaInstance>> getByTeacher(String teacher);
     
-    @Query("SELECT * FROM instances WHERE date BETWEEN :startDate AND :endDate")
-    LiveData<List<YogaInstance>> getByDateRange(String startDate, String endDate);
+    @Query("SELECT * FROM instances WHERE epochDay BETWEEN :startDay AND :endDay ORDER BY epochDay ASC, startMinute ASC")
+    LiveData<List<YogaInstance>> getByDateRange(int startDay, int endDay);
     
-    @Query("SELECT * FROM instances WHERE date >= :date ORDER BY date ASC")
-    LiveData<List<YogaInstance>> getUpcoming(String date);
+    @Query("SELECT * FROM instances WHERE epochDay >= :fromDay ORDER BY epochDay ASC, startMinute ASC")
+    LiveData<List<YogaInstance>> getUpcoming(int fromDay);
     
     // Sync status methods
     @Query("SELECT * FROM instances WHERE syncStatus = 0")
@@ -67,6 +108,27 @@ public interface InstanceDao {
     @Query("UPDATE instances SET syncStatus = :status WHERE id = :instanceId")
     void updateSyncStatus(int instanceId, int status);
     
+    // Soft-delete a course's instances along with it; they are removed remotely with the course
+    @Query("UPDATE instances SET syncStatus = 2 WHERE courseId = :courseId")
+    void markPendingDeleteByCourse(int courseId);
+    
+    // Delta sync: rows named by pending outbox operations
+    @Query("SELECT * FROM instances WHERE id IN (:instanceIds) AND syncStatus != 2")
+    List<YogaInstance> getByIds(List<Integer> instanceIds);
+    
+    // Only flips the row if it has not been edited again since it was read for upload
+    @Query("UPDATE instances SET syncStatus = 1 WHERE id = :instanceId AND syncStatus = 0 AND updatedAt = :updatedAt")
+    int markSyncedIfUnchanged(int instanceId, long updatedAt);
+    
+    @Transaction
+    default int markSynced(List<YogaInstance> instances) {
+        int marked = 0;
+        for (YogaInstance instance : instances) {
+            marked += markSyncedIfUnchanged(instance.getId(), instance.getUpdatedAt());
+        }
+        return marked;
+    }
+    
     // Update enrollment
     @Query("UPDATE instances SET enrolled = :enrolled WHERE id = :instanceId")
     void updateEnrollment(int instanceId, int enrolled);
@@ -75,26 +137,41 @@ public interface InstanceDao {
     @Query("DELETE FROM instances WHERE id = :instanceId")
     void deleteById(int instanceId);
     
+    // Purge synced tombstones; rows that are not pending delete are left alone
+    @Query("DELETE FROM instances WHERE syncStatus = 2 AND id IN (:instanceIds)")
+    int deletePendingByIds(List<Integer> instanceIds);
+    
     // Statistics
     @Query("SELECT COUNT(*) FROM instances")
     LiveData<Integer> getTotalCount();
     
+    // Instances shown in lists, i.e. not pending deletion
+    @Query("SELECT COUNT(*) FROM instances WHERE syncStatus != 2")
+    LiveData<Integer> getActiveCount();
+    
+    // Listed instances per course in one pass; courses without instances are absent
+    @Query("SELECT courseId, COUNT(*) AS instanceCount FROM instances WHERE syncStatus != 2 GROUP BY courseId")
+    LiveData<List<CourseInstanceCount>> getInstanceCountsLive();
+    
     @Query("SELECT SUM(enrolled) FROM instances")
     LiveData<Integer> getTotalEnrollment();
     
     @Query("SELECT AVG(enrolled) FROM instances")
     LiveData<Double> getAverageEnrollment();
     
-    @Query("SELECT COUNT(*) FROM instances WHERE date >= :date")
-    LiveData<Integer> getUpcomingCount(String date);
+    @Query("SELECT COUNT(*) FROM instances WHERE epochDay >= :fromDay")
+    LiveData<Integer> getUpcomingCount(int fromDay);
     
-    @Query("SELECT COUNT(*) FROM instances WHERE date = :date")
-    LiveData<Integer> getTodayCount(String date);
+    @Query("SELECT COUNT(*) FROM instances WHERE epochDay = :epochDay")
+    LiveData<Integer> getTodayCount(int epochDay);
     
     // Get all unique teachers
     @Query("SELECT DISTINCT teacher FROM instances WHERE teacher IS NOT NULL AND teacher != '' ORDER BY teacher ASC")
     List<String> getAllTeachers();
     
+    @Query("SELECT DISTINCT teacher FROM instances WHERE teacher IS NOT NULL AND teacher != '' ORDER BY teacher ASC")
+    LiveData<List<String>> getAllTeachersLive();
+    
     // Count method for database management
     @Query("SELECT COUNT(*) FROM instances")
     int getInstanceCount();
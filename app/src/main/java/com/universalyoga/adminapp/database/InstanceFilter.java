@@ -0,0 +1,92 @@
+package com.universalyoga.adminapp.database;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search and filter state of an instance list, turned into SQL so the list can be paged
+ * straight from the database and summarised without loading it.
+ */
+public class InstanceFilter {
+
+    /**
+     * Size and total enrollment of the filtered list.
+     */
+    public static class Summary {
+        public int count;
+        public int enrolled;
+    }
+
+    public int courseId;             // Only this course's instances; 0 for every course
+    public int days;                 // ScheduleUtils day bits of the instance date, 0 for any day
+    public String courseType;        // Type of the instance's course, case-insensitive; null or empty for any
+    public String teacher;           // Exact teacher, case-insensitive; null or empty for any
+    public List<Integer> rankedIds;  // Search hits best first, at most FtsSearch.MAX_RESULTS; null when not searching
+
+    public InstanceFilter copy() {
+        InstanceFilter copy = new InstanceFilter();
+        copy.courseId = courseId;
+        copy.days = days;
+        copy.courseType = courseType;
+        copy.teacher = teacher;
+        copy.rankedIds = rankedIds;
+        return copy;
+    }
+
+    public boolean isFiltered() {
+        return days != 0 || !CourseFilter.isEmpty(courseType) || !CourseFilter.isEmpty(teacher) || rankedIds != null;
+    }
+
+    /**
+     * Instances passing the filter, with their course fields as InstanceWithCourse rows,
+     * excluding rows pending deletion; search hits in rank order, otherwise newest first.
+     */
+    public SupportSQLiteQuery toQuery() {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT instances.*, courses.type AS courseType, courses.roomLocation AS courseRoomLocation " +
+                from(args, "LEFT JOIN courses ON courses.id = instances.courseId ") +
+                " ORDER BY " + (rankedIds != null ? "hits.column2" : "instances.id DESC");
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * One-row Summary of the instances passing the filter.
+     */
+    public SupportSQLiteQuery toSummaryQuery() {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT COUNT(*) AS count, IFNULL(SUM(instances.enrolled), 0) AS enrolled " + from(args, "");
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    // FROM and WHERE clauses; join is appended after the instances table
+    private String from(List<Object> args, String join) {
+        StringBuilder sql = new StringBuilder("FROM ");
+        if (rankedIds != null) {
+            sql.append(CourseFilter.hitsTable(rankedIds, args)).append(" JOIN instances ON instances.id = hits.column1 ");
+        } else {
+            sql.append("instances ");
+        }
+        sql.append(join);
+        sql.append("WHERE instances.syncStatus != 2");
+        if (courseId != 0) {
+            sql.append(" AND instances.courseId = ?");
+            args.add(courseId);
+        }
+        if (days != 0) {
+            // Weekday bit of the epoch day, as in ScheduleUtils.epochDayBit; undated rows never match
+            sql.append(" AND instances.epochDay >= 0 AND ((1 << ((instances.epochDay + 3) % 7)) & ?) != 0");
+            args.add(days);
+        }
+        if (!CourseFilter.isEmpty(courseType)) {
+            sql.append(" AND instances.courseId IN (SELECT id FROM courses WHERE type = ? COLLATE NOCASE)");
+            args.add(courseType.trim());
+        }
+        if (!CourseFilter.isEmpty(teacher)) {
+            sql.append(" AND instances.teacher = ? COLLATE NOCASE");
+            args.add(teacher.trim());
+        }
+        return sql.toString();
+    }
+}
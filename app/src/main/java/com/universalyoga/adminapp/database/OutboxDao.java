@@ -0,0 +1,47 @@
+package com.universalyoga.adminapp.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import com.universalyoga.adminapp.models.OutboxOperation;
+import java.util.List;
+
+@Dao
+public interface OutboxDao {
+    // Replaces any pending operation for the same entity
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    long enqueue(OutboxOperation operation);
+
+    @Query("SELECT * FROM sync_outbox WHERE nextAttemptAt <= :now ORDER BY id LIMIT :limit")
+    List<OutboxOperation> getDue(long now, int limit);
+
+    @Query("SELECT * FROM sync_outbox WHERE operation = 'delete' AND nextAttemptAt <= :now ORDER BY id LIMIT :limit")
+    List<OutboxOperation> getDueDeletes(long now, int limit);
+
+    // Removes the row only if it was not re-enqueued (which assigns a new id) in the meantime
+    @Query("DELETE FROM sync_outbox WHERE id = :id")
+    int acknowledge(int id);
+
+    @Transaction
+    default int acknowledgeAll(List<OutboxOperation> operations) {
+        int acknowledged = 0;
+        for (OutboxOperation operation : operations) {
+            acknowledged += acknowledge(operation.getId());
+        }
+        return acknowledged;
+    }
+
+    // pendingBackends narrows the retry to the backends that did not acknowledge
+    @Query("UPDATE sync_outbox SET attempts = attempts + 1, nextAttemptAt = :nextAttemptAt, lastError = :error, " +
+            "pendingBackends = :pendingBackends WHERE id = :id")
+    void scheduleRetry(int id, int pendingBackends, long nextAttemptAt, String error);
+
+    // When the next operation falls due; null once the outbox is empty
+    @Query("SELECT MIN(nextAttemptAt) FROM sync_outbox")
+    Long getNextAttemptAt();
+
+    @Query("DELETE FROM sync_outbox")
+    void deleteAll();
+}
@@ -0,0 +1,158 @@
+package com.universalyoga.adminapp.database;
+
+import android.util.Log;
+import com.universalyoga.adminapp.models.OutboxOperation;
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.services.OutboxStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * OutboxStore on the app database. Writes go through the WriteQueue, so they share
+ * transactions with the other queued writes; reads run on the given I/O executor.
+ */
+public class RoomOutboxStore implements OutboxStore {
+    private static final String TAG = "RoomOutboxStore";
+
+    // Stay well below SQLite's bound-variable limit for IN (...) queries
+    private static final int MAX_QUERY_IDS = 500;
+
+    private final AppDatabase database;
+    private final CourseDao courseDao;
+    private final InstanceDao instanceDao;
+    private final OutboxDao outboxDao;
+    private final WriteQueue writeQueue;
+    private final Executor io;
+
+    public RoomOutboxStore(AppDatabase database, WriteQueue writeQueue, Executor io) {
+        this.database = database;
+        this.courseDao = database.courseDao();
+        this.instanceDao = database.instanceDao();
+        this.outboxDao = database.outboxDao();
+        this.writeQueue = writeQueue;
+        this.io = io;
+    }
+
+    @Override
+    public <T> T runInTransaction(Supplier<T> reads) {
+        return database.runInTransaction(reads::get);
+    }
+
+    @Override
+    public List<OutboxOperation> getDue(long now, int limit) {
+        return outboxDao.getDue(now, limit);
+    }
+
+    @Override
+    public List<YogaCourse> getCourses(List<Integer> courseIds) {
+        List<YogaCourse> courses = new ArrayList<>();
+        forEachChunk(courseIds, chunk -> courses.addAll(courseDao.getByIds(chunk)));
+        return courses;
+    }
+
+    @Override
+    public List<YogaInstance> getInstances(List<Integer> instanceIds) {
+        List<YogaInstance> instances = new ArrayList<>();
+        forEachChunk(instanceIds, chunk -> instances.addAll(instanceDao.getByIds(chunk)));
+        return instances;
+    }
+
+    @Override
+    public List<Integer> getActiveCourseIds(List<Integer> courseIds) {
+        List<Integer> active = new ArrayList<>();
+        forEachChunk(courseIds, chunk -> active.addAll(courseDao.getActiveIds(chunk)));
+        return active;
+    }
+
+    @Override
+    public CompletableFuture<List<OutboxOperation>> loadDueDeletes(long now, int limit) {
+        return CompletableFuture.supplyAsync(() -> outboxDao.getDueDeletes(now, limit), io);
+    }
+
+    @Override
+    public CompletableFuture<Void> acknowledge(List<OutboxOperation> operations) {
+        return writeQueue.execute(() -> outboxDao.acknowledgeAll(operations));
+    }
+
+    @Override
+    public CompletableFuture<Integer> acknowledgeUploads(List<OutboxOperation> operations,
+                                                         List<YogaCourse> courses, List<YogaInstance> instances) {
+        // Edits made during the upload re-enqueued their row under a new id and stay pending
+        return writeQueue.submit(() -> {
+            outboxDao.acknowledgeAll(operations);
+            return courseDao.markSynced(courses) + instanceDao.markSynced(instances);
+        }).whenComplete((marked, throwable) -> {
+            if (throwable == null) {
+                Log.d(TAG, "Acknowledged " + operations.size() + " operations, marked " + marked + " rows as synced");
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> acknowledgeDeletions(List<OutboxOperation> operations) {
+        List<Integer> courseIds = new ArrayList<>();
+        List<Integer> instanceIds = new ArrayList<>();
+        for (OutboxOperation operation : operations) {
+            (operation.isCourse() ? courseIds : instanceIds).add(operation.getEntityId());
+        }
+        // Purge the tombstones together with their outbox entries in one transaction
+        return writeQueue.execute(() -> {
+            forEachChunk(courseIds, courseDao::deletePendingByIds);
+            forEachChunk(instanceIds, instanceDao::deletePendingByIds);
+            outboxDao.acknowledgeAll(operations);
+        }).thenRun(() -> Log.d(TAG, "Synced " + operations.size() + " deletions"));
+    }
+
+    @Override
+    public CompletableFuture<Void> scheduleRetry(List<OutboxOperation> operations, long[] retryAt, String error) {
+        return writeQueue.execute(() -> {
+            for (int i = 0; i < retryAt.length; i++) {
+                OutboxOperation operation = operations.get(i);
+                outboxDao.scheduleRetry(operation.getId(), operation.getPendingBackends(), retryAt[i], error);
+            }
+        }).thenRun(() -> Log.d(TAG, "Rescheduled " + operations.size() + " operations: " + error));
+    }
+
+    // Marking the instances too keeps them out of lists and dashboard totals until the purge
+    // cascades to them; the course's remote deletion takes them with it
+    @Override
+    public CompletableFuture<YogaCourse> enqueueCourseDeletion(int courseId) {
+        return writeQueue.submit(() -> {
+            YogaCourse course = courseDao.getById(courseId);
+            if (course == null) {
+                throw new IllegalArgumentException("Course not found");
+            }
+            courseDao.updateSyncStatus(courseId, 2); // 2 = pending delete
+            instanceDao.markPendingDeleteByCourse(courseId);
+            outboxDao.enqueue(OutboxOperation.deleteCourse(courseId));
+            return course;
+        });
+    }
+
+    @Override
+    public CompletableFuture<YogaInstance> enqueueInstanceDeletion(int instanceId) {
+        return writeQueue.submit(() -> {
+            YogaInstance instance = instanceDao.getById(instanceId);
+            if (instance == null) {
+                throw new IllegalArgumentException("Instance not found");
+            }
+            instanceDao.updateSyncStatus(instanceId, 2); // 2 = pending delete
+            outboxDao.enqueue(OutboxOperation.deleteInstance(instanceId, instance.getCourseId()));
+            return instance;
+        });
+    }
+
+    private interface ChunkAction {
+        void run(List<Integer> chunk);
+    }
+
+    private static void forEachChunk(List<Integer> ids, ChunkAction action) {
+        for (int start = 0; start < ids.size(); start += MAX_QUERY_IDS) {
+            action.run(ids.subList(start, Math.min(start + MAX_QUERY_IDS, ids.size())));
+        }
+    }
+}
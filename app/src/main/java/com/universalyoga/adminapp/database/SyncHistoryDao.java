@@ -3,14 +3,22 @@ package com.universalyoga.adminapp.database;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 import androidx.room.Delete;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
+import com.universalyoga.adminapp.models.SyncDailySummary;
 import com.universalyoga.adminapp.models.SyncHistory;
+import com.universalyoga.adminapp.models.SyncPercentiles;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Dao
 public interface SyncHistoryDao {
+    // Syncs older than this are rolled up into sync_history_daily and removed
+    long RETENTION_MS = TimeUnit.DAYS.toMillis(7);
+
     @Insert
     void insert(SyncHistory history);
 
@@ -23,11 +31,16 @@ public interface SyncHistoryDao {
     @Query("DELETE FROM sync_history")
     void deleteAll();
 
+    // Newest syncs first, at most limit of them
+    @Query("SELECT * FROM sync_history ORDER BY timestamp DESC LIMIT :limit")
+    List<SyncHistory> getRecent(int limit);
+    
+    // Syncs that started in [from, to), newest first
+    @Query("SELECT * FROM sync_history WHERE timestamp >= :from AND timestamp < :to ORDER BY timestamp DESC")
+    List<SyncHistory> getBetween(long from, long to);
+    
     @Query("SELECT * FROM sync_history ORDER BY timestamp DESC")
-    LiveData<List<SyncHistory>> getAllLive();
-
-    @Query("SELECT * FROM sync_history ORDER BY timestamp DESC")
-    List<SyncHistory> getAll();
+    PagingSource<Integer, SyncHistory> getPaged();
 
     @Query("SELECT * FROM sync_history WHERE id = :id LIMIT 1")
     SyncHistory getById(String id);
@@ -35,7 +48,88 @@ public interface SyncHistoryDao {
     @Query("SELECT * FROM sync_history WHERE status = 'success' ORDER BY timestamp DESC LIMIT 1")
     SyncHistory getLastSync();
     
+    // Most recent syncs that recorded phase timings
+    @Query("SELECT * FROM sync_history WHERE phaseTimings IS NOT NULL AND status = 'success' ORDER BY timestamp DESC LIMIT :limit")
+    List<SyncHistory> getRecentWithTelemetry(int limit);
+    
+    // Percentiles of duration, throughput and per-phase time over the last `limit` successful syncs
+    default SyncPercentiles getPercentiles(int limit) {
+        List<SyncHistory> histories = getRecentWithTelemetry(limit);
+        int n = histories.size();
+        long[] duration = new long[n], recordsPerSecond = new long[n], localRead = new long[n],
+                serialization = new long[n], realtimeWrite = new long[n], firestoreWrite = new long[n],
+                deletionSync = new long[n], localUpdate = new long[n];
+        for (int i = 0; i < n; i++) {
+            SyncHistory history = histories.get(i);
+            SyncHistory.PhaseTimings timings = history.getPhaseTimings();
+            duration[i] = history.getDuration() != null ? history.getDuration() : 0;
+            recordsPerSecond[i] = Math.round(history.getRecordsPerSecond());
+            localRead[i] = timings.localRead;
+            serialization[i] = timings.serialization;
+            realtimeWrite[i] = timings.realtimeWrite;
+            firestoreWrite[i] = timings.firestoreWrite;
+            deletionSync[i] = timings.deletionSync;
+            localUpdate[i] = timings.localUpdate;
+        }
+        
+        SyncPercentiles percentiles = new SyncPercentiles(n);
+        percentiles.add(SyncPercentiles.DURATION, duration);
+        percentiles.add(SyncPercentiles.RECORDS_PER_SECOND, recordsPerSecond);
+        percentiles.add(SyncPercentiles.LOCAL_READ, localRead);
+        percentiles.add(SyncPercentiles.SERIALIZATION, serialization);
+        percentiles.add(SyncPercentiles.REALTIME_WRITE, realtimeWrite);
+        percentiles.add(SyncPercentiles.FIRESTORE_WRITE, firestoreWrite);
+        percentiles.add(SyncPercentiles.DELETION_SYNC, deletionSync);
+        percentiles.add(SyncPercentiles.LOCAL_UPDATE, localUpdate);
+        return percentiles;
+    }
+    
+    // Rolled-up days, newest first
+    @Query("SELECT * FROM sync_history_daily ORDER BY epochDay DESC")
+    List<SyncDailySummary> getDailySummaries();
+    
+    // Adds a zero row for every day that has syncs older than cutoff
+    @Query("INSERT OR IGNORE INTO sync_history_daily " +
+           "(epochDay, syncCount, successCount, totalDuration, recordsAcked, bytesUploaded) " +
+           "SELECT DISTINCT timestamp / 86400000, 0, 0, 0, 0, 0 FROM sync_history WHERE timestamp < :cutoff")
+    void insertDailySummaries(long cutoff);
+    
+    // Adds the syncs older than cutoff to their day's totals
+    @Query("UPDATE sync_history_daily SET " +
+           "syncCount = syncCount + (SELECT COUNT(*) FROM sync_history " +
+           "WHERE timestamp < :cutoff AND timestamp / 86400000 = sync_history_daily.epochDay), " +
+           "successCount = successCount + (SELECT COUNT(*) FROM sync_history " +
+           "WHERE timestamp < :cutoff AND timestamp / 86400000 = sync_history_daily.epochDay AND status = 'success'), " +
+           "totalDuration = totalDuration + (SELECT IFNULL(SUM(duration), 0) FROM sync_history " +
+           "WHERE timestamp < :cutoff AND timestamp / 86400000 = sync_history_daily.epochDay), " +
+           "recordsAcked = recordsAcked + (SELECT IFNULL(SUM(recordsAcked), 0) FROM sync_history " +
+           "WHERE timestamp < :cutoff AND timestamp / 86400000 = sync_history_daily.epochDay), " +
+           "bytesUploaded = bytesUploaded + (SELECT IFNULL(SUM(bytesUploaded), 0) FROM sync_history " +
+           "WHERE timestamp < :cutoff AND timestamp / 86400000 = sync_history_daily.epochDay) " +
+           "WHERE epochDay IN (SELECT DISTINCT timestamp / 86400000 FROM sync_history WHERE timestamp < :cutoff)")
+    void addToDailySummaries(long cutoff);
+    
+    @Query("DELETE FROM sync_history WHERE timestamp < :cutoff")
+    int deleteOlderThan(long cutoff);
+    
+    // Rolls syncs older than cutoff up into daily totals and deletes them; returns the rows removed.
+    // The timestamp index keeps this a short range scan when there is nothing to prune.
+    @Transaction
+    default int rollUp(long cutoff) {
+        insertDailySummaries(cutoff);
+        addToDailySummaries(cutoff);
+        return deleteOlderThan(cutoff);
+    }
+    
+    // Applies the retention policy
+    default int prune() {
+        return rollUp(System.currentTimeMillis() - RETENTION_MS);
+    }
+    
     // Count method for database management
     @Query("SELECT COUNT(*) FROM sync_history")
     int getSyncHistoryCount();
+    
+    @Query("SELECT COUNT(*) FROM sync_history")
+    LiveData<Integer> getCountLive();
 } 
\ No newline at end of file
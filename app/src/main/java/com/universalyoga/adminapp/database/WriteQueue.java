@@ -0,0 +1,193 @@
+package com.universalyoga.adminapp.database;
+
+import android.content.Context;
+import android.util.Log;
+import com.universalyoga.adminapp.utils.AppExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single writer for the database. Writes submitted within WINDOW_MS of each other run
+ * together in one transaction on the database writer thread, so a burst of small writes
+ * costs one commit instead of one each. Every write completes its own future once its
+ * batch has committed. If a write fails, its batch is rolled back, that write reports the
+ * error and the rest of the batch is committed again without it.
+ *
+ * A write body must therefore only do database work: it may run more than once, and only
+ * the last run counts. Update objects and other in-memory state from the returned future
+ * instead. A body must not wait on another write either: they all run on the same thread.
+ */
+public class WriteQueue {
+    private static final String TAG = "WriteQueue";
+
+    // Writes arriving within this window share a transaction
+    private static final long WINDOW_MS = 10;
+    // Commit right away once this many writes are waiting
+    private static final int MAX_BATCH = 500;
+
+    private static WriteQueue instance;
+    private final Transactor transactor;
+    private final Executor writer;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Runs a batch in one transaction, rolled back if the batch throws
+     */
+    interface Transactor {
+        void runInTransaction(Runnable batch);
+    }
+
+    private static class Write<T> {
+        final Callable<T> body;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        Exception error;
+
+        Write(Callable<T> body) {
+            this.body = body;
+        }
+
+        void run() {
+            try {
+                result = body.call();
+            } catch (Exception e) {
+                error = e;
+                throw new WriteFailedException(e);
+            }
+        }
+    }
+
+    // Aborts the transaction of a batch whose write threw
+    private static class WriteFailedException extends RuntimeException {
+        WriteFailedException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private final Queue<Write<?>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    WriteQueue(Transactor transactor, Executor writer, ScheduledExecutorService scheduler) {
+        this.transactor = transactor;
+        this.writer = writer;
+        this.scheduler = scheduler;
+    }
+
+    public static synchronized WriteQueue getInstance(Context context) {
+        if (instance == null) {
+            AppExecutors executors = AppExecutors.getInstance();
+            instance = new WriteQueue(AppDatabase.getInstance(context.getApplicationContext())::runInTransaction,
+                    executors.dbWriter(), executors.scheduler());
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a write; the future completes with its result after the commit
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> body) {
+        Write<T> write = new Write<>(body);
+        pending.add(write);
+        if (pendingCount.incrementAndGet() >= MAX_BATCH) {
+            writer.execute(this::flush);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> writer.execute(this::flush), WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+        return write.future;
+    }
+
+    /**
+     * Queue a write without a result
+     */
+    public CompletableFuture<Void> execute(Runnable body) {
+        return submit(() -> {
+            body.run();
+            return null;
+        });
+    }
+
+    public long getTransactionCount() {
+        return transactions.get();
+    }
+
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<Write<?>> batch = new ArrayList<>();
+        Write<?> write;
+        while (batch.size() < MAX_BATCH && (write = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(write);
+        }
+        if (!pending.isEmpty()) {
+            // More than one batch was waiting
+            writer.execute(this::flush);
+        }
+
+        while (!batch.isEmpty()) {
+            Write<?> failed = commit(batch);
+            if (failed == null) {
+                if (batch.size() > 1) {
+                    Log.d(TAG, "Committed " + batch.size() + " writes in one transaction");
+                }
+                for (Write<?> committed : batch) {
+                    complete(committed);
+                }
+                return;
+            }
+            batch.remove(failed);
+            if (!batch.isEmpty()) {
+                Log.w(TAG, "Write failed, committing the other " + batch.size() + " writes of its batch again",
+                        failed.error);
+            }
+        }
+    }
+
+    // Commit the batch; if a write throws, fails it and returns it, and nothing is committed
+    private Write<?> commit(List<Write<?>> batch) {
+        Write<?>[] running = new Write<?>[1];
+        try {
+            transactor.runInTransaction(() -> {
+                for (Write<?> write : batch) {
+                    running[0] = write;
+                    write.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            Write<?> failed = running[0];
+            if (failed == null || failed.error == null) {
+                // The transaction itself failed, not one of its writes
+                for (Write<?> write : batch) {
+                    write.future.completeExceptionally(e);
+                }
+                batch.clear();
+                return null;
+            }
+            failed.future.completeExceptionally(failed.error);
+            return failed;
+        }
+        transactions.incrementAndGet();
+        writes.addAndGet(batch.size());
+        return null;
+    }
+
+    private static <T> void complete(Write<T> write) {
+        write.future.complete(write.result);
+    }
+}
@@ -16,6 +16,7 @@ import android.widget.ImageView;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.lifecycle.Observer;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.DefaultItemAnimator;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -31,16 +32,11 @@ import com.universalyoga.adminapp.base.BaseFragment;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.viewmodels.CourseViewModel;
 import com.universalyoga.adminapp.utils.ToastHelper;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
 import com.universalyoga.adminapp.activities.ClassInstanceActivity;
-import com.universalyoga.adminapp.database.AppDatabase;
-import com.universalyoga.adminapp.database.InstanceDao;
-import com.universalyoga.adminapp.models.YogaInstance;
-import java.util.Map;
-import java.util.HashMap;
+import kotlin.Unit;
 
 /**
  * Fragment for displaying and managing yoga courses.
@@ -55,8 +51,8 @@ public class CoursesFragment extends BaseFragment {
     private TextView tvCourseCount;
     private TextInputEditText editTextSearch;
     private CourseViewModel viewModel;
-    private List<YogaCourse> courseList = new ArrayList<>();
-    private List<YogaCourse> allCourses = new ArrayList<>();
+    private int totalCourseCount = 0;
+    private boolean scrollToTopOnRefresh = false;
     
     // Filter UI elements
     private MaterialButton cardAdvancedFilters;
@@ -118,7 +114,7 @@ public class CoursesFragment extends BaseFragment {
         recyclerView.setItemAnimator(new DefaultItemAnimator());
         
         // Setup adapter
-        adapter = new CourseListAdapter(courseList, null, new CourseListAdapter.OnCourseActionListener() {
+        adapter = new CourseListAdapter(null, new CourseListAdapter.OnCourseActionListener() {
             @Override
             public void onEdit(YogaCourse course) {
                 Intent intent = new Intent(requireContext(), EditCourseActivity.class);
@@ -179,27 +175,17 @@ public class CoursesFragment extends BaseFragment {
             startActivity(intent);
         });
         
-        // Setup clear search button
-        btnClearSearch.setOnClickListener(v -> {
-            editTextSearch.setText("");
-            currentSearchQuery = "";
-            applyLocalFilters();
-        });
+        // Setup clear search button; the text watcher applies the empty query
+        btnClearSearch.setOnClickListener(v -> editTextSearch.setText(""));
         
         // Setup clear all filters button
         btnClearAllFilters.setOnClickListener(v -> {
             clearAllFilters();
             editTextSearch.setText("");
-            currentSearchQuery = "";
-            applyLocalFilters();
         });
         
         // Setup clear search input button
-        btnClearSearchInput.setOnClickListener(v -> {
-            editTextSearch.setText("");
-            currentSearchQuery = "";
-            applyLocalFilters();
-        });
+        btnClearSearchInput.setOnClickListener(v -> editTextSearch.setText(""));
         
         // Setup filter functionality
         setupFilters();
@@ -213,10 +199,7 @@ public class CoursesFragment extends BaseFragment {
         setupFilterDropdowns();
         
         // Setup clear filters button
-        btnClearFilters.setOnClickListener(v -> {
-            clearAllFilters();
-            applyLocalFilters();
-        });
+        btnClearFilters.setOnClickListener(v -> clearAllFilters());
     }
     
     private void setupFilterDropdowns() {
@@ -226,7 +209,7 @@ public class CoursesFragment extends BaseFragment {
         spinnerDayFilter.setOnItemClickListener((parent, view, position, id) -> {
             currentDayFilter = position == 0 ? "" : DAYS_OF_WEEK[position];
             updateActiveFilters();
-            applyLocalFilters();
+            applyFilters();
         });
         
         // Type filter
@@ -235,7 +218,7 @@ public class CoursesFragment extends BaseFragment {
         spinnerTypeFilter.setOnItemClickListener((parent, view, position, id) -> {
             currentTypeFilter = position == 0 ? "" : CLASS_TYPES[position];
             updateActiveFilters();
-            applyLocalFilters();
+            applyFilters();
         });
         
         // Difficulty filter
@@ -244,7 +227,7 @@ public class CoursesFragment extends BaseFragment {
         spinnerDifficultyFilter.setOnItemClickListener((parent, view, position, id) -> {
             currentDifficultyFilter = position == 0 ? "" : DIFFICULTY_LEVELS[position];
             updateActiveFilters();
-            applyLocalFilters();
+            applyFilters();
         });
     }
     
@@ -281,10 +264,7 @@ public class CoursesFragment extends BaseFragment {
             chipActiveFilters.setText(chipText.toString());
             
             // Setup chip close listener
-            chipActiveFilters.setOnCloseIconClickListener(v -> {
-                clearAllFilters();
-                applyLocalFilters();
-            });
+            chipActiveFilters.setOnCloseIconClickListener(v -> clearAllFilters());
         } else {
             chipActiveFilters.setVisibility(View.GONE);
             btnClearFilters.setVisibility(View.GONE);
@@ -306,11 +286,12 @@ public class CoursesFragment extends BaseFragment {
         chipActiveFilters.setVisibility(View.GONE);
         btnClearFilters.setVisibility(View.GONE);
         
-        applyLocalFilters();
+        applyFilters();
     }
     
     private void applyFilters() {
         if (viewModel != null) {
+            scrollToTopOnRefresh = true;
             viewModel.setFilters(currentDayFilter, currentTypeFilter, currentDifficultyFilter);
         }
     }
@@ -319,24 +300,27 @@ public class CoursesFragment extends BaseFragment {
     protected void setupObservers() {
         viewModel = getViewModel(CourseViewModel.class);
         
-        // Observe all courses
-        viewModel.getAllCourses().observe(getViewLifecycleOwner(), courses -> {
-            allCourses.clear();
-            if (courses != null) {
-                allCourses.addAll(courses);
+        // Observe the paged, filtered course list; search and filters run in the database
+        viewModel.getCoursePages().observe(getViewLifecycleOwner(), pagingData ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+        
+        adapter.addLoadStateListener(loadStates -> {
+            if (loadStates.getRefresh() instanceof LoadState.NotLoading) {
+                if (scrollToTopOnRefresh) {
+                    scrollToTopOnRefresh = false;
+                    recyclerView.scrollToPosition(0);
+                }
+                updateEmptyState();
+                updateCourseCount();
             }
-            applyLocalFilters();
-            loadInstanceCounts();
+            return Unit.INSTANCE;
         });
         
-        // Observe filtered courses
-        viewModel.getFilteredCourses().observe(getViewLifecycleOwner(), courses -> {
-            courseList.clear();
-            if (courses != null) {
-                courseList.addAll(courses);
-            }
-            adapter.notifyDataSetChanged();
-            updateEmptyState();
+        // Instance badges for every course from one GROUP BY query, kept current by Room
+        viewModel.getInstanceCounts().observe(getViewLifecycleOwner(), adapter::updateInstanceCounts);
+        
+        viewModel.getActiveCourseCount().observe(getViewLifecycleOwner(), count -> {
+            totalCourseCount = count != null ? count : 0;
             updateCourseCount();
         });
         
@@ -366,73 +350,6 @@ public class CoursesFragment extends BaseFragment {
         });
     }
     
-    private void loadInstanceCounts() {
-        try {
-            AppDatabase database = AppDatabase.getInstance(requireContext());
-            InstanceDao instanceDao = database.instanceDao();
-            
-            // Load instance counts for all courses
-            Map<Integer, Integer> instanceCounts = new HashMap<>();
-            for (YogaCourse course : allCourses) {
-                List<YogaInstance> instances = instanceDao.getInstancesByCourseSync(course.getId());
-                instanceCounts.put(course.getId(), instances != null ? instances.size() : 0);
-            }
-            
-            // Update adapter with instance counts
-            adapter.updateInstanceCounts(instanceCounts);
-        } catch (Exception e) {
-            // Error loading instance counts
-        }
-    }
-    
-    private void applyLocalFilters() {
-        List<YogaCourse> filtered = new ArrayList<>(allCourses);
-        
-        // Apply search filter
-        if (!currentSearchQuery.trim().isEmpty()) {
-            String query = currentSearchQuery.toLowerCase().trim();
-            filtered = filtered.stream()
-                    .filter(course -> 
-                        (course.getDaysOfWeek() != null && course.getDaysOfWeek().toLowerCase().contains(query)) ||
-                        (course.getType() != null && course.getType().toLowerCase().contains(query)) ||
-                        (course.getDescription() != null && course.getDescription().toLowerCase().contains(query)) ||
-                        (course.getRoomLocation() != null && course.getRoomLocation().toLowerCase().contains(query)) ||
-                        (course.getInstructor() != null && course.getInstructor().toLowerCase().contains(query)) ||
-                        (course.getDifficulty() != null && course.getDifficulty().toLowerCase().contains(query)))
-                    .collect(java.util.stream.Collectors.toList());
-        }
-        
-        // Apply day filter
-        if (!currentDayFilter.isEmpty()) {
-            filtered = filtered.stream()
-                    .filter(course -> course.getDaysOfWeek() != null && 
-                                    course.getDaysOfWeek().equalsIgnoreCase(currentDayFilter))
-                    .collect(java.util.stream.Collectors.toList());
-        }
-        
-        // Apply type filter
-        if (!currentTypeFilter.isEmpty()) {
-            filtered = filtered.stream()
-                    .filter(course -> course.getType() != null && 
-                                    course.getType().equalsIgnoreCase(currentTypeFilter))
-                    .collect(java.util.stream.Collectors.toList());
-        }
-        
-        // Apply difficulty filter
-        if (!currentDifficultyFilter.isEmpty()) {
-            filtered = filtered.stream()
-                    .filter(course -> course.getDifficulty() != null && 
-                                    course.getDifficulty().equalsIgnoreCase(currentDifficultyFilter))
-                    .collect(java.util.stream.Collectors.toList());
-        }
-        
-        courseList.clear();
-        courseList.addAll(filtered);
-        adapter.notifyDataSetChanged();
-        updateEmptyState();
-        updateCourseCount();
-    }
-    
     @Override
     protected void setupListeners() {
         // Setup search functionality with debouncing
@@ -451,7 +368,10 @@ public class CoursesFragment extends BaseFragment {
                     btnClearSearchInput.setVisibility(View.GONE);
                 }
                 
-                applyLocalFilters();
+                if (viewModel != null) {
+                    scrollToTopOnRefresh = true;
+                    viewModel.setSearchQuery(currentSearchQuery);
+                }
             }
             
             @Override
@@ -463,7 +383,7 @@ public class CoursesFragment extends BaseFragment {
      * Update empty state visibility
      */
     private void updateEmptyState() {
-        if (courseList.isEmpty()) {
+        if (adapter.getItemCount() == 0) {
             if (hasActiveFilters()) {
                 // Show no results state
                 layoutNoResults.setVisibility(View.VISIBLE);
@@ -491,8 +411,8 @@ public class CoursesFragment extends BaseFragment {
      */
     private void updateCourseCount() {
         if (tvCourseCount != null) {
-            int totalCount = allCourses.size();
-            int filteredCount = courseList.size();
+            int totalCount = totalCourseCount;
+            int filteredCount = adapter.getItemCount();
             String countText = String.format("%d of %d classes", filteredCount, totalCount);
             if (hasActiveFilters()) {
                 countText += " (filtered)";
@@ -536,7 +456,5 @@ public class CoursesFragment extends BaseFragment {
         if (viewModel != null) {
             viewModel.getAllCourses();
         }
-        // Refresh instance counts
-        loadInstanceCounts();
     }
 }
@@ -10,6 +10,7 @@ import android.widget.TextView;
 import androidx.cardview.widget.CardView;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Observer;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.universalyoga.adminapp.R;
@@ -18,24 +19,19 @@ import com.universalyoga.adminapp.activities.AddInstanceActivity;
 import com.universalyoga.adminapp.adapters.ActivityAdapter;
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.database.ActivityDao;
-import com.universalyoga.adminapp.database.CourseDao;
-import com.universalyoga.adminapp.database.InstanceDao;
+import com.universalyoga.adminapp.database.DashboardDao;
 import com.universalyoga.adminapp.models.Activity;
-import com.universalyoga.adminapp.models.YogaCourse;
-import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.models.DashboardStats;
 import com.universalyoga.adminapp.utils.ActivityLogger;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 public class DashboardFragment extends Fragment {
     private TextView tvTotalCourses, tvTotalInstances, tvTotalCapacity, tvAvgPrice;
     private LinearLayout layoutEmptyActivity;
     private RecyclerView rvRecentActivity;
     private ActivityAdapter activityAdapter;
-    private CourseDao courseDao;
-    private InstanceDao instanceDao;
+    private DashboardDao dashboardDao;
     private ActivityDao activityDao;
 
     @Override
@@ -45,8 +41,7 @@ public class DashboardFragment extends Fragment {
         // Initialize database DAOs
         try {
             AppDatabase database = AppDatabase.getInstance(requireContext());
-            courseDao = database.courseDao();
-            instanceDao = database.instanceDao();
+            dashboardDao = database.dashboardDao();
             activityDao = database.activityDao();
         } catch (Exception e) {
             // Database initialization failed
@@ -93,46 +88,25 @@ public class DashboardFragment extends Fragment {
     }
     
     private void observeStats() {
-        if (courseDao == null) {
+        if (dashboardDao == null) {
             return;
         }
         
-        courseDao.getAllLive().observe(getViewLifecycleOwner(), new Observer<List<YogaCourse>>() {
+        // One trigger-maintained row, so the cost does not grow with the tables
+        dashboardDao.getStatsLive().observe(getViewLifecycleOwner(), new Observer<DashboardStats>() {
             @Override
-            public void onChanged(List<YogaCourse> courses) {
+            public void onChanged(DashboardStats stats) {
                 try {
-                    int courseCount = courses != null ? courses.size() : 0;
-                    tvTotalCourses.setText(String.valueOf(courseCount));
-                    
-                    // Calculate total capacity
-                    int totalCapacity = 0;
-                    if (courses != null) {
-                        for (YogaCourse course : courses) {
-                            totalCapacity += course.getCapacity();
-                        }
+                    if (stats == null) {
+                        stats = new DashboardStats();
                     }
-                    
-                    tvTotalCapacity.setText(String.valueOf(totalCapacity));
-                    
-                    // Calculate average price based on member registrations and course prices
-                    calculateAveragePrice(courses);
+                    tvTotalCourses.setText(String.valueOf(stats.getCourseCount()));
+                    tvTotalInstances.setText(String.valueOf(stats.getInstanceCount()));
+                    tvTotalCapacity.setText(String.valueOf(stats.getTotalCapacity()));
+                    // Average revenue per course: Σ(enrolled × course price) / number of courses
+                    tvAvgPrice.setText(String.format(Locale.UK, "£%.2f", stats.getAverageRevenue()));
                 } catch (Exception e) {
-                    // Error updating course stats
-                }
-            }
-        });
-        
-        if (instanceDao == null) {
-            return;
-        }
-        
-        instanceDao.getAllLive().observe(getViewLifecycleOwner(), new Observer<List<YogaInstance>>() {
-            @Override
-            public void onChanged(List<YogaInstance> instances) {
-                try {
-                    tvTotalInstances.setText(String.valueOf(instances != null ? instances.size() : 0));
-                } catch (Exception e) {
-                    // Error updating instance stats
+                    // Error updating stats
                 }
             }
         });
@@ -144,13 +118,14 @@ public class DashboardFragment extends Fragment {
             return;
         }
         
-        // Use the new method to get only recent activities (limit to 5)
+        // The dashboard only shows the newest 5 entries; there is no full activity list to page
         activityDao.getRecentLive(5).observe(getViewLifecycleOwner(), new Observer<List<Activity>>() {
             @Override
             public void onChanged(List<Activity> activities) {
                 try {
                     if (activities != null && !activities.isEmpty()) {
-                        activityAdapter.setActivities(activities);
+                        // Already bounded by the query, so hand it over as a single page
+                        activityAdapter.submitData(getViewLifecycleOwner().getLifecycle(), PagingData.from(activities));
                         showActivityList();
                     } else {
                         // Show empty state
@@ -177,65 +152,6 @@ public class DashboardFragment extends Fragment {
         }
     }
     
-    /**
-     * Calculate average price based on member registrations and course prices
-     * Formula: Average Price = (Total Member Registrations × Course Price) / Number of Courses
-     */
-    private void calculateAveragePrice(List<YogaCourse> courses) {
-        if (instanceDao == null || courses == null || courses.isEmpty()) {
-            tvAvgPrice.setText("£0.00");
-            return;
-        }
-        
-        // Get all instances to calculate total registrations
-        instanceDao.getAllLive().observe(getViewLifecycleOwner(), new Observer<List<YogaInstance>>() {
-            @Override
-            public void onChanged(List<YogaInstance> instances) {
-                try {
-                    if (instances == null || instances.isEmpty()) {
-                        tvAvgPrice.setText("£0.00");
-                        return;
-                    }
-                    
-                    // Create a map of course ID to course price for quick lookup
-                    Map<Integer, Double> coursePriceMap = new HashMap<>();
-                    for (YogaCourse course : courses) {
-                        coursePriceMap.put(course.getId(), course.getPrice());
-                    }
-                    
-                    // Calculate total revenue (member registrations × course price)
-                    double totalRevenue = 0.0;
-                    int totalRegistrations = 0;
-                    
-                    for (YogaInstance instance : instances) {
-                        Double coursePrice = coursePriceMap.get(instance.getCourseId());
-                        if (coursePrice != null) {
-                            int enrolled = instance.getEnrolled();
-                            double instanceRevenue = enrolled * coursePrice;
-                            totalRevenue += instanceRevenue;
-                            totalRegistrations += enrolled;
-                            
-                            android.util.Log.d("DashboardFragment", String.format(
-                                "Instance %d: %d enrolled × £%.2f = £%.2f", 
-                                instance.getId(), enrolled, coursePrice, instanceRevenue));
-                        }
-                    }
-                    
-                    // Calculate average revenue per course
-                    double avgRevenue = courses.size() > 0 ? totalRevenue / courses.size() : 0.0;
-                    tvAvgPrice.setText(String.format(Locale.UK, "£%.2f", avgRevenue));
-                    
-                    android.util.Log.d("DashboardFragment", String.format(
-                        "Total Revenue: £%.2f, Total Registrations: %d, Courses: %d, Avg Revenue: £%.2f",
-                        totalRevenue, totalRegistrations, courses.size(), avgRevenue));
-                    
-                } catch (Exception e) {
-                    tvAvgPrice.setText("£0.00");
-                }
-            }
-        });
-    }
-    
     // Method to manually create sample activities for testing
     public void createSampleActivities() {
         try {
@@ -16,27 +16,25 @@ import android.widget.AutoCompleteTextView;
 import android.widget.ImageView;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
-import com.universalyoga.adminapp.models.YogaCourse;
 import android.text.TextWatcher;
 import android.text.Editable;
 import android.widget.Toast;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import androidx.lifecycle.Observer;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.universalyoga.adminapp.R;
 import com.universalyoga.adminapp.activities.AddInstanceActivity;
 import com.universalyoga.adminapp.activities.EditInstanceActivity;
 import com.universalyoga.adminapp.adapters.InstanceAdapter;
-import com.universalyoga.adminapp.database.AppDatabase;
-import com.universalyoga.adminapp.database.InstanceDao;
+import com.universalyoga.adminapp.database.InstanceFilter;
 import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.repository.InstanceRepository;
+import com.universalyoga.adminapp.viewmodels.InstanceViewModel;
+import com.universalyoga.adminapp.viewmodels.AppViewModelFactory;
 import java.util.List;
-import java.util.concurrent.Executors;
 import android.app.AlertDialog;
 import com.google.android.material.snackbar.Snackbar;
 import android.util.Log;
@@ -46,20 +44,19 @@ import com.google.android.material.button.MaterialButton;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.HashMap;
+import kotlin.Unit;
 
 public class InstancesFragment extends Fragment implements InstanceAdapter.OnInstanceActionListener {
     private RecyclerView recyclerView;
-    private InstanceDao instanceDao;
     private InstanceAdapter adapter;
+    private InstanceViewModel viewModel;
     private View emptyStateLayout;
     private View layoutNoResults;
     private TextView tvStatsInstances, tvStatsMembersRegistered, tvInstanceCount;
     private TextInputEditText editTextSearch;
-    private List<YogaInstance> allInstances = new ArrayList<>();
-    private List<YogaInstance> filteredInstances = new ArrayList<>();
     private String currentSearchQuery = "";
+    private int totalInstanceCount = 0;
+    private boolean scrollToTopOnRefresh = false;
     
     // Filter UI elements
     private MaterialButton btnAdvancedFilters;
@@ -98,7 +95,7 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
     }
     
     private void initializeViews(View view) {
-        instanceDao = AppDatabase.getInstance(requireContext()).instanceDao();
+        viewModel = new ViewModelProvider(this, AppViewModelFactory.getInstance(requireActivity().getApplication())).get(InstanceViewModel.class);
         recyclerView = view.findViewById(R.id.recyclerInstances);
         emptyStateLayout = view.findViewById(R.id.emptyStateLayout);
         layoutNoResults = view.findViewById(R.id.layout_no_results);
@@ -122,7 +119,7 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
     
     private void setupRecyclerView() {
         recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
-        adapter = new InstanceAdapter(new ArrayList<>(), this);
+        adapter = new InstanceAdapter(this);
         recyclerView.setAdapter(adapter);
     }
     
@@ -136,30 +133,21 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
         // Setup clear filters button
         btnClearFilters.setOnClickListener(v -> {
             clearAllFilters();
-            applyLocalFilters();
+            applyFilters();
         });
         
-        // Setup clear search button
-        btnClearSearch.setOnClickListener(v -> {
-            currentSearchQuery = "";
-            editTextSearch.setText("");
-            applyLocalFilters();
-        });
+        // Setup clear search button; the text watcher applies the empty query
+        btnClearSearch.setOnClickListener(v -> editTextSearch.setText(""));
         
         // Setup clear all filters button
         btnClearAllFilters.setOnClickListener(v -> {
-            currentSearchQuery = "";
             editTextSearch.setText("");
             clearAllFilters();
-            applyLocalFilters();
+            applyFilters();
         });
         
         // Setup clear search input button
-        btnClearSearchInput.setOnClickListener(v -> {
-            currentSearchQuery = "";
-            editTextSearch.setText("");
-            applyLocalFilters();
-        });
+        btnClearSearchInput.setOnClickListener(v -> editTextSearch.setText(""));
     }
     
     private void setupFilterDropdowns() {
@@ -169,7 +157,7 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
         spinnerDayFilter.setOnItemClickListener((parent, view, position, id) -> {
             currentDayFilter = position == 0 ? "" : DAYS_OF_WEEK[position];
             updateActiveFilters();
-            applyLocalFilters();
+            applyFilters();
         });
         
         // Type filter
@@ -178,7 +166,7 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
         spinnerTypeFilter.setOnItemClickListener((parent, view, position, id) -> {
             currentTypeFilter = position == 0 ? "" : CLASS_TYPES[position];
             updateActiveFilters();
-            applyLocalFilters();
+            applyFilters();
         });
         
         // Teacher filter - will be populated dynamically
@@ -186,20 +174,19 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
     }
     
     private void updateTeacherFilterOptions() {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            List<String> teachers = instanceDao.getAllTeachers();
+        viewModel.getTeachers().observe(getViewLifecycleOwner(), teachers -> {
             List<String> teacherOptions = new ArrayList<>();
             teacherOptions.add("All teachers");
-            teacherOptions.addAll(teachers);
+            if (teachers != null) {
+                teacherOptions.addAll(teachers);
+            }
             
-            requireActivity().runOnUiThread(() -> {
-                ArrayAdapter<String> teacherAdapter = new ArrayAdapter<>(requireContext(), android.R.layout.simple_dropdown_item_1line, teacherOptions);
-                spinnerTeacherFilter.setAdapter(teacherAdapter);
-                spinnerTeacherFilter.setOnItemClickListener((parent, view, position, id) -> {
-                    currentTeacherFilter = position == 0 ? "" : teacherOptions.get(position);
-                    updateActiveFilters();
-                    applyLocalFilters();
-                });
+            ArrayAdapter<String> teacherAdapter = new ArrayAdapter<>(requireContext(), android.R.layout.simple_dropdown_item_1line, teacherOptions);
+            spinnerTeacherFilter.setAdapter(teacherAdapter);
+            spinnerTeacherFilter.setOnItemClickListener((parent, view, position, id) -> {
+                currentTeacherFilter = position == 0 ? "" : teacherOptions.get(position);
+                updateActiveFilters();
+                applyFilters();
             });
         });
     }
@@ -231,7 +218,7 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
             // Setup chip close listener
             chipActiveFilters.setOnCloseIconClickListener(v -> {
                 clearAllFilters();
-                applyLocalFilters();
+                applyFilters();
             });
         } else {
             chipActiveFilters.setVisibility(View.GONE);
@@ -270,7 +257,8 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
                     btnClearSearchInput.setVisibility(View.GONE);
                 }
                 
-                applyLocalFilters();
+                scrollToTopOnRefresh = true;
+                viewModel.setSearchQuery(currentSearchQuery);
             }
             
             @Override
@@ -297,131 +285,35 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
     }
     
     private void observeInstances() {
-        instanceDao.getAllLive().observe(getViewLifecycleOwner(), new Observer<List<YogaInstance>>() {
-            @Override
-            public void onChanged(List<YogaInstance> instances) {
-                allInstances.clear();
-                if (instances != null) {
-                    allInstances.addAll(instances);
+        // Search and filters run in the database; only the visible pages are loaded
+        viewModel.getInstancePages().observe(getViewLifecycleOwner(), pagingData ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+        
+        adapter.addLoadStateListener(loadStates -> {
+            if (loadStates.getRefresh() instanceof LoadState.NotLoading) {
+                if (scrollToTopOnRefresh) {
+                    scrollToTopOnRefresh = false;
+                    recyclerView.scrollToPosition(0);
                 }
-                updateTeacherFilterOptions();
-                applyLocalFilters();
+                updateEmptyState();
             }
+            return Unit.INSTANCE;
         });
-    }
-    
-    private void applyLocalFilters() {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            List<YogaInstance> filtered = new ArrayList<>(allInstances);
-            
-            // Cache course data to avoid multiple database calls
-            Map<Integer, YogaCourse> courseCache = new HashMap<>();
-            AppDatabase db = AppDatabase.getInstance(requireContext());
-            
-            // Pre-load all course data
-            for (YogaInstance instance : allInstances) {
-                if (!courseCache.containsKey(instance.getCourseId())) {
-                    YogaCourse course = db.courseDao().getById(instance.getCourseId());
-                    courseCache.put(instance.getCourseId(), course);
-                }
-            }
-            
-            // Apply search filter
-            if (!currentSearchQuery.trim().isEmpty()) {
-                String query = currentSearchQuery.toLowerCase().trim();
-                filtered = filtered.stream()
-                        .filter(instance -> {
-                            boolean matches = false;
-                            
-                            // Search in teacher name
-                            if (instance.getTeacher() != null && 
-                                instance.getTeacher().toLowerCase().contains(query)) {
-                                matches = true;
-                            }
-                            
-                            // Search in course name
-                            if (!matches) {
-                                YogaCourse course = courseCache.get(instance.getCourseId());
-                                if (course != null && course.getCourseName() != null && 
-                                    course.getCourseName().toLowerCase().contains(query)) {
-                                    matches = true;
-                                }
-                            }
-                            
-                            // Search in course type
-                            if (!matches) {
-                                YogaCourse course = courseCache.get(instance.getCourseId());
-                                if (course != null && course.getType() != null && 
-                                    course.getType().toLowerCase().contains(query)) {
-                                    matches = true;
-                                }
-                            }
-                            
-                            // Search in date
-                            if (!matches && instance.getDate() != null && 
-                                instance.getDate().toLowerCase().contains(query)) {
-                                matches = true;
-                            }
-                            
-                            // Search in comments
-                            if (!matches && instance.getComments() != null && 
-                                instance.getComments().toLowerCase().contains(query)) {
-                                matches = true;
-                            }
-                            
-                            return matches;
-                        })
-                        .collect(java.util.stream.Collectors.toList());
-            }
-            
-            // Apply day filter
-            if (!currentDayFilter.isEmpty()) {
-                filtered = filtered.stream()
-                        .filter(instance -> {
-                            String instanceDay = getDayName(instance.getDate());
-                            return instanceDay.equalsIgnoreCase(currentDayFilter);
-                        })
-                        .collect(java.util.stream.Collectors.toList());
-            }
-            
-            // Apply type filter
-            if (!currentTypeFilter.isEmpty()) {
-                filtered = filtered.stream()
-                        .filter(instance -> {
-                            YogaCourse course = courseCache.get(instance.getCourseId());
-                            return course != null && 
-                                   course.getType() != null && 
-                                   course.getType().equalsIgnoreCase(currentTypeFilter);
-                        })
-                        .collect(java.util.stream.Collectors.toList());
-            }
-            
-            // Apply teacher filter
-            if (!currentTeacherFilter.isEmpty()) {
-                filtered = filtered.stream()
-                        .filter(instance -> instance.getTeacher() != null && 
-                                          instance.getTeacher().equalsIgnoreCase(currentTeacherFilter))
-                        .collect(java.util.stream.Collectors.toList());
-            }
-            
-            // Create final copy for lambda
-            final List<YogaInstance> finalFiltered = new ArrayList<>(filtered);
-            
-            // Update UI on main thread
-            requireActivity().runOnUiThread(() -> {
-                filteredInstances.clear();
-                filteredInstances.addAll(finalFiltered);
-                adapter.updateInstances(filteredInstances);
-                updateEmptyState();
-                updateStats();
-            });
+        
+        viewModel.getSummary().observe(getViewLifecycleOwner(), this::updateStats);
+        viewModel.getActiveInstanceCount().observe(getViewLifecycleOwner(), count -> {
+            totalInstanceCount = count != null ? count : 0;
+            updateStats(viewModel.getSummary().getValue());
         });
     }
     
-
+    private void applyFilters() {
+        scrollToTopOnRefresh = true;
+        viewModel.setFilters(currentDayFilter, currentTypeFilter, currentTeacherFilter);
+    }
     
     private void updateEmptyState() {
-        if (filteredInstances.isEmpty()) {
+        if (adapter.getItemCount() == 0) {
             if (hasActiveFilters()) {
                 // Show no results state
                 layoutNoResults.setVisibility(View.VISIBLE);
@@ -444,14 +336,11 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
         return !currentSearchQuery.trim().isEmpty() || !activeFilters.isEmpty();
     }
     
-    private void updateStats() {
-        tvStatsInstances.setText(String.valueOf(filteredInstances.size()));
-        int totalEnrolled = 0;
-        for (YogaInstance instance : filteredInstances) {
-            totalEnrolled += instance.getEnrolled();
-        }
-        tvStatsMembersRegistered.setText(String.valueOf(totalEnrolled));
-        tvInstanceCount.setText(filteredInstances.size() + " of " + allInstances.size() + " instances");
+    private void updateStats(InstanceFilter.Summary summary) {
+        int count = summary != null ? summary.count : 0;
+        tvStatsInstances.setText(String.valueOf(count));
+        tvStatsMembersRegistered.setText(String.valueOf(summary != null ? summary.enrolled : 0));
+        tvInstanceCount.setText(count + " of " + totalInstanceCount + " instances");
     }
 
     public void onInstanceClick(YogaInstance instance) {
@@ -469,48 +358,31 @@ public class InstancesFragment extends Fragment implements InstanceAdapter.OnIns
             .setTitle("Delete Instance")
             .setMessage("Are you sure you want to delete this instance?")
             .setPositiveButton("Delete", (dialog, which) -> {
-                Executors.newSingleThreadExecutor().execute(() -> {
-                    int result = instanceDao.delete(instance);
-                    requireActivity().runOnUiThread(() -> {
-                        if (result > 0) {
-                            Snackbar.make(requireView(), "Instance deleted!", Snackbar.LENGTH_SHORT).show();
-                        } else {
-                            Snackbar.make(requireView(), "Delete failed!", Snackbar.LENGTH_LONG).show();
-                        }
-                    });
+                viewModel.deleteInstance(instance, new InstanceRepository.OnInstanceOperationCallback() {
+                    @Override
+                    public void onSuccess(YogaInstance deleted) {
+                        showResult("Instance deleted!", Snackbar.LENGTH_SHORT);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        showResult("Delete failed!", Snackbar.LENGTH_LONG);
+                    }
                 });
             })
             .setNegativeButton("Cancel", null)
             .show();
     }
 
-    private String getDayName(String dateString) {
-        if (dateString == null) return "";
-        dateString = dateString.trim();
-        String[] possibleFormats = {
-            "EEEE, dd/MM/yyyy",
-            "dd/MM/yyyy",
-            "yyyy-MM-dd",
-            "MM/dd/yyyy",
-            "yyyy/MM/dd",
-            "dd-MM-yyyy",
-            "yyyyMMdd",
-            "yyyy-MM-dd HH:mm:ss",
-            "dd/MM/yyyy HH:mm:ss",
-            "yyyy/MM/dd HH:mm:ss"
-        };
-        for (String format : possibleFormats) {
-            try {
-                SimpleDateFormat dateFormat = new SimpleDateFormat(format, Locale.getDefault());
-                dateFormat.setLenient(true);
-                Calendar calendar = Calendar.getInstance();
-                calendar.setTime(dateFormat.parse(dateString));
-                // Return full day name to match filter options
-                return new SimpleDateFormat("EEEE", Locale.ENGLISH).format(calendar.getTime()).trim();
-            } catch (Exception ignored) {
-                // Try next format
-            }
+    // Callbacks arrive on a background thread, possibly after the view is gone
+    private void showResult(String message, int duration) {
+        if (getActivity() == null) {
+            return;
         }
-        return ""; // Return empty string if no format matches
+        getActivity().runOnUiThread(() -> {
+            if (getView() != null) {
+                Snackbar.make(getView(), message, duration).show();
+            }
+        });
     }
-}
\ No newline at end of file
+}
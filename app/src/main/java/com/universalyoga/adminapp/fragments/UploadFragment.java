@@ -13,7 +13,8 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.lifecycle.Observer;
+import androidx.fragment.app.FragmentActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -24,7 +25,11 @@ import com.universalyoga.adminapp.adapters.SyncHistoryAdapter;
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.database.CourseDao;
 import com.universalyoga.adminapp.database.InstanceDao;
+import com.universalyoga.adminapp.database.SyncHistoryDao;
+import com.universalyoga.adminapp.database.WriteQueue;
+import com.universalyoga.adminapp.models.SyncDailySummary;
 import com.universalyoga.adminapp.models.SyncHistory;
+import com.universalyoga.adminapp.models.SyncPercentiles;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
 import com.universalyoga.adminapp.network.ApiClient;
@@ -32,31 +37,43 @@ import com.universalyoga.adminapp.network.ApiService;
 import com.universalyoga.adminapp.utils.NetworkUtils;
 import com.universalyoga.adminapp.services.FirebaseService;
 import com.universalyoga.adminapp.services.AutoSyncService;
+import com.universalyoga.adminapp.services.DeltaSyncEngine;
+import com.universalyoga.adminapp.services.UploadPipeline;
 import com.universalyoga.adminapp.utils.DatabaseResetUtil;
 import com.universalyoga.adminapp.utils.ToastHelper;
 import com.universalyoga.adminapp.activities.DatabaseManagementActivity;
+import com.universalyoga.adminapp.viewmodels.SyncHistoryViewModel;
+import com.universalyoga.adminapp.viewmodels.AppViewModelFactory;
+import com.universalyoga.adminapp.utils.AppExecutors;
+import com.universalyoga.adminapp.utils.DeviceInfoUtils;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Executors;
+import java.util.Locale;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 
 public class UploadFragment extends Fragment {
+    private static final int PERCENTILE_WINDOW = 50; // Recent successful syncs used for percentiles
+    private static final int HISTORY_DIALOG_LIMIT = 50; // Syncs listed individually in the history dialog
+    
     private MaterialButton btnSync, btnRetry;
     private MaterialButton btnViewAll;
     private MaterialButton btnDatabaseManagement, btnResetAllData;
     private ProgressBar progressBar;
     private TextView tvNetworkStatus, tvLastSync, tvDataSummary, tvDataVolume;
-    private TextView tvTotalSyncs, tvProgressText;
+    private TextView tvTotalSyncs, tvProgressText, tvSyncPercentiles;
     private SwitchMaterial switchAutoSync;
     private View emptyStateLayout;
     private CourseDao courseDao;
     private InstanceDao instanceDao;
+    private SyncHistoryDao syncHistoryDao;
     private ApiService apiService;
     private RecyclerView rvSyncHistory;
     private SyncHistoryAdapter syncHistoryAdapter;
     private AutoSyncService autoSyncService;
+    private DeltaSyncEngine deltaSyncEngine;
+    private WriteQueue writeQueue;
     private DatabaseResetUtil resetUtil;
     private boolean isManualSyncInProgress = false;
     private android.widget.ImageView ivNetworkIcon;
@@ -74,9 +91,12 @@ public class UploadFragment extends Fragment {
         AppDatabase db = AppDatabase.getInstance(requireContext());
         courseDao = db.courseDao();
         instanceDao = db.instanceDao();
+        syncHistoryDao = db.syncHistoryDao();
         apiService = ApiClient.get().create(ApiService.class);
-        autoSyncService = new AutoSyncService(requireContext());
-        resetUtil = new DatabaseResetUtil(requireContext());
+        autoSyncService = AutoSyncService.getInstance(requireContext());
+        deltaSyncEngine = autoSyncService.getDeltaSyncEngine();
+        writeQueue = WriteQueue.getInstance(requireContext());
+        resetUtil = new DatabaseResetUtil(requireContext(), AppExecutors.getInstance());
         
         // Initialize views
         btnSync = view.findViewById(R.id.btnSync);
@@ -91,6 +111,7 @@ public class UploadFragment extends Fragment {
         tvDataVolume = view.findViewById(R.id.tvDataVolume);
         tvTotalSyncs = view.findViewById(R.id.tvTotalSyncs);
         tvProgressText = view.findViewById(R.id.tvProgressText);
+        tvSyncPercentiles = view.findViewById(R.id.tvSyncPercentiles);
         switchAutoSync = view.findViewById(R.id.switchAutoSync);
         emptyStateLayout = view.findViewById(R.id.emptyStateLayout);
         rvSyncHistory = view.findViewById(R.id.rvSyncHistory);
@@ -121,8 +142,8 @@ public class UploadFragment extends Fragment {
         btnDatabaseManagement.setOnClickListener(v -> openDatabaseManagement());
         btnResetAllData.setOnClickListener(v -> showResetConfirmation());
         
-        // Set up auto-sync switch - disabled by default
-        switchAutoSync.setChecked(false); // Always start disabled
+        // Set up auto-sync switch - disabled until the user turns it on
+        switchAutoSync.setChecked(autoSyncService.isAutoSyncEnabled());
         switchAutoSync.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (autoSyncService != null) {
                 autoSyncService.setAutoSyncEnabled(isChecked);
@@ -146,15 +167,14 @@ public class UploadFragment extends Fragment {
         //     performUpload(); // This line is removed
         // }); // This line is removed
         
-        // Observe LiveData
-        db.syncHistoryDao().getAllLive().observe(getViewLifecycleOwner(), new Observer<List<SyncHistory>>() {
-            @Override
-            public void onChanged(List<SyncHistory> histories) {
-                syncHistoryAdapter.setData(histories != null ? histories : new ArrayList<>());
-                updateEmptyState(histories);
-                updateSyncStatistics(histories);
-                // updateSyncErrors(histories); // This line is removed
-            }
+        // Observe LiveData; the history list is paged, so only the visible rows are loaded
+        SyncHistoryViewModel historyViewModel = new ViewModelProvider(this, AppViewModelFactory.getInstance(requireActivity().getApplication())).get(SyncHistoryViewModel.class);
+        historyViewModel.getHistoryPages().observe(getViewLifecycleOwner(), pagingData ->
+                syncHistoryAdapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+        historyViewModel.getHistoryCount().observe(getViewLifecycleOwner(), count -> {
+            int totalSyncs = count != null ? count : 0;
+            updateEmptyState(totalSyncs);
+            updateSyncStatistics(totalSyncs);
         });
         
         // Initialize UI
@@ -183,23 +203,22 @@ public class UploadFragment extends Fragment {
 
         // Create initial sync history record
         SyncHistory history = SyncHistory.createWithId();
-        history.setTimestamp(String.valueOf(System.currentTimeMillis()));
+        history.setTimestamp(System.currentTimeMillis());
         history.setStatus("in_progress");
         history.setType("manual");
         history.setTrigger("user");
+        history.setDeviceInfo(DeviceInfoUtils.collect(requireContext()));
+        android.content.Context appContext = requireContext().getApplicationContext();
         
-        AppDatabase db = AppDatabase.getInstance(requireContext());
-        Executors.newSingleThreadExecutor().execute(() -> {
-            db.syncHistoryDao().insert(history);
-        });
+        writeQueue.execute(() -> syncHistoryDao.insert(history));
         
-        // Perform upload
-        Executors.newSingleThreadExecutor().execute(() -> {
-            List<YogaCourse> coursesToUpload = courseDao.getAll();
-            List<YogaInstance> instancesToUpload = instanceDao.getAll();
+        // Perform upload, in turn with automatic syncs so the two never send the same outbox operations
+        autoSyncService.runSyncNow(() -> CompletableFuture.supplyAsync(() -> {
+            boolean localDatabaseEmpty = courseDao.getCourseCount() == 0 && instanceDao.getInstanceCount() == 0;
+            DeltaSyncEngine.ChangeSet changes = deltaSyncEngine.collectChanges(true);
 
-            requireActivity().runOnUiThread(() -> {
-                if (coursesToUpload.isEmpty() && instancesToUpload.isEmpty()) {
+            runOnUiThreadIfAdded(() -> {
+                if (localDatabaseEmpty) {
                     tvProgressText.setText("Clearing Firebase data (local DB is empty)...");
                     progressBar.setProgress(25);
                 } else {
@@ -207,62 +226,69 @@ public class UploadFragment extends Fragment {
                 }
             });
 
-            // Sync pending deletions first
-            syncPendingDeletions();
-
             // If local database is empty, clear Firebase data
-            if (coursesToUpload.isEmpty() && instancesToUpload.isEmpty()) {
-                clearFirebaseData();
+            if (localDatabaseEmpty) {
+                return clearFirebaseData(history);
+            } else if (changes.isEmpty()) {
+                history.setStatus("success");
+                writeQueue.execute(() -> syncHistoryDao.update(history));
+                runOnUiThreadIfAdded(() -> {
+                    progressBar.setProgress(100);
+                    tvProgressText.setText("100% - Everything is already up to date");
+                    resetUploadState();
+                });
+                return CompletableFuture.<Void>completedFuture(null);
             } else {
-                // Perform actual Firebase upload
-                uploadAllYogaClasses(requireContext(), coursesToUpload, instancesToUpload);
+                // Drain the outbox: pending deletions, then changed courses
+                return uploadAllYogaClasses(appContext, changes, history);
             }
-        });
+        }, AppExecutors.getInstance().diskIO()).thenCompose(upload -> upload))
+            .exceptionally(throwable -> {
+                // Reading the outbox failed before the upload could start
+                updateSyncHistory(history, false, "Upload failed: " + throwable.getMessage(), 0);
+                runOnUiThreadIfAdded(() -> {
+                    progressBar.setProgress(0);
+                    tvProgressText.setText("Upload failed");
+                    resetUploadState();
+                });
+                return null;
+            });
     }
     
-    private void uploadAllYogaClasses(android.content.Context context, List<YogaCourse> courses, List<YogaInstance> instances) {
-        // Update progress to show upload starting
-        requireActivity().runOnUiThread(() -> {
-            progressBar.setProgress(10);
-            tvProgressText.setText("10% - Starting upload...");
+    private CompletableFuture<Void> uploadAllYogaClasses(android.content.Context context, DeltaSyncEngine.ChangeSet changes, SyncHistory history) {
+        runOnUiThreadIfAdded(() -> {
+            progressBar.setProgress(0);
+            tvProgressText.setText(String.format(Locale.UK, "0%% - Uploading %d records...", changes.getUploadCount()));
         });
         
-        // Upload to Realtime Database first, then to Firestore
-        FirebaseService.uploadCoursesToRealtimeDB(courses, instances)
-            .thenCompose(realtimeSuccess -> {
-                requireActivity().runOnUiThread(() -> {
-                    if (realtimeSuccess) {
-                        progressBar.setProgress(50);
-                        tvProgressText.setText("50% - Realtime DB uploaded, uploading to Firestore...");
-                    } else {
-                        progressBar.setProgress(25);
-                        tvProgressText.setText("25% - Realtime DB failed, trying Firestore...");
-                    }
-                });
+        // Progress advances only as the backends acknowledge each chunk
+        return deltaSyncEngine.sync(changes, progress -> runOnUiThreadIfAdded(() -> {
+                progressBar.setProgress(progress.getPercent());
+                tvProgressText.setText(formatProgress(progress));
+            }))
+            .thenAccept(result -> {
+                boolean uploadSuccess = result.isComplete();
+                history.setStatus(uploadSuccess ? "success" : "failed");
+                DeltaSyncEngine.recordResult(history, result);
+                writeQueue.execute(() -> syncHistoryDao.update(history));
                 
-                // Upload to Firestore
-                return FirebaseService.uploadCoursesToFirestore(courses, instances);
-            })
-            .thenAccept(firestoreSuccess -> {
-                requireActivity().runOnUiThread(() -> {
-                    if (firestoreSuccess) {
-                        progressBar.setProgress(100);
-                        tvProgressText.setText("100% - Upload completed successfully!");
-                        
-                        // Update sync history
-                        updateSyncHistory(true, "Manual sync completed", courses.size() + instances.size());
-                        
+                runOnUiThreadIfAdded(() -> {
+                    progressBar.setProgress(result.getPercent());
+                    tvProgressText.setText(formatProgress(result));
+                    if (uploadSuccess) {
                         Toast.makeText(context, "Data synced to Firebase successfully!", Toast.LENGTH_LONG).show();
                     } else {
-                        progressBar.setProgress(75);
-                        tvProgressText.setText("75% - Partial upload completed");
-                        Toast.makeText(context, "Partial upload completed", Toast.LENGTH_SHORT).show();
+                        String failedBackend = !result.isRealtimeComplete() && !result.isFirestoreComplete() ? "Both backends"
+                                : !result.isRealtimeComplete() ? "Realtime Database" : "Firestore";
+                        Toast.makeText(context, "Partial sync: " + failedBackend + " will be retried", Toast.LENGTH_SHORT).show();
                     }
+                    updateDataSummary();
                     resetUploadState();
                 });
             })
             .exceptionally(throwable -> {
-                requireActivity().runOnUiThread(() -> {
+                updateSyncHistory(history, false, "Upload failed: " + throwable.getMessage(), 0);
+                runOnUiThreadIfAdded(() -> {
                     progressBar.setProgress(0);
                     tvProgressText.setText("Upload failed");
                     Toast.makeText(context, "Upload failed: " + throwable.getMessage(), Toast.LENGTH_LONG).show();
@@ -272,25 +298,75 @@ public class UploadFragment extends Fragment {
             });
     }
     
+    // Background work can outlive the screen; drop UI updates once the fragment is detached
+    private void runOnUiThreadIfAdded(Runnable action) {
+        FragmentActivity activity = getActivity();
+        if (activity == null || !isAdded()) {
+            return;
+        }
+        activity.runOnUiThread(() -> {
+            if (isAdded()) {
+                action.run();
+            }
+        });
+    }
+    
+    private String formatProgress(DeltaSyncEngine.SyncProgress progress) {
+        return formatProgress(progress.getPercent(), progress.getRealtime(), progress.getFirestore(),
+                progress.getBytesAcked());
+    }
+    
+    private String formatProgress(DeltaSyncEngine.SyncResult result) {
+        return formatProgress(result.getPercent(), result.getRealtime(), result.getFirestore(),
+                result.getBytesAcked());
+    }
+    
+    // Each backend advances independently as it acknowledges chunks; the size is an estimate
+    private String formatProgress(int percent, UploadPipeline.UploadProgress realtime,
+                                  UploadPipeline.UploadProgress firestore, long bytesAcked) {
+        return String.format(Locale.UK, "%d%% - Realtime DB %d/%d, Firestore %d/%d records, ~%.1fKB",
+                percent, realtime.getRecordsAcked(), realtime.getRecordsTotal(),
+                firestore.getRecordsAcked(), firestore.getRecordsTotal(), bytesAcked / 1024.0);
+    }
+    
     private void showAllSyncHistory() {
         // Show all sync history in a dialog or navigate to a detailed view
         AppDatabase db = AppDatabase.getInstance(requireContext());
-        Executors.newSingleThreadExecutor().execute(() -> {
-            List<SyncHistory> allHistory = db.syncHistoryDao().getAll();
-            requireActivity().runOnUiThread(() -> {
-                if (allHistory.isEmpty()) {
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            // The newest syncs in full, older ones as the daily totals they were rolled up into
+            List<SyncHistory> recentHistory = db.syncHistoryDao().getRecent(HISTORY_DIALOG_LIMIT);
+            int totalSyncs = db.syncHistoryDao().getSyncHistoryCount();
+            List<SyncDailySummary> dailySummaries = db.syncHistoryDao().getDailySummaries();
+            runOnUiThreadIfAdded(() -> {
+                if (recentHistory.isEmpty() && dailySummaries.isEmpty()) {
                     Toast.makeText(requireContext(), "No sync history available", Toast.LENGTH_SHORT).show();
                 } else {
+                    java.text.SimpleDateFormat timeFormat = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
                     StringBuilder message = new StringBuilder();
-                    message.append("Total syncs: ").append(allHistory.size()).append("\n\n");
+                    message.append("Total syncs: ").append(totalSyncs);
+                    if (totalSyncs > recentHistory.size()) {
+                        message.append(" (latest ").append(recentHistory.size()).append(" shown)");
+                    }
+                    message.append("\n\n");
                     
-                    for (SyncHistory history : allHistory) {
+                    for (SyncHistory history : recentHistory) {
                         message.append("Status: ").append(history.getStatus()).append("\n");
-                        message.append("Time: ").append(history.getTimestamp()).append("\n");
+                        message.append("Time: ").append(timeFormat.format(new java.util.Date(history.getTimestamp()))).append("\n");
                         message.append("Type: ").append(history.getType()).append("\n");
                         message.append("---\n");
                     }
                     
+                    if (!dailySummaries.isEmpty()) {
+                        java.text.SimpleDateFormat dayFormat = new java.text.SimpleDateFormat("dd/MM/yyyy", Locale.UK);
+                        dayFormat.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
+                        message.append("\nEarlier days:\n");
+                        for (SyncDailySummary day : dailySummaries) {
+                            message.append(dayFormat.format(new java.util.Date(day.getEpochDay() * 86400000L)))
+                                    .append(": ").append(day.getSuccessCount()).append("/").append(day.getSyncCount())
+                                    .append(" successful, ").append(day.getRecordsAcked()).append(" records\n");
+                        }
+                    }
+                    
                     new androidx.appcompat.app.AlertDialog.Builder(requireContext())
                         .setTitle("Sync History")
                         .setMessage(message.toString())
@@ -309,7 +385,7 @@ public class UploadFragment extends Fragment {
     }
     
     private void updateDataSummary() {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             int courseCount = courseDao.getAll().size();
             int instanceCount = instanceDao.getAll().size();
             int unsyncedCourses = courseDao.getUnsyncedCount();
@@ -319,7 +395,7 @@ public class UploadFragment extends Fragment {
             // Calculate approximate data size (rough estimate)
             int dataSizeKB = (courseCount * 2) + (instanceCount * 3); // Rough estimate
             
-            requireActivity().runOnUiThread(() -> {
+            runOnUiThreadIfAdded(() -> {
                 tvDataSummary.setText(String.format("Courses: %d | Instances: %d | Unsynced: %d", 
                     courseCount, instanceCount, totalUnsynced));
                 tvDataVolume.setText(String.format("Data Size: %dKB", dataSizeKB));
@@ -344,8 +420,8 @@ public class UploadFragment extends Fragment {
         }
     }
     
-    private void updateEmptyState(List<SyncHistory> histories) {
-        if (histories == null || histories.isEmpty()) {
+    private void updateEmptyState(int totalSyncs) {
+        if (totalSyncs == 0) {
             emptyStateLayout.setVisibility(View.VISIBLE);
             rvSyncHistory.setVisibility(View.GONE);
         } else {
@@ -354,30 +430,60 @@ public class UploadFragment extends Fragment {
         }
     }
     
-    private void updateSyncStatistics(List<SyncHistory> histories) {
-        if (histories == null || histories.isEmpty()) {
+    private void updateSyncStatistics(int totalSyncs) {
+        if (totalSyncs == 0) {
             tvTotalSyncs.setText("0");
             return;
         }
 
-        int totalSyncs = histories.size();
         tvTotalSyncs.setText(String.valueOf(totalSyncs));
+        updateSyncPercentiles();
+    }
+    
+    // Percentiles over recent syncs, with the phase that dominates the slow tail
+    private void updateSyncPercentiles() {
+        AppDatabase db = AppDatabase.getInstance(requireContext());
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            SyncPercentiles percentiles = db.syncHistoryDao().getPercentiles(PERCENTILE_WINDOW);
+            if (!isAdded()) {
+                return;
+            }
+            runOnUiThreadIfAdded(() -> {
+                SyncPercentiles.Summary duration = percentiles.get(SyncPercentiles.DURATION);
+                if (duration == null) {
+                    tvSyncPercentiles.setVisibility(View.GONE);
+                    return;
+                }
+                
+                String slowestPhase = null;
+                long slowestP90 = -1;
+                for (Map.Entry<String, SyncPercentiles.Summary> entry : percentiles.getSummaries().entrySet()) {
+                    String metric = entry.getKey();
+                    if (!metric.equals(SyncPercentiles.DURATION) && !metric.equals(SyncPercentiles.RECORDS_PER_SECOND)
+                            && entry.getValue().p90 > slowestP90) {
+                        slowestPhase = metric;
+                        slowestP90 = entry.getValue().p90;
+                    }
+                }
+                SyncPercentiles.Summary throughput = percentiles.get(SyncPercentiles.RECORDS_PER_SECOND);
+                tvSyncPercentiles.setText(String.format(Locale.UK,
+                        "Last %d syncs: p50 %dms, p90 %dms, p99 %dms | p50 %d records/s | slowest phase: %s (p90 %dms)",
+                        percentiles.getSamples(), duration.p50, duration.p90, duration.p99,
+                        throughput.p50, slowestPhase, slowestP90));
+                tvSyncPercentiles.setVisibility(View.VISIBLE);
+            });
+        });
     }
 
     private void updateLastSyncTime() {
         AppDatabase db = AppDatabase.getInstance(requireContext());
-        Executors.newSingleThreadExecutor().execute(() -> {
+        AppExecutors.getInstance().diskIO().execute(() -> {
             SyncHistory lastSync = db.syncHistoryDao().getLastSync();
-            requireActivity().runOnUiThread(() -> {
-                if (lastSync != null && lastSync.getTimestamp() != null) {
-                    try {
-                        long timestamp = Long.parseLong(lastSync.getTimestamp());
-                        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm", java.util.Locale.getDefault());
-                        String formattedTime = sdf.format(new java.util.Date(timestamp));
-                        tvLastSync.setText("Last Sync: " + formattedTime);
-                    } catch (NumberFormatException e) {
-                        tvLastSync.setText("Last Sync: " + lastSync.getTimestamp());
-                    }
+            runOnUiThreadIfAdded(() -> {
+                if (lastSync != null && lastSync.getTimestamp() > 0) {
+                    java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm", java.util.Locale.getDefault());
+                    String formattedTime = sdf.format(new java.util.Date(lastSync.getTimestamp()));
+                    tvLastSync.setText("Last Sync: " + formattedTime);
                 } else {
                     tvLastSync.setText("Last Sync: Never");
                 }
@@ -385,83 +491,30 @@ public class UploadFragment extends Fragment {
         });
     }
     
-    private void updateSyncHistory(boolean success, String message, int recordCount) {
-        AppDatabase db = AppDatabase.getInstance(requireContext());
-        Executors.newSingleThreadExecutor().execute(() -> {
-            try {
-                SyncHistory history = SyncHistory.createWithId();
-                history.setTimestamp(String.valueOf(System.currentTimeMillis()));
-                history.setStatus(success ? "success" : "failed");
-                history.setType("manual");
-                history.setTrigger("user");
-                history.setDataSize(recordCount);
-                
-                db.syncHistoryDao().insert(history);
-                
-            } catch (Exception e) {
-                Log.e("Upload", "Failed to update sync history", e);
-            }
-        });
-    }
-    
-    // Sync pending deletions to Firebase
-    private void syncPendingDeletions() {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            try {
-                // Get courses and instances marked for deletion
-                List<YogaCourse> coursesToDelete = courseDao.getPendingDeletions();
-                List<YogaInstance> instancesToDelete = instanceDao.getPendingDeletions();
-                
-                if (coursesToDelete.isEmpty() && instancesToDelete.isEmpty()) {
-                    Log.d("UploadFragment", "No pending deletions to sync");
-                    return;
-                }
-                
-                // Prepare deletion lists
-                List<Integer> courseIdsToDelete = new ArrayList<>();
-                List<Map<String, Integer>> instanceIdsToDelete = new ArrayList<>();
-                
-                for (YogaCourse course : coursesToDelete) {
-                    courseIdsToDelete.add(course.getId());
-                }
-                
-                for (YogaInstance instance : instancesToDelete) {
-                    Map<String, Integer> instanceInfo = new HashMap<>();
-                    instanceInfo.put("courseId", instance.getCourseId());
-                    instanceInfo.put("instanceId", instance.getId());
-                    instanceIdsToDelete.add(instanceInfo);
+    // Finalize the in_progress row that performUpload inserted
+    private void updateSyncHistory(SyncHistory history, boolean success, String message, int recordCount) {
+        history.setStatus(success ? "success" : "failed");
+        history.setDuration((int) (System.currentTimeMillis() - history.getTimestamp()));
+        history.setDataSize(recordCount);
+        if (!success) {
+            history.setErrors(Collections.singletonList(message));
+        }
+        
+        writeQueue.execute(() -> syncHistoryDao.update(history))
+            .whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    Log.e("Upload", "Failed to update sync history", throwable);
                 }
-                
-                // Sync deletions to Firebase
-                FirebaseService.syncDeletionsToFirebase(courseIdsToDelete, instanceIdsToDelete)
-                    .thenAccept(success -> {
-                        if (success) {
-                            Log.d("UploadFragment", "Pending deletions synced successfully");
-                            // Clear pending deletions from local database
-                            for (YogaCourse course : coursesToDelete) {
-                                courseDao.deleteById(course.getId());
-                            }
-                            for (YogaInstance instance : instancesToDelete) {
-                                instanceDao.deleteById(instance.getId());
-                            }
-                        } else {
-                            Log.e("UploadFragment", "Failed to sync pending deletions");
-                        }
-                    });
-                
-            } catch (Exception e) {
-                Log.e("UploadFragment", "Error syncing pending deletions", e);
-            }
-        });
+            });
     }
-
-    private void clearFirebaseData() {
-        requireActivity().runOnUiThread(() -> {
+    
+    private CompletableFuture<Void> clearFirebaseData(SyncHistory history) {
+        runOnUiThreadIfAdded(() -> {
             progressBar.setProgress(50);
             tvProgressText.setText("50% - Clearing Firebase data...");
         });
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        return CompletableFuture.runAsync(() -> {
             try {
                 Log.d("UploadFragment", "Clearing all Firebase data due to empty local database.");
                 
@@ -471,13 +524,13 @@ public class UploadFragment extends Fragment {
                 // Wait a bit for Firebase operations to complete
                 Thread.sleep(2000);
                 
-                requireActivity().runOnUiThread(() -> {
+                // Update sync history
+                updateSyncHistory(history, true, "Firebase data cleared (local DB was empty)", 0);
+                
+                runOnUiThreadIfAdded(() -> {
                     progressBar.setProgress(100);
                     tvProgressText.setText("100% - Firebase data cleared successfully!");
                     
-                    // Update sync history
-                    updateSyncHistory(true, "Firebase data cleared (local DB was empty)", 0);
-                    
                     // Show success message
                     ToastHelper.showSuccessToast(requireContext(), "All Firebase data cleared successfully");
                     
@@ -490,13 +543,14 @@ public class UploadFragment extends Fragment {
                 
             } catch (Exception e) {
                 Log.e("UploadFragment", "Error clearing Firebase data", e);
-                requireActivity().runOnUiThread(() -> {
+                
+                // Update sync history with error
+                updateSyncHistory(history, false, "Failed to clear Firebase data: " + e.getMessage(), 0);
+                
+                runOnUiThreadIfAdded(() -> {
                     progressBar.setProgress(0);
                     tvProgressText.setText("Failed to clear Firebase data");
                     
-                    // Update sync history with error
-                    updateSyncHistory(false, "Failed to clear Firebase data: " + e.getMessage(), 0);
-                    
                     // Show error message
                     ToastHelper.showErrorToast(requireContext(), "Failed to clear Firebase data: " + e.getMessage());
                     
@@ -504,7 +558,7 @@ public class UploadFragment extends Fragment {
                     resetUploadState();
                 });
             }
-        });
+        }, AppExecutors.getInstance().diskIO());
     }
     
     // Database Management Methods
@@ -522,14 +576,14 @@ public class UploadFragment extends Fragment {
                 resetUtil.resetAllData(new DatabaseResetUtil.ResetCallback() {
                     @Override
                     public void onResetStarted() {
-                        requireActivity().runOnUiThread(() -> {
+                        runOnUiThreadIfAdded(() -> {
                             Toast.makeText(requireContext(), "Resetting all data...", Toast.LENGTH_SHORT).show();
                         });
                     }
                     
                     @Override
                     public void onResetCompleted() {
-                        requireActivity().runOnUiThread(() -> {
+                        runOnUiThreadIfAdded(() -> {
                             ToastHelper.showSuccessToast(requireContext(), "All data reset successfully");
                             updateDataSummary();
                         });
@@ -537,7 +591,7 @@ public class UploadFragment extends Fragment {
                     
                     @Override
                     public void onResetFailed(String error) {
-                        requireActivity().runOnUiThread(() -> {
+                        runOnUiThreadIfAdded(() -> {
                             ToastHelper.showErrorToast(requireContext(), "Reset failed: " + error);
                         });
                     }
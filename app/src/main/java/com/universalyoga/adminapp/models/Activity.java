@@ -1,12 +1,13 @@
 package com.universalyoga.adminapp.models;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.Ignore;
 import androidx.room.Index;
 
-@Entity(tableName = "activity", indices = {@Index(value = {"timestamp"})})
+@Entity(tableName = "activity", indices = {@Index(value = {"loggedAt"})})
 public class Activity {
     @PrimaryKey
     @NonNull
@@ -21,16 +22,20 @@ public class Activity {
     @NonNull
     private String timestamp;
     
+    @ColumnInfo(name = "loggedAt", defaultValue = "0")
+    private long loggedAt; // Epoch millis, unique and increasing in logging order; lists sort by this
+    
     private String relatedId; // optional
 
     public Activity() {}
 
     @Ignore
-    public Activity(String id, String type, String description, String timestamp, String relatedId) {
+    public Activity(String id, String type, String description, String timestamp, long loggedAt, String relatedId) {
         this.id = id;
         this.type = type;
         this.description = description;
         this.timestamp = timestamp;
+        this.loggedAt = loggedAt;
         this.relatedId = relatedId;
     }
 
@@ -46,6 +51,9 @@ public class Activity {
     public String getTimestamp() { return timestamp; }
     public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
     
+    public long getLoggedAt() { return loggedAt; }
+    public void setLoggedAt(long loggedAt) { this.loggedAt = loggedAt; }
+    
     public String getRelatedId() { return relatedId; }
     public void setRelatedId(String relatedId) { this.relatedId = relatedId; }
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.universalyoga.adminapp.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text index over the searchable course columns. Room keeps it in step with the
+ * courses table through content sync triggers; docid is the course id.
+ */
+@Fts4(contentEntity = YogaCourse.class)
+@Entity(tableName = "courses_fts")
+public class CourseFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowId;
+    private String type;
+    private String instructor;
+    private String daysOfWeek;
+    private String difficulty;
+    private String roomLocation;
+    private String description;
+
+    public int getRowId() { return rowId; }
+    public void setRowId(int rowId) { this.rowId = rowId; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public String getInstructor() { return instructor; }
+    public void setInstructor(String instructor) { this.instructor = instructor; }
+    public String getDaysOfWeek() { return daysOfWeek; }
+    public void setDaysOfWeek(String daysOfWeek) { this.daysOfWeek = daysOfWeek; }
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+    public String getRoomLocation() { return roomLocation; }
+    public void setRoomLocation(String roomLocation) { this.roomLocation = roomLocation; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
@@ -0,0 +1,49 @@
+package com.universalyoga.adminapp.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Dashboard totals over courses and instances not pending deletion. The table holds a
+ * single row (id 0) kept current by database triggers, so the dashboard reads one row
+ * instead of both tables.
+ */
+@Entity(tableName = "dashboard_stats")
+public class DashboardStats {
+    public static final int ROW_ID = 0;
+
+    @PrimaryKey
+    private int id = ROW_ID;
+    @ColumnInfo(defaultValue = "0")
+    private int courseCount;
+    @ColumnInfo(defaultValue = "0")
+    private int totalCapacity;
+    @ColumnInfo(defaultValue = "0")
+    private int instanceCount;
+    @ColumnInfo(defaultValue = "0")
+    private int totalEnrolled;
+    @ColumnInfo(defaultValue = "0")
+    private double revenue; // Sum of enrolled × course price
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    public int getCourseCount() { return courseCount; }
+    public void setCourseCount(int courseCount) { this.courseCount = courseCount; }
+    public int getTotalCapacity() { return totalCapacity; }
+    public void setTotalCapacity(int totalCapacity) { this.totalCapacity = totalCapacity; }
+    public int getInstanceCount() { return instanceCount; }
+    public void setInstanceCount(int instanceCount) { this.instanceCount = instanceCount; }
+    public int getTotalEnrolled() { return totalEnrolled; }
+    public void setTotalEnrolled(int totalEnrolled) { this.totalEnrolled = totalEnrolled; }
+    public double getRevenue() { return revenue; }
+    public void setRevenue(double revenue) { this.revenue = revenue; }
+
+    /**
+     * Average revenue per course, 0 without courses
+     */
+    public double getAverageRevenue() {
+        // Clamped, as incremental updates can leave rounding residue around zero
+        return courseCount > 0 ? Math.max(0.0, revenue) / courseCount : 0.0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.universalyoga.adminapp.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text index over instances plus the type of their course, which a content sync
+ * table cannot join in. Kept current by the search triggers in AppDatabase; docid is
+ * the instance id.
+ */
+@Fts4
+@Entity(tableName = "instances_fts")
+public class InstanceFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowId;
+    private String courseType;
+    private String teacher;
+    private String date;
+    private String comments;
+
+    public int getRowId() { return rowId; }
+    public void setRowId(int rowId) { this.rowId = rowId; }
+    public String getCourseType() { return courseType; }
+    public void setCourseType(String courseType) { this.courseType = courseType; }
+    public String getTeacher() { return teacher; }
+    public void setTeacher(String teacher) { this.teacher = teacher; }
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public String getComments() { return comments; }
+    public void setComments(String comments) { this.comments = comments; }
+}
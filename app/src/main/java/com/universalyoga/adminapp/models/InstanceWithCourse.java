@@ -0,0 +1,28 @@
+package com.universalyoga.adminapp.models;
+
+import androidx.room.Embedded;
+import java.util.Objects;
+
+/**
+ * An instance with the course fields its list row shows, loaded by one JOIN so that
+ * binding a row needs no further queries.
+ */
+public class InstanceWithCourse {
+    @Embedded
+    public YogaInstance instance;
+
+    public String courseType;          // Course name; null if the course no longer exists
+    public String courseRoomLocation;
+
+    public YogaInstance getInstance() { return instance; }
+    public String getCourseType() { return courseType; }
+    public String getCourseRoomLocation() { return courseRoomLocation; }
+
+    /**
+     * Whether the joined course fields match, for list diffing
+     */
+    public boolean sameCourseAs(InstanceWithCourse other) {
+        return Objects.equals(courseType, other.courseType)
+                && Objects.equals(courseRoomLocation, other.courseRoomLocation);
+    }
+}
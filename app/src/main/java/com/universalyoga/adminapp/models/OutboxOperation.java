@@ -0,0 +1,107 @@
+package com.universalyoga.adminapp.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A pending sync operation for one course or instance. There is at most one row per
+ * entity: enqueuing again replaces the row (and its id), so repeated edits coalesce.
+ */
+@Entity(tableName = "sync_outbox",
+        indices = {@Index(value = {"entityType", "entityId"}, unique = true), @Index("nextAttemptAt")})
+public class OutboxOperation {
+    public static final String ENTITY_COURSE = "course";
+    public static final String ENTITY_INSTANCE = "instance";
+    public static final String OP_UPSERT = "upsert";
+    public static final String OP_DELETE = "delete";
+
+    // Backends an operation still has to reach, as a bitmask
+    public static final int BACKEND_REALTIME = 1;
+    public static final int BACKEND_FIRESTORE = 2;
+    public static final int BACKEND_ALL = BACKEND_REALTIME | BACKEND_FIRESTORE;
+
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    @NonNull
+    private String entityType;
+
+    private int entityId;
+
+    // Owning course id (the course itself for course operations)
+    private int courseId;
+
+    @NonNull
+    private String operation;
+
+    private long enqueuedAt;
+    private int attempts;
+    private long nextAttemptAt;
+    private String lastError;
+
+    // Narrowed after a partial failure so that only the failed backend is retried
+    @ColumnInfo(defaultValue = "3")
+    private int pendingBackends = BACKEND_ALL;
+
+    public OutboxOperation() {
+        this.entityType = ENTITY_COURSE;
+        this.operation = OP_UPSERT;
+    }
+
+    @Ignore
+    public OutboxOperation(@NonNull String entityType, int entityId, int courseId, @NonNull String operation) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.courseId = courseId;
+        this.operation = operation;
+        this.enqueuedAt = System.currentTimeMillis();
+    }
+
+    public static OutboxOperation deleteCourse(int courseId) {
+        return new OutboxOperation(ENTITY_COURSE, courseId, courseId, OP_DELETE);
+    }
+
+    public static OutboxOperation deleteInstance(int instanceId, int courseId) {
+        return new OutboxOperation(ENTITY_INSTANCE, instanceId, courseId, OP_DELETE);
+    }
+
+    public boolean isCourse() { return ENTITY_COURSE.equals(entityType); }
+    public boolean isDelete() { return OP_DELETE.equals(operation); }
+    public boolean isPendingOn(int backend) { return (pendingBackends & backend) != 0; }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    @NonNull
+    public String getEntityType() { return entityType; }
+    public void setEntityType(@NonNull String entityType) { this.entityType = entityType; }
+
+    public int getEntityId() { return entityId; }
+    public void setEntityId(int entityId) { this.entityId = entityId; }
+
+    public int getCourseId() { return courseId; }
+    public void setCourseId(int courseId) { this.courseId = courseId; }
+
+    @NonNull
+    public String getOperation() { return operation; }
+    public void setOperation(@NonNull String operation) { this.operation = operation; }
+
+    public long getEnqueuedAt() { return enqueuedAt; }
+    public void setEnqueuedAt(long enqueuedAt) { this.enqueuedAt = enqueuedAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public long getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(long nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public int getPendingBackends() { return pendingBackends; }
+    public void setPendingBackends(int pendingBackends) { this.pendingBackends = pendingBackends; }
+}
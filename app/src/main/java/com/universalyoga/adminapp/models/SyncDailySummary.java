@@ -0,0 +1,32 @@
+package com.universalyoga.adminapp.models;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Totals of one day's syncs, kept after their sync_history rows are pruned.
+ * Days are UTC epoch days of the sync timestamps.
+ */
+@Entity(tableName = "sync_history_daily")
+public class SyncDailySummary {
+    @PrimaryKey
+    private int epochDay;
+    private int syncCount;
+    private int successCount;
+    private long totalDuration; // Milliseconds
+    private long recordsAcked;
+    private long bytesUploaded; // Estimated, as on SyncHistory
+
+    public int getEpochDay() { return epochDay; }
+    public void setEpochDay(int epochDay) { this.epochDay = epochDay; }
+    public int getSyncCount() { return syncCount; }
+    public void setSyncCount(int syncCount) { this.syncCount = syncCount; }
+    public int getSuccessCount() { return successCount; }
+    public void setSuccessCount(int successCount) { this.successCount = successCount; }
+    public long getTotalDuration() { return totalDuration; }
+    public void setTotalDuration(long totalDuration) { this.totalDuration = totalDuration; }
+    public long getRecordsAcked() { return recordsAcked; }
+    public void setRecordsAcked(long recordsAcked) { this.recordsAcked = recordsAcked; }
+    public long getBytesUploaded() { return bytesUploaded; }
+    public void setBytesUploaded(long bytesUploaded) { this.bytesUploaded = bytesUploaded; }
+}
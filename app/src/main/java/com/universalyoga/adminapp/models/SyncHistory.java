@@ -1,40 +1,44 @@
 package com.universalyoga.adminapp.models;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
-import androidx.room.Ignore;
 import java.util.List;
 import androidx.annotation.NonNull;
 
-@Entity(tableName = "sync_history")
+@Entity(tableName = "sync_history", indices = {@Index("timestamp")})
 public class SyncHistory {
     @PrimaryKey
     @NonNull
     private String id;
-    private String timestamp;
+    private long timestamp; // Epoch millis when the sync started
     private String status;
     private String type;
     private String trigger;
     private Integer duration;
-    @Ignore
     private Records recordsProcessed;
-    @Ignore
     private Records recordsUploaded;
-    @Ignore
     private Records recordsSkipped;
-    @Ignore
     private List<String> errors;
     private int retryCount;
     private int dataSize;
-    @Ignore
+    @ColumnInfo(defaultValue = "0")
+    private int recordsAcked;
+    @ColumnInfo(defaultValue = "0")
+    private int recordsTotal;
+    @ColumnInfo(defaultValue = "0")
+    private long bytesUploaded; // Estimated payload size (UploadPipeline.estimateBytes)
+    @ColumnInfo(defaultValue = "0")
+    private double recordsPerSecond;
+    private PhaseTimings phaseTimings;
     private String networkSpeed;
-    @Ignore
     private DeviceInfo deviceInfo;
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
-    public String getTimestamp() { return timestamp; }
-    public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     public String getType() { return type; }
@@ -55,6 +59,16 @@ public class SyncHistory {
     public void setRetryCount(int retryCount) { this.retryCount = retryCount; }
     public int getDataSize() { return dataSize; }
     public void setDataSize(int dataSize) { this.dataSize = dataSize; }
+    public int getRecordsAcked() { return recordsAcked; }
+    public void setRecordsAcked(int recordsAcked) { this.recordsAcked = recordsAcked; }
+    public int getRecordsTotal() { return recordsTotal; }
+    public void setRecordsTotal(int recordsTotal) { this.recordsTotal = recordsTotal; }
+    public long getBytesUploaded() { return bytesUploaded; }
+    public void setBytesUploaded(long bytesUploaded) { this.bytesUploaded = bytesUploaded; }
+    public double getRecordsPerSecond() { return recordsPerSecond; }
+    public void setRecordsPerSecond(double recordsPerSecond) { this.recordsPerSecond = recordsPerSecond; }
+    public PhaseTimings getPhaseTimings() { return phaseTimings; }
+    public void setPhaseTimings(PhaseTimings phaseTimings) { this.phaseTimings = phaseTimings; }
     public String getNetworkSpeed() { return networkSpeed; }
     public void setNetworkSpeed(String networkSpeed) { this.networkSpeed = networkSpeed; }
     public DeviceInfo getDeviceInfo() { return deviceInfo; }
@@ -71,6 +85,16 @@ public class SyncHistory {
         public int instances;
         public int total;
     }
+    // Milliseconds spent in each sync phase; chunks upload concurrently, so the
+    // write phases are summed over chunks and can exceed the sync's duration
+    public static class PhaseTimings {
+        public long localRead;
+        public long serialization;
+        public long realtimeWrite;
+        public long firestoreWrite;
+        public long deletionSync;
+        public long localUpdate;
+    }
     public static class DeviceInfo {
         public int battery;
         public String storage;
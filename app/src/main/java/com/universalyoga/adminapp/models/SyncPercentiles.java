@@ -0,0 +1,62 @@
+package com.universalyoga.adminapp.models;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * p50/p90/p99 of sync duration, throughput and each phase over recent syncs.
+ */
+public class SyncPercentiles {
+    public static final String DURATION = "Total";
+    public static final String RECORDS_PER_SECOND = "Records/s";
+    public static final String LOCAL_READ = "Local read";
+    public static final String SERIALIZATION = "Serialization";
+    public static final String REALTIME_WRITE = "Realtime DB write";
+    public static final String FIRESTORE_WRITE = "Firestore write";
+    public static final String DELETION_SYNC = "Deletion sync";
+    public static final String LOCAL_UPDATE = "Local update";
+
+    public static class Summary {
+        public final long p50;
+        public final long p90;
+        public final long p99;
+
+        Summary(long p50, long p90, long p99) {
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+    }
+
+    private final int samples;
+    private final Map<String, Summary> summaries = new LinkedHashMap<>();
+
+    public SyncPercentiles(int samples) {
+        this.samples = samples;
+    }
+
+    public int getSamples() { return samples; }
+    public Map<String, Summary> getSummaries() { return summaries; }
+
+    public Summary get(String metric) {
+        return summaries.get(metric);
+    }
+
+    /**
+     * Add a metric from its raw values (nearest-rank percentiles); values may be unsorted.
+     */
+    public void add(String metric, long[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        summaries.put(metric, new Summary(rank(sorted, 50), rank(sorted, 90), rank(sorted, 99)));
+    }
+
+    private static long rank(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
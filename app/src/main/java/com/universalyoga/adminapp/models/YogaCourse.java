@@ -4,8 +4,9 @@ import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
 import androidx.room.Ignore;
+import androidx.room.Index;
 
-@Entity(tableName = "courses")
+@Entity(tableName = "courses", indices = {@Index("syncStatus"), @Index("daysMask")})
 public class YogaCourse {
     @PrimaryKey(autoGenerate = true)
     private int id;
@@ -31,6 +32,10 @@ public class YogaCourse {
     private String difficulty;
     @ColumnInfo(name = "syncStatus")
     private int syncStatus; // 0 = not synced, 1 = synced, 2 = pending delete
+    @ColumnInfo(name = "updatedAt", defaultValue = "0")
+    private long updatedAt; // Epoch millis of the last content change, maintained by database triggers
+    @ColumnInfo(name = "daysMask", defaultValue = "0")
+    private int daysMask; // ScheduleUtils day bits parsed from daysOfWeek, maintained by database triggers
 
     public YogaCourse() {
         // Required for Room
@@ -96,6 +101,12 @@ public class YogaCourse {
     
     public int getSyncStatus() { return syncStatus; }
     public void setSyncStatus(int syncStatus) { this.syncStatus = syncStatus; }
+    
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+    
+    public int getDaysMask() { return daysMask; }
+    public void setDaysMask(int daysMask) { this.daysMask = daysMask; }
 
     @Override
     public String toString() {
@@ -12,7 +12,7 @@ import androidx.room.Index;
                 parentColumns = "id",
                 childColumns = "courseId",
                 onDelete = ForeignKey.CASCADE),
-        indices = {@Index("courseId")})
+        indices = {@Index("courseId"), @Index("syncStatus"), @Index({"epochDay", "startMinute"})})
 public class YogaInstance {
     @PrimaryKey(autoGenerate = true)
     private int id;
@@ -34,6 +34,12 @@ public class YogaInstance {
     private int enrolled;
     @ColumnInfo(name = "capacity")
     private int capacity;
+    @ColumnInfo(name = "updatedAt", defaultValue = "0")
+    private long updatedAt; // Epoch millis of the last content change, maintained by database triggers
+    @ColumnInfo(name = "epochDay", defaultValue = "-1")
+    private int epochDay = -1; // Days since 1970-01-01 parsed from date, maintained by database triggers
+    @ColumnInfo(name = "startMinute", defaultValue = "-1")
+    private int startMinute = -1; // Minutes after midnight parsed from startTime, maintained by database triggers
 
     public YogaInstance() {
         // Required for Firebase
@@ -77,4 +83,10 @@ public class YogaInstance {
     public void setEnrolled(int enrolled) { this.enrolled = enrolled; }
     public int getCapacity() { return capacity; }
     public void setCapacity(int capacity) { this.capacity = capacity; }
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+    public int getEpochDay() { return epochDay; }
+    public void setEpochDay(int epochDay) { this.epochDay = epochDay; }
+    public int getStartMinute() { return startMinute; }
+    public void setStartMinute(int startMinute) { this.startMinute = startMinute; }
 } 
\ No newline at end of file
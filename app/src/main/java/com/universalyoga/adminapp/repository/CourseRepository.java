@@ -4,37 +4,42 @@ import android.content.Context;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingSource;
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.database.CourseDao;
-import com.universalyoga.adminapp.database.ActivityDao;
+import com.universalyoga.adminapp.database.CourseFilter;
+import com.universalyoga.adminapp.database.FtsSearch;
+import com.universalyoga.adminapp.database.WriteQueue;
 import com.universalyoga.adminapp.models.YogaCourse;
-import com.universalyoga.adminapp.models.Activity;
+import com.universalyoga.adminapp.utils.ActivityLogger;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.util.Map;
 import com.universalyoga.adminapp.database.InstanceDao;
-import com.universalyoga.adminapp.models.YogaInstance;
-import com.universalyoga.adminapp.services.FirebaseService;
-import java.util.concurrent.CompletableFuture;
+import com.universalyoga.adminapp.services.AutoSyncService;
+import com.universalyoga.adminapp.services.DeltaSyncEngine;
 
 public class CourseRepository {
     private static final String TAG = "CourseRepository";
     private final CourseDao courseDao;
-    private final ActivityDao activityDao;
+    private final ActivityLogger activityLogger;
     private final InstanceDao instanceDao;
-    private final ExecutorService executorService;
+    private final DeltaSyncEngine deltaSyncEngine;
+    private final AutoSyncService autoSyncService;
+    private final WriteQueue writeQueue;
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
 
     public CourseRepository(Context context) {
         AppDatabase database = AppDatabase.getInstance(context);
         this.courseDao = database.courseDao();
-        this.activityDao = database.activityDao();
+        this.activityLogger = ActivityLogger.getInstance(context);
         this.instanceDao = database.instanceDao();
-        this.executorService = Executors.newFixedThreadPool(4);
+        this.autoSyncService = AutoSyncService.getInstance(context);
+        this.deltaSyncEngine = autoSyncService.getDeltaSyncEngine();
+        this.writeQueue = WriteQueue.getInstance(context);
     }
 
     // LiveData getters
@@ -46,6 +51,11 @@ public class CourseRepository {
         return courseDao.getAllLive();
     }
 
+    // Page source for the course list under a filter
+    public PagingSource<Integer, YogaCourse> getCoursePagingSource(CourseFilter filter) {
+        return courseDao.getPaged(filter.toQuery());
+    }
+
     // Get course by ID
     public LiveData<YogaCourse> getCourseById(int id) {
         return courseDao.getByIdLive(id);
@@ -53,240 +63,108 @@ public class CourseRepository {
 
     // Add new course
     public void addCourse(YogaCourse course, OnCourseOperationCallback callback) {
-        executorService.execute(() -> {
-            try {
-                isLoading.postValue(true);
-                errorMessage.postValue(null);
-
-                // Set metadata
-                course.setSyncStatus(0); // pending sync
-
-                // Insert course
-                long courseId = courseDao.insert(course);
-                course.setId((int) courseId);
-
-                // Log activity
-                logActivity("course_created", 
-                    "Created course \"" + course.getCourseName() + "\" for " + course.getDaysOfWeek(),
-                    String.valueOf(courseId));
-
-                // Return success
-                callback.onSuccess(course);
-                Log.d(TAG, "Course added successfully: " + course.getCourseName());
-
-            } catch (Exception e) {
-                String error = "Failed to add course: " + e.getMessage();
-                Log.e(TAG, error, e);
-                errorMessage.postValue(error);
-                callback.onError(error);
-            } finally {
-                isLoading.postValue(false);
+        isLoading.postValue(true);
+        errorMessage.postValue(null);
+
+        // Set metadata
+        course.setSyncStatus(0); // pending sync
+
+        // Insert course
+        writeQueue.submit(() -> courseDao.insert(course)).whenComplete((id, throwable) -> {
+            isLoading.postValue(false);
+            if (throwable != null) {
+                reportError("Failed to add course: ", throwable, callback);
+                return;
             }
+            course.setId(id.intValue());
+
+            // Log activity
+            logActivity("course_created", 
+                "Created course \"" + course.getCourseName() + "\" for " + course.getDaysOfWeek(),
+                String.valueOf(course.getId()));
+
+            // Return success
+            callback.onSuccess(course);
+            Log.d(TAG, "Course added successfully: " + course.getCourseName());
         });
     }
 
     // Update course
     public void updateCourse(YogaCourse course, OnCourseOperationCallback callback) {
-        executorService.execute(() -> {
-            try {
-                Log.d(TAG, "Starting updateCourse for: " + course.getCourseName() + " (ID: " + course.getId() + ")");
-                isLoading.postValue(true);
-                errorMessage.postValue(null);
-
-                // Set metadata
-                course.setSyncStatus(0); // pending sync
-
-                // Update course
-                int updateResult = courseDao.update(course);
-                Log.d(TAG, "Course update result: " + updateResult);
-
-                // Update all instances for this course with new time and capacity data
-                Log.d(TAG, "Calling updateInstancesForCourse...");
-                updateInstancesForCourse(course);
-
-                // Log activity
-                logActivity("course_updated", 
-                    "Updated course \"" + course.getCourseName() + "\"",
-                    String.valueOf(course.getId()));
-
-                // Return success
-                callback.onSuccess(course);
-                Log.d(TAG, "Course updated successfully: " + course.getCourseName());
-
-            } catch (Exception e) {
-                String error = "Failed to update course: " + e.getMessage();
-                Log.e(TAG, error, e);
-                errorMessage.postValue(error);
-                callback.onError(error);
-            } finally {
-                isLoading.postValue(false);
+        isLoading.postValue(true);
+        errorMessage.postValue(null);
+
+        // Set metadata
+        course.setSyncStatus(0); // pending sync
+
+        // Update the course and its instances' times and capacity in one transaction
+        writeQueue.submit(() -> courseDao.updateWithInstances(course)).whenComplete((instancesUpdated, throwable) -> {
+            isLoading.postValue(false);
+            if (throwable != null) {
+                reportError("Failed to update course: ", throwable, callback);
+                return;
             }
-        });
-    }
 
-    // Update all instances for a course when course details change
-    private void updateInstancesForCourse(YogaCourse course) {
-        try {
-            Log.d(TAG, "Starting updateInstancesForCourse for course: " + course.getCourseName() + " (ID: " + course.getId() + ")");
-            Log.d(TAG, "Course time: " + course.getTime() + ", duration: " + course.getDuration() + ", capacity: " + course.getCapacity());
-            
-            // Get all instances for this course
-            List<YogaInstance> instances = instanceDao.getInstancesByCourseSync(course.getId());
-            Log.d(TAG, "Found " + (instances != null ? instances.size() : 0) + " instances for course");
-            
-            if (instances != null && !instances.isEmpty()) {
-                for (YogaInstance instance : instances) {
-                    Log.d(TAG, "Updating instance ID: " + instance.getId() + 
-                          " - Old startTime: " + instance.getStartTime() + 
-                          ", Old endTime: " + instance.getEndTime() + 
-                          ", Old capacity: " + instance.getCapacity());
-                    
-                    // Update only the fields that should be auto-updated from course
-                    instance.setStartTime(course.getTime());
-                    String newEndTime = calculateEndTime(course.getTime(), course.getDuration());
-                    instance.setEndTime(newEndTime);
-                    instance.setCapacity(course.getCapacity());
-                    
-                    // Keep existing enrolled count but ensure it doesn't exceed new capacity
-                    int oldEnrolled = instance.getEnrolled();
-                    if (instance.getEnrolled() > course.getCapacity()) {
-                        instance.setEnrolled(course.getCapacity());
-                    }
-                    
-                    // Mark as pending sync
-                    instance.setSyncStatus(0);
-                    
-                    // Update the instance
-                    int updateResult = instanceDao.update(instance);
-                    Log.d(TAG, "Instance update result: " + updateResult + 
-                          " - New startTime: " + instance.getStartTime() + 
-                          ", New endTime: " + instance.getEndTime() + 
-                          ", New capacity: " + instance.getCapacity() + 
-                          ", Enrolled: " + oldEnrolled + " -> " + instance.getEnrolled());
-                }
-                
-                Log.d(TAG, "Successfully updated " + instances.size() + " instances for course: " + course.getCourseName());
-            } else {
-                Log.d(TAG, "No instances found for course: " + course.getCourseName());
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error updating instances for course: " + e.getMessage(), e);
-        }
-    }
+            // Log activity
+            logActivity("course_updated", 
+                "Updated course \"" + course.getCourseName() + "\"",
+                String.valueOf(course.getId()));
 
-    // Calculate end time based on start time and duration
-    private String calculateEndTime(String startTime, int durationMinutes) {
-        try {
-            Log.d(TAG, "Calculating end time for startTime: " + startTime + ", duration: " + durationMinutes + " minutes");
-            
-            // Handle different time formats
-            String cleanTime = startTime.trim();
-            
-            // Remove AM/PM if present and convert to 24-hour format
-            boolean isPM = cleanTime.toLowerCase().contains("pm");
-            cleanTime = cleanTime.replaceAll("(?i)(am|pm)", "").trim();
-            
-            // Parse start time
-            String[] timeParts = cleanTime.split(":");
-            if (timeParts.length != 2) {
-                Log.e(TAG, "Invalid time format: " + startTime);
-                return startTime;
-            }
-            
-            int hour = Integer.parseInt(timeParts[0]);
-            int minute = Integer.parseInt(timeParts[1]);
-            
-            // Convert to 24-hour format if needed
-            if (isPM && hour != 12) {
-                hour += 12;
-            } else if (!isPM && hour == 12) {
-                hour = 0;
-            }
-            
-            Log.d(TAG, "Parsed time - Hour: " + hour + ", Minute: " + minute);
-            
-            // Add duration
-            int totalMinutes = hour * 60 + minute + durationMinutes;
-            int endHour = totalMinutes / 60;
-            int endMinute = totalMinutes % 60;
-            
-            // Handle 24-hour overflow
-            if (endHour >= 24) {
-                endHour -= 24;
-            }
-            
-            // Format end time
-            String endTime = String.format(Locale.UK, "%02d:%02d", endHour, endMinute);
-            Log.d(TAG, "Calculated end time: " + endTime);
-            return endTime;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error calculating end time for " + startTime + ": " + e.getMessage(), e);
-            return startTime; // Return start time as fallback
-        }
+            // Return success
+            callback.onSuccess(course);
+            Log.d(TAG, "Course updated successfully: " + course.getCourseName() + " (" + instancesUpdated + " instances)");
+        });
     }
 
     // Delete course
     public void deleteCourse(int courseId, OnCourseOperationCallback callback) {
-        executorService.execute(() -> {
-            try {
-                isLoading.postValue(true);
-                errorMessage.postValue(null);
-
-                // Get course details before deletion for logging
-                YogaCourse courseToDelete = courseDao.getById(courseId);
-                String courseName = courseToDelete != null ? courseToDelete.getCourseName() : "Unknown";
-
-                // Mark course for deletion (soft delete)
-                courseToDelete.setSyncStatus(2); // 2 = pending delete
-                courseDao.update(courseToDelete);
-
-                // Log activity
-                logActivity("course_deleted", 
-                    "Deleted course \"" + courseName + "\"",
-                    String.valueOf(courseId));
-
-                // Sync deletion to Firebase
-                FirebaseService.deleteCourseFromRealtimeDB(courseId)
-                    .thenCompose(realtimeSuccess -> {
-                        if (realtimeSuccess) {
-                            return FirebaseService.deleteCourseFromFirestore(courseId);
-                        }
-                        return CompletableFuture.completedFuture(false);
-                    })
-                    .thenAccept(firestoreSuccess -> {
-                        if (firestoreSuccess) {
-                            // Now actually delete from local database
-                            courseDao.deleteById(courseId);
-                            Log.d(TAG, "Course deleted successfully from Firebase and local: " + courseName);
-                        } else {
-                            Log.e(TAG, "Failed to delete course from Firebase: " + courseName);
-                        }
-                    });
-
-                // Return success
-                callback.onSuccess(null);
-                Log.d(TAG, "Course marked for deletion: " + courseName);
-
-            } catch (Exception e) {
-                String error = "Failed to delete course: " + e.getMessage();
-                Log.e(TAG, error, e);
-                errorMessage.postValue(error);
-                callback.onError(error);
-            } finally {
-                isLoading.postValue(false);
+        isLoading.postValue(true);
+        errorMessage.postValue(null);
+
+        // Mark course for deletion (soft delete) and queue the remote delete
+        deltaSyncEngine.enqueueCourseDeletion(courseId).whenComplete((courseToDelete, throwable) -> {
+            isLoading.postValue(false);
+            if (throwable != null) {
+                reportError("Failed to delete course: ", throwable, callback);
+                return;
             }
+            String courseName = courseToDelete.getCourseName();
+
+            // Log activity
+            logActivity("course_deleted", 
+                "Deleted course \"" + courseName + "\"",
+                String.valueOf(courseId));
+
+            // Try to sync right away; failures stay in the outbox and are retried with backoff
+            autoSyncService.syncPendingDeletions()
+                .thenAccept(success -> {
+                    if (success) {
+                        Log.d(TAG, "Course deleted successfully from Firebase and local: " + courseName);
+                    } else {
+                        Log.e(TAG, "Course deletion queued for retry: " + courseName);
+                    }
+                });
+
+            // Return success
+            callback.onSuccess(null);
+            Log.d(TAG, "Course marked for deletion: " + courseName);
         });
     }
 
     // Search courses
     public LiveData<List<YogaCourse>> searchCourses(String query) {
-        return courseDao.searchCourses("%" + query + "%");
+        String matchQuery = FtsSearch.toMatchQuery(query);
+        return matchQuery != null ? courseDao.searchCourses(matchQuery) : courseDao.getAllLive();
+    }
+
+    // Ranked search; matching course ids, best first. Call off the main thread
+    public List<Integer> searchCourseIds(String query) {
+        return courseDao.searchCourseIds(query);
     }
 
     // Get courses by day
     public LiveData<List<YogaCourse>> getCoursesByDay(String day) {
-        return courseDao.getByDay("%" + day + "%");
+        return courseDao.getByDay(ScheduleUtils.overlappingMasks(ScheduleUtils.parseDays(day)));
     }
 
     // Get courses by type
@@ -306,14 +184,15 @@ public class CourseRepository {
 
     // Mark course as synced
     public void markCourseAsSynced(int courseId) {
-        executorService.execute(() -> {
-            try {
-                courseDao.updateSyncStatus(courseId, 1); // synced
-                Log.d(TAG, "Course marked as synced: " + courseId);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to mark course as synced: " + courseId, e);
-            }
-        });
+        // 1 = synced; queued with other writes, so marking many courses takes one transaction
+        writeQueue.execute(() -> courseDao.updateSyncStatus(courseId, 1))
+            .whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    Log.e(TAG, "Failed to mark course as synced: " + courseId, throwable);
+                } else {
+                    Log.d(TAG, "Course marked as synced: " + courseId);
+                }
+            });
     }
 
     // Statistics methods
@@ -321,6 +200,21 @@ public class CourseRepository {
         return courseDao.getCount();
     }
 
+    public LiveData<Integer> getActiveCount() {
+        return courseDao.getActiveCount();
+    }
+    
+    // Listed instances per course id, from one GROUP BY query; courses without instances are absent
+    public LiveData<Map<Integer, Integer>> getInstanceCounts() {
+        return Transformations.map(instanceDao.getInstanceCountsLive(), counts -> {
+            Map<Integer, Integer> byCourse = new HashMap<>();
+            for (InstanceDao.CourseInstanceCount count : counts) {
+                byCourse.put(count.courseId, count.instanceCount);
+            }
+            return byCourse;
+        });
+    }
+
     public LiveData<Integer> getTotalCapacity() {
         return courseDao.getTotalCapacity();
     }
@@ -341,31 +235,17 @@ public class CourseRepository {
                course.getPrice() >= 0;
     }
 
-    // Log activity
+    // Log activity; written in the background with other entries in one batch
     private void logActivity(String type, String description, String relatedId) {
-        try {
-            Activity activity = new Activity();
-            activity.setId(String.valueOf(System.currentTimeMillis()));
-            activity.setType(type);
-            activity.setDescription(description);
-            activity.setTimestamp(getCurrentTimestamp());
-            activity.setRelatedId(relatedId);
-            
-            activityDao.insert(activity);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to log activity", e);
-        }
-    }
-
-    // Get current timestamp
-    private String getCurrentTimestamp() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-        return sdf.format(new Date());
+        activityLogger.logActivity(type, description, relatedId);
     }
 
-    // Cleanup
-    public void cleanup() {
-        executorService.shutdown();
+    // Report a failed write to the caller and the error LiveData
+    private void reportError(String prefix, Throwable throwable, OnCourseOperationCallback callback) {
+        String error = prefix + throwable.getMessage();
+        Log.e(TAG, error, throwable);
+        errorMessage.postValue(error);
+        callback.onError(error);
     }
 
     // Callback interface
@@ -376,17 +256,18 @@ public class CourseRepository {
 
     // Public method to manually update instances for a course (for testing/debugging)
     public void manuallyUpdateInstancesForCourse(int courseId) {
-        executorService.execute(() -> {
-            try {
-                Log.d(TAG, "Manually updating instances for course ID: " + courseId);
-                YogaCourse course = courseDao.getById(courseId);
-                if (course != null) {
-                    updateInstancesForCourse(course);
-                } else {
-                    Log.e(TAG, "Course not found with ID: " + courseId);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error in manual instance update: " + e.getMessage(), e);
+        writeQueue.execute(() -> {
+            Log.d(TAG, "Manually updating instances for course ID: " + courseId);
+            YogaCourse course = courseDao.getById(courseId);
+            if (course != null) {
+                courseDao.updateInstanceSchedules(courseId, course.getTime(),
+                        ScheduleUtils.toEndTime(course.getTime(), course.getDuration()), course.getCapacity());
+            } else {
+                Log.e(TAG, "Course not found with ID: " + courseId);
+            }
+        }).whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                Log.e(TAG, "Error in manual instance update: " + throwable.getMessage(), throwable);
             }
         });
     }
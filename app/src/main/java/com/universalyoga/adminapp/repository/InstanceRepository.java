@@ -4,29 +4,30 @@ import android.content.Context;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingSource;
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.database.InstanceDao;
+import com.universalyoga.adminapp.database.InstanceFilter;
+import com.universalyoga.adminapp.database.FtsSearch;
 import com.universalyoga.adminapp.database.CourseDao;
-import com.universalyoga.adminapp.database.ActivityDao;
+import com.universalyoga.adminapp.database.WriteQueue;
+import com.universalyoga.adminapp.models.InstanceWithCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
 import com.universalyoga.adminapp.models.YogaCourse;
-import com.universalyoga.adminapp.models.Activity;
 import com.universalyoga.adminapp.utils.ActivityLogger;
-import com.universalyoga.adminapp.services.FirebaseService;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+import com.universalyoga.adminapp.services.AutoSyncService;
+import com.universalyoga.adminapp.services.DeltaSyncEngine;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.concurrent.CompletableFuture;
 
 public class InstanceRepository {
     private static final String TAG = "InstanceRepository";
     private final InstanceDao instanceDao;
     private final CourseDao courseDao;
-    private final ActivityDao activityDao;
-    private final ExecutorService executorService;
+    private final ActivityLogger activityLogger;
+    private final DeltaSyncEngine deltaSyncEngine;
+    private final AutoSyncService autoSyncService;
+    private final WriteQueue writeQueue;
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
 
@@ -34,8 +35,10 @@ public class InstanceRepository {
         AppDatabase database = AppDatabase.getInstance(context);
         this.instanceDao = database.instanceDao();
         this.courseDao = database.courseDao();
-        this.activityDao = database.activityDao();
-        this.executorService = Executors.newFixedThreadPool(4);
+        this.activityLogger = ActivityLogger.getInstance(context);
+        this.autoSyncService = AutoSyncService.getInstance(context);
+        this.deltaSyncEngine = autoSyncService.getDeltaSyncEngine();
+        this.writeQueue = WriteQueue.getInstance(context);
     }
 
     // LiveData getters
@@ -47,6 +50,16 @@ public class InstanceRepository {
         return instanceDao.getAllLive();
     }
 
+    // Page source for an instance list under a filter
+    public PagingSource<Integer, InstanceWithCourse> getInstancePagingSource(InstanceFilter filter) {
+        return instanceDao.getPaged(filter.toQuery());
+    }
+
+    // Count and enrollment of an instance list under a filter
+    public LiveData<InstanceFilter.Summary> getInstanceSummary(InstanceFilter filter) {
+        return instanceDao.getSummary(filter.toSummaryQuery());
+    }
+
     // Get instance by ID
     public LiveData<YogaInstance> getInstanceById(int id) {
         return instanceDao.getByIdLive(id);
@@ -59,144 +72,121 @@ public class InstanceRepository {
 
     // Add new instance
     public void addInstance(YogaInstance instance, OnInstanceOperationCallback callback) {
-        executorService.execute(() -> {
-            try {
-                isLoading.postValue(true);
-                errorMessage.postValue(null);
-
-                // Validate course exists
-                YogaCourse course = courseDao.getById(instance.getCourseId());
-                if (course == null) {
-                    throw new IllegalArgumentException("Course not found");
-                }
+        isLoading.postValue(true);
+        errorMessage.postValue(null);
 
-                // Set metadata
-                instance.setSyncStatus(0); // pending sync
-
-                // Insert instance
-                long instanceId = instanceDao.insert(instance);
-                instance.setId((int) instanceId);
-
-                // Log activity
-                logActivity("instance_created", 
-                    "Scheduled " + course.getCourseName() + " for " + instance.getDate(),
-                    String.valueOf(instanceId));
-
-                // Return success
-                callback.onSuccess(instance);
-                Log.d(TAG, "Instance added successfully: " + instance.getDate());
-
-            } catch (Exception e) {
-                String error = "Failed to add instance: " + e.getMessage();
-                Log.e(TAG, error, e);
-                errorMessage.postValue(error);
-                callback.onError(error);
-            } finally {
-                isLoading.postValue(false);
+        // Set metadata
+        instance.setSyncStatus(0); // pending sync
+
+        writeQueue.submit(() -> {
+            // Validate course exists
+            YogaCourse course = courseDao.getById(instance.getCourseId());
+            if (course == null) {
+                throw new IllegalArgumentException("Course not found");
+            }
+
+            // Insert instance
+            return new CourseAndId(course, instanceDao.insert(instance));
+        }).whenComplete((added, throwable) -> {
+            isLoading.postValue(false);
+            if (throwable != null) {
+                reportError("Failed to add instance: ", throwable, callback);
+                return;
             }
+            YogaCourse course = added.course;
+            instance.setId((int) added.id);
+
+            // Log activity
+            logActivity("instance_created", 
+                "Scheduled " + course.getCourseName() + " for " + instance.getDate(),
+                String.valueOf(instance.getId()));
+
+            // Return success
+            callback.onSuccess(instance);
+            Log.d(TAG, "Instance added successfully: " + instance.getDate());
         });
     }
 
     // Update instance
     public void updateInstance(YogaInstance instance, OnInstanceOperationCallback callback) {
-        executorService.execute(() -> {
-            try {
-                isLoading.postValue(true);
-                errorMessage.postValue(null);
-
-                // Validate course exists
-                YogaCourse course = courseDao.getById(instance.getCourseId());
-                if (course == null) {
-                    throw new IllegalArgumentException("Course not found");
-                }
+        isLoading.postValue(true);
+        errorMessage.postValue(null);
 
-                // Set metadata
-                instance.setSyncStatus(0); // pending sync
+        // Set metadata
+        instance.setSyncStatus(0); // pending sync
 
-                // Update instance
-                instanceDao.update(instance);
+        writeQueue.execute(() -> {
+            // Validate course exists
+            YogaCourse course = courseDao.getById(instance.getCourseId());
+            if (course == null) {
+                throw new IllegalArgumentException("Course not found");
+            }
 
-                // Log activity
-                logActivity("instance_updated", 
-                    "Updated class instance for " + instance.getDate(),
-                    String.valueOf(instance.getId()));
+            // Update instance
+            if (instanceDao.update(instance) == 0) {
+                throw new IllegalArgumentException("Instance not found");
+            }
+        }).whenComplete((ignored, throwable) -> {
+            isLoading.postValue(false);
+            if (throwable != null) {
+                reportError("Failed to update instance: ", throwable, callback);
+                return;
+            }
 
-                // Return success
-                callback.onSuccess(instance);
-                Log.d(TAG, "Instance updated successfully: " + instance.getDate());
+            // Log activity
+            logActivity("instance_updated", 
+                "Updated class instance for " + instance.getDate(),
+                String.valueOf(instance.getId()));
 
-            } catch (Exception e) {
-                String error = "Failed to update instance: " + e.getMessage();
-                Log.e(TAG, error, e);
-                errorMessage.postValue(error);
-                callback.onError(error);
-            } finally {
-                isLoading.postValue(false);
-            }
+            // Return success
+            callback.onSuccess(instance);
+            Log.d(TAG, "Instance updated successfully: " + instance.getDate());
         });
     }
 
     // Delete instance
     public void deleteInstance(int instanceId, OnInstanceOperationCallback callback) {
-        executorService.execute(() -> {
-            try {
-                isLoading.postValue(true);
-                errorMessage.postValue(null);
-
-                // Get instance details before deletion for logging
-                YogaInstance instanceToDelete = instanceDao.getById(instanceId);
-                if (instanceToDelete == null) {
-                    throw new IllegalArgumentException("Instance not found");
-                }
-
-                YogaCourse course = courseDao.getById(instanceToDelete.getCourseId());
-                String courseName = course != null ? course.getCourseName() : "Unknown";
-
-                // Mark instance for deletion (soft delete)
-                instanceToDelete.setSyncStatus(2); // 2 = pending delete
-                instanceDao.update(instanceToDelete);
-
-                // Log activity
-                logActivity("instance_deleted", 
-                    "Deleted class instance for " + instanceToDelete.getDate(),
-                    String.valueOf(instanceId));
-
-                // Sync deletion to Firebase
-                FirebaseService.deleteInstanceFromRealtimeDB(instanceToDelete.getCourseId(), instanceId)
-                    .thenCompose(realtimeSuccess -> {
-                        if (realtimeSuccess) {
-                            return FirebaseService.deleteInstanceFromFirestore(instanceToDelete.getCourseId(), instanceId);
-                        }
-                        return CompletableFuture.completedFuture(false);
-                    })
-                    .thenAccept(firestoreSuccess -> {
-                        if (firestoreSuccess) {
-                            // Now actually delete from local database
-                            instanceDao.deleteById(instanceId);
-                            Log.d(TAG, "Instance deleted successfully from Firebase and local: " + instanceToDelete.getDate());
-                        } else {
-                            Log.e(TAG, "Failed to delete instance from Firebase: " + instanceToDelete.getDate());
-                        }
-                    });
-
-                // Return success
-                callback.onSuccess(null);
-                Log.d(TAG, "Instance marked for deletion: " + instanceToDelete.getDate());
-
-            } catch (Exception e) {
-                String error = "Failed to delete instance: " + e.getMessage();
-                Log.e(TAG, error, e);
-                errorMessage.postValue(error);
-                callback.onError(error);
-            } finally {
-                isLoading.postValue(false);
+        isLoading.postValue(true);
+        errorMessage.postValue(null);
+
+        // Mark instance for deletion (soft delete) and queue the remote delete
+        deltaSyncEngine.enqueueInstanceDeletion(instanceId).whenComplete((instanceToDelete, throwable) -> {
+            isLoading.postValue(false);
+            if (throwable != null) {
+                reportError("Failed to delete instance: ", throwable, callback);
+                return;
             }
+
+            // Log activity
+            logActivity("instance_deleted", 
+                "Deleted class instance for " + instanceToDelete.getDate(),
+                String.valueOf(instanceId));
+
+            // Try to sync right away; failures stay in the outbox and are retried with backoff
+            autoSyncService.syncPendingDeletions()
+                .thenAccept(success -> {
+                    if (success) {
+                        Log.d(TAG, "Instance deleted successfully from Firebase and local: " + instanceToDelete.getDate());
+                    } else {
+                        Log.e(TAG, "Instance deletion queued for retry: " + instanceToDelete.getDate());
+                    }
+                });
+
+            // Return success
+            callback.onSuccess(null);
+            Log.d(TAG, "Instance marked for deletion: " + instanceToDelete.getDate());
         });
     }
 
+    // Ranked search; matching instance ids, best first. Call off the main thread
+    public List<Integer> searchInstanceIds(String query) {
+        return instanceDao.searchInstanceIds(query);
+    }
+
     // Search instances
     public LiveData<List<YogaInstance>> searchInstances(String query) {
-        return instanceDao.searchInstances("%" + query + "%");
+        String matchQuery = FtsSearch.toMatchQuery(query);
+        return matchQuery != null ? instanceDao.searchInstances(matchQuery) : instanceDao.getAllLive();
     }
 
     // Get instances by date
@@ -209,23 +199,28 @@ public class InstanceRepository {
         return instanceDao.getByTeacher("%" + teacher + "%");
     }
 
-    // Get instances by date range
+    // Get instances by date range (inclusive; any instance date format). A bound that does not
+    // parse would otherwise become UNKNOWN (-1) and silently widen or empty the range.
     public LiveData<List<YogaInstance>> getInstancesByDateRange(String startDate, String endDate) {
-        return instanceDao.getByDateRange(startDate, endDate);
+        int startDay = ScheduleUtils.toEpochDay(startDate);
+        int endDay = ScheduleUtils.toEpochDay(endDate);
+        if (startDay == ScheduleUtils.UNKNOWN) {
+            throw new IllegalArgumentException("Unrecognised start date: " + startDate);
+        }
+        if (endDay == ScheduleUtils.UNKNOWN) {
+            throw new IllegalArgumentException("Unrecognised end date: " + endDate);
+        }
+        return instanceDao.getByDateRange(startDay, endDay);
     }
 
     // Get today's instances
     public LiveData<List<YogaInstance>> getTodayInstances() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String today = sdf.format(new Date());
-        return instanceDao.getByDate(today);
+        return instanceDao.getByEpochDay(ScheduleUtils.todayEpochDay());
     }
 
-    // Get upcoming instances
+    // Get upcoming instances, today included
     public LiveData<List<YogaInstance>> getUpcomingInstances() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String today = sdf.format(new Date());
-        return instanceDao.getUpcoming(today);
+        return instanceDao.getUpcoming(ScheduleUtils.todayEpochDay());
     }
 
     // Get pending sync instances
@@ -235,25 +230,25 @@ public class InstanceRepository {
 
     // Mark instance as synced
     public void markInstanceAsSynced(int instanceId) {
-        executorService.execute(() -> {
-            try {
-                instanceDao.updateSyncStatus(instanceId, 1); // synced
-                Log.d(TAG, "Instance marked as synced: " + instanceId);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to mark instance as synced: " + instanceId, e);
-            }
-        });
+        // 1 = synced; queued with other writes, so marking many instances takes one transaction
+        writeQueue.execute(() -> instanceDao.updateSyncStatus(instanceId, 1))
+            .whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    Log.e(TAG, "Failed to mark instance as synced: " + instanceId, throwable);
+                } else {
+                    Log.d(TAG, "Instance marked as synced: " + instanceId);
+                }
+            });
     }
 
     // Update enrollment
     public void updateEnrollment(int instanceId, int enrolled) {
-        executorService.execute(() -> {
-            try {
-                instanceDao.updateEnrollment(instanceId, enrolled);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to update enrollment for instance: " + instanceId, e);
-            }
-        });
+        writeQueue.execute(() -> instanceDao.updateEnrollment(instanceId, enrolled))
+            .whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    Log.e(TAG, "Failed to update enrollment for instance: " + instanceId, throwable);
+                }
+            });
     }
 
     // Get instance statistics
@@ -261,6 +256,14 @@ public class InstanceRepository {
         return instanceDao.getTotalCount();
     }
 
+    public LiveData<Integer> getActiveInstanceCount() {
+        return instanceDao.getActiveCount();
+    }
+
+    public LiveData<List<String>> getTeachers() {
+        return instanceDao.getAllTeachersLive();
+    }
+
     public LiveData<Integer> getTotalEnrollment() {
         return instanceDao.getTotalEnrollment();
     }
@@ -285,55 +288,40 @@ public class InstanceRepository {
     public boolean validateDateMatchesCourse(String date, int courseId) {
         try {
             YogaCourse course = courseDao.getById(courseId);
-            if (course == null || course.getDaysOfWeek() == null) {
+            if (course == null) {
                 return false;
             }
 
-            // Parse date to get day of week
-            SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, dd/MM/yyyy", Locale.getDefault());
-            Date parsedDate = dateFormat.parse(date);
-            SimpleDateFormat dayFormat = new SimpleDateFormat("EEE", Locale.getDefault());
-            String selectedDay = dayFormat.format(parsedDate);
-
-            // Check if selected day matches course schedule
-            String[] courseDays = course.getDaysOfWeek().split(",");
-            for (String day : courseDays) {
-                if (selectedDay.equalsIgnoreCase(day.trim())) {
-                    return true;
-                }
-            }
-            return false;
+            // Check the date's weekday against the course's day mask
+            return ScheduleUtils.isScheduledOn(course.getDaysMask(), ScheduleUtils.toEpochDay(date));
         } catch (Exception e) {
             Log.e(TAG, "Error validating date matches course", e);
             return false;
         }
     }
 
-    // Log activity
+    // Log activity; written in the background with other entries in one batch
     private void logActivity(String type, String description, String relatedId) {
-        try {
-            Activity activity = new Activity();
-            activity.setId(String.valueOf(System.currentTimeMillis()));
-            activity.setType(type);
-            activity.setDescription(description);
-            activity.setTimestamp(getCurrentTimestamp());
-            activity.setRelatedId(relatedId);
-            
-            activityDao.insert(activity);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to log activity", e);
-        }
+        activityLogger.logActivity(type, description, relatedId);
     }
 
-    // Get current timestamp
-    private String getCurrentTimestamp() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-        return sdf.format(new Date());
+    // Report a failed write to the caller and the error LiveData
+    private void reportError(String prefix, Throwable throwable, OnInstanceOperationCallback callback) {
+        String error = prefix + throwable.getMessage();
+        Log.e(TAG, error, throwable);
+        errorMessage.postValue(error);
+        callback.onError(error);
     }
 
-    // Cleanup
-    public void cleanup() {
-        executorService.shutdown();
+    // Result of the insert write: the instance's course and new row id
+    private static class CourseAndId {
+        final YogaCourse course;
+        final long id;
+
+        CourseAndId(YogaCourse course, long id) {
+            this.course = course;
+            this.id = id;
+        }
     }
 
     // Callback interface
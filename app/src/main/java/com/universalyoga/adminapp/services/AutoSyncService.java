@@ -3,45 +3,86 @@ package com.universalyoga.adminapp.services;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
 
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.database.CourseDao;
 import com.universalyoga.adminapp.database.InstanceDao;
+import com.universalyoga.adminapp.database.OutboxDao;
+import com.universalyoga.adminapp.database.RoomOutboxStore;
+import com.universalyoga.adminapp.database.WriteQueue;
 import com.universalyoga.adminapp.models.SyncHistory;
-import com.universalyoga.adminapp.models.YogaCourse;
-import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.utils.AppExecutors;
+import com.universalyoga.adminapp.utils.DeviceInfoUtils;
 import com.universalyoga.adminapp.utils.NetworkUtils;
 
-import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class AutoSyncService {
     private static final String TAG = "AutoSyncService";
-    private static final int SYNC_DELAY_SECONDS = 300; // Delay before auto-sync after data change (5 minutes)
+    private static final long SYNC_DEBOUNCE_MS = 30_000; // Quiet period after the last data change
+    private static final long SYNC_MAX_WAIT_MS = 300_000; // Sync at most 5 minutes after the first unsynced change
+    private static final long FAILED_SYNC_RETRY_MS = 60_000; // Earliest retry after a sync that could not run or failed
+    
+    private static AutoSyncService instance;
     
     private final Context context;
+    private final AppExecutors executors;
     private final CourseDao courseDao;
     private final InstanceDao instanceDao;
-    private final ScheduledExecutorService scheduler;
+    private final OutboxDao outboxDao;
+    private final DeltaSyncEngine deltaSyncEngine;
+    private final WriteQueue writeQueue;
+    private final SyncScheduler syncScheduler;
     private final MutableLiveData<Boolean> isSyncing;
     private final MutableLiveData<String> syncStatus;
     
-    private boolean autoSyncEnabled = false; // Disabled by default
-    private CompletableFuture<Boolean> pendingSync;
+    private volatile boolean autoSyncEnabled = false; // Disabled by default
+    private volatile boolean syncInFlight; // Outbox changes meanwhile are picked up once it ends
+    private ScheduledFuture<?> drainTimer; // Wakes the scheduler when the next retry falls due; guarded by this
     
-    public AutoSyncService(Context context) {
+    private AutoSyncService(Context context, AppDatabase db, WriteQueue writeQueue, AppExecutors executors) {
         this.context = context;
-        AppDatabase db = AppDatabase.getInstance(context);
+        this.executors = executors;
         this.courseDao = db.courseDao();
         this.instanceDao = db.instanceDao();
-        this.scheduler = Executors.newScheduledThreadPool(1);
+        this.outboxDao = db.outboxDao();
+        this.writeQueue = writeQueue;
+        this.deltaSyncEngine = new DeltaSyncEngine(
+                new RoomOutboxStore(db, writeQueue, executors.diskIO()),
+                FirebaseSyncBackend.realtimeDatabase(), FirebaseSyncBackend.firestore());
+        this.syncScheduler = new SyncScheduler(executors.scheduler(), this::performAutoSync,
+                SYNC_DEBOUNCE_MS, SYNC_MAX_WAIT_MS);
         this.isSyncing = new MutableLiveData<>(false);
         this.syncStatus = new MutableLiveData<>("Ready");
+        
+        // Every committed write that touches the outbox, from any screen or the write queue,
+        // schedules a sync; the database triggers enqueue each content change there
+        db.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("sync_outbox") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                if (!syncInFlight) {
+                    scheduleDrain(0);
+                }
+            }
+        });
+    }
+    
+    // Shared so that triggers from every screen are coalesced by one scheduler
+    public static synchronized AutoSyncService getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new AutoSyncService(appContext, AppDatabase.getInstance(appContext),
+                    WriteQueue.getInstance(appContext), AppExecutors.getInstance());
+        }
+        return instance;
     }
     
     /**
@@ -49,6 +90,13 @@ public class AutoSyncService {
      */
     public void setAutoSyncEnabled(boolean enabled) {
         this.autoSyncEnabled = enabled;
+        if (enabled) {
+            // Catch up on changes made while it was off
+            scheduleDrain(0);
+        } else {
+            syncScheduler.cancel();
+            cancelDrain();
+        }
     }
     
     /**
@@ -73,43 +121,90 @@ public class AutoSyncService {
     }
     
     /**
-     * Trigger automatic sync when data changes
-     * This method should be called whenever local data is modified
+     * Change the debounce and max-wait delays of automatic sync
+     */
+    public void setSyncDelays(long debounceMillis, long maxWaitMillis) {
+        syncScheduler.setDelays(debounceMillis, maxWaitMillis);
+    }
+    
+    /**
+     * The engine every sync goes through; shared so all screens drain one outbox the same way
+     */
+    public DeltaSyncEngine getDeltaSyncEngine() {
+        return deltaSyncEngine;
+    }
+    
+    /**
+     * Triggers received versus syncs actually run
+     */
+    public SyncScheduler.Metrics getSchedulerMetrics() {
+        return syncScheduler.getMetrics();
+    }
+    
+    /**
+     * Trigger automatic sync. Local changes trigger it by themselves, through the outbox.
      */
     public void triggerAutoSync() {
         if (!autoSyncEnabled) {
             return;
         }
         
+        // Bursts of changes collapse into one sync
+        syncScheduler.trigger();
+        syncStatus.postValue("Auto sync scheduled...");
+    }
+    
+    /**
+     * Arm a wake-up for when the earliest outbox operation falls due, such as one backed off
+     * after a failed upload, but no sooner than minDelayMillis; it triggers the scheduler like
+     * a data change would. Operations already due trigger it after minDelayMillis.
+     */
+    private void scheduleDrain(long minDelayMillis) {
+        executors.diskIO().execute(() -> {
+            Long nextAttemptAt = outboxDao.getNextAttemptAt();
+            synchronized (this) {
+                cancelDrain();
+                if (nextAttemptAt == null || !autoSyncEnabled) {
+                    return;
+                }
+                long delay = Math.max(minDelayMillis, nextAttemptAt - System.currentTimeMillis());
+                drainTimer = executors.scheduler().schedule(
+                        this::triggerAutoSync, delay, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+    
+    private synchronized void cancelDrain() {
+        if (drainTimer != null) {
+            drainTimer.cancel(false);
+            drainTimer = null;
+        }
+    }
+    
+    /**
+     * Perform the actual automatic synchronization. Only called by the scheduler,
+     * which never runs two at once. Once it finishes, the next due retry is scheduled;
+     * when offline, Firebase is not ready or the sync failed, that is FAILED_SYNC_RETRY_MS
+     * later at the earliest, rather than the scheduler going idle with changes pending.
+     */
+    private CompletableFuture<Boolean> performAutoSync() {
+        syncInFlight = true;
+        return syncOutbox().whenComplete((success, throwable) -> {
+            syncInFlight = false;
+            scheduleDrain(Boolean.TRUE.equals(success) ? 0 : FAILED_SYNC_RETRY_MS);
+        });
+    }
+    
+    private CompletableFuture<Boolean> syncOutbox() {
+        // Changes stay in the outbox and go out with the next sync
         if (!NetworkUtils.isNetworkAvailable(context)) {
             syncStatus.postValue("No network - sync pending");
-            return;
+            return CompletableFuture.completedFuture(false);
         }
         
         if (!FirebaseService.isInitialized()) {
             syncStatus.postValue("Firebase not ready - sync pending");
-            return;
-        }
-        
-        // Cancel any pending sync
-        if (pendingSync != null && !pendingSync.isDone()) {
-            pendingSync.cancel(true);
-        }
-        
-        // Schedule sync with delay to avoid multiple rapid syncs
-        scheduler.schedule(() -> {
-            performAutoSync();
-        }, SYNC_DELAY_SECONDS, TimeUnit.SECONDS);
-        
-        syncStatus.postValue("Auto sync scheduled...");
-    }
-    
-    /**
-     * Perform the actual automatic synchronization
-     */
-    private void performAutoSync() {
-        if (isSyncing.getValue() != null && isSyncing.getValue()) {
-            return;
+            return CompletableFuture.completedFuture(false);
         }
         
         isSyncing.postValue(true);
@@ -117,46 +212,49 @@ public class AutoSyncService {
         
         // Create sync history record
         SyncHistory history = SyncHistory.createWithId();
-        history.setTimestamp(String.valueOf(System.currentTimeMillis()));
+        history.setTimestamp(System.currentTimeMillis());
         history.setStatus("in_progress");
         history.setType("auto");
         history.setTrigger("data_change");
+        history.setDeviceInfo(DeviceInfoUtils.collect(context));
         
         AppDatabase db = AppDatabase.getInstance(context);
-        db.syncHistoryDao().insert(history);
+        // Record the sync; syncs past the retention window are rolled up into daily totals
+        writeQueue.execute(() -> {
+            db.syncHistoryDao().insert(history);
+            db.syncHistoryDao().prune();
+        });
         
-        // Get all data to sync
-        List<YogaCourse> courses = courseDao.getAll();
-        List<YogaInstance> instances = instanceDao.getAll();
+        // Outbox operations that are due
+        DeltaSyncEngine.ChangeSet changes = deltaSyncEngine.collectChanges();
         
         // Perform upload
-        pendingSync = FirebaseService.uploadCoursesToRealtimeDB(courses, instances)
-            .thenCompose(realtimeSuccess -> {
-                return FirebaseService.uploadCoursesToFirestore(courses, instances);
-            })
-            .thenApply(firestoreSuccess -> {
+        return deltaSyncEngine.sync(changes, null)
+            .thenApply(result -> {
+                boolean success = result.isComplete();
+                Log.d(TAG, "Auto sync: " + result);
                 
                 // Update sync history
-                history.setStatus(firestoreSuccess ? "success" : "failed");
-                history.setDataSize(courses.size() + instances.size());
-                db.syncHistoryDao().update(history);
+                history.setStatus(success ? "success" : "failed");
+                DeltaSyncEngine.recordResult(history, result);
+                writeQueue.execute(() -> db.syncHistoryDao().update(history));
                 
                 // Update UI
                 isSyncing.postValue(false);
-                if (firestoreSuccess) {
-                    syncStatus.postValue("Auto sync completed");
+                if (success) {
+                    syncStatus.postValue(changes.isEmpty() ? "Already up to date" : "Auto sync completed");
                 } else {
                     syncStatus.postValue("Auto sync failed");
                 }
                 
-                return firestoreSuccess;
+                return success;
             })
             .exceptionally(throwable -> {
                 Log.e(TAG, "Auto sync failed with exception", throwable);
                 
                 // Update sync history
                 history.setStatus("failed");
-                db.syncHistoryDao().update(history);
+                writeQueue.execute(() -> db.syncHistoryDao().update(history));
                 
                 // Update UI
                 isSyncing.postValue(false);
@@ -167,94 +265,46 @@ public class AutoSyncService {
     }
     
     /**
-     * Force immediate sync (bypasses auto sync settings)
+     * Run a sync the user asked for, such as a manual upload, right away but in turn with
+     * automatic syncs, so two syncs never send the same outbox operations. Runs even with
+     * auto sync off; afterwards the next due retry is scheduled as after an automatic sync.
      */
-    public CompletableFuture<Boolean> forceSync() {
-        Log.d(TAG, "Force sync requested");
-        syncStatus.postValue("Force syncing...");
-        
-        if (!NetworkUtils.isNetworkAvailable(context)) {
-            Log.d(TAG, "No network available for force sync");
-            syncStatus.postValue("No network available");
-            return CompletableFuture.completedFuture(false);
-        }
-        
-        if (!FirebaseService.isInitialized()) {
-            Log.d(TAG, "Firebase not initialized for force sync");
-            syncStatus.postValue("Firebase not ready");
-            return CompletableFuture.completedFuture(false);
-        }
-        
-        isSyncing.postValue(true);
-        syncStatus.postValue("Force syncing...");
-        
-        Log.d(TAG, "Starting force sync");
-        
-        // Create sync history record
-        SyncHistory history = SyncHistory.createWithId();
-        history.setTimestamp(String.valueOf(System.currentTimeMillis()));
-        history.setStatus("in_progress");
-        history.setType("force");
-        history.setTrigger("user");
-        
-        AppDatabase db = AppDatabase.getInstance(context);
-        db.syncHistoryDao().insert(history);
-        
-        // Get all data to sync
-        List<YogaCourse> courses = courseDao.getAll();
-        List<YogaInstance> instances = instanceDao.getAll();
-        
-        Log.d(TAG, "Force syncing " + courses.size() + " courses and " + instances.size() + " instances");
-        
-        // Perform upload
-        return FirebaseService.uploadCoursesToRealtimeDB(courses, instances)
-            .thenCompose(realtimeSuccess -> {
-                Log.d(TAG, "Realtime DB force sync: " + (realtimeSuccess ? "success" : "failed"));
-                return FirebaseService.uploadCoursesToFirestore(courses, instances);
-            })
-            .thenApply(firestoreSuccess -> {
-                Log.d(TAG, "Firestore force sync: " + (firestoreSuccess ? "success" : "failed"));
-                
-                // Update sync history
-                history.setStatus(firestoreSuccess ? "success" : "failed");
-                history.setDataSize(courses.size() + instances.size());
-                db.syncHistoryDao().update(history);
-                
-                // Update UI
-                isSyncing.postValue(false);
-                if (firestoreSuccess) {
-                    syncStatus.postValue("Force sync completed");
-                    Log.d(TAG, "Force sync completed successfully");
-                } else {
-                    syncStatus.postValue("Force sync failed");
-                    Log.e(TAG, "Force sync failed");
-                }
-                
-                return firestoreSuccess;
-            })
-            .exceptionally(throwable -> {
-                Log.e(TAG, "Force sync failed with exception", throwable);
-                
-                // Update sync history
-                history.setStatus("failed");
-                db.syncHistoryDao().update(history);
-                
-                // Update UI
-                isSyncing.postValue(false);
-                syncStatus.postValue("Force sync failed: " + throwable.getMessage());
-                
-                return false;
+    public <T> CompletableFuture<T> runSyncNow(Supplier<CompletableFuture<T>> sync) {
+        return syncScheduler.runNow(() -> {
+            syncInFlight = true;
+            CompletableFuture<T> running;
+            try {
+                running = sync.get();
+            } catch (RuntimeException e) {
+                syncInFlight = false;
+                throw e;
+            }
+            return running.whenComplete((result, throwable) -> {
+                syncInFlight = false;
+                boolean failed = throwable != null || Boolean.FALSE.equals(result);
+                scheduleDrain(failed ? FAILED_SYNC_RETRY_MS : 0);
             });
+        });
+    }
+    
+    /**
+     * Send the deletions that are due right away, e.g. after the user deleted something.
+     * Failures stay in the outbox and are retried with backoff.
+     */
+    public CompletableFuture<Boolean> syncPendingDeletions() {
+        return runSyncNow(deltaSyncEngine::syncPendingDeletions);
     }
     
     /**
      * Shutdown the service
      */
     public void shutdown() {
-        if (pendingSync != null && !pendingSync.isDone()) {
-            pendingSync.cancel(true);
+        synchronized (AutoSyncService.class) {
+            if (instance == this) {
+                instance = null;
+            }
         }
-        scheduler.shutdown();
+        syncScheduler.cancel();
         Log.d(TAG, "AutoSyncService shutdown");
     }
 } 
\ No newline at end of file
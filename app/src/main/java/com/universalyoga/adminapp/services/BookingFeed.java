@@ -0,0 +1,269 @@
+package com.universalyoga.adminapp.services;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.universalyoga.adminapp.models.CustomerBooking;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live list of the newest customer bookings, newest first. Listens with child events to the
+ * last `limit` bookings by date, so each change costs one booking rather than the whole
+ * node. The listener is attached only while the feed has active observers, and only once.
+ * Bookings are parsed and sorted on a background thread; a burst of events is published
+ * as one list.
+ */
+public class BookingFeed extends LiveData<List<CustomerBooking>> {
+    private static final String TAG = "BookingFeed";
+
+    public static final int PAGE_SIZE = 50;
+    private static final String BOOKINGS_PATH = "customer_bookings";
+    private static final String ORDER_BY = "bookingDate";
+
+    private final DatabaseReference bookingsRef;
+    private final MutableLiveData<String> error = new MutableLiveData<>();
+
+    // Main thread only
+    private int limit = PAGE_SIZE;
+    private Query query;
+    private ChildEventListener childListener;
+    private ValueEventListener loadedListener;
+
+    // Firebase events, applied in order on a background thread
+    private final Executor eventExecutor;
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // Event thread only
+    private final Map<String, Entry> bookings = new HashMap<>();
+    private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+    private final SimpleDateFormat isoFormatNoMs = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+    private boolean loaded;
+    private volatile boolean hasMore;
+
+    private static class Entry {
+        final CustomerBooking booking;
+        final long sortKey; // Booking time in millis, parsed once
+
+        Entry(CustomerBooking booking, long sortKey) {
+            this.booking = booking;
+            this.sortKey = sortKey;
+        }
+    }
+
+    /**
+     * @param eventExecutor parses and sorts the bookings; events are applied one at a time
+     */
+    public BookingFeed(Executor eventExecutor) {
+        this.eventExecutor = eventExecutor;
+        bookingsRef = FirebaseDatabase.getInstance().getReference(BOOKINGS_PATH);
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        isoFormatNoMs.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    /**
+     * Listener errors, such as a permission failure
+     */
+    public LiveData<String> getError() {
+        return error;
+    }
+
+    /**
+     * Whether older bookings may exist beyond those loaded
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Extend the feed by another page of older bookings
+     */
+    public void loadMore() {
+        limit += PAGE_SIZE;
+        hasMore = false; // Until the larger window has loaded
+        if (hasActiveObservers()) {
+            attach();
+        }
+    }
+
+    /**
+     * Re-attach the listener, for instance after an error
+     */
+    public void refresh() {
+        if (hasActiveObservers()) {
+            attach();
+        }
+    }
+
+    @Override
+    protected void onActive() {
+        attach();
+    }
+
+    @Override
+    protected void onInactive() {
+        detach();
+    }
+
+    private void attach() {
+        detach();
+        error.setValue(null);
+        // Rebuilt from the new listener's events, which include every booking in the window;
+        // the current list stays on screen until that has loaded
+        enqueue(() -> {
+            bookings.clear();
+            loaded = false;
+        });
+        query = bookingsRef.orderByChild(ORDER_BY).limitToLast(limit);
+        int requested = limit;
+        childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                enqueue(() -> put(snapshot));
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                enqueue(() -> put(snapshot));
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                // Also raised for the oldest booking when a new one pushes it out of the window
+                enqueue(() -> bookings.remove(snapshot.getKey()));
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Order comes from the parsed dates
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.e(TAG, "Booking feed cancelled: " + databaseError.getMessage());
+                error.setValue(databaseError.getMessage());
+            }
+        };
+        // Raised once, after the child events for the initial data
+        loadedListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                long count = snapshot.getChildrenCount();
+                enqueue(() -> {
+                    loaded = true;
+                    hasMore = count >= requested;
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                // Reported by the child listener
+            }
+        };
+        query.addChildEventListener(childListener);
+        query.addListenerForSingleValueEvent(loadedListener);
+    }
+
+    private void detach() {
+        if (query != null) {
+            query.removeEventListener(childListener);
+            query.removeEventListener(loadedListener);
+            query = null;
+        }
+    }
+
+    private void enqueue(Runnable event) {
+        events.add(event);
+        if (draining.compareAndSet(false, true)) {
+            eventExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            boolean changed = false;
+            Runnable event;
+            while ((event = events.poll()) != null) {
+                event.run();
+                changed = true;
+            }
+            if (changed && loaded) {
+                publish();
+            }
+            draining.set(false);
+        } while (!events.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void put(DataSnapshot snapshot) {
+        try {
+            CustomerBooking booking = snapshot.getValue(CustomerBooking.class);
+            if (booking != null) {
+                booking.setId(snapshot.getKey());
+                bookings.put(booking.getId(), new Entry(booking, parseSortKey(booking.getBookingDate())));
+            }
+        } catch (Exception e) {
+            // Skip bookings that do not parse
+            Log.w(TAG, "Skipping booking " + snapshot.getKey(), e);
+        }
+    }
+
+    private void publish() {
+        List<Entry> entries = new ArrayList<>(bookings.values());
+        // Newest first; undated bookings last, by key, which follows creation order
+        entries.sort((a, b) -> a.sortKey != b.sortKey
+                ? Long.compare(b.sortKey, a.sortKey)
+                : b.booking.getId().compareTo(a.booking.getId()));
+        List<CustomerBooking> list = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            list.add(entry.booking);
+        }
+        postValue(list);
+    }
+
+    private long parseSortKey(String bookingDate) {
+        if (bookingDate == null || bookingDate.trim().isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        Date date = null;
+        if (bookingDate.contains("T") && bookingDate.contains("Z")) {
+            try {
+                date = isoFormat.parse(bookingDate);
+            } catch (ParseException e) {
+                try {
+                    date = isoFormatNoMs.parse(bookingDate);
+                } catch (ParseException ignored) {
+                    // Falls through to the lenient parser
+                }
+            }
+        }
+        if (date == null) {
+            try {
+                date = new Date(bookingDate);
+            } catch (IllegalArgumentException e) {
+                return Long.MIN_VALUE;
+            }
+        }
+        return date.getTime();
+    }
+}
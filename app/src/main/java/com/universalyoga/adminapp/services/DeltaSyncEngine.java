@@ -0,0 +1,583 @@
+package com.universalyoga.adminapp.services;
+
+import com.universalyoga.adminapp.models.OutboxOperation;
+import com.universalyoga.adminapp.models.SyncHistory;
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drains the sync outbox (see OutboxOperation). Upserts are enqueued by database triggers
+ * on every content change and deletes by the repositories, so each sync only carries the
+ * rows that actually changed. Failed operations stay in the outbox and are retried with
+ * jittered exponential backoff, including after the process is killed. Both backends are
+ * written concurrently and tracked separately, so a retry only targets the backend that failed.
+ * Local reads and writes go through an OutboxStore, so the engine itself is plain Java.
+ */
+public class DeltaSyncEngine {
+    // Outbox operations taken per sync; anything beyond goes out with the next one
+    private static final int DRAIN_BATCH_SIZE = 1000;
+
+    // Retry delay doubles from 5 seconds up to 30 minutes
+    private static final long BASE_RETRY_DELAY_MS = 5_000;
+    private static final long MAX_RETRY_DELAY_MS = 30 * 60_000;
+
+    private final OutboxStore store;
+    private final int maxInFlight;
+    private final int chunkSize;
+    private final SyncBackend realtimeBackend;
+    private final SyncBackend firestoreBackend;
+
+    public DeltaSyncEngine(OutboxStore store, SyncBackend realtimeBackend, SyncBackend firestoreBackend) {
+        this(store, realtimeBackend, firestoreBackend, UploadPipeline.DEFAULT_MAX_IN_FLIGHT, UploadPipeline.DEFAULT_CHUNK_SIZE);
+    }
+
+    public DeltaSyncEngine(OutboxStore store, SyncBackend realtimeBackend, SyncBackend firestoreBackend,
+                           int maxInFlight, int chunkSize) {
+        this.store = store;
+        this.maxInFlight = maxInFlight;
+        this.chunkSize = chunkSize;
+        this.realtimeBackend = realtimeBackend;
+        this.firestoreBackend = firestoreBackend;
+    }
+
+    /**
+     * Outbox operations taken for one sync plus the rows they name. Only changed rows are
+     * uploaded: both backends store each instance at its own path or document.
+     */
+    public static class ChangeSet {
+        private final List<OutboxOperation> upserts;
+        private final List<OutboxOperation> deletes;
+        private final List<YogaCourse> coursesToUpload;
+        private final List<YogaInstance> instancesToUpload;
+        private final SyncHistory.Records processed;
+        private final SyncHistory.Records skipped;
+        private final SyncTelemetry telemetry;
+        // Still-pending backends of each upsert, by entity key
+        private final Map<String, Integer> pendingBackends = new HashMap<>();
+
+        ChangeSet(List<OutboxOperation> upserts, List<OutboxOperation> deletes,
+                  List<YogaCourse> coursesToUpload, List<YogaInstance> instancesToUpload,
+                  SyncHistory.Records processed, SyncHistory.Records skipped, SyncTelemetry telemetry) {
+            this.upserts = upserts;
+            this.deletes = deletes;
+            this.coursesToUpload = coursesToUpload;
+            this.instancesToUpload = instancesToUpload;
+            this.processed = processed;
+            this.skipped = skipped;
+            this.telemetry = telemetry;
+            for (OutboxOperation operation : upserts) {
+                pendingBackends.put(key(operation.getEntityType(), operation.getEntityId()), operation.getPendingBackends());
+            }
+        }
+
+        public List<OutboxOperation> getUpserts() { return upserts; }
+        public List<OutboxOperation> getDeletes() { return deletes; }
+        public List<YogaCourse> getCoursesToUpload() { return coursesToUpload; }
+        public List<YogaInstance> getInstancesToUpload() { return instancesToUpload; }
+        public SyncHistory.Records getProcessed() { return processed; }
+        public SyncHistory.Records getSkipped() { return skipped; }
+        public SyncTelemetry getTelemetry() { return telemetry; }
+
+        // Courses whose upsert has not yet reached the given backend
+        public List<YogaCourse> getCoursesToUpload(int backend) {
+            List<YogaCourse> courses = new ArrayList<>();
+            for (YogaCourse course : coursesToUpload) {
+                if (isPendingOn(OutboxOperation.ENTITY_COURSE, course.getId(), backend)) {
+                    courses.add(course);
+                }
+            }
+            return courses;
+        }
+
+        // Instances whose upsert has not yet reached the given backend
+        public List<YogaInstance> getInstancesToUpload(int backend) {
+            List<YogaInstance> instances = new ArrayList<>();
+            for (YogaInstance instance : instancesToUpload) {
+                if (isPendingOn(OutboxOperation.ENTITY_INSTANCE, instance.getId(), backend)) {
+                    instances.add(instance);
+                }
+            }
+            return instances;
+        }
+
+        private boolean isPendingOn(String entityType, int entityId, int backend) {
+            Integer pending = pendingBackends.get(key(entityType, entityId));
+            return pending != null && (pending & backend) != 0;
+        }
+
+        public boolean isEmpty() {
+            return upserts.isEmpty() && deletes.isEmpty();
+        }
+
+        public int getChangedCount() {
+            return upserts.size() + deletes.size();
+        }
+
+        public int getUploadCount() {
+            return coursesToUpload.size() + instancesToUpload.size();
+        }
+
+        // Operations taken for this sync that already failed at least once
+        public int getRetryCount() {
+            int retries = 0;
+            for (OutboxOperation operation : upserts) {
+                if (operation.getAttempts() > 0) retries++;
+            }
+            for (OutboxOperation operation : deletes) {
+                if (operation.getAttempts() > 0) retries++;
+            }
+            return retries;
+        }
+    }
+
+    /**
+     * Progress of both backends' uploads. The combined counts are summed over backends,
+     * so a record that goes to both is counted twice.
+     */
+    public static class SyncProgress extends UploadPipeline.UploadProgress {
+        private final UploadPipeline.UploadProgress realtime;
+        private final UploadPipeline.UploadProgress firestore;
+
+        SyncProgress(UploadPipeline.UploadProgress realtime, UploadPipeline.UploadProgress firestore) {
+            super(realtime.getRecordsAcked() + firestore.getRecordsAcked(),
+                    realtime.getRecordsFailed() + firestore.getRecordsFailed(),
+                    realtime.getRecordsTotal() + firestore.getRecordsTotal(),
+                    realtime.getBytesAcked() + firestore.getBytesAcked(),
+                    Math.max(realtime.getElapsedMillis(), firestore.getElapsedMillis()));
+            this.realtime = realtime;
+            this.firestore = firestore;
+        }
+
+        public UploadPipeline.UploadProgress getRealtime() { return realtime; }
+        public UploadPipeline.UploadProgress getFirestore() { return firestore; }
+    }
+
+    public interface ProgressListener {
+        void onProgress(SyncProgress progress);
+    }
+
+    /**
+     * Outcome of one sync. The combined counts are per record: a record is acknowledged once
+     * every backend it was pending on accepted it. Per-backend outcomes are kept separately.
+     */
+    public static class SyncResult extends UploadPipeline.Result {
+        private final UploadPipeline.Result realtime;
+        private final UploadPipeline.Result firestore;
+        private final DeletionOutcome deletions;
+        private final ChangeSet changes;
+        private final SyncHistory.Records uploaded;
+
+        SyncResult(UploadPipeline.Result combined, UploadPipeline.Result realtime, UploadPipeline.Result firestore,
+                   DeletionOutcome deletions, ChangeSet changes, SyncHistory.Records uploaded) {
+            super(combined, combined.getAckedCourseIds(), combined.getChunksFailed());
+            this.realtime = realtime;
+            this.firestore = firestore;
+            this.deletions = deletions;
+            this.changes = changes;
+            this.uploaded = uploaded;
+        }
+
+        public UploadPipeline.Result getRealtime() { return realtime; }
+        public UploadPipeline.Result getFirestore() { return firestore; }
+        public int getDeletesAcked() { return deletions.acked.size(); }
+        public int getDeletesFailed() { return deletions.failed; }
+
+        public boolean isRealtimeComplete() {
+            return realtime.isComplete() && deletions.realtimeSuccess;
+        }
+
+        public boolean isFirestoreComplete() {
+            return firestore.isComplete() && deletions.firestoreSuccess;
+        }
+        public ChangeSet getChanges() { return changes; }
+        public SyncHistory.Records getUploaded() { return uploaded; }
+        public SyncTelemetry getTelemetry() { return changes.getTelemetry(); }
+
+        @Override
+        public boolean isComplete() {
+            return super.isComplete() && deletions.failed == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Realtime Database: " + realtime.getRecordsAcked() + "/" + realtime.getRecordsTotal() +
+                    " records in " + realtime.getElapsedMillis() + "ms; Firestore: " + firestore.getRecordsAcked() +
+                    "/" + firestore.getRecordsTotal() + " records in " + firestore.getElapsedMillis() + "ms; " +
+                    deletions.acked.size() + " deletions acknowledged, " + deletions.failed + " failed";
+        }
+    }
+
+    // Per-backend outcome of sending deletions, and the operations fully acknowledged
+    private static class DeletionOutcome {
+        final boolean realtimeSuccess;
+        final boolean firestoreSuccess;
+        final List<OutboxOperation> acked;
+        final int failed;
+
+        DeletionOutcome(boolean realtimeSuccess, boolean firestoreSuccess, List<OutboxOperation> acked, int failed) {
+            this.realtimeSuccess = realtimeSuccess;
+            this.firestoreSuccess = firestoreSuccess;
+            this.acked = acked;
+            this.failed = failed;
+        }
+    }
+
+    /**
+     * Take the operations that are due. Must be called off the main thread.
+     */
+    public ChangeSet collectChanges() {
+        return collectChanges(false);
+    }
+
+    /**
+     * Take pending operations; includeBackedOff also takes those still waiting out a retry
+     * delay (used when the user asks for a sync explicitly). Must be called off the main thread.
+     */
+    public ChangeSet collectChanges(boolean includeBackedOff) {
+        long now = includeBackedOff ? Long.MAX_VALUE : System.currentTimeMillis();
+        SyncTelemetry telemetry = new SyncTelemetry();
+        long readStart = SyncTelemetry.start();
+        ChangeSet changes = store.runInTransaction(() -> {
+            List<OutboxOperation> upserts = new ArrayList<>();
+            List<OutboxOperation> deletes = new ArrayList<>();
+            for (OutboxOperation operation : store.getDue(now, DRAIN_BATCH_SIZE)) {
+                (operation.isDelete() ? deletes : upserts).add(operation);
+            }
+
+            Set<Integer> courseIds = new LinkedHashSet<>();
+            Set<Integer> instanceIds = new LinkedHashSet<>();
+            Set<Integer> affectedCourseIds = new LinkedHashSet<>();
+            for (OutboxOperation operation : upserts) {
+                (operation.isCourse() ? courseIds : instanceIds).add(operation.getEntityId());
+                affectedCourseIds.add(operation.getCourseId());
+            }
+
+            List<YogaCourse> coursesToUpload = store.getCourses(new ArrayList<>(courseIds));
+            List<YogaInstance> changedInstances = store.getInstances(new ArrayList<>(instanceIds));
+            Set<Integer> activeCourseIds = new HashSet<>(store.getActiveCourseIds(new ArrayList<>(affectedCourseIds)));
+
+            // Instances are only published under a course that is not being deleted
+            List<YogaInstance> instancesToUpload = new ArrayList<>();
+            for (YogaInstance instance : changedInstances) {
+                if (activeCourseIds.contains(instance.getCourseId())) {
+                    instancesToUpload.add(instance);
+                }
+            }
+
+            // Upserts for rows that are gone or whose course is being deleted are superseded
+            Set<String> uploadable = new HashSet<>();
+            for (YogaCourse course : coursesToUpload) {
+                uploadable.add(key(OutboxOperation.ENTITY_COURSE, course.getId()));
+            }
+            for (YogaInstance instance : instancesToUpload) {
+                uploadable.add(key(OutboxOperation.ENTITY_INSTANCE, instance.getId()));
+            }
+            List<OutboxOperation> superseded = new ArrayList<>();
+            for (OutboxOperation operation : upserts) {
+                if (!uploadable.contains(key(operation.getEntityType(), operation.getEntityId()))) {
+                    superseded.add(operation);
+                }
+            }
+            SyncHistory.Records processed = countRecords(upserts);
+            addRecords(processed, countRecords(deletes));
+            SyncHistory.Records skipped = countRecords(superseded);
+            if (!superseded.isEmpty()) {
+                // Queued after the reads; if it fails they are found superseded again next time
+                upserts.removeAll(superseded);
+                store.acknowledge(superseded);
+            }
+            return new ChangeSet(upserts, deletes, coursesToUpload, instancesToUpload, processed, skipped, telemetry);
+        });
+        telemetry.end(SyncTelemetry.Phase.LOCAL_READ, readStart);
+        return changes;
+    }
+
+    /**
+     * Send a change set's deletions and upload its records to both backends concurrently,
+     * then acknowledge locally whatever reached every backend it was pending on. Anything
+     * else is rescheduled with backoff for only the backends that did not accept it.
+     */
+    public CompletableFuture<SyncResult> sync(ChangeSet changes, ProgressListener listener) {
+        SyncTelemetry telemetry = changes.getTelemetry();
+        List<YogaCourse> realtimeCourses = changes.getCoursesToUpload(realtimeBackend.getBackendBit());
+        List<YogaInstance> realtimeInstances = changes.getInstancesToUpload(realtimeBackend.getBackendBit());
+        List<YogaCourse> firestoreCourses = changes.getCoursesToUpload(firestoreBackend.getBackendBit());
+        List<YogaInstance> firestoreInstances = changes.getInstancesToUpload(firestoreBackend.getBackendBit());
+
+        // Latest snapshot of each backend, combined for the listener
+        AtomicReference<UploadPipeline.UploadProgress> realtimeProgress = new AtomicReference<>(
+                new UploadPipeline.UploadProgress(0, 0, realtimeCourses.size() + realtimeInstances.size(), 0, 0));
+        AtomicReference<UploadPipeline.UploadProgress> firestoreProgress = new AtomicReference<>(
+                new UploadPipeline.UploadProgress(0, 0, firestoreCourses.size() + firestoreInstances.size(), 0, 0));
+
+        CompletableFuture<DeletionOutcome> deletions = syncDeletions(changes.getDeletes(), telemetry);
+        CompletableFuture<UploadPipeline.Result> realtime = new UploadPipeline(
+                (courses, instances) -> realtimeBackend.upload(courses, instances, telemetry),
+                maxInFlight, chunkSize)
+            .upload(realtimeCourses, realtimeInstances, progress -> {
+                realtimeProgress.set(progress);
+                if (listener != null) {
+                    listener.onProgress(new SyncProgress(progress, firestoreProgress.get()));
+                }
+            });
+        CompletableFuture<UploadPipeline.Result> firestore = new UploadPipeline(
+                (courses, instances) -> firestoreBackend.upload(courses, instances, telemetry),
+                maxInFlight, chunkSize)
+            .upload(firestoreCourses, firestoreInstances, progress -> {
+                firestoreProgress.set(progress);
+                if (listener != null) {
+                    listener.onProgress(new SyncProgress(realtimeProgress.get(), progress));
+                }
+            });
+
+        return CompletableFuture.allOf(deletions, realtime, firestore).thenCompose(ignored -> {
+            UploadPipeline.Result realtimeResult = realtime.join();
+            UploadPipeline.Result firestoreResult = firestore.join();
+            DeletionOutcome deletionOutcome = deletions.join();
+            return acknowledgeUploads(changes, realtimeResult, firestoreResult, telemetry)
+                .thenApply(acked -> toResult(changes, realtimeResult, firestoreResult, deletionOutcome, acked));
+        });
+    }
+
+    // Combine the backends' results with the acknowledged operations
+    private SyncResult toResult(ChangeSet changes, UploadPipeline.Result realtimeResult, UploadPipeline.Result firestoreResult,
+                                DeletionOutcome deletionOutcome, List<OutboxOperation> acked) {
+        Set<Integer> ackedCourseIds = new HashSet<>();
+        for (OutboxOperation operation : acked) {
+            ackedCourseIds.add(operation.getCourseId());
+        }
+        int total = changes.getUpserts().size();
+        UploadPipeline.Result combined = new UploadPipeline.Result(
+                new UploadPipeline.UploadProgress(acked.size(), total - acked.size(), total,
+                        realtimeResult.getBytesAcked() + firestoreResult.getBytesAcked(),
+                        Math.max(realtimeResult.getElapsedMillis(), firestoreResult.getElapsedMillis())),
+                ackedCourseIds, realtimeResult.getChunksFailed() + firestoreResult.getChunksFailed());
+
+        SyncHistory.Records uploaded = countRecords(acked);
+        addRecords(uploaded, countRecords(deletionOutcome.acked));
+        return new SyncResult(combined, realtimeResult, firestoreResult, deletionOutcome, changes, uploaded);
+    }
+
+    /**
+     * Send only the deletions that are due, e.g. right after the user deleted something.
+     * The outbox is read off the calling thread, so this may be called from any thread.
+     */
+    public CompletableFuture<Boolean> syncPendingDeletions() {
+        return store.loadDueDeletes(System.currentTimeMillis(), DRAIN_BATCH_SIZE)
+            .thenCompose(deletes -> syncDeletions(deletes, new SyncTelemetry()))
+            .thenApply(outcome -> outcome.failed == 0);
+    }
+
+    /**
+     * Soft-delete a course and its instances and enqueue the course's remote deletion, which
+     * takes the instances with it, in one write. Completes with the course as it was, or
+     * fails if there is no such course.
+     */
+    public CompletableFuture<YogaCourse> enqueueCourseDeletion(int courseId) {
+        return store.enqueueCourseDeletion(courseId);
+    }
+
+    /**
+     * Soft-delete an instance and enqueue its remote deletion in one write. Completes with
+     * the instance as it was, or fails if there is no such instance.
+     */
+    public CompletableFuture<YogaInstance> enqueueInstanceDeletion(int instanceId) {
+        return store.enqueueInstanceDeletion(instanceId);
+    }
+
+    // Send deletions to both backends concurrently; purge the local rows of those that
+    // reached every backend they were pending on
+    private CompletableFuture<DeletionOutcome> syncDeletions(List<OutboxOperation> deletes, SyncTelemetry telemetry) {
+        if (deletes.isEmpty()) {
+            return CompletableFuture.completedFuture(new DeletionOutcome(true, true, new ArrayList<>(), 0));
+        }
+
+        long deleteStart = SyncTelemetry.start();
+        CompletableFuture<Boolean> realtime = sendDeletions(deletes, realtimeBackend, telemetry);
+        CompletableFuture<Boolean> firestore = sendDeletions(deletes, firestoreBackend, telemetry);
+        return CompletableFuture.allOf(realtime, firestore).thenCompose(ignored -> {
+            boolean realtimeSuccess = realtime.join();
+            boolean firestoreSuccess = firestore.join();
+            telemetry.end(SyncTelemetry.Phase.DELETION_SYNC, deleteStart);
+            long updateStart = SyncTelemetry.start();
+            int ackedBackends = (realtimeSuccess ? realtimeBackend.getBackendBit() : 0)
+                    | (firestoreSuccess ? firestoreBackend.getBackendBit() : 0);
+
+            List<OutboxOperation> acked = new ArrayList<>();
+            List<OutboxOperation> failed = new ArrayList<>();
+            for (OutboxOperation operation : deletes) {
+                int remaining = operation.getPendingBackends() & ~ackedBackends;
+                operation.setPendingBackends(remaining);
+                (remaining == 0 ? acked : failed).add(operation);
+            }
+
+            CompletableFuture<Void> purged = CompletableFuture.completedFuture(null);
+            if (!acked.isEmpty()) {
+                purged = store.acknowledgeDeletions(acked);
+            }
+            CompletableFuture<Void> retried = CompletableFuture.completedFuture(null);
+            if (!failed.isEmpty()) {
+                telemetry.addError("Deletion of " + failed.size() + " records not acknowledged (" + realtimeBackend.getName() + ": " +
+                        realtimeSuccess + ", " + firestoreBackend.getName() + ": " + firestoreSuccess + ")");
+                retried = scheduleRetry(failed, "Deletion not acknowledged");
+            }
+            return CompletableFuture.allOf(purged, retried).thenApply(done -> {
+                telemetry.end(SyncTelemetry.Phase.LOCAL_UPDATE, updateStart);
+                return new DeletionOutcome(realtimeSuccess, firestoreSuccess, acked, failed.size());
+            });
+        });
+    }
+
+    // Send the deletions still pending on one backend
+    private static CompletableFuture<Boolean> sendDeletions(List<OutboxOperation> deletes, SyncBackend backend,
+                                                            SyncTelemetry telemetry) {
+        List<Integer> courseIdsToDelete = new ArrayList<>();
+        List<Map<String, Integer>> instanceIdsToDelete = new ArrayList<>();
+        for (OutboxOperation operation : deletes) {
+            if (!operation.isPendingOn(backend.getBackendBit())) {
+                continue;
+            }
+            if (operation.isCourse()) {
+                courseIdsToDelete.add(operation.getEntityId());
+            } else {
+                Map<String, Integer> instanceInfo = new HashMap<>();
+                instanceInfo.put("courseId", operation.getCourseId());
+                instanceInfo.put("instanceId", operation.getEntityId());
+                instanceIdsToDelete.add(instanceInfo);
+            }
+        }
+        if (courseIdsToDelete.isEmpty() && instanceIdsToDelete.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return backend.delete(courseIdsToDelete, instanceIdsToDelete).exceptionally(throwable -> {
+            telemetry.addError("Failed to sync deletions to " + backend.getName() + ": " + throwable.getMessage());
+            return false;
+        });
+    }
+
+    // Acknowledge upserts that reached every backend they were pending on; narrow the rest
+    // to the backends that failed and back them off. Completes with the acknowledged
+    // operations once both writes have committed.
+    private CompletableFuture<List<OutboxOperation>> acknowledgeUploads(ChangeSet changes, UploadPipeline.Result realtime,
+                                                     UploadPipeline.Result firestore, SyncTelemetry telemetry) {
+        long updateStart = SyncTelemetry.start();
+        List<OutboxOperation> acked = new ArrayList<>();
+        List<OutboxOperation> failed = new ArrayList<>();
+        Set<String> ackedKeys = new HashSet<>();
+        for (OutboxOperation operation : changes.getUpserts()) {
+            int ackedBackends = (realtime.getAckedCourseIds().contains(operation.getCourseId()) ? realtimeBackend.getBackendBit() : 0)
+                    | (firestore.getAckedCourseIds().contains(operation.getCourseId()) ? firestoreBackend.getBackendBit() : 0);
+            int remaining = operation.getPendingBackends() & ~ackedBackends;
+            operation.setPendingBackends(remaining);
+            if (remaining == 0) {
+                acked.add(operation);
+                ackedKeys.add(key(operation.getEntityType(), operation.getEntityId()));
+            } else {
+                failed.add(operation);
+            }
+        }
+
+        CompletableFuture<?> acknowledged = CompletableFuture.completedFuture(null);
+        if (!acked.isEmpty()) {
+            List<YogaCourse> ackedCourses = new ArrayList<>();
+            for (YogaCourse course : changes.getCoursesToUpload()) {
+                if (ackedKeys.contains(key(OutboxOperation.ENTITY_COURSE, course.getId()))) {
+                    ackedCourses.add(course);
+                }
+            }
+            List<YogaInstance> ackedInstances = new ArrayList<>();
+            for (YogaInstance instance : changes.getInstancesToUpload()) {
+                if (ackedKeys.contains(key(OutboxOperation.ENTITY_INSTANCE, instance.getId()))) {
+                    ackedInstances.add(instance);
+                }
+            }
+
+            acknowledged = store.acknowledgeUploads(acked, ackedCourses, ackedInstances);
+        }
+        CompletableFuture<Void> retried = CompletableFuture.completedFuture(null);
+        if (!failed.isEmpty()) {
+            retried = scheduleRetry(failed, "Upload not acknowledged");
+        }
+        return CompletableFuture.allOf(acknowledged, retried).thenApply(ignored -> {
+            telemetry.end(SyncTelemetry.Phase.LOCAL_UPDATE, updateStart);
+            return acked;
+        });
+    }
+
+    // Back off operations, keeping only the backends recorded as still pending on each
+    private CompletableFuture<Void> scheduleRetry(List<OutboxOperation> operations, String error) {
+        long now = System.currentTimeMillis();
+        // Delays drawn up front, so that the write stays the same if it has to run again
+        long[] retryAt = new long[operations.size()];
+        for (int i = 0; i < retryAt.length; i++) {
+            retryAt[i] = now + retryDelayMillis(operations.get(i).getAttempts());
+        }
+        return store.scheduleRetry(operations, retryAt, error);
+    }
+
+    /**
+     * Exponential backoff with jitter: a random delay in the upper half of the current step,
+     * so devices that failed together do not retry in lockstep.
+     */
+    static long retryDelayMillis(int attempts) {
+        long step = Math.min(MAX_RETRY_DELAY_MS, BASE_RETRY_DELAY_MS << Math.min(attempts, 20));
+        return step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+    }
+
+    /**
+     * Copy the sync outcome and its telemetry onto a sync history row.
+     */
+    public static void recordResult(SyncHistory history, SyncResult result) {
+        SyncTelemetry telemetry = result.getTelemetry();
+        history.setRecordsAcked(result.getRecordsAcked());
+        history.setRecordsTotal(result.getRecordsTotal());
+        history.setBytesUploaded(result.getBytesAcked());
+        history.setDataSize((int) ((result.getBytesAcked() + 1023) / 1024));
+        history.setDuration((int) telemetry.getElapsedMillis());
+        history.setRecordsProcessed(result.getChanges().getProcessed());
+        history.setRecordsUploaded(result.getUploaded());
+        history.setRecordsSkipped(result.getChanges().getSkipped());
+        history.setRetryCount(result.getChanges().getRetryCount());
+        history.setRecordsPerSecond(result.getRecordsPerSecond());
+        history.setNetworkSpeed(String.format(Locale.UK, "~%.1f KB/s", result.getBytesPerSecond() / 1024));
+        history.setPhaseTimings(telemetry.toPhaseTimings());
+        List<String> errors = telemetry.getErrors();
+        history.setErrors(errors.isEmpty() ? null : errors);
+    }
+
+    private static SyncHistory.Records countRecords(List<OutboxOperation> operations) {
+        SyncHistory.Records records = new SyncHistory.Records();
+        for (OutboxOperation operation : operations) {
+            if (operation.isCourse()) {
+                records.classes++;
+            } else {
+                records.instances++;
+            }
+        }
+        records.total = records.classes + records.instances;
+        return records;
+    }
+
+    private static void addRecords(SyncHistory.Records into, SyncHistory.Records records) {
+        into.classes += records.classes;
+        into.instances += records.instances;
+        into.total += records.total;
+    }
+
+    private static String key(String entityType, int entityId) {
+        return entityType + ":" + entityId;
+    }
+}
@@ -1,17 +1,25 @@
 package com.universalyoga.adminapp.services;
 
 import android.util.Log;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.models.YogaInstance;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Map;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class FirebaseService {
     private static final String TAG = "FirebaseService";
@@ -20,13 +28,24 @@ public class FirebaseService {
     private static FirebaseDatabase realtimeDatabase;
     private static FirebaseFirestore firestore;
     
+    // Runs Firebase task callbacks off the main thread
+    private static Executor callbackExecutor;
+    
     // Database references
     private static DatabaseReference yogaClassesRef;
     private static CollectionReference classesCollection;
     private static CollectionReference bookingsCollection;
     
-    // Initialize Firebase services
-    public static void initialize() {
+    // Firestore subcollection holding one document per class instance
+    static final String INSTANCES_SUBCOLLECTION = "instances";
+    
+    // Upload batching
+    private static final int MAX_FIRESTORE_BATCH_SIZE = 500;
+    private static volatile int firestoreBatchSize = MAX_FIRESTORE_BATCH_SIZE;
+    
+    // Initialize Firebase services; task callbacks run on callbackExecutor
+    public static void initialize(Executor callbackExecutor) {
+        FirebaseService.callbackExecutor = callbackExecutor;
         try {
             // Initialize Realtime Database
             realtimeDatabase = FirebaseDatabase.getInstance();
@@ -41,78 +60,180 @@ public class FirebaseService {
         }
     }
     
-    // Upload courses to Realtime Database (existing functionality)
+    // Upload courses and instances to Realtime Database as one atomic multi-path update
     public static CompletableFuture<Boolean> uploadCoursesToRealtimeDB(List<YogaCourse> courses, List<YogaInstance> instances) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (yogaClassesRef == null) {
-                    Log.e(TAG, "Realtime Database reference is null");
-                    return false;
-                }
-                
-                // Group instances by courseId
-                Map<Integer, Map<String, Object>> instancesByCourse = new HashMap<>();
-                for (YogaInstance instance : instances) {
-                    int courseId = instance.getCourseId();
-                    if (!instancesByCourse.containsKey(courseId)) {
-                        instancesByCourse.put(courseId, new HashMap<>());
-                    }
-                    instancesByCourse.get(courseId).put(String.valueOf(instance.getId()), instance);
-                }
-                
-                // Upload each course with its instances
-                for (YogaCourse course : courses) {
-                    Map<String, Object> courseData = new HashMap<>();
-                    courseData.put("courseInfo", course);
-                    courseData.put("instances", instancesByCourse.getOrDefault(course.getId(), new HashMap<>()));
-                    courseData.put("lastUpdated", System.currentTimeMillis());
-                    
-                    yogaClassesRef.child(String.valueOf(course.getId())).setValue(courseData);
-                }
-                
-                return true;
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to upload courses to Realtime Database", e);
-                return false;
+        return uploadCoursesToRealtimeDB(courses, instances, new SyncTelemetry());
+    }
+    
+    // Same, recording serialization and write time. updateChildren converts the
+    // objects synchronously, so the call itself counts as serialization.
+    public static CompletableFuture<Boolean> uploadCoursesToRealtimeDB(List<YogaCourse> courses, List<YogaInstance> instances,
+                                                                      SyncTelemetry telemetry) {
+        if (yogaClassesRef == null) {
+            Log.e(TAG, "Realtime Database reference is null");
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        try {
+            long serializeStart = SyncTelemetry.start();
+            // One path per changed record, so untouched instances are never rewritten
+            long lastUpdated = System.currentTimeMillis();
+            Map<String, Object> updates = new HashMap<>();
+            for (YogaCourse course : courses) {
+                updates.put(course.getId() + "/courseInfo", courseData(course));
+                updates.put(course.getId() + "/lastUpdated", lastUpdated);
             }
-        });
+            for (YogaInstance instance : instances) {
+                updates.put(instance.getCourseId() + "/instances/" + instance.getId(), instanceData(instance));
+                updates.put(instance.getCourseId() + "/lastUpdated", lastUpdated);
+            }
+            
+            if (updates.isEmpty()) {
+                return CompletableFuture.completedFuture(true);
+            }
+            
+            Task<Void> write = yogaClassesRef.updateChildren(updates);
+            telemetry.end(SyncTelemetry.Phase.SERIALIZATION, serializeStart);
+            long writeStart = SyncTelemetry.start();
+            return toFuture(write)
+                .thenApply(ignored -> true)
+                .exceptionally(throwable -> {
+                    Log.e(TAG, "Failed to upload courses to Realtime Database", throwable);
+                    telemetry.addError("Realtime Database: " + throwable.getMessage());
+                    return false;
+                })
+                .whenComplete((success, throwable) -> telemetry.end(SyncTelemetry.Phase.REALTIME_WRITE, writeStart));
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to upload courses to Realtime Database", e);
+            return CompletableFuture.completedFuture(false);
+        }
     }
     
-    // Upload courses to Firestore (new functionality)
+    // Upload courses and instances to Firestore in chunked WriteBatch commits.
+    // Layout: classes/{courseId} holds courseInfo and lastUpdated,
+    // classes/{courseId}/instances/{instanceId} holds one instance each.
     public static CompletableFuture<Boolean> uploadCoursesToFirestore(List<YogaCourse> courses, List<YogaInstance> instances) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (classesCollection == null) {
-                    Log.e(TAG, "Firestore collection reference is null");
-                    return false;
-                }
-                
-                // Group instances by courseId
-                Map<Integer, List<YogaInstance>> instancesByCourse = new HashMap<>();
-                for (YogaInstance instance : instances) {
-                    int courseId = instance.getCourseId();
-                    if (!instancesByCourse.containsKey(courseId)) {
-                        instancesByCourse.put(courseId, new java.util.ArrayList<>());
-                    }
-                    instancesByCourse.get(courseId).add(instance);
-                }
-                
-                // Upload each course with its instances
-                for (YogaCourse course : courses) {
+        return uploadCoursesToFirestore(courses, instances, new SyncTelemetry());
+    }
+    
+    // Same, recording serialization and write time. Batches that fill up are committed
+    // while later records are still being converted, so the two phases overlap slightly.
+    public static CompletableFuture<Boolean> uploadCoursesToFirestore(List<YogaCourse> courses, List<YogaInstance> instances,
+                                                                     SyncTelemetry telemetry) {
+        if (classesCollection == null) {
+            Log.e(TAG, "Firestore collection reference is null");
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        try {
+            long serializeStart = SyncTelemetry.start();
+            long lastUpdated = System.currentTimeMillis();
+            FirestoreBatcher batcher = newBatcher();
+            Set<Integer> touchedCourseIds = new HashSet<>();
+            for (YogaCourse course : courses) {
+                Map<String, Object> courseData = new HashMap<>();
+                courseData.put("courseInfo", courseData(course));
+                courseData.put("lastUpdated", lastUpdated);
+                batcher.merge(courseDocument(course.getId()), courseData);
+                touchedCourseIds.add(course.getId());
+            }
+            for (YogaInstance instance : instances) {
+                batcher.set(instanceDocument(instance.getCourseId(), instance.getId()), instanceData(instance));
+                if (touchedCourseIds.add(instance.getCourseId())) {
                     Map<String, Object> courseData = new HashMap<>();
-                    courseData.put("courseInfo", course);
-                    courseData.put("instances", instancesByCourse.getOrDefault(course.getId(), new java.util.ArrayList<>()));
-                    courseData.put("lastUpdated", System.currentTimeMillis());
-                    
-                    classesCollection.document(String.valueOf(course.getId())).set(courseData);
+                    courseData.put("lastUpdated", lastUpdated);
+                    batcher.merge(courseDocument(instance.getCourseId()), courseData);
                 }
-                
-                return true;
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to upload courses to Firestore", e);
-                return false;
+            }
+            
+            telemetry.end(SyncTelemetry.Phase.SERIALIZATION, serializeStart);
+            
+            Log.d(TAG, "Uploading " + courses.size() + " courses and " + instances.size() +
+                    " instances to Firestore in " + batcher.getBatchCount() + " batches");
+            long writeStart = SyncTelemetry.start();
+            return batcher.commit()
+                .thenApply(ignored -> true)
+                .exceptionally(throwable -> {
+                    Log.e(TAG, "Failed to upload courses to Firestore", throwable);
+                    telemetry.addError("Firestore: " + throwable.getMessage());
+                    return false;
+                })
+                .whenComplete((success, throwable) -> telemetry.end(SyncTelemetry.Phase.FIRESTORE_WRITE, writeStart));
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to upload courses to Firestore", e);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+    
+    // Fields uploaded for a course. Local bookkeeping columns such as updatedAt and daysMask
+    // stay on the device, so the maps are built explicitly rather than from every getter.
+    static Map<String, Object> courseData(YogaCourse course) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", course.getId());
+        data.put("courseName", course.getCourseName());
+        data.put("type", course.getType());
+        data.put("daysOfWeek", course.getDaysOfWeek());
+        data.put("time", course.getTime());
+        data.put("capacity", course.getCapacity());
+        data.put("duration", course.getDuration());
+        data.put("price", course.getPrice());
+        data.put("description", course.getDescription());
+        data.put("roomLocation", course.getRoomLocation());
+        data.put("instructor", course.getInstructor());
+        data.put("difficulty", course.getDifficulty());
+        data.put("syncStatus", course.getSyncStatus());
+        return data;
+    }
+    
+    // Fields uploaded for a class instance; epochDay and startMinute are local query columns
+    static Map<String, Object> instanceData(YogaInstance instance) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", instance.getId());
+        data.put("courseId", instance.getCourseId());
+        data.put("date", instance.getDate());
+        data.put("startTime", instance.getStartTime());
+        data.put("endTime", instance.getEndTime());
+        data.put("teacher", instance.getTeacher());
+        data.put("comments", instance.getComments());
+        data.put("enrolled", instance.getEnrolled());
+        data.put("capacity", instance.getCapacity());
+        data.put("syncStatus", instance.getSyncStatus());
+        return data;
+    }
+    
+    static DocumentReference courseDocument(int courseId) {
+        return classesCollection.document(String.valueOf(courseId));
+    }
+    
+    static DocumentReference instanceDocument(int courseId, int instanceId) {
+        return courseDocument(courseId).collection(INSTANCES_SUBCOLLECTION).document(String.valueOf(instanceId));
+    }
+    
+    static FirestoreBatcher newBatcher() {
+        return new FirestoreBatcher(firestore, firestoreBatchSize, FirebaseService::toFuture);
+    }
+    
+    // Number of writes per Firestore WriteBatch (Firestore allows at most 500)
+    public static void setFirestoreBatchSize(int batchSize) {
+        firestoreBatchSize = Math.max(1, Math.min(batchSize, MAX_FIRESTORE_BATCH_SIZE));
+    }
+    
+    public static int getFirestoreBatchSize() {
+        return firestoreBatchSize;
+    }
+    
+    // Bridge a Firebase Task to a CompletableFuture; completes on the callback executor
+    static <T> CompletableFuture<T> toFuture(Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnCompleteListener(callbackExecutor, completed -> {
+            if (completed.isSuccessful()) {
+                future.complete(completed.getResult());
+            } else {
+                Exception e = completed.getException();
+                future.completeExceptionally(e != null ? e : new RuntimeException("Firebase task failed"));
             }
         });
+        return future;
     }
     
     // Add booking to Firestore
@@ -177,169 +298,163 @@ public class FirebaseService {
     
     // Delete course from Firebase (Realtime Database)
     public static CompletableFuture<Boolean> deleteCourseFromRealtimeDB(int courseId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (yogaClassesRef == null) {
-                    Log.e(TAG, "Realtime Database reference is null");
-                    return false;
-                }
-                
-                // Remove the course and all its instances
-                yogaClassesRef.child(String.valueOf(courseId)).removeValue();
-                Log.d(TAG, "Course deleted from Realtime Database: " + courseId);
-                return true;
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to delete course from Realtime Database", e);
-                return false;
-            }
-        });
+        return deleteFromRealtimeDB(Collections.singleton(courseId), Collections.emptyMap());
     }
     
-    // Delete course from Firebase (Firestore)
+    // Delete course from Firebase (Firestore), including its instances subcollection
     public static CompletableFuture<Boolean> deleteCourseFromFirestore(int courseId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (classesCollection == null) {
-                    Log.e(TAG, "Firestore collection reference is null");
-                    return false;
-                }
-                
-                // Remove the course document
-                classesCollection.document(String.valueOf(courseId)).delete();
-                Log.d(TAG, "Course deleted from Firestore: " + courseId);
-                return true;
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to delete course from Firestore", e);
-                return false;
-            }
-        });
+        return deleteFromFirestore(Collections.singleton(courseId), Collections.emptyMap());
     }
     
     // Delete instance from Firebase (Realtime Database)
     public static CompletableFuture<Boolean> deleteInstanceFromRealtimeDB(int courseId, int instanceId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (yogaClassesRef == null) {
-                    Log.e(TAG, "Realtime Database reference is null");
-                    return false;
-                }
-                
-                // Remove the specific instance from the course
-                yogaClassesRef.child(String.valueOf(courseId))
-                             .child("instances")
-                             .child(String.valueOf(instanceId))
-                             .removeValue();
-                Log.d(TAG, "Instance deleted from Realtime Database: " + instanceId);
-                return true;
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to delete instance from Realtime Database", e);
-                return false;
+        return deleteFromRealtimeDB(Collections.emptySet(),
+                Collections.singletonMap(courseId, Collections.singleton(instanceId)));
+    }
+    
+    // Delete instance from Firebase (Firestore): a single document delete
+    public static CompletableFuture<Boolean> deleteInstanceFromFirestore(int courseId, int instanceId) {
+        return deleteFromFirestore(Collections.emptySet(),
+                Collections.singletonMap(courseId, Collections.singleton(instanceId)));
+    }
+    
+    // Sync deletions to Firebase: both backends are written in parallel, each in as few
+    // round-trips as possible. Completes with true only if both acknowledged every delete.
+    public static CompletableFuture<Boolean> syncDeletionsToFirebase(List<Integer> courseIdsToDelete, 
+                                                                  List<Map<String, Integer>> instanceIdsToDelete) {
+        CompletableFuture<Boolean> realtime = syncDeletionsToRealtimeDB(courseIdsToDelete, instanceIdsToDelete);
+        CompletableFuture<Boolean> firestoreDeletes = syncDeletionsToFirestore(courseIdsToDelete, instanceIdsToDelete);
+        return realtime.thenCombine(firestoreDeletes, (realtimeSuccess, firestoreSuccess) -> {
+            if (!realtimeSuccess || !firestoreSuccess) {
+                Log.e(TAG, "Deletions not acknowledged (Realtime Database: " + realtimeSuccess +
+                        ", Firestore: " + firestoreSuccess + ")");
             }
+            return realtimeSuccess && firestoreSuccess;
         });
     }
     
-    // Delete instance from Firebase (Firestore)
-    public static CompletableFuture<Boolean> deleteInstanceFromFirestore(int courseId, int instanceId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (classesCollection == null) {
-                    Log.e(TAG, "Firestore collection reference is null");
+    // Sync deletions to Realtime Database only, in one multi-path update
+    public static CompletableFuture<Boolean> syncDeletionsToRealtimeDB(List<Integer> courseIdsToDelete,
+                                                                    List<Map<String, Integer>> instanceIdsToDelete) {
+        Set<Integer> courseIds = new HashSet<>(courseIdsToDelete);
+        return deleteFromRealtimeDB(courseIds, groupInstanceIds(courseIds, instanceIdsToDelete));
+    }
+    
+    // Sync deletions to Firestore only, in chunked batch deletes
+    public static CompletableFuture<Boolean> syncDeletionsToFirestore(List<Integer> courseIdsToDelete,
+                                                                   List<Map<String, Integer>> instanceIdsToDelete) {
+        Set<Integer> courseIds = new HashSet<>(courseIdsToDelete);
+        return deleteFromFirestore(courseIds, groupInstanceIds(courseIds, instanceIdsToDelete));
+    }
+    
+    // Instance ids by course; instances of a deleted course go with it
+    private static Map<Integer, Set<Integer>> groupInstanceIds(Set<Integer> courseIds,
+                                                               List<Map<String, Integer>> instanceIdsToDelete) {
+        Map<Integer, Set<Integer>> instanceIdsByCourse = new HashMap<>();
+        for (Map<String, Integer> instanceInfo : instanceIdsToDelete) {
+            Integer courseId = instanceInfo.get("courseId");
+            Integer instanceId = instanceInfo.get("instanceId");
+            if (courseId != null && instanceId != null && !courseIds.contains(courseId)) {
+                instanceIdsByCourse.computeIfAbsent(courseId, id -> new HashSet<>()).add(instanceId);
+            }
+        }
+        return instanceIdsByCourse;
+    }
+    
+    // Remove courses and instances with one multi-path update of null values
+    private static CompletableFuture<Boolean> deleteFromRealtimeDB(Set<Integer> courseIds,
+                                                                   Map<Integer, Set<Integer>> instanceIdsByCourse) {
+        if (yogaClassesRef == null) {
+            Log.e(TAG, "Realtime Database reference is null");
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        long lastUpdated = System.currentTimeMillis();
+        Map<String, Object> updates = new HashMap<>();
+        for (Integer courseId : courseIds) {
+            updates.put(String.valueOf(courseId), null);
+        }
+        for (Map.Entry<Integer, Set<Integer>> entry : instanceIdsByCourse.entrySet()) {
+            for (Integer instanceId : entry.getValue()) {
+                updates.put(entry.getKey() + "/instances/" + instanceId, null);
+            }
+            updates.put(entry.getKey() + "/lastUpdated", lastUpdated);
+        }
+        
+        if (updates.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        
+        try {
+            return toFuture(yogaClassesRef.updateChildren(updates))
+                .thenApply(ignored -> {
+                    Log.d(TAG, "Deleted " + courseIds.size() + " courses and instances of " +
+                            instanceIdsByCourse.size() + " courses from Realtime Database");
+                    return true;
+                })
+                .exceptionally(throwable -> {
+                    Log.e(TAG, "Failed to delete from Realtime Database", throwable);
                     return false;
-                }
-                
-                // Get the current course document
-                var courseDoc = classesCollection.document(String.valueOf(courseId));
-                courseDoc.get().addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Map<String, Object> data = documentSnapshot.getData();
-                        if (data != null && data.containsKey("instances")) {
-                            @SuppressWarnings("unchecked")
-                            List<Map<String, Object>> instances = (List<Map<String, Object>>) data.get("instances");
-                            
-                            // Remove the specific instance
-                            instances.removeIf(instance -> {
-                                Object id = instance.get("id");
-                                return id != null && id.toString().equals(String.valueOf(instanceId));
-                            });
-                            
-                            // Update the document with the new instances list
-                            data.put("instances", instances);
-                            data.put("lastUpdated", System.currentTimeMillis());
-                            courseDoc.set(data);
-                        }
-                    }
                 });
-                
-                Log.d(TAG, "Instance deleted from Firestore: " + instanceId);
-                return true;
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to delete instance from Firestore", e);
-                return false;
-            }
-        });
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to delete from Realtime Database", e);
+            return CompletableFuture.completedFuture(false);
+        }
     }
     
-    // Sync deletions to Firebase (both Realtime DB and Firestore)
-    public static CompletableFuture<Boolean> syncDeletionsToFirebase(List<Integer> courseIdsToDelete, 
-                                                                  List<Map<String, Integer>> instanceIdsToDelete) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                boolean allDeletionsSuccessful = true;
-                
-                // Delete courses from Realtime Database
-                for (Integer courseId : courseIdsToDelete) {
-                    boolean success = deleteCourseFromRealtimeDB(courseId).get();
-                    if (!success) {
-                        allDeletionsSuccessful = false;
-                        Log.e(TAG, "Failed to delete course " + courseId + " from Realtime Database");
-                    }
-                }
-                
-                // Delete courses from Firestore
-                for (Integer courseId : courseIdsToDelete) {
-                    boolean success = deleteCourseFromFirestore(courseId).get();
-                    if (!success) {
-                        allDeletionsSuccessful = false;
-                        Log.e(TAG, "Failed to delete course " + courseId + " from Firestore");
-                    }
-                }
-                
-                // Delete instances from Realtime Database
-                for (Map<String, Integer> instanceInfo : instanceIdsToDelete) {
-                    Integer courseId = instanceInfo.get("courseId");
-                    Integer instanceId = instanceInfo.get("instanceId");
-                    if (courseId != null && instanceId != null) {
-                        boolean success = deleteInstanceFromRealtimeDB(courseId, instanceId).get();
-                        if (!success) {
-                            allDeletionsSuccessful = false;
-                            Log.e(TAG, "Failed to delete instance " + instanceId + " from course " + courseId + " in Realtime Database");
+    // Delete course documents with their instance subcollections, and single instance
+    // documents, in chunked WriteBatch commits. Subcollections are listed in parallel.
+    private static CompletableFuture<Boolean> deleteFromFirestore(Set<Integer> courseIds,
+                                                                  Map<Integer, Set<Integer>> instanceIdsByCourse) {
+        if (classesCollection == null) {
+            Log.e(TAG, "Firestore collection reference is null");
+            return CompletableFuture.completedFuture(false);
+        }
+        if (courseIds.isEmpty() && instanceIdsByCourse.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        
+        try {
+            List<CompletableFuture<QuerySnapshot>> listings = new ArrayList<>();
+            for (Integer courseId : courseIds) {
+                listings.add(toFuture(courseDocument(courseId).collection(INSTANCES_SUBCOLLECTION).get()));
+            }
+            
+            return CompletableFuture.allOf(listings.toArray(new CompletableFuture[0]))
+                .thenCompose(ignored -> {
+                    FirestoreBatcher batcher = newBatcher();
+                    for (CompletableFuture<QuerySnapshot> listing : listings) {
+                        for (DocumentSnapshot instanceDoc : listing.join().getDocuments()) {
+                            batcher.delete(instanceDoc.getReference());
                         }
                     }
-                }
-                
-                // Delete instances from Firestore
-                for (Map<String, Integer> instanceInfo : instanceIdsToDelete) {
-                    Integer courseId = instanceInfo.get("courseId");
-                    Integer instanceId = instanceInfo.get("instanceId");
-                    if (courseId != null && instanceId != null) {
-                        boolean success = deleteInstanceFromFirestore(courseId, instanceId).get();
-                        if (!success) {
-                            allDeletionsSuccessful = false;
-                            Log.e(TAG, "Failed to delete instance " + instanceId + " from course " + courseId + " in Firestore");
+                    for (Integer courseId : courseIds) {
+                        batcher.delete(courseDocument(courseId));
+                    }
+                    
+                    Map<String, Object> courseData = new HashMap<>();
+                    courseData.put("lastUpdated", System.currentTimeMillis());
+                    for (Map.Entry<Integer, Set<Integer>> entry : instanceIdsByCourse.entrySet()) {
+                        for (Integer instanceId : entry.getValue()) {
+                            batcher.delete(instanceDocument(entry.getKey(), instanceId));
                         }
+                        batcher.merge(courseDocument(entry.getKey()), courseData);
                     }
-                }
-                
-                return allDeletionsSuccessful;
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to sync deletions to Firebase", e);
-                return false;
-            }
-        });
+                    return batcher.commit();
+                })
+                .thenApply(ignored -> {
+                    Log.d(TAG, "Deleted " + courseIds.size() + " courses and instances of " +
+                            instanceIdsByCourse.size() + " courses from Firestore");
+                    return true;
+                })
+                .exceptionally(throwable -> {
+                    Log.e(TAG, "Failed to delete from Firestore", throwable);
+                    return false;
+                });
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to delete from Firestore", e);
+            return CompletableFuture.completedFuture(false);
+        }
     }
     
     // Clear all Firebase data (Realtime Database and Firestore)
@@ -354,6 +469,19 @@ public class FirebaseService {
             }
             
             // Clear Firestore collections
+            if (firestore != null) {
+                firestore.collectionGroup(INSTANCES_SUBCOLLECTION).get()
+                    .addOnSuccessListener(queryDocumentSnapshots -> {
+                        for (com.google.firebase.firestore.QueryDocumentSnapshot document : queryDocumentSnapshots) {
+                            document.getReference().delete();
+                        }
+                        Log.d(TAG, "Firestore instances cleared");
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Failed to clear Firestore instances", e);
+                    });
+            }
+            
             if (classesCollection != null) {
                 classesCollection.get()
                     .addOnSuccessListener(queryDocumentSnapshots -> {
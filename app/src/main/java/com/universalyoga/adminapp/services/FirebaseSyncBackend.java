@@ -0,0 +1,52 @@
+package com.universalyoga.adminapp.services;
+
+import com.universalyoga.adminapp.models.OutboxOperation;
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SyncBackend over the Realtime Database or Firestore half of FirebaseService.
+ */
+public class FirebaseSyncBackend implements SyncBackend {
+    private final boolean realtime;
+
+    private FirebaseSyncBackend(boolean realtime) {
+        this.realtime = realtime;
+    }
+
+    public static FirebaseSyncBackend realtimeDatabase() {
+        return new FirebaseSyncBackend(true);
+    }
+
+    public static FirebaseSyncBackend firestore() {
+        return new FirebaseSyncBackend(false);
+    }
+
+    @Override
+    public int getBackendBit() {
+        return realtime ? OutboxOperation.BACKEND_REALTIME : OutboxOperation.BACKEND_FIRESTORE;
+    }
+
+    @Override
+    public String getName() {
+        return realtime ? "Realtime Database" : "Firestore";
+    }
+
+    @Override
+    public CompletableFuture<Boolean> upload(List<YogaCourse> courses, List<YogaInstance> instances, SyncTelemetry telemetry) {
+        return realtime
+                ? FirebaseService.uploadCoursesToRealtimeDB(courses, instances, telemetry)
+                : FirebaseService.uploadCoursesToFirestore(courses, instances, telemetry);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(List<Integer> courseIds, List<Map<String, Integer>> instanceIds) {
+        return realtime
+                ? FirebaseService.syncDeletionsToRealtimeDB(courseIds, instanceIds)
+                : FirebaseService.syncDeletionsToFirestore(courseIds, instanceIds);
+    }
+}
@@ -0,0 +1,84 @@
+package com.universalyoga.adminapp.services;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Collects Firestore writes into WriteBatches of at most batchSize operations and
+ * commits each batch as soon as it is full. Each batch is atomic on its own.
+ */
+class FirestoreBatcher {
+    private final FirebaseFirestore firestore;
+    private final int batchSize;
+    private final Function<Task<Void>, CompletableFuture<Void>> toFuture;
+    private final List<CompletableFuture<Void>> commits = new ArrayList<>();
+    private WriteBatch batch;
+    private int operationsInBatch;
+
+    FirestoreBatcher(FirebaseFirestore firestore, int batchSize, Function<Task<Void>, CompletableFuture<Void>> toFuture) {
+        this.firestore = firestore;
+        this.batchSize = batchSize;
+        this.toFuture = toFuture;
+    }
+
+    FirestoreBatcher set(DocumentReference document, Object data) {
+        current().set(document, data);
+        return added();
+    }
+
+    FirestoreBatcher merge(DocumentReference document, Object data) {
+        current().set(document, data, SetOptions.merge());
+        return added();
+    }
+
+    FirestoreBatcher deleteField(DocumentReference document, String field) {
+        current().update(document, field, FieldValue.delete());
+        return added();
+    }
+
+    FirestoreBatcher delete(DocumentReference document) {
+        current().delete(document);
+        return added();
+    }
+
+    int getBatchCount() {
+        return commits.size() + (batch != null ? 1 : 0);
+    }
+
+    /**
+     * Commit the partially filled batch and wait for every batch to be acknowledged.
+     */
+    CompletableFuture<Void> commit() {
+        if (batch != null) {
+            commits.add(toFuture.apply(batch.commit()));
+            batch = null;
+            operationsInBatch = 0;
+        }
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0]));
+    }
+
+    private WriteBatch current() {
+        if (batch == null) {
+            batch = firestore.batch();
+        }
+        return batch;
+    }
+
+    private FirestoreBatcher added() {
+        if (++operationsInBatch >= batchSize) {
+            commits.add(toFuture.apply(batch.commit()));
+            batch = null;
+            operationsInBatch = 0;
+        }
+        return this;
+    }
+}
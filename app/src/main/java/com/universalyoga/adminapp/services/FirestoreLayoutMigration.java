@@ -0,0 +1,112 @@
+package com.universalyoga.adminapp.services;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One-time move of Firestore class instances from the "instances" array embedded in
+ * classes/{courseId} to the classes/{courseId}/instances/{instanceId} subcollection.
+ * Idempotent: documents without the array are skipped and instances that already have their
+ * own document are left alone, so a partial run is simply resumed.
+ */
+public class FirestoreLayoutMigration {
+    private static final String TAG = "FirestoreLayoutMigration";
+    private static final String PREF_NAME = "firebase_migrations";
+    private static final String KEY_INSTANCES_SUBCOLLECTION = "instances_subcollection_done";
+
+    /**
+     * Run the migration unless it already completed on this device.
+     */
+    public static void runOnce(Context context) {
+        SharedPreferences preferences = context.getApplicationContext()
+                .getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        if (preferences.getBoolean(KEY_INSTANCES_SUBCOLLECTION, false) || !FirebaseService.isInitialized()) {
+            return;
+        }
+
+        migrate().thenAccept(migrated -> {
+            preferences.edit().putBoolean(KEY_INSTANCES_SUBCOLLECTION, true).apply();
+            Log.d(TAG, "Moved " + migrated + " embedded instances to subcollections");
+        }).exceptionally(throwable -> {
+            Log.e(TAG, "Firestore layout migration failed; will retry on next start", throwable);
+            return null;
+        });
+    }
+
+    /**
+     * Copy every embedded instance that has no document of its own yet, then drop the array
+     * field. Documents already in the subcollection were written by a newer upload, so the
+     * stale array element must not overwrite them. Completes with the number of instances moved.
+     */
+    public static CompletableFuture<Integer> migrate() {
+        return FirebaseService.toFuture(FirebaseService.getClassesCollection().get())
+            .thenCompose(courseDocs -> {
+                List<DocumentSnapshot> embeddedCourses = new ArrayList<>();
+                List<CompletableFuture<QuerySnapshot>> existingDocs = new ArrayList<>();
+                for (DocumentSnapshot courseDoc : courseDocs.getDocuments()) {
+                    if (courseDoc.get(FirebaseService.INSTANCES_SUBCOLLECTION) instanceof List) {
+                        embeddedCourses.add(courseDoc);
+                        existingDocs.add(FirebaseService.toFuture(courseDoc.getReference()
+                                .collection(FirebaseService.INSTANCES_SUBCOLLECTION).get()));
+                    }
+                }
+                return CompletableFuture.allOf(existingDocs.toArray(new CompletableFuture[0]))
+                        .thenCompose(ignored -> moveEmbedded(embeddedCourses, existingDocs));
+            });
+    }
+
+    private static CompletableFuture<Integer> moveEmbedded(List<DocumentSnapshot> embeddedCourses,
+                                                           List<CompletableFuture<QuerySnapshot>> existingDocs) {
+        FirestoreBatcher copies = FirebaseService.newBatcher();
+        List<DocumentReference> migratedCourses = new ArrayList<>();
+        int migrated = 0;
+        for (int i = 0; i < embeddedCourses.size(); i++) {
+            DocumentSnapshot courseDoc = embeddedCourses.get(i);
+            Set<String> existing = new HashSet<>();
+            for (DocumentSnapshot instanceDoc : existingDocs.get(i).join().getDocuments()) {
+                existing.add(instanceDoc.getId());
+            }
+
+            DocumentReference courseRef = courseDoc.getReference();
+            for (Object element : (List<?>) courseDoc.get(FirebaseService.INSTANCES_SUBCOLLECTION)) {
+                if (!(element instanceof Map)) {
+                    continue;
+                }
+                Object id = ((Map<?, ?>) element).get("id");
+                if (!(id instanceof Number)) {
+                    continue;
+                }
+                String instanceId = String.valueOf(((Number) id).longValue());
+                if (existing.contains(instanceId)) {
+                    continue;
+                }
+                copies.set(courseRef.collection(FirebaseService.INSTANCES_SUBCOLLECTION)
+                        .document(instanceId), element);
+                migrated++;
+            }
+            migratedCourses.add(courseRef);
+        }
+
+        // Arrays are only dropped once every copy has been acknowledged
+        int total = migrated;
+        return copies.commit().thenCompose(ignored -> {
+            FirestoreBatcher cleanup = FirebaseService.newBatcher();
+            for (DocumentReference courseRef : migratedCourses) {
+                cleanup.deleteField(courseRef, FirebaseService.INSTANCES_SUBCOLLECTION);
+            }
+            return cleanup.commit();
+        }).thenApply(ignored -> total);
+    }
+}
@@ -0,0 +1,70 @@
+package com.universalyoga.adminapp.services;
+
+import com.universalyoga.adminapp.models.OutboxOperation;
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Local side of sync for DeltaSyncEngine: the outbox and the rows it names. Reads are
+ * synchronous and must be called off the main thread; writes are queued and their futures
+ * complete once committed. Kept free of Android types so the engine runs on a plain JVM.
+ */
+public interface OutboxStore {
+    /**
+     * Run reads against one consistent snapshot
+     */
+    <T> T runInTransaction(Supplier<T> reads);
+
+    // Up to limit operations due by now, oldest first
+    List<OutboxOperation> getDue(long now, int limit);
+
+    List<YogaCourse> getCourses(List<Integer> courseIds);
+
+    List<YogaInstance> getInstances(List<Integer> instanceIds);
+
+    // The given courses that are not pending deletion
+    List<Integer> getActiveCourseIds(List<Integer> courseIds);
+
+    /**
+     * Up to limit delete operations due by now, read off the calling thread
+     */
+    CompletableFuture<List<OutboxOperation>> loadDueDeletes(long now, int limit);
+
+    /**
+     * Remove operations that no longer need sending; one re-enqueued since it was read is kept
+     */
+    CompletableFuture<Void> acknowledge(List<OutboxOperation> operations);
+
+    /**
+     * Acknowledge uploaded operations and mark their rows synced unless edited since.
+     * Completes with the number of rows marked.
+     */
+    CompletableFuture<Integer> acknowledgeUploads(List<OutboxOperation> operations,
+                                                  List<YogaCourse> courses, List<YogaInstance> instances);
+
+    /**
+     * Acknowledge delete operations and purge the rows they soft-deleted
+     */
+    CompletableFuture<Void> acknowledgeDeletions(List<OutboxOperation> operations);
+
+    /**
+     * Back off each operation until its retryAt, keeping only its still-pending backends
+     */
+    CompletableFuture<Void> scheduleRetry(List<OutboxOperation> operations, long[] retryAt, String error);
+
+    /**
+     * Soft-delete a course and its instances and enqueue the course's remote deletion.
+     * Completes with the course as it was, or fails if there is no such course.
+     */
+    CompletableFuture<YogaCourse> enqueueCourseDeletion(int courseId);
+
+    /**
+     * Soft-delete an instance and enqueue its remote deletion.
+     * Completes with the instance as it was, or fails if there is no such instance.
+     */
+    CompletableFuture<YogaInstance> enqueueInstanceDeletion(int instanceId);
+}
@@ -0,0 +1,29 @@
+package com.universalyoga.adminapp.services;
+
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A remote store that sync writes to. Futures complete with true only once the backend
+ * acknowledged the whole write, and should not complete exceptionally.
+ */
+public interface SyncBackend {
+    /**
+     * The OutboxOperation.BACKEND_* bit that tracks this backend's pending operations.
+     */
+    int getBackendBit();
+
+    String getName();
+
+    CompletableFuture<Boolean> upload(List<YogaCourse> courses, List<YogaInstance> instances, SyncTelemetry telemetry);
+
+    /**
+     * Delete whole courses (with their instances) and single instances given as
+     * {"courseId", "instanceId"} maps.
+     */
+    CompletableFuture<Boolean> delete(List<Integer> courseIds, List<Map<String, Integer>> instanceIds);
+}
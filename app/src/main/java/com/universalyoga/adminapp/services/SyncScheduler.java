@@ -0,0 +1,239 @@
+package com.universalyoga.adminapp.services;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces sync triggers and runs at most one sync at a time.
+ * Each trigger pushes the sync back by debounceMillis (trailing edge), but never further than
+ * maxWaitMillis after the first trigger that is still unsynced. Triggers that arrive while a
+ * sync is running collapse into a single follow-up sync. Syncs started by the user go through
+ * runNow, so they never overlap a scheduled one either.
+ */
+public class SyncScheduler {
+    private static final String TAG = "SyncScheduler";
+
+    private enum State {
+        IDLE,           // Nothing pending
+        SCHEDULED,      // Timer armed
+        RUNNING,        // Sync in flight, no new triggers
+        RUNNING_DIRTY   // Sync in flight, follow-up needed
+    }
+
+    /**
+     * Counters since the scheduler was created.
+     */
+    public static class Metrics {
+        private final long triggers;
+        private final long coalesced;
+        private final long syncsExecuted;
+        private final long followUps;
+
+        Metrics(long triggers, long coalesced, long syncsExecuted, long followUps) {
+            this.triggers = triggers;
+            this.coalesced = coalesced;
+            this.syncsExecuted = syncsExecuted;
+            this.followUps = followUps;
+        }
+
+        public long getTriggers() { return triggers; }
+        public long getCoalesced() { return coalesced; }
+        public long getSyncsExecuted() { return syncsExecuted; }
+        public long getFollowUps() { return followUps; }
+
+        @Override
+        public String toString() {
+            return triggers + " triggers, " + coalesced + " coalesced, " + syncsExecuted +
+                    " syncs (" + followUps + " follow-ups)";
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Supplier<CompletableFuture<?>> sync;
+    private volatile long debounceMillis;
+    private volatile long maxWaitMillis;
+
+    // Guarded by this
+    private State state = State.IDLE;
+    private ScheduledFuture<?> timer;
+    private long generation; // Bumped whenever the timer is re-armed or cancelled
+    private long firstTriggerAt;
+    private final Queue<Runnable> runNowQueue = new ArrayDeque<>(); // Waiting for the sync in flight
+    private long triggers;
+    private long coalesced;
+    private long syncsExecuted;
+    private long followUps;
+
+    public SyncScheduler(ScheduledExecutorService executor, Supplier<CompletableFuture<?>> sync,
+                         long debounceMillis, long maxWaitMillis) {
+        this.executor = executor;
+        this.sync = sync;
+        setDelays(debounceMillis, maxWaitMillis);
+    }
+
+    /**
+     * Quiet period after the last trigger, and upper bound on the wait after the first one.
+     */
+    public void setDelays(long debounceMillis, long maxWaitMillis) {
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.maxWaitMillis = Math.max(this.debounceMillis, maxWaitMillis);
+    }
+
+    /**
+     * Note that local data changed. Safe to call from any thread.
+     */
+    public synchronized void trigger() {
+        triggers++;
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case IDLE:
+                firstTriggerAt = now;
+                arm(now);
+                state = State.SCHEDULED;
+                break;
+            case SCHEDULED:
+                coalesced++;
+                arm(now);
+                break;
+            case RUNNING:
+                firstTriggerAt = now;
+                state = State.RUNNING_DIRTY;
+                break;
+            case RUNNING_DIRTY:
+                coalesced++;
+                break;
+        }
+    }
+
+    /**
+     * Run a one-off sync, such as an upload the user asked for, as soon as no other sync is in
+     * flight, without waiting out the debounce. A scheduled sync still runs after it, as the
+     * one-off may not cover the changes that triggered it. Safe to call from any thread.
+     *
+     * @return the one-off sync's result
+     */
+    public <T> CompletableFuture<T> runNow(Supplier<CompletableFuture<T>> oneOff) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable run = () -> start(() -> {
+            CompletableFuture<T> running;
+            try {
+                running = oneOff.get();
+            } catch (RuntimeException e) {
+                running = new CompletableFuture<>();
+                running.completeExceptionally(e);
+            }
+            return running.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        synchronized (this) {
+            switch (state) {
+                case IDLE:
+                    state = State.RUNNING;
+                    break;
+                case SCHEDULED:
+                    // Keep the pending trigger and its deadline for the follow-up
+                    generation++;
+                    timer.cancel(false);
+                    timer = null;
+                    state = State.RUNNING_DIRTY;
+                    break;
+                default:
+                    runNowQueue.add(run);
+                    return result;
+            }
+            syncsExecuted++;
+        }
+        executor.execute(run);
+        return result;
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(triggers, coalesced, syncsExecuted, followUps);
+    }
+
+    /**
+     * Drop a pending sync; a sync already in flight, and runNow requests, are left to finish.
+     */
+    public synchronized void cancel() {
+        generation++;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        if (state == State.SCHEDULED) {
+            state = State.IDLE;
+        } else if (state == State.RUNNING_DIRTY) {
+            state = State.RUNNING;
+        }
+    }
+
+    // Re-arm the timer: debounceMillis from now, but no later than the max-wait deadline
+    private void arm(long now) {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        long armed = ++generation;
+        long deadline = firstTriggerAt + maxWaitMillis;
+        long delay = Math.max(0, Math.min(debounceMillis, deadline - now));
+        timer = executor.schedule(() -> fire(armed), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire(long armed) {
+        synchronized (this) {
+            // A cancelled or superseded timer that already started running; cancel(false)
+            // does not stop it, and the state alone cannot tell it from the current one
+            if (armed != generation || state != State.SCHEDULED) {
+                return;
+            }
+            timer = null;
+            state = State.RUNNING;
+            syncsExecuted++;
+        }
+        start(sync);
+    }
+
+    private void start(Supplier<? extends CompletableFuture<?>> work) {
+        CompletableFuture<?> running;
+        try {
+            running = work.get();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Sync failed to start", e);
+            running = CompletableFuture.completedFuture(null);
+        }
+        running.whenComplete((ignored, throwable) -> onSyncFinished());
+    }
+
+    private void onSyncFinished() {
+        Runnable next;
+        synchronized (this) {
+            next = runNowQueue.poll();
+            if (next != null) {
+                // Still running; a pending follow-up waits until the queue is empty
+                syncsExecuted++;
+            } else if (state == State.RUNNING_DIRTY) {
+                // Keep the first unsynced trigger's deadline so the max wait still holds
+                followUps++;
+                arm(System.currentTimeMillis());
+                state = State.SCHEDULED;
+            } else {
+                state = State.IDLE;
+            }
+            Log.d(TAG, "Sync finished: " + getMetrics());
+        }
+        if (next != null) {
+            executor.execute(next);
+        }
+    }
+}
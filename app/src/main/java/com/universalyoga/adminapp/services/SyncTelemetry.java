@@ -0,0 +1,74 @@
+package com.universalyoga.adminapp.services;
+
+import com.universalyoga.adminapp.models.SyncHistory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in each phase of one sync plus the errors it hit. Safe to update from the
+ * threads that complete concurrent chunk writes; phase times are summed across them.
+ */
+public class SyncTelemetry {
+    private static final int MAX_ERRORS = 20;
+
+    public enum Phase {
+        LOCAL_READ,
+        SERIALIZATION,
+        REALTIME_WRITE,
+        FIRESTORE_WRITE,
+        DELETION_SYNC,
+        LOCAL_UPDATE
+    }
+
+    private final long startedAt = System.nanoTime();
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+    private final List<String> errors = new ArrayList<>();
+
+    /**
+     * Start of a timed section; pass the value to end().
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public void end(Phase phase, long startNanos) {
+        phaseNanos.addAndGet(phase.ordinal(), System.nanoTime() - startNanos);
+    }
+
+    public void addError(String error) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public long getMillis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase.ordinal()));
+    }
+
+    // Wall-clock time since the sync started collecting changes
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    public SyncHistory.PhaseTimings toPhaseTimings() {
+        SyncHistory.PhaseTimings timings = new SyncHistory.PhaseTimings();
+        timings.localRead = getMillis(Phase.LOCAL_READ);
+        timings.serialization = getMillis(Phase.SERIALIZATION);
+        timings.realtimeWrite = getMillis(Phase.REALTIME_WRITE);
+        timings.firestoreWrite = getMillis(Phase.FIRESTORE_WRITE);
+        timings.deletionSync = getMillis(Phase.DELETION_SYNC);
+        timings.localUpdate = getMillis(Phase.LOCAL_UPDATE);
+        return timings;
+    }
+}
@@ -0,0 +1,294 @@
+package com.universalyoga.adminapp.services;
+
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Uploads changed courses and instances in chunks while keeping at most maxInFlight
+ * chunk writes outstanding. Records are grouped by course and a course's records never
+ * span two chunks. A chunk only counts as uploaded once the writer's future completes
+ * with true, i.e. the backend acknowledged it.
+ */
+public class UploadPipeline {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    // Records per chunk; keeps a chunk within one Firestore batch in the common case
+    public static final int DEFAULT_CHUNK_SIZE = 400;
+
+    /**
+     * Writes one chunk; the future must complete only after the backend acknowledged it.
+     */
+    public interface ChunkWriter {
+        CompletableFuture<Boolean> write(List<YogaCourse> courses, List<YogaInstance> instances);
+    }
+
+    /**
+     * Called after every acknowledged or failed chunk, from the thread that completed it.
+     * Exceptions thrown here are ignored so the upload still finishes.
+     */
+    public interface ProgressListener {
+        void onProgress(UploadProgress progress);
+    }
+
+    /**
+     * Snapshot of an upload in progress. Byte counts are estimates from estimateBytes,
+     * not the size on the wire.
+     */
+    public static class UploadProgress {
+        private final int recordsAcked;
+        private final int recordsFailed;
+        private final int recordsTotal;
+        private final long bytesAcked;
+        private final long elapsedMillis;
+
+        UploadProgress(int recordsAcked, int recordsFailed, int recordsTotal, long bytesAcked, long elapsedMillis) {
+            this.recordsAcked = recordsAcked;
+            this.recordsFailed = recordsFailed;
+            this.recordsTotal = recordsTotal;
+            this.bytesAcked = bytesAcked;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getRecordsAcked() { return recordsAcked; }
+        public int getRecordsFailed() { return recordsFailed; }
+        public int getRecordsTotal() { return recordsTotal; }
+        public long getBytesAcked() { return bytesAcked; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public int getPercent() {
+            return recordsTotal == 0 ? 100 : (int) ((recordsAcked + recordsFailed) * 100L / recordsTotal);
+        }
+
+        public double getRecordsPerSecond() {
+            return elapsedMillis == 0 ? 0 : recordsAcked * 1000.0 / elapsedMillis;
+        }
+
+        public double getBytesPerSecond() {
+            return elapsedMillis == 0 ? 0 : bytesAcked * 1000.0 / elapsedMillis;
+        }
+    }
+
+    /**
+     * Final outcome; only records of the courses in ackedCourseIds reached the backend.
+     */
+    public static class Result extends UploadProgress {
+        private final Set<Integer> ackedCourseIds;
+        private final int chunksFailed;
+
+        Result(UploadProgress progress, Set<Integer> ackedCourseIds, int chunksFailed) {
+            super(progress.recordsAcked, progress.recordsFailed, progress.recordsTotal,
+                    progress.bytesAcked, progress.elapsedMillis);
+            this.ackedCourseIds = ackedCourseIds;
+            this.chunksFailed = chunksFailed;
+        }
+
+        public Set<Integer> getAckedCourseIds() { return ackedCourseIds; }
+        public int getChunksFailed() { return chunksFailed; }
+
+        public boolean isComplete() {
+            return getRecordsFailed() == 0;
+        }
+    }
+
+    private static class Chunk {
+        final Set<Integer> courseIds = new HashSet<>();
+        final List<YogaCourse> courses = new ArrayList<>();
+        final List<YogaInstance> instances = new ArrayList<>();
+        long bytes;
+
+        int size() {
+            return courses.size() + instances.size();
+        }
+    }
+
+    // State of one upload call, guarded by its own monitor
+    private static class Run {
+        final List<Chunk> chunks;
+        final int recordsTotal;
+        final ProgressListener listener;
+        final CompletableFuture<Result> done = new CompletableFuture<>();
+        final Set<Integer> ackedCourseIds = new HashSet<>();
+        final long startedAt = System.currentTimeMillis();
+        int next;
+        int inFlight;
+        int finished;
+        int chunksFailed;
+        int recordsAcked;
+        int recordsFailed;
+        long bytesAcked;
+        boolean pumping;
+
+        Run(List<Chunk> chunks, int recordsTotal, ProgressListener listener) {
+            this.chunks = chunks;
+            this.recordsTotal = recordsTotal;
+            this.listener = listener;
+        }
+
+        UploadProgress snapshot() {
+            return new UploadProgress(recordsAcked, recordsFailed, recordsTotal, bytesAcked,
+                    System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    private final ChunkWriter writer;
+    private final int maxInFlight;
+    private final int chunkSize;
+
+    public UploadPipeline(ChunkWriter writer) {
+        this(writer, DEFAULT_MAX_IN_FLIGHT, DEFAULT_CHUNK_SIZE);
+    }
+
+    public UploadPipeline(ChunkWriter writer, int maxInFlight, int chunkSize) {
+        this.writer = writer;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public int getMaxInFlight() { return maxInFlight; }
+    public int getChunkSize() { return chunkSize; }
+
+    /**
+     * Upload the given changed courses and instances. The returned future never completes
+     * exceptionally; failed chunks are reported through the result instead.
+     */
+    public CompletableFuture<Result> upload(List<YogaCourse> courses, List<YogaInstance> instances,
+                                            ProgressListener listener) {
+        // Group records by course, keeping first-seen order
+        Map<Integer, Chunk> groups = new LinkedHashMap<>();
+        for (YogaCourse course : courses) {
+            Chunk group = groups.computeIfAbsent(course.getId(), id -> new Chunk());
+            group.courses.add(course);
+            group.bytes += estimateBytes(course);
+        }
+        for (YogaInstance instance : instances) {
+            Chunk group = groups.computeIfAbsent(instance.getCourseId(), id -> new Chunk());
+            group.instances.add(instance);
+            group.bytes += estimateBytes(instance);
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        Chunk chunk = null;
+        int recordsTotal = 0;
+        for (Map.Entry<Integer, Chunk> entry : groups.entrySet()) {
+            Chunk group = entry.getValue();
+            if (chunk == null || (chunk.size() > 0 && chunk.size() + group.size() > chunkSize)) {
+                chunk = new Chunk();
+                chunks.add(chunk);
+            }
+            chunk.courseIds.add(entry.getKey());
+            chunk.courses.addAll(group.courses);
+            chunk.instances.addAll(group.instances);
+            chunk.bytes += group.bytes;
+            recordsTotal += group.size();
+        }
+
+        Run run = new Run(chunks, recordsTotal, listener);
+        if (chunks.isEmpty()) {
+            run.done.complete(new Result(run.snapshot(), run.ackedCourseIds, 0));
+            return run.done;
+        }
+        pump(run);
+        return run.done;
+    }
+
+    // Start chunks until the window is full. Only one thread pumps at a time, so writers
+    // that complete synchronously do not recurse once per chunk.
+    private void pump(Run run) {
+        synchronized (run) {
+            if (run.pumping) {
+                return;
+            }
+            run.pumping = true;
+        }
+        while (true) {
+            Chunk chunk;
+            synchronized (run) {
+                if (run.next >= run.chunks.size() || run.inFlight >= maxInFlight) {
+                    run.pumping = false;
+                    return;
+                }
+                chunk = run.chunks.get(run.next++);
+                run.inFlight++;
+            }
+            submit(run, chunk);
+        }
+    }
+
+    private void submit(Run run, Chunk chunk) {
+        CompletableFuture<Boolean> write;
+        try {
+            write = writer.write(chunk.courses, chunk.instances);
+        } catch (RuntimeException e) {
+            write = CompletableFuture.completedFuture(false);
+        }
+        write.handle((success, throwable) -> {
+            onChunkFinished(run, chunk, throwable == null && Boolean.TRUE.equals(success));
+            return null;
+        });
+    }
+
+    private void onChunkFinished(Run run, Chunk chunk, boolean acked) {
+        UploadProgress progress;
+        boolean allFinished;
+        synchronized (run) {
+            run.inFlight--;
+            run.finished++;
+            if (acked) {
+                run.recordsAcked += chunk.size();
+                run.bytesAcked += chunk.bytes;
+                run.ackedCourseIds.addAll(chunk.courseIds);
+            } else {
+                run.recordsFailed += chunk.size();
+                run.chunksFailed++;
+            }
+            progress = run.snapshot();
+            allFinished = run.finished == run.chunks.size();
+        }
+
+        if (run.listener != null) {
+            try {
+                run.listener.onProgress(progress);
+            } catch (RuntimeException e) {
+                // Progress is informational; a failing listener must not stall the upload
+            }
+        }
+        if (allFinished) {
+            synchronized (run) {
+                run.done.complete(new Result(progress, run.ackedCourseIds, run.chunksFailed));
+            }
+        } else {
+            pump(run);
+        }
+    }
+
+    /**
+     * Approximate serialized size of a course: its text fields plus eight bytes per number.
+     */
+    public static long estimateBytes(YogaCourse course) {
+        return utf8Length(course.getDaysOfWeek()) + utf8Length(course.getTime())
+                + utf8Length(course.getType()) + utf8Length(course.getDescription())
+                + utf8Length(course.getRoomLocation()) + utf8Length(course.getInstructor())
+                + utf8Length(course.getDifficulty()) + 6 * 8;
+    }
+
+    /**
+     * Approximate serialized size of an instance: its text fields plus eight bytes per number.
+     */
+    public static long estimateBytes(YogaInstance instance) {
+        return utf8Length(instance.getDate()) + utf8Length(instance.getTeacher())
+                + utf8Length(instance.getComments()) + utf8Length(instance.getStartTime())
+                + utf8Length(instance.getEndTime()) + 5 * 8;
+    }
+
+    private static int utf8Length(String value) {
+        return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
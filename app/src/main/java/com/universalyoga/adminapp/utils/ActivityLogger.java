@@ -4,110 +4,221 @@ import android.content.Context;
 import android.util.Log;
 import com.universalyoga.adminapp.database.AppDatabase;
 import com.universalyoga.adminapp.database.ActivityDao;
+import com.universalyoga.adminapp.database.WriteQueue;
 import com.universalyoga.adminapp.models.Activity;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
-import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Activity log writer. Entries are queued in memory and written in batches through the
+ * WriteQueue, sharing a transaction with other writes. A compaction pass every COMPACT_INTERVAL inserts
+ * keeps the table within the retention policy (max rows and max age).
+ */
 public class ActivityLogger {
     private static final String TAG = "ActivityLogger";
+
+    // A burst of entries within this window lands in one transaction
+    private static final long FLUSH_DELAY_MS = 250;
+    // Flush right away once this many entries are waiting
+    private static final int MAX_BATCH = 50;
+    // Inserts between retention passes
+    private static final int COMPACT_INTERVAL = 100;
+
+    public static final int DEFAULT_MAX_ROWS = 1000;
+    public static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(90);
+
     private static ActivityLogger instance;
     private ActivityDao activityDao;
-    private ExecutorService executor;
-    
-    private ActivityLogger(Context context) {
+    private WriteQueue writeQueue;
+    private Executor executor;
+    private ScheduledExecutorService scheduler;
+
+    private static class Entry {
+        final long loggedAt;
+        final String type;
+        final String description;
+        final String relatedId;
+
+        Entry(long loggedAt, String type, String description, String relatedId) {
+            this.loggedAt = loggedAt;
+            this.type = type;
+            this.description = description;
+            this.relatedId = relatedId;
+        }
+    }
+
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile int maxRows = DEFAULT_MAX_ROWS;
+    private volatile long maxAgeMillis = DEFAULT_MAX_AGE_MS;
+
+    // Database writer thread only
+    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+    private int insertsSinceCompaction = COMPACT_INTERVAL; // Compact on the first flush
+
+    private ActivityLogger(Context context, AppExecutors executors) {
         try {
             activityDao = AppDatabase.getInstance(context).activityDao();
-            executor = Executors.newSingleThreadExecutor();
+            writeQueue = WriteQueue.getInstance(context);
+            executor = executors.dbWriter();
+            scheduler = executors.scheduler();
         } catch (Exception e) {
             Log.e(TAG, "Failed to initialize ActivityLogger", e);
         }
     }
-    
+
     public static synchronized ActivityLogger getInstance(Context context) {
         if (instance == null) {
-            instance = new ActivityLogger(context.getApplicationContext());
+            instance = new ActivityLogger(context.getApplicationContext(), AppExecutors.getInstance());
         }
         return instance;
     }
-    
+
+    /**
+     * Keep at most maxRows entries, none older than maxAgeMillis; 0 disables a limit.
+     * Applied on the next compaction.
+     */
+    public void setRetention(int maxRows, long maxAgeMillis) {
+        this.maxRows = maxRows;
+        this.maxAgeMillis = maxAgeMillis;
+        if (executor != null) {
+            executor.execute(() -> insertsSinceCompaction = COMPACT_INTERVAL);
+        }
+    }
+
     public void logActivity(String type, String description) {
         logActivity(type, description, null);
     }
-    
+
     public void logActivity(String type, String description, String relatedId) {
         if (activityDao == null) {
             return;
         }
-        
+
         if (type == null || type.trim().isEmpty()) {
             return;
         }
-        
+
         if (description == null || description.trim().isEmpty()) {
             return;
         }
-        
-        executor.execute(() -> {
-            try {
-                String id = UUID.randomUUID().toString();
-                String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
-                
-                Activity activity = new Activity(id, type.trim(), description.trim(), timestamp, relatedId);
-                activityDao.insert(activity);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to log activity: " + type + " - " + description, e);
+
+        pending.add(new Entry(System.currentTimeMillis(), type.trim(), description.trim(), relatedId));
+        if (pendingCount.incrementAndGet() >= MAX_BATCH) {
+            executor.execute(this::flushPending);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(
+                    () -> executor.execute(this::flushPending), FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write everything queued so far without waiting for the batch window.
+     */
+    public void flush() {
+        if (executor != null) {
+            executor.execute(this::flushPending);
+        }
+    }
+
+    private void flushPending() {
+        flushScheduled.set(false);
+        List<Entry> entries = new ArrayList<>();
+        List<String> timestamps = new ArrayList<>();
+        Entry entry;
+        while ((entry = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            entries.add(entry);
+            timestamps.add(timestampFormat.format(new Date(entry.loggedAt)));
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        insertsSinceCompaction += entries.size();
+        boolean compactNow = insertsSinceCompaction >= COMPACT_INTERVAL;
+        if (compactNow) {
+            insertsSinceCompaction = 0;
+        }
+        long cutoffMillis = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : 0;
+        int rowLimit = maxRows > 0 ? maxRows : Integer.MAX_VALUE;
+        writeQueue.submit(() -> {
+            // Stamped inside the write, which sees every earlier entry however it was queued
+            long lastLoggedAt = activityDao.getLastLoggedAt();
+            List<Activity> batch = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                Entry logged = entries.get(i);
+                // Bumped past the newest entry so that bursts never collide and sort in logging order
+                lastLoggedAt = Math.max(lastLoggedAt + 1, logged.loggedAt);
+                batch.add(new Activity(String.format(Locale.US, "%016d", lastLoggedAt), logged.type,
+                        logged.description, timestamps.get(i), lastLoggedAt, logged.relatedId));
+            }
+            activityDao.insertAll(batch);
+            return compactNow ? activityDao.compact(cutoffMillis, rowLimit) : 0;
+        }).whenComplete((removed, throwable) -> {
+            if (throwable != null) {
+                Log.e(TAG, "Failed to log " + entries.size() + " activities", throwable);
+            } else if (removed > 0) {
+                Log.d(TAG, "Compacted activity log, removed " + removed + " entries");
             }
         });
     }
-    
+
     public void logCourseCreated(String courseName) {
         if (courseName != null && !courseName.trim().isEmpty()) {
             logActivity("course", "Course '" + courseName.trim() + "' was created");
         }
     }
-    
+
     public void logCourseUpdated(String courseName) {
         if (courseName != null && !courseName.trim().isEmpty()) {
             logActivity("course", "Course '" + courseName.trim() + "' was updated");
         }
     }
-    
+
     public void logCourseDeleted(String courseName) {
         if (courseName != null && !courseName.trim().isEmpty()) {
             logActivity("course", "Course '" + courseName.trim() + "' was deleted");
         }
     }
-    
+
     public void logInstanceCreated(String instanceInfo) {
         if (instanceInfo != null && !instanceInfo.trim().isEmpty()) {
             logActivity("instance", "Instance '" + instanceInfo.trim() + "' was created");
         }
     }
-    
+
     public void logInstanceUpdated(String instanceInfo) {
         if (instanceInfo != null && !instanceInfo.trim().isEmpty()) {
             logActivity("instance", "Instance '" + instanceInfo.trim() + "' was updated");
         }
     }
-    
+
     public void logInstanceDeleted(String instanceInfo) {
         if (instanceInfo != null && !instanceInfo.trim().isEmpty()) {
             logActivity("instance", "Instance '" + instanceInfo.trim() + "' was deleted");
         }
     }
-    
+
     public void logSyncStarted() {
         logActivity("sync", "Cloud sync started");
     }
-    
+
     public void logSyncCompleted(int recordsCount) {
         logActivity("sync", "Cloud sync completed - " + recordsCount + " records synced");
     }
-    
+
     public void logSyncFailed(String error) {
         if (error != null && !error.trim().isEmpty()) {
             logActivity("sync", "Cloud sync failed - " + error.trim());
@@ -115,10 +226,9 @@ public class ActivityLogger {
             logActivity("sync", "Cloud sync failed");
         }
     }
-    
+
     public void shutdown() {
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
-        }
+        // The executors are shared and keep running; just write what is queued
+        flush();
     }
-} 
\ No newline at end of file
+}
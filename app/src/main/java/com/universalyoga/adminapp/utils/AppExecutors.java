@@ -0,0 +1,221 @@
+package com.universalyoga.adminapp.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide executors. Every background task runs on one of a few bounded pools instead of
+ * threads created per screen or per call:
+ * diskIO for database reads and network calls, dbWriter for database writes (one at a time,
+ * so writers never contend for the database lock), compute for CPU work, scheduler for
+ * delayed tasks and mainThread for posting results to the UI.
+ */
+public class AppExecutors {
+    private static final String TAG = "AppExecutors";
+
+    private static final int IO_THREADS = 3;
+    private static final int COMPUTE_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static AppExecutors instance;
+
+    private final Pool diskIO;
+    private final Pool dbWriter;
+    private final Pool compute;
+    private final ScheduledExecutorService scheduler;
+    private final Executor mainThread;
+
+    private AppExecutors() {
+        diskIO = new Pool("io", IO_THREADS, Process.THREAD_PRIORITY_BACKGROUND);
+        dbWriter = new Pool("db-writer", 1, Process.THREAD_PRIORITY_BACKGROUND);
+        compute = new Pool("compute", COMPUTE_THREADS, Process.THREAD_PRIORITY_DEFAULT);
+        scheduler = new ScheduledThreadPoolExecutor(1,
+                new PoolThreadFactory("scheduler", Process.THREAD_PRIORITY_BACKGROUND));
+        mainThread = new MainThreadExecutor();
+    }
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Database reads, file and network I/O
+     */
+    public Executor diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Database writes, run one after another in submission order
+     */
+    public Executor dbWriter() {
+        return dbWriter;
+    }
+
+    /**
+     * CPU-bound work such as diffing and formatting large lists
+     */
+    public Executor compute() {
+        return compute;
+    }
+
+    /**
+     * Delayed and periodic tasks; keep them short and hand longer work to another pool
+     */
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Current metrics of the background pools
+     */
+    public List<PoolStats> getStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        stats.add(diskIO.stats());
+        stats.add(dbWriter.stats());
+        stats.add(compute.stats());
+        return stats;
+    }
+
+    public void logStats() {
+        for (PoolStats stats : getStats()) {
+            Log.d(TAG, stats.toString());
+        }
+    }
+
+    /**
+     * Snapshot of one pool: queue depth, active threads and task latency
+     */
+    public static class PoolStats {
+        public final String name;
+        public final int threads;
+        public final int activeThreads;
+        public final int queueDepth;
+        public final long completedTasks;
+        public final double averageWaitMs; // Time from submit to start
+        public final double maxWaitMs;
+        public final double averageRunMs;
+
+        PoolStats(String name, int threads, int activeThreads, int queueDepth, long completedTasks,
+                  double averageWaitMs, double maxWaitMs, double averageRunMs) {
+            this.name = name;
+            this.threads = threads;
+            this.activeThreads = activeThreads;
+            this.queueDepth = queueDepth;
+            this.completedTasks = completedTasks;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+            this.averageRunMs = averageRunMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: %d/%d active, %d queued, %d done, wait avg %.1f ms max %.1f ms, run avg %.1f ms",
+                    name, activeThreads, threads, queueDepth, completedTasks,
+                    averageWaitMs, maxWaitMs, averageRunMs);
+        }
+    }
+
+    // Fixed-size pool that times every task from submission to completion
+    private static class Pool extends ThreadPoolExecutor {
+        private final String name;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+
+        Pool(String name, int threads, int priority) {
+            super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new PoolThreadFactory(name, priority));
+            this.name = name;
+            // Idle threads exit; the pool grows back to its bound under load
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            super.execute(new TimedTask(command));
+        }
+
+        PoolStats stats() {
+            long done = completed.get();
+            return new PoolStats(name, getMaximumPoolSize(), getActiveCount(), getQueue().size(), done,
+                    done > 0 ? totalWaitNanos.get() / 1e6 / done : 0,
+                    maxWaitNanos.get() / 1e6,
+                    done > 0 ? totalRunNanos.get() / 1e6 / done : 0);
+        }
+
+        private class TimedTask implements Runnable {
+            private final Runnable task;
+            private final long submittedAt = System.nanoTime();
+
+            TimedTask(Runnable task) {
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                long startedAt = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    long waited = startedAt - submittedAt;
+                    totalWaitNanos.addAndGet(waited);
+                    totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+                    maxWaitNanos.accumulateAndGet(waited, Math::max);
+                    completed.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static class PoolThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int priority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        PoolThreadFactory(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(priority);
+                runnable.run();
+            }, "app-" + name + "-" + count.incrementAndGet());
+        }
+    }
+
+    private static class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            handler.post(command);
+        }
+    }
+}
@@ -16,21 +16,19 @@ import com.universalyoga.adminapp.database.ActivityDao;
 import com.universalyoga.adminapp.database.CourseDao;
 import com.universalyoga.adminapp.database.InstanceDao;
 import com.universalyoga.adminapp.database.SyncHistoryDao;
-import com.universalyoga.adminapp.models.Activity;
+import com.universalyoga.adminapp.database.WriteQueue;
 import com.universalyoga.adminapp.services.FirebaseService;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 public class DatabaseResetUtil {
     private static final String TAG = "DatabaseResetUtil";
     private final Context context;
     private final AppDatabase database;
+    private final WriteQueue writeQueue;
     private final Executor executor;
+    private final Executor dbWriter;
     private final FirebaseDatabase firebaseDatabase;
     private final FirebaseFirestore firestore;
 
@@ -40,10 +38,12 @@ public class DatabaseResetUtil {
         void onResetFailed(String error);
     }
 
-    public DatabaseResetUtil(Context context) {
+    public DatabaseResetUtil(Context context, AppExecutors executors) {
         this.context = context;
         this.database = AppDatabase.getInstance(context);
-        this.executor = Executors.newSingleThreadExecutor();
+        this.writeQueue = WriteQueue.getInstance(context);
+        this.executor = executors.diskIO();
+        this.dbWriter = executors.dbWriter();
         this.firebaseDatabase = FirebaseDatabase.getInstance();
         this.firestore = FirebaseFirestore.getInstance();
     }
@@ -60,20 +60,29 @@ public class DatabaseResetUtil {
             callback.onResetStarted();
         }
         
-        executor.execute(() -> {
+        // Get all DAOs
+        CourseDao courseDao = database.courseDao();
+        InstanceDao instanceDao = database.instanceDao();
+        ActivityDao activityDao = database.activityDao();
+        SyncHistoryDao syncHistoryDao = database.syncHistoryDao();
+        
+        // Clear all tables in one transaction, then Firebase off the database writer
+        writeQueue.execute(() -> {
+            courseDao.deleteAll();
+            instanceDao.deleteAll();
+            activityDao.deleteAll();
+            syncHistoryDao.deleteAll();
+            database.outboxDao().deleteAll();
+        }).whenCompleteAsync((ignored, throwable) -> {
+            if (throwable != null) {
+                Log.e(TAG, "Failed to reset database", throwable);
+                if (callback != null) {
+                    callback.onResetFailed("Reset failed: " + throwable.getMessage());
+                }
+                return;
+            }
+            
             try {
-                // Get all DAOs
-                CourseDao courseDao = database.courseDao();
-                InstanceDao instanceDao = database.instanceDao();
-                ActivityDao activityDao = database.activityDao();
-                SyncHistoryDao syncHistoryDao = database.syncHistoryDao();
-                
-                // Clear all tables
-                courseDao.deleteAll();
-                instanceDao.deleteAll();
-                activityDao.deleteAll();
-                syncHistoryDao.deleteAll();
-                
                 // Clear Firebase Realtime Database
                 clearFirebaseRealtimeData();
                 
@@ -84,15 +93,7 @@ public class DatabaseResetUtil {
                 FirebaseService.clearAllFirebaseData();
                 
                 // Log the reset activity
-                String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
-                Activity resetActivity = new Activity(
-                    UUID.randomUUID().toString(),
-                    "system",
-                    "All database data reset completed (including Firebase)",
-                    timestamp,
-                    null
-                );
-                activityDao.insert(resetActivity);
+                ActivityLogger.getInstance(context).logActivity("system", "All database data reset completed (including Firebase)");
                 
                 if (callback != null) {
                     callback.onResetCompleted();
@@ -104,7 +105,7 @@ public class DatabaseResetUtil {
                     callback.onResetFailed("Reset failed: " + e.getMessage());
                 }
             }
-        });
+        }, executor);
     }
     
     private void clearFirebaseRealtimeData() {
@@ -147,7 +148,8 @@ public class DatabaseResetUtil {
             callback.onResetStarted();
         }
         
-        executor.execute(() -> {
+        // On the database writer, so that no write batch runs while the file goes away
+        dbWriter.execute(() -> {
             try {
                 // Close the database connection
                 database.close();
@@ -161,22 +163,24 @@ public class DatabaseResetUtil {
                 // Recreate the database instance
                 AppDatabase newDatabase = AppDatabase.getInstance(context);
                 
-                // Clear Firebase data
-                clearFirebaseRealtimeData();
-                clearFirebaseFirestoreData();
-                
                 Log.d(TAG, "Database completely cleared and recreated");
-                
-                if (callback != null) {
-                    callback.onResetCompleted();
-                }
-                
             } catch (Exception e) {
                 Log.e(TAG, "Failed to clear database completely", e);
                 if (callback != null) {
                     callback.onResetFailed(e.getMessage());
                 }
+                return;
             }
+            
+            executor.execute(() -> {
+                // Clear Firebase data
+                clearFirebaseRealtimeData();
+                clearFirebaseFirestoreData();
+                
+                if (callback != null) {
+                    callback.onResetCompleted();
+                }
+            });
         });
     }
     
@@ -192,51 +196,54 @@ public class DatabaseResetUtil {
             callback.onResetStarted();
         }
         
-        executor.execute(() -> {
-            try {
-                switch (tableName.toLowerCase()) {
-                    case "courses":
-                        database.courseDao().deleteAll();
-                        break;
-                    case "instances":
-                        database.instanceDao().deleteAll();
-                        break;
-                    case "activity":
-                        database.activityDao().deleteAll();
-                        break;
-                    case "synchistory":
-                        database.syncHistoryDao().deleteAll();
-                        break;
-                    case "firebase":
-                        clearFirebaseRealtimeData();
-                        clearFirebaseFirestoreData();
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Unknown table: " + tableName);
-                }
-                
-                // Log the reset activity
-                String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
-                Activity resetActivity = new Activity(
-                    UUID.randomUUID().toString(),
-                    "system",
-                    "Table " + tableName + " reset completed",
-                    timestamp,
-                    null
-                );
-                database.activityDao().insert(resetActivity);
-                
-                Log.d(TAG, "Table " + tableName + " reset completed successfully");
-                
+        Runnable clear;
+        switch (tableName.toLowerCase()) {
+            case "courses":
+                clear = () -> database.courseDao().deleteAll();
+                break;
+            case "instances":
+                clear = () -> database.instanceDao().deleteAll();
+                break;
+            case "activity":
+                clear = () -> database.activityDao().deleteAll();
+                break;
+            case "synchistory":
+                clear = () -> database.syncHistoryDao().deleteAll();
+                break;
+            case "firebase":
+                clear = null;
+                break;
+            default:
+                Log.e(TAG, "Failed to reset table " + tableName);
                 if (callback != null) {
-                    callback.onResetCompleted();
+                    callback.onResetFailed("Unknown table: " + tableName);
                 }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to reset table " + tableName, e);
+                return;
+        }
+        
+        // Tables are cleared through the write queue, Firebase off the database writer
+        CompletableFuture<Void> cleared = clear != null
+                ? writeQueue.execute(clear)
+                : CompletableFuture.runAsync(() -> {
+                    clearFirebaseRealtimeData();
+                    clearFirebaseFirestoreData();
+                }, executor);
+        cleared.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                Log.e(TAG, "Failed to reset table " + tableName, throwable);
                 if (callback != null) {
-                    callback.onResetFailed(e.getMessage());
+                    callback.onResetFailed(throwable.getMessage());
                 }
+                return;
+            }
+            
+            // Log the reset activity
+            ActivityLogger.getInstance(context).logActivity("system", "Table " + tableName + " reset completed");
+            
+            Log.d(TAG, "Table " + tableName + " reset completed successfully");
+            
+            if (callback != null) {
+                callback.onResetCompleted();
             }
         });
     }
@@ -253,34 +260,28 @@ public class DatabaseResetUtil {
             callback.onResetStarted();
         }
         
-        executor.execute(() -> {
-            try {
-                // Clear existing data first
-                resetAllData(null);
-                
-                // Insert sample courses
-                insertSampleCourses();
-                
-                // Insert sample instances
-                insertSampleInstances();
-                
-                // Insert sample activities
-                insertSampleActivities();
-                
-                // Insert sample sync history
-                insertSampleSyncHistory();
-                
-                Log.d(TAG, "Sample data insertion completed successfully");
-                
-                if (callback != null) {
-                    callback.onResetCompleted();
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to insert sample data", e);
+        // Cleared first: the reset's write is queued ahead of the inserts
+        resetAllData(null);
+        
+        // All sample rows go in as one write, one transaction
+        writeQueue.execute(() -> {
+            insertSampleCourses();
+            insertSampleInstances();
+            insertSampleActivities();
+            insertSampleSyncHistory();
+        }).whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                Log.e(TAG, "Failed to insert sample data", throwable);
                 if (callback != null) {
-                    callback.onResetFailed(e.getMessage());
+                    callback.onResetFailed(throwable.getMessage());
                 }
+                return;
+            }
+            
+            Log.d(TAG, "Sample data insertion completed successfully");
+            
+            if (callback != null) {
+                callback.onResetCompleted();
             }
         });
     }
@@ -437,45 +438,12 @@ public class DatabaseResetUtil {
     
     private void insertSampleActivities() {
         try {
-            ActivityDao activityDao = database.activityDao();
-            String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
-            
-            // Create sample activities
-            Activity resetActivity = new Activity(
-                UUID.randomUUID().toString(),
-                "system",
-                "Sample data inserted - 5 courses and 5 instances created",
-                timestamp,
-                null
-            );
-            activityDao.insert(resetActivity);
-            
-            Activity courseActivity = new Activity(
-                UUID.randomUUID().toString(),
-                "course",
-                "Morning Hatha Yoga course was created",
-                timestamp,
-                null
-            );
-            activityDao.insert(courseActivity);
-            
-            Activity instanceActivity = new Activity(
-                UUID.randomUUID().toString(),
-                "instance",
-                "New class instance scheduled for 2025-01-27",
-                timestamp,
-                null
-            );
-            activityDao.insert(instanceActivity);
-            
-            Activity syncActivity = new Activity(
-                UUID.randomUUID().toString(),
-                "sync",
-                "Cloud sync completed - 10 records synced",
-                timestamp,
-                null
-            );
-            activityDao.insert(syncActivity);
+            // Queued together, so they are written in one batch
+            ActivityLogger logger = ActivityLogger.getInstance(context);
+            logger.logActivity("system", "Sample data inserted - 5 courses and 5 instances created");
+            logger.logActivity("course", "Morning Hatha Yoga course was created");
+            logger.logActivity("instance", "New class instance scheduled for 2025-01-27");
+            logger.logActivity("sync", "Cloud sync completed - 10 records synced");
             
             Log.d(TAG, "Sample activities insertion completed");
         } catch (Exception e) {
@@ -485,13 +453,11 @@ public class DatabaseResetUtil {
     
     private void insertSampleSyncHistory() {
         try {
-            String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
-            
             // Sample sync history
             com.universalyoga.adminapp.models.SyncHistory syncHistory = com.universalyoga.adminapp.models.SyncHistory.createWithId();
             syncHistory.setType("upload");
             syncHistory.setTrigger("Sample data sync");
-            syncHistory.setTimestamp(timestamp);
+            syncHistory.setTimestamp(System.currentTimeMillis());
             syncHistory.setStatus("success");
             syncHistory.setDataSize(10);
             database.syncHistoryDao().insert(syncHistory);
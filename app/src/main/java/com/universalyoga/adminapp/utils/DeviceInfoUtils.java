@@ -0,0 +1,25 @@
+package com.universalyoga.adminapp.utils;
+
+import android.content.Context;
+import android.os.BatteryManager;
+
+import com.universalyoga.adminapp.models.SyncHistory;
+
+import java.util.Locale;
+
+public class DeviceInfoUtils {
+    // Battery level, free app storage and connection type at the start of a sync
+    public static SyncHistory.DeviceInfo collect(Context context) {
+        SyncHistory.DeviceInfo deviceInfo = new SyncHistory.DeviceInfo();
+
+        BatteryManager batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        deviceInfo.battery = batteryManager != null
+                ? batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY) : -1;
+
+        long freeBytes = context.getFilesDir().getUsableSpace();
+        deviceInfo.storage = String.format(Locale.UK, "%.1fMB free", freeBytes / (1024.0 * 1024.0));
+
+        deviceInfo.connection = NetworkUtils.getConnectionType(context);
+        return deviceInfo;
+    }
+}
@@ -0,0 +1,232 @@
+package com.universalyoga.adminapp.utils;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Conversions between the schedule strings and the integers the database indexes.
+ * Dates become epoch days, accepting the same formats as the epochDay triggers:
+ * "EEEE, dd/MM/yyyy", "dd/MM/yyyy" and "yyyy-MM-dd". Course day lists become a 7-bit
+ * day mask, Monday first, where each comma-separated day is recognised by its first
+ * three letters like the daysMask triggers do.
+ */
+public class ScheduleUtils {
+
+    // Stored when a date or time cannot be parsed; sorts before every real day
+    public static final int UNKNOWN = -1;
+
+    private static final Pattern DAY_MONTH_YEAR = Pattern.compile("(\\d{2})/(\\d{2})/(\\d{4})$");
+    private static final Pattern YEAR_MONTH_DAY = Pattern.compile("^(\\d{4})-(\\d{2})-(\\d{2})");
+    private static final Pattern HOUR_MINUTE = Pattern.compile("^(\\d{1,2}):(\\d{2})");
+
+    // Day mask bits
+    public static final int MONDAY = 1;
+    public static final int TUESDAY = 1 << 1;
+    public static final int WEDNESDAY = 1 << 2;
+    public static final int THURSDAY = 1 << 3;
+    public static final int FRIDAY = 1 << 4;
+    public static final int SATURDAY = 1 << 5;
+    public static final int SUNDAY = 1 << 6;
+    public static final int ALL_DAYS = (1 << 7) - 1;
+
+    private static final String[] DAY_NAMES = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
+    // Display text for every mask, built once so formatting never allocates
+    private static final String[] DAYS_TEXT = new String[ALL_DAYS + 1];
+
+    // Every mask that shares a day with the index mask, filled on first use
+    private static final int[][] OVERLAPPING_MASKS = new int[ALL_DAYS + 1][];
+
+    static {
+        for (int mask = 0; mask <= ALL_DAYS; mask++) {
+            StringBuilder text = new StringBuilder();
+            for (int day = 0; day < DAY_NAMES.length; day++) {
+                if ((mask & (1 << day)) != 0) {
+                    if (text.length() > 0) {
+                        text.append(',');
+                    }
+                    text.append(DAY_NAMES[day]);
+                }
+            }
+            DAYS_TEXT[mask] = text.toString();
+        }
+    }
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private ScheduleUtils() {
+    }
+
+    /**
+     * Days since 1970-01-01 for an instance date string, or UNKNOWN.
+     */
+    public static int toEpochDay(String date) {
+        if (date == null) {
+            return UNKNOWN;
+        }
+        String trimmed = date.trim();
+        Matcher matcher = DAY_MONTH_YEAR.matcher(trimmed);
+        if (matcher.find()) {
+            return toEpochDay(Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(2)),
+                    Integer.parseInt(matcher.group(1)));
+        }
+        matcher = YEAR_MONTH_DAY.matcher(trimmed);
+        if (matcher.find()) {
+            return toEpochDay(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                    Integer.parseInt(matcher.group(3)));
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Minutes after midnight for an "HH:mm" time, or UNKNOWN.
+     */
+    public static int toStartMinute(String time) {
+        if (time == null) {
+            return UNKNOWN;
+        }
+        Matcher matcher = HOUR_MINUTE.matcher(time.trim());
+        if (!matcher.find()) {
+            return UNKNOWN;
+        }
+        return Integer.parseInt(matcher.group(1)) * 60 + Integer.parseInt(matcher.group(2));
+    }
+
+    /**
+     * "HH:mm" of a minute of the day; values past midnight wrap around.
+     */
+    public static String formatMinute(int minuteOfDay) {
+        int minute = Math.floorMod(minuteOfDay, 24 * 60);
+        return String.format(Locale.UK, "%02d:%02d", minute / 60, minute % 60);
+    }
+
+    /**
+     * "HH:mm" end of a class starting at startTime, or startTime itself if it cannot be parsed.
+     */
+    public static String toEndTime(String startTime, int durationMinutes) {
+        int startMinute = toStartMinute(startTime);
+        return startMinute == UNKNOWN ? startTime : formatMinute(startMinute + durationMinutes);
+    }
+
+    /**
+     * Today's epoch day in the device time zone.
+     */
+    public static int todayEpochDay() {
+        Calendar today = Calendar.getInstance();
+        return toEpochDay(today.get(Calendar.YEAR), today.get(Calendar.MONTH) + 1, today.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Day mask of a comma-separated day list such as "Monday,Wednesday" or "Mon, Wed".
+     * Unrecognised entries are skipped.
+     */
+    public static int parseDays(CharSequence days) {
+        if (days == null) {
+            return 0;
+        }
+        int mask = 0;
+        int length = days.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(days.charAt(i))) {
+                i++;
+            }
+            if (i + 3 <= length) {
+                mask |= dayBitOfAbbreviation(days.charAt(i), days.charAt(i + 1), days.charAt(i + 2));
+            }
+            while (i < length && days.charAt(i) != ',') {
+                i++;
+            }
+            i++;
+        }
+        return mask;
+    }
+
+    /**
+     * Full day names of a mask, Monday first, e.g. "Monday,Friday". Cached, so no allocation.
+     */
+    public static String toDaysText(int mask) {
+        return DAYS_TEXT[mask & ALL_DAYS];
+    }
+
+    /**
+     * Mask bit of a java.util.Calendar DAY_OF_WEEK value (Calendar.SUNDAY = 1).
+     */
+    public static int calendarDayBit(int calendarDayOfWeek) {
+        return 1 << ((calendarDayOfWeek + 5) % 7);
+    }
+
+    /**
+     * Calendar DAY_OF_WEEK value of a single mask bit.
+     */
+    public static int toCalendarDay(int dayBit) {
+        return (Integer.numberOfTrailingZeros(dayBit) + 1) % 7 + 1;
+    }
+
+    /**
+     * Mask bit of the weekday an epoch day falls on (day 0, 1970-01-01, was a Thursday).
+     */
+    public static int epochDayBit(int epochDay) {
+        return 1 << Math.floorMod(epochDay + 3, 7);
+    }
+
+    /**
+     * Whether a course with the given day mask runs on the epoch day.
+     */
+    public static boolean isScheduledOn(int daysMask, int epochDay) {
+        return epochDay != UNKNOWN && (daysMask & epochDayBit(epochDay)) != 0;
+    }
+
+    /**
+     * All masks sharing at least one day with the given days, for "daysMask IN (...)"
+     * lookups that seek the daysMask index. The returned array is shared; do not modify.
+     */
+    public static int[] overlappingMasks(int days) {
+        days &= ALL_DAYS;
+        int[] masks = OVERLAPPING_MASKS[days];
+        if (masks == null) {
+            int count = 0;
+            for (int mask = 1; mask <= ALL_DAYS; mask++) {
+                if ((mask & days) != 0) {
+                    count++;
+                }
+            }
+            masks = new int[count];
+            count = 0;
+            for (int mask = 1; mask <= ALL_DAYS; mask++) {
+                if ((mask & days) != 0) {
+                    masks[count++] = mask;
+                }
+            }
+            OVERLAPPING_MASKS[days] = masks;
+        }
+        return masks;
+    }
+
+    private static int dayBitOfAbbreviation(char first, char second, char third) {
+        for (int day = 0; day < DAY_NAMES.length; day++) {
+            String name = DAY_NAMES[day];
+            if (Character.toLowerCase(first) == Character.toLowerCase(name.charAt(0))
+                    && Character.toLowerCase(second) == name.charAt(1)
+                    && Character.toLowerCase(third) == name.charAt(2)) {
+                return 1 << day;
+            }
+        }
+        return 0;
+    }
+
+    private static int toEpochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return UNKNOWN;
+        }
+        GregorianCalendar calendar = new GregorianCalendar(UTC);
+        calendar.clear();
+        calendar.set(year, month - 1, day);
+        return (int) Math.floorDiv(calendar.getTimeInMillis(), MILLIS_PER_DAY);
+    }
+}
@@ -85,8 +85,7 @@ public class ValidationUtils {
             return new ValidationResult(false, "Please select at least one day");
         }
         
-        String[] days = daysOfWeek.split(",");
-        if (days.length == 0) {
+        if (ScheduleUtils.parseDays(daysOfWeek) == 0) {
             return new ValidationResult(false, "Please select at least one day");
         }
         
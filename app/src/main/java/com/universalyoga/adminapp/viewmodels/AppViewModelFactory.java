@@ -0,0 +1,48 @@
+package com.universalyoga.adminapp.viewmodels;
+
+import android.app.Application;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import com.universalyoga.adminapp.utils.AppExecutors;
+
+/**
+ * Creates the app's ViewModels with the shared executors. ViewModels that need none are
+ * left to the default Application factory.
+ */
+public class AppViewModelFactory extends ViewModelProvider.AndroidViewModelFactory {
+
+    private static AppViewModelFactory instance;
+
+    private final Application application;
+    private final AppExecutors executors;
+
+    private AppViewModelFactory(Application application, AppExecutors executors) {
+        super(application);
+        this.application = application;
+        this.executors = executors;
+    }
+
+    public static synchronized AppViewModelFactory getInstance(Application application) {
+        if (instance == null) {
+            instance = new AppViewModelFactory(application, AppExecutors.getInstance());
+        }
+        return instance;
+    }
+
+    @NonNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+        if (modelClass == CourseViewModel.class) {
+            return (T) new CourseViewModel(application, executors);
+        }
+        if (modelClass == InstanceViewModel.class) {
+            return (T) new InstanceViewModel(application, executors);
+        }
+        if (modelClass == CustomerBookingViewModel.class) {
+            return (T) new CustomerBookingViewModel(application, executors);
+        }
+        return super.create(modelClass);
+    }
+}
@@ -4,11 +4,16 @@ import android.app.Application;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingData;
+import com.universalyoga.adminapp.database.CourseFilter;
 import com.universalyoga.adminapp.models.YogaCourse;
 import com.universalyoga.adminapp.repository.CourseRepository;
+import com.universalyoga.adminapp.utils.AppExecutors;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
 import com.universalyoga.adminapp.utils.ValidationUtils;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * ViewModel for course management.
@@ -17,7 +22,8 @@ import java.util.stream.Collectors;
 public class CourseViewModel extends AndroidViewModel {
     
     private final CourseRepository repository;
-    private final MutableLiveData<List<YogaCourse>> filteredCourses;
+    private final FilteredPager<CourseFilter, YogaCourse> coursePager;
+    private final LiveData<Map<Integer, Integer>> instanceCounts;
     private final MutableLiveData<String> searchQuery;
     private final MutableLiveData<String> sortBy;
     private final MutableLiveData<Boolean> sortAscending;
@@ -26,17 +32,22 @@ public class CourseViewModel extends AndroidViewModel {
     private final MutableLiveData<String> dayFilter = new MutableLiveData<>("");
     private final MutableLiveData<String> typeFilter = new MutableLiveData<>("");
     private final MutableLiveData<String> difficultyFilter = new MutableLiveData<>("");
+    private final LatestSearch search;
     
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     private final MutableLiveData<String> successMessage = new MutableLiveData<>();
     
-    public CourseViewModel(Application application) {
+    public CourseViewModel(Application application, AppExecutors executors) {
         super(application);
         repository = new CourseRepository(application);
-        filteredCourses = new MutableLiveData<>();
+        coursePager = new FilteredPager<>(this, new CourseFilter(), repository::getCoursePagingSource);
+        search = new LatestSearch(repository::searchCourseIds,
+                rankedIds -> updateFilter(filter -> filter.rankedIds = rankedIds),
+                executors.scheduler(), executors.diskIO());
+        instanceCounts = repository.getInstanceCounts();
         searchQuery = new MutableLiveData<>("");
-        sortBy = new MutableLiveData<>("name");
+        sortBy = new MutableLiveData<>(CourseFilter.SORT_NEWEST);
         sortAscending = new MutableLiveData<>(true);
     }
     
@@ -81,10 +92,17 @@ public class CourseViewModel extends AndroidViewModel {
     }
     
     /**
-     * Get filtered courses
+     * Pages of the courses passing the current search, filters and sort
      */
-    public LiveData<List<YogaCourse>> getFilteredCourses() {
-        return filteredCourses;
+    public LiveData<PagingData<YogaCourse>> getCoursePages() {
+        return coursePager.getPages();
+    }
+    
+    /**
+     * Get the current search, filter and sort state
+     */
+    public LiveData<CourseFilter> getCourseFilter() {
+        return coursePager.getFilterLive();
     }
     
     /**
@@ -115,6 +133,17 @@ public class CourseViewModel extends AndroidViewModel {
         return repository.getCount();
     }
     
+    public LiveData<Integer> getActiveCourseCount() {
+        return repository.getActiveCount();
+    }
+    
+    /**
+     * Instance count per course id; courses without instances are absent
+     */
+    public LiveData<Map<Integer, Integer>> getInstanceCounts() {
+        return instanceCounts;
+    }
+    
     public LiveData<Integer> getTotalCapacity() {
         return repository.getTotalCapacity();
     }
@@ -127,8 +156,11 @@ public class CourseViewModel extends AndroidViewModel {
      * Set search query and filter courses
      */
     public void setSearchQuery(String query) {
-        searchQuery.postValue(query != null ? query.trim() : "");
-        filterAndSortCourses();
+        String trimmed = query != null ? query.trim() : "";
+        searchQuery.postValue(trimmed);
+        
+        // Full-text search runs in the database once typing pauses; only the latest query's hits apply
+        search.setQuery(trimmed);
     }
     
     /**
@@ -136,16 +168,17 @@ public class CourseViewModel extends AndroidViewModel {
      */
     public void setSortBy(String field) {
         sortBy.postValue(field);
-        filterAndSortCourses();
+        updateFilter(filter -> filter.sortBy = field);
     }
     
     /**
      * Toggle sort direction
      */
     public void toggleSortDirection() {
-        Boolean current = sortAscending.getValue();
-        sortAscending.postValue(current != null ? !current : true);
-        filterAndSortCourses();
+        updateFilter(filter -> {
+            filter.ascending = !filter.ascending;
+            sortAscending.postValue(filter.ascending);
+        });
     }
     
     /**
@@ -155,92 +188,26 @@ public class CourseViewModel extends AndroidViewModel {
         dayFilter.postValue(day);
         typeFilter.postValue(type);
         difficultyFilter.postValue(difficulty);
-        filterAndSortCourses();
+        updateFilter(filter -> {
+            filter.days = ScheduleUtils.parseDays(day);
+            filter.type = type;
+            filter.difficulty = difficulty;
+        });
+    }
+    
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        search.cancel();
     }
     
     /**
-     * Filter and sort courses based on current search, filter, and sort settings
+     * Apply a change to the current filter; the paged list reloads from the database
      */
-    private void filterAndSortCourses() {
-        List<YogaCourse> allCourses = repository.getAllCourses().getValue();
-        if (allCourses == null) return;
-        
-        String query = searchQuery.getValue();
-        String sortField = sortBy.getValue();
-        Boolean ascending = sortAscending.getValue();
-        String day = dayFilter.getValue();
-        String type = typeFilter.getValue();
-        String difficulty = difficultyFilter.getValue();
-        
-        // Filter by search query
-        List<YogaCourse> filtered = allCourses;
-        if (query != null && !query.trim().isEmpty()) {
-            String searchTerm = query.toLowerCase().trim();
-            filtered = filtered.stream()
-                    .filter(course -> 
-                        (course.getDaysOfWeek() != null && course.getDaysOfWeek().toLowerCase().contains(searchTerm)) ||
-                        (course.getType() != null && course.getType().toLowerCase().contains(searchTerm)) ||
-                        (course.getDescription() != null && course.getDescription().toLowerCase().contains(searchTerm)) ||
-                        (course.getRoomLocation() != null && course.getRoomLocation().toLowerCase().contains(searchTerm)) ||
-                        (course.getInstructor() != null && course.getInstructor().toLowerCase().contains(searchTerm)) ||
-                        (course.getDifficulty() != null && course.getDifficulty().toLowerCase().contains(searchTerm)))
-                    .collect(Collectors.toList());
-        }
-        
-        // Filter by day
-        if (day != null && !day.trim().isEmpty()) {
-            filtered = filtered.stream()
-                    .filter(course -> course.getDaysOfWeek() != null && 
-                                    course.getDaysOfWeek().equalsIgnoreCase(day))
-                    .collect(Collectors.toList());
-        }
-        
-        // Filter by type
-        if (type != null && !type.trim().isEmpty()) {
-            filtered = filtered.stream()
-                    .filter(course -> course.getType() != null && 
-                                    course.getType().equalsIgnoreCase(type))
-                    .collect(Collectors.toList());
-        }
-        
-        // Filter by difficulty
-        if (difficulty != null && !difficulty.trim().isEmpty()) {
-            filtered = filtered.stream()
-                    .filter(course -> course.getDifficulty() != null && 
-                                    course.getDifficulty().equalsIgnoreCase(difficulty))
-                    .collect(Collectors.toList());
-        }
-        
-        // Sort courses
-        if (sortField != null && ascending != null) {
-            filtered = filtered.stream()
-                    .sorted((c1, c2) -> {
-                        int comparison = 0;
-                        switch (sortField) {
-                            case "name":
-                                comparison = c1.getCourseName().compareToIgnoreCase(c2.getCourseName());
-                                break;
-                            case "price":
-                                comparison = Double.compare(c1.getPrice(), c2.getPrice());
-                                break;
-                            case "capacity":
-                                comparison = Integer.compare(c1.getCapacity(), c2.getCapacity());
-                                break;
-                            case "duration":
-                                comparison = Integer.compare(c1.getDuration(), c2.getDuration());
-                                break;
-                            case "time":
-                                comparison = c1.getTime().compareTo(c2.getTime());
-                                break;
-                            default:
-                                comparison = c1.getCourseName().compareToIgnoreCase(c2.getCourseName());
-                        }
-                        return ascending ? comparison : -comparison;
-                    })
-                    .collect(Collectors.toList());
-        }
-        
-        filteredCourses.postValue(filtered);
+    private synchronized void updateFilter(Consumer<CourseFilter> change) {
+        CourseFilter filter = coursePager.getFilter().copy();
+        change.accept(filter);
+        coursePager.setFilter(filter);
     }
     
     /**
@@ -289,7 +256,6 @@ public class CourseViewModel extends AndroidViewModel {
             @Override
             public void onSuccess(YogaCourse savedCourse) {
                 setSuccess("Course added successfully");
-                filterAndSortCourses();
             }
             
             @Override
@@ -357,7 +323,6 @@ public class CourseViewModel extends AndroidViewModel {
             public void onSuccess(YogaCourse updatedCourse) {
                 android.util.Log.d("CourseViewModel", "Course update successful");
                 setSuccess("Course updated successfully");
-                filterAndSortCourses();
             }
             
             @Override
@@ -376,7 +341,6 @@ public class CourseViewModel extends AndroidViewModel {
             @Override
             public void onSuccess(YogaCourse deletedCourse) {
                 setSuccess("Course deleted successfully");
-                filterAndSortCourses();
             }
             
             @Override
@@ -0,0 +1,47 @@
+package com.universalyoga.adminapp.viewmodels;
+
+import android.app.Application;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import com.universalyoga.adminapp.models.CustomerBooking;
+import com.universalyoga.adminapp.services.BookingFeed;
+import com.universalyoga.adminapp.utils.AppExecutors;
+import java.util.List;
+
+/**
+ * ViewModel for the customer bookings list. The feed survives configuration changes and
+ * listens to Firebase only while the list is on screen.
+ */
+public class CustomerBookingViewModel extends AndroidViewModel {
+
+    private final BookingFeed feed;
+
+    public CustomerBookingViewModel(Application application, AppExecutors executors) {
+        super(application);
+        feed = new BookingFeed(executors.compute());
+    }
+
+    /**
+     * Newest bookings first, a page at a time
+     */
+    public LiveData<List<CustomerBooking>> getBookings() {
+        return feed;
+    }
+
+    public LiveData<String> getError() {
+        return feed.getError();
+    }
+
+    /**
+     * Load the next page of older bookings if there may be any
+     */
+    public void loadMore() {
+        if (feed.hasMore()) {
+            feed.loadMore();
+        }
+    }
+
+    public void refresh() {
+        feed.refresh();
+    }
+}
@@ -0,0 +1,76 @@
+package com.universalyoga.adminapp.viewmodels;
+
+import androidx.arch.core.util.Function;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.paging.PagingSource;
+import kotlin.jvm.functions.Function0;
+
+/**
+ * A paged list whose query depends on a filter. Changing the filter invalidates the
+ * current PagingSource, so one cached stream serves every filter instead of a new
+ * Pager per change.
+ */
+public class FilteredPager<F, T> {
+
+    public static final int PAGE_SIZE = 30;
+
+    // Pages beyond this many rows are dropped, so memory follows the viewport, not the table
+    public static final int MAX_LOADED_ITEMS = 200;
+
+    // Placeholders keep the scrollbar and item count at the full filtered size
+    public static final PagingConfig CONFIG =
+            new PagingConfig(PAGE_SIZE, PAGE_SIZE, true, PAGE_SIZE * 2, MAX_LOADED_ITEMS);
+
+    private final MutableLiveData<F> filterLive;
+    private final LiveData<PagingData<T>> pages;
+    private volatile F filter;
+    private volatile PagingSource<Integer, T> source;
+
+    public FilteredPager(ViewModel owner, F initialFilter, Function<F, PagingSource<Integer, T>> sourceFactory) {
+        filter = initialFilter;
+        filterLive = new MutableLiveData<>(initialFilter);
+        pages = pages(owner, () -> {
+            source = sourceFactory.apply(filter);
+            return source;
+        });
+    }
+
+    /**
+     * Pages of an unfiltered source, cached for the owner's lifetime.
+     */
+    public static <T> LiveData<PagingData<T>> pages(ViewModel owner, Function0<PagingSource<Integer, T>> sourceFactory) {
+        Pager<Integer, T> pager = new Pager<>(CONFIG, sourceFactory);
+        return PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager), ViewModelKt.getViewModelScope(owner));
+    }
+
+    public LiveData<PagingData<T>> getPages() {
+        return pages;
+    }
+
+    public F getFilter() {
+        return filter;
+    }
+
+    public LiveData<F> getFilterLive() {
+        return filterLive;
+    }
+
+    /**
+     * Switch to a new filter from any thread; the list reloads from the database.
+     */
+    public void setFilter(F newFilter) {
+        filter = newFilter;
+        filterLive.postValue(newFilter);
+        PagingSource<Integer, T> current = source;
+        if (current != null) {
+            current.invalidate();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.universalyoga.adminapp.viewmodels;
+
+import android.app.Application;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingData;
+import com.universalyoga.adminapp.database.InstanceFilter;
+import com.universalyoga.adminapp.models.InstanceWithCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.repository.InstanceRepository;
+import com.universalyoga.adminapp.utils.AppExecutors;
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ViewModel for instance lists: all instances, or one course's with setCourseId.
+ * Search and filters run in the database and the list is paged from there.
+ */
+public class InstanceViewModel extends AndroidViewModel {
+
+    private final InstanceRepository repository;
+    private final FilteredPager<InstanceFilter, InstanceWithCourse> instancePager;
+    private final LiveData<InstanceFilter.Summary> summary;
+    private final LatestSearch search;
+
+    public InstanceViewModel(Application application, AppExecutors executors) {
+        super(application);
+        repository = new InstanceRepository(application);
+        instancePager = new FilteredPager<>(this, new InstanceFilter(), repository::getInstancePagingSource);
+        search = new LatestSearch(repository::searchInstanceIds,
+                rankedIds -> updateFilter(filter -> filter.rankedIds = rankedIds),
+                executors.scheduler(), executors.diskIO());
+        summary = Transformations.switchMap(instancePager.getFilterLive(), repository::getInstanceSummary);
+    }
+
+    /**
+     * Pages of the instances passing the current search and filters
+     */
+    public LiveData<PagingData<InstanceWithCourse>> getInstancePages() {
+        return instancePager.getPages();
+    }
+
+    /**
+     * Count and total enrollment of the filtered instances
+     */
+    public LiveData<InstanceFilter.Summary> getSummary() {
+        return summary;
+    }
+
+    /**
+     * Count of all listed instances, ignoring filters
+     */
+    public LiveData<Integer> getActiveInstanceCount() {
+        return repository.getActiveInstanceCount();
+    }
+
+    /**
+     * Distinct teachers, for the teacher filter
+     */
+    public LiveData<List<String>> getTeachers() {
+        return repository.getTeachers();
+    }
+
+    /**
+     * Limit the list to one course's instances
+     */
+    public void setCourseId(int courseId) {
+        updateFilter(filter -> filter.courseId = courseId);
+    }
+
+    /**
+     * Set search query and filter instances
+     */
+    public void setSearchQuery(String query) {
+        String trimmed = query != null ? query.trim() : "";
+
+        // Full-text search runs in the database once typing pauses; only the latest query's hits apply
+        search.setQuery(trimmed);
+    }
+
+    /**
+     * Set filters; empty strings match everything
+     */
+    public void setFilters(String day, String courseType, String teacher) {
+        updateFilter(filter -> {
+            filter.days = ScheduleUtils.parseDays(day);
+            filter.courseType = courseType;
+            filter.teacher = teacher;
+        });
+    }
+
+    /**
+     * Delete an instance: it is hidden at once and removed from Firebase by the next sync
+     */
+    public void deleteInstance(YogaInstance instance, InstanceRepository.OnInstanceOperationCallback callback) {
+        repository.deleteInstance(instance.getId(), callback);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        search.cancel();
+    }
+
+    /**
+     * Apply a change to the current filter; the paged list reloads from the database
+     */
+    private synchronized void updateFilter(Consumer<InstanceFilter> change) {
+        InstanceFilter filter = instancePager.getFilter().copy();
+        change.accept(filter);
+        instancePager.setFilter(filter);
+    }
+}
@@ -0,0 +1,95 @@
+package com.universalyoga.adminapp.viewmodels;
+
+import android.util.Log;
+import androidx.arch.core.util.Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Search box input in front of a FilteredPager. The query runs once typing pauses for
+ * DEBOUNCE_MS, not on every keystroke. A newer query cancels one still waiting and drops
+ * the results of one already running, so only the latest query's results are delivered.
+ */
+public class LatestSearch {
+    private static final String TAG = "LatestSearch";
+
+    public static final long DEBOUNCE_MS = 300;
+
+    private final Function<String, List<Integer>> search;
+    private final Consumer<List<Integer>> onResult;
+    private final ScheduledExecutorService scheduler;
+    private final Executor worker;
+    private long generation;
+    private ScheduledFuture<?> pending;
+
+    /**
+     * @param search    runs a query on a background thread, returning ranked ids
+     * @param onResult  receives the ids of the latest query, or null once the query is cleared
+     * @param scheduler waits out the debounce
+     * @param worker    runs the queries
+     */
+    public LatestSearch(Function<String, List<Integer>> search, Consumer<List<Integer>> onResult,
+                        ScheduledExecutorService scheduler, Executor worker) {
+        this.search = search;
+        this.onResult = onResult;
+        this.scheduler = scheduler;
+        this.worker = worker;
+    }
+
+    /**
+     * Set the query; an empty query clears the search right away
+     */
+    public synchronized void setQuery(String query) {
+        long requested = supersede();
+        if (query.isEmpty()) {
+            onResult.accept(null);
+            return;
+        }
+        pending = scheduler.schedule(() -> worker.execute(() -> run(query, requested)),
+                DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drop any query in progress
+     */
+    public synchronized void cancel() {
+        supersede();
+    }
+
+    private long supersede() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        return ++generation;
+    }
+
+    private synchronized boolean isLatest(long requested) {
+        return requested == generation;
+    }
+
+    private void run(String query, long requested) {
+        // Superseded while waiting for a thread
+        if (!isLatest(requested)) {
+            return;
+        }
+        List<Integer> rankedIds;
+        try {
+            rankedIds = search.apply(query);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Search failed: " + query, e);
+            rankedIds = new ArrayList<>();
+        }
+        // Delivered under the lock, so a newer query cannot slip in between check and delivery
+        synchronized (this) {
+            if (isLatest(requested)) {
+                onResult.accept(rankedIds);
+            }
+        }
+    }
+}
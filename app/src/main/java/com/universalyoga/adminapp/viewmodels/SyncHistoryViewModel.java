@@ -0,0 +1,38 @@
+package com.universalyoga.adminapp.viewmodels;
+
+import android.app.Application;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.paging.PagingData;
+import com.universalyoga.adminapp.database.AppDatabase;
+import com.universalyoga.adminapp.database.SyncHistoryDao;
+import com.universalyoga.adminapp.models.SyncHistory;
+
+/**
+ * ViewModel for the sync history list on the Upload screen.
+ */
+public class SyncHistoryViewModel extends AndroidViewModel {
+
+    private final SyncHistoryDao syncHistoryDao;
+    private final LiveData<PagingData<SyncHistory>> historyPages;
+
+    public SyncHistoryViewModel(Application application) {
+        super(application);
+        syncHistoryDao = AppDatabase.getInstance(application).syncHistoryDao();
+        historyPages = FilteredPager.pages(this, syncHistoryDao::getPaged);
+    }
+
+    /**
+     * Pages of sync history, newest first
+     */
+    public LiveData<PagingData<SyncHistory>> getHistoryPages() {
+        return historyPages;
+    }
+
+    /**
+     * Number of recorded syncs
+     */
+    public LiveData<Integer> getHistoryCount() {
+        return syncHistoryDao.getCountLive();
+    }
+}
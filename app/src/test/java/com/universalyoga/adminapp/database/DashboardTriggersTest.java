@@ -0,0 +1,90 @@
+package com.universalyoga.adminapp.database;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The dashboard_stats row is kept current by triggers applying deltas; after any sequence
+ * of writes it must hold what DashboardDao.REBUILD computes from scratch.
+ */
+public class DashboardTriggersTest {
+
+    private SqliteTestDatabase db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new SqliteTestDatabase();
+        db.exec("CREATE TABLE courses (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, capacity INTEGER NOT NULL, " +
+                "price REAL NOT NULL, syncStatus INTEGER NOT NULL)");
+        db.exec("CREATE TABLE instances (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, courseId INTEGER NOT NULL, " +
+                "enrolled INTEGER NOT NULL, syncStatus INTEGER NOT NULL, " +
+                "FOREIGN KEY(courseId) REFERENCES courses(id) ON DELETE CASCADE)");
+        db.exec("CREATE TABLE dashboard_stats (id INTEGER NOT NULL, courseCount INTEGER NOT NULL DEFAULT 0, " +
+                "totalCapacity INTEGER NOT NULL DEFAULT 0, instanceCount INTEGER NOT NULL DEFAULT 0, " +
+                "totalEnrolled INTEGER NOT NULL DEFAULT 0, revenue REAL NOT NULL DEFAULT 0, PRIMARY KEY(id))");
+        db.exec(DashboardDao.REBUILD);
+        AppDatabase.createDashboardTriggers(db.asSupportDatabase());
+
+        db.exec("INSERT INTO courses VALUES (1, 20, 10.0, 0)");
+        db.exec("INSERT INTO courses VALUES (2, 10, 15.0, 0)");
+        db.exec("INSERT INTO instances VALUES (10, 1, 5, 0)");
+        db.exec("INSERT INTO instances VALUES (11, 1, 3, 0)");
+        db.exec("INSERT INTO instances VALUES (20, 2, 2, 0)");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    public void insertsAddUp() throws Exception {
+        assertStats("2 courses, 30 places, 3 instances, 10 enrolled, 110.0 revenue");
+    }
+
+    @Test
+    public void editsApplyAsDeltas() throws Exception {
+        db.exec("UPDATE courses SET price = 12.0 WHERE id = 1");
+        db.exec("UPDATE instances SET enrolled = 6 WHERE id = 11");
+        db.exec("UPDATE instances SET courseId = 2 WHERE id = 10");
+
+        assertStats("2 courses, 30 places, 3 instances, 13 enrolled, 177.0 revenue");
+    }
+
+    @Test
+    public void deletedInstanceLeavesTheTotals() throws Exception {
+        // As enqueueInstanceDeletion, then the purge once the delete reached the backends
+        db.exec("UPDATE instances SET syncStatus = 2 WHERE id = 11");
+        assertStats("2 courses, 30 places, 2 instances, 7 enrolled, 80.0 revenue");
+
+        db.exec("DELETE FROM instances WHERE id = 11");
+        assertStats("2 courses, 30 places, 2 instances, 7 enrolled, 80.0 revenue");
+    }
+
+    @Test
+    public void deletedCourseTakesItsInstancesOutOfTheTotals() throws Exception {
+        // As enqueueCourseDeletion, then the purge that cascades to the instances
+        db.exec("UPDATE courses SET syncStatus = 2 WHERE id = 1");
+        db.exec("UPDATE instances SET syncStatus = 2 WHERE courseId = 1");
+        assertStats("1 courses, 10 places, 1 instances, 2 enrolled, 30.0 revenue");
+
+        db.exec("DELETE FROM courses WHERE id = 1");
+        assertStats("1 courses, 10 places, 1 instances, 2 enrolled, 30.0 revenue");
+    }
+
+    // Checks the trigger-maintained row, then that a rebuild from scratch agrees with it
+    private void assertStats(String expected) throws Exception {
+        assertEquals(expected, stats());
+        db.exec(DashboardDao.REBUILD);
+        assertEquals("Rebuilt", expected, stats());
+    }
+
+    private String stats() throws Exception {
+        return db.queryString("SELECT courseCount || ' courses, ' || totalCapacity || ' places, ' || " +
+                "instanceCount || ' instances, ' || totalEnrolled || ' enrolled, ' || " +
+                "printf('%.1f', revenue) || ' revenue' FROM dashboard_stats");
+    }
+}
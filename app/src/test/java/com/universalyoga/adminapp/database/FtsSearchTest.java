@@ -0,0 +1,119 @@
+package com.universalyoga.adminapp.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FtsSearchTest {
+
+    private SqliteTestDatabase db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new SqliteTestDatabase();
+        // Same shape as instances_fts; weights as InstanceDao.SEARCH_WEIGHTS
+        db.exec("CREATE VIRTUAL TABLE search USING FTS4(courseType TEXT, teacher TEXT, date TEXT, comments TEXT)");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    public void matchQueryPrefixesEveryWord() {
+        assertEquals("flo* yo*", FtsSearch.toMatchQuery("flo yo"));
+        assertEquals("flow* yoga*", FtsSearch.toMatchQuery("  Flow,  YOGA!  "));
+        assertEquals("hatha* 10* 00*", FtsSearch.toMatchQuery("Hatha 10:00"));
+    }
+
+    @Test
+    public void matchQueryDropsOperatorsAndSyntax() {
+        // Lower case keeps these from being read as FTS operators
+        assertEquals("yoga* or* pilates*", FtsSearch.toMatchQuery("yoga OR pilates"));
+        assertEquals("not* yin*", FtsSearch.toMatchQuery("NOT \"yin\""));
+        assertEquals("a* b*", FtsSearch.toMatchQuery("a* -b ("));
+    }
+
+    @Test
+    public void matchQueryIsNullWithoutWords() {
+        assertNull(FtsSearch.toMatchQuery(null));
+        assertNull(FtsSearch.toMatchQuery(""));
+        assertNull(FtsSearch.toMatchQuery(" *-\"() "));
+    }
+
+    @Test
+    public void everyQueryFromFreeTextIsValidFts() throws Exception {
+        insert(1, "Flow Yoga", "Anna", "2026-10-19", "Bring a mat");
+        for (String input : Arrays.asList("yoga OR", "NEAR/3 flow", "\"unclosed", "a AND (b", "-x", "col:flow")) {
+            search(FtsSearch.toMatchQuery(input)); // Throws on a syntax error
+        }
+    }
+
+    @Test
+    public void heavierColumnRanksFirst() throws Exception {
+        insert(1, "Power Yoga", "Anna", "2026-10-19", "Gentle stretching after");
+        insert(2, "Gentle Yoga", "Ben", "2026-10-20", "");
+        insert(3, "Hatha", "Gentle Jo", "2026-10-21", "");
+
+        // Course type outweighs teacher, which outweighs comments
+        assertEquals(Arrays.asList(2, 3, 1), rank("gentle"));
+    }
+
+    @Test
+    public void rarerTermsCountMore() throws Exception {
+        insert(1, "Yoga", "Anna", "2026-10-19", "");
+        insert(2, "Yoga", "Ben", "2026-10-20", "");
+        insert(3, "Yin Yoga", "Cat", "2026-10-21", "");
+
+        // Every row matches "yoga"; only one also matches the rare "yin"
+        assertEquals(3, (int) rank("yin yoga").get(0));
+    }
+
+    @Test
+    public void repeatedHitsInARowRankHigher() throws Exception {
+        insert(1, "Yoga", "Anna", "2026-10-19", "");
+        insert(2, "Yoga", "Ben", "2026-10-20", "Yoga mat yoga blocks");
+
+        assertEquals(Arrays.asList(2, 1), rank("yoga"));
+    }
+
+    @Test
+    public void keepsOnlyTheBestHitsUpToTheLimit() throws Exception {
+        insert(1, "Yoga", "Anna", "2026-10-19", "");
+        insert(2, "Yoga", "Ben", "2026-10-20", "Yoga mat yoga blocks");
+        insert(3, "Yoga", "Cat", "2026-10-21", "Yoga mat");
+        insert(4, "Yoga", "Dan", "2026-10-22", "");
+
+        List<FtsSearch.Match> matches = search(FtsSearch.toMatchQuery("yoga"));
+        assertEquals(Arrays.asList(2, 3), FtsSearch.rank(matches, InstanceDao.SEARCH_WEIGHTS, 2));
+        // Equal scores keep the order the hits came in
+        assertEquals(Arrays.asList(2, 3, 1, 4), FtsSearch.rank(matches, InstanceDao.SEARCH_WEIGHTS, 10));
+    }
+
+    private void insert(int id, String courseType, String teacher, String date, String comments) throws Exception {
+        db.exec("INSERT INTO search (docid, courseType, teacher, date, comments) VALUES (?, ?, ?, ?, ?)",
+                id, courseType, teacher, date, comments);
+    }
+
+    private List<FtsSearch.Match> search(String query) throws Exception {
+        List<FtsSearch.Match> matches = new ArrayList<>();
+        for (Object[] row : db.queryRows("SELECT docid, matchinfo(search, 'pcx') FROM search WHERE search MATCH ?", query)) {
+            FtsSearch.Match match = new FtsSearch.Match();
+            match.id = ((Number) row[0]).intValue();
+            match.matchInfo = (byte[]) row[1];
+            matches.add(match);
+        }
+        return matches;
+    }
+
+    private List<Integer> rank(String text) throws Exception {
+        return FtsSearch.rank(search(FtsSearch.toMatchQuery(text)), InstanceDao.SEARCH_WEIGHTS, FtsSearch.MAX_RESULTS);
+    }
+}
@@ -0,0 +1,182 @@
+package com.universalyoga.adminapp.database;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs every migration from the first shipped schema (version 2) to the current one on
+ * SQLite, with data in every table, and checks what the migrations derive and convert.
+ */
+public class MigrationTest {
+
+    private static final Migration[] MIGRATIONS = {
+            AppDatabase.MIGRATION_2_3, AppDatabase.MIGRATION_3_4, AppDatabase.MIGRATION_4_5,
+            AppDatabase.MIGRATION_5_6, AppDatabase.MIGRATION_6_7, AppDatabase.MIGRATION_7_8,
+            AppDatabase.MIGRATION_8_9, AppDatabase.MIGRATION_9_10, AppDatabase.MIGRATION_10_11,
+            AppDatabase.MIGRATION_11_12, AppDatabase.MIGRATION_12_13
+    };
+
+    private SqliteTestDatabase db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new SqliteTestDatabase();
+        createVersion2();
+        SupportSQLiteDatabase supportDb = db.asSupportDatabase();
+        int version = 2;
+        for (Migration migration : MIGRATIONS) {
+            assertEquals(version, migration.startVersion);
+            migration.migrate(supportDb);
+            version = migration.endVersion;
+        }
+        assertEquals(13, version);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    public void scheduleColumnsAreDerivedFromExistingRows() throws Exception {
+        assertEquals(ScheduleUtils.toEpochDay("Monday, 19/10/2026"), instanceLong(10, "epochDay"));
+        assertEquals(ScheduleUtils.toEpochDay("2026-10-21"), instanceLong(11, "epochDay"));
+        assertEquals(ScheduleUtils.UNKNOWN, instanceLong(20, "epochDay"));
+        assertEquals(600, instanceLong(10, "startMinute"));
+        assertEquals(570, instanceLong(11, "startMinute"));
+        assertEquals(ScheduleUtils.MONDAY | ScheduleUtils.WEDNESDAY,
+                db.queryLong("SELECT daysMask FROM courses WHERE id = 1"));
+        assertEquals(ScheduleUtils.SATURDAY, db.queryLong("SELECT daysMask FROM courses WHERE id = 2"));
+    }
+
+    @Test
+    public void unsyncedRowsAreSeededIntoTheOutbox() throws Exception {
+        assertEquals(5, db.queryLong("SELECT COUNT(*) FROM sync_outbox"));
+        assertEquals("upsert", outboxOperation("course", 2));
+        assertEquals("delete", outboxOperation("course", 3));
+        assertEquals("upsert", outboxOperation("instance", 11));
+        assertEquals("delete", outboxOperation("instance", 30));
+        assertEquals(3, db.queryLong("SELECT pendingBackends FROM sync_outbox WHERE entityId = 2"));
+    }
+
+    @Test
+    public void searchAndDashboardTablesAreFilled() throws Exception {
+        assertEquals(2, db.queryLong("SELECT COUNT(*) FROM instances_fts WHERE instances_fts MATCH 'flow*'"));
+        assertEquals(2, db.queryLong("SELECT courseCount FROM dashboard_stats"));
+        assertEquals(30, db.queryLong("SELECT totalCapacity FROM dashboard_stats"));
+        assertEquals(3, db.queryLong("SELECT instanceCount FROM dashboard_stats"));
+        assertEquals(10, db.queryLong("SELECT totalEnrolled FROM dashboard_stats"));
+        assertEquals(110, db.queryLong("SELECT revenue FROM dashboard_stats"));
+    }
+
+    @Test
+    public void syncHistoryTimestampsBecomeMillis() throws Exception {
+        long sampleData = LocalDateTime.of(2026, 10, 18, 9, 30).toInstant(ZoneOffset.UTC).toEpochMilli();
+        assertEquals(1760000000000L, historyTimestamp("millis"));
+        assertEquals(1760000000000L, historyTimestamp("padded"));
+        assertEquals(sampleData, historyTimestamp("sample"));
+        assertEquals(0, historyTimestamp("empty"));
+        assertEquals(0, historyTimestamp("garbage"));
+        assertEquals(0, historyTimestamp("missing"));
+        assertEquals("INTEGER", db.queryString("SELECT type FROM pragma_table_info('sync_history') WHERE name = 'timestamp'"));
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM pragma_index_list('sync_history') " +
+                "WHERE name = 'index_sync_history_timestamp'"));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM sync_history_daily"));
+    }
+
+    @Test
+    public void activityEntriesAreOrderedByLoggedAt() throws Exception {
+        long localTimestamp = LocalDateTime.of(2026, 10, 18, 9, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertEquals(localTimestamp, activityLoggedAt("a1"));
+        assertEquals(1760000000000L, activityLoggedAt("1760000000000"));
+        assertEquals(1760000000001L, activityLoggedAt("0001760000000001"));
+        assertEquals(0, activityLoggedAt("b2"));
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM pragma_index_list('activity') " +
+                "WHERE name = 'index_activity_loggedAt'"));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM pragma_index_list('activity') " +
+                "WHERE name = 'index_activity_timestamp'"));
+    }
+
+    @Test
+    public void triggersTrackRowsWrittenAfterMigrating() throws Exception {
+        db.exec("INSERT INTO instances (courseId, date, teacher, comments, syncStatus, startTime, endTime, enrolled, capacity) " +
+                "VALUES (1, 'Thursday, 22/10/2026', 'Anna', '', 0, '10:00', '11:00', 4, 20)");
+        long id = db.queryLong("SELECT last_insert_rowid()");
+
+        assertEquals(ScheduleUtils.toEpochDay("2026-10-22"), instanceLong(id, "epochDay"));
+        assertEquals("upsert", outboxOperation("instance", id));
+        assertEquals(4, db.queryLong("SELECT instanceCount FROM dashboard_stats"));
+        assertEquals(150, db.queryLong("SELECT revenue FROM dashboard_stats"));
+        assertEquals(3, db.queryLong("SELECT COUNT(*) FROM instances_fts WHERE instances_fts MATCH 'flow*'"));
+    }
+
+    // The schema Room created at version 2, with a mix of synced, unsynced and deleted rows
+    private void createVersion2() throws Exception {
+        db.exec("CREATE TABLE IF NOT EXISTS `courses` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`daysOfWeek` TEXT, `time` TEXT, `capacity` INTEGER NOT NULL, `duration` INTEGER NOT NULL, " +
+                "`price` REAL NOT NULL, `type` TEXT, `description` TEXT, `roomLocation` TEXT, `instructor` TEXT, " +
+                "`difficulty` TEXT, `syncStatus` INTEGER NOT NULL)");
+        db.exec("CREATE TABLE IF NOT EXISTS `instances` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`courseId` INTEGER NOT NULL, `date` TEXT, `teacher` TEXT, `comments` TEXT, " +
+                "`syncStatus` INTEGER NOT NULL, `startTime` TEXT, `endTime` TEXT, `enrolled` INTEGER NOT NULL, " +
+                "`capacity` INTEGER NOT NULL, FOREIGN KEY(`courseId`) REFERENCES `courses`(`id`) " +
+                "ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.exec("CREATE INDEX IF NOT EXISTS `index_instances_courseId` ON `instances` (`courseId`)");
+        db.exec("CREATE TABLE IF NOT EXISTS `activity` (`id` TEXT NOT NULL, `type` TEXT NOT NULL, " +
+                "`description` TEXT NOT NULL, `timestamp` TEXT NOT NULL, `relatedId` TEXT, PRIMARY KEY(`id`))");
+        db.exec("CREATE INDEX IF NOT EXISTS `index_activity_timestamp` ON `activity` (`timestamp`)");
+        db.exec("CREATE TABLE IF NOT EXISTS `sync_history` (`id` TEXT NOT NULL, `timestamp` TEXT, `status` TEXT, " +
+                "`type` TEXT, `trigger` TEXT, `duration` INTEGER, `retryCount` INTEGER NOT NULL, " +
+                "`dataSize` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+
+        db.exec("INSERT INTO courses VALUES (1, 'Monday,Wednesday', '10:00', 20, 60, 10.0, 'Flow Yoga', '', 'Studio A', 'Anna', 'Beginner', 1)");
+        db.exec("INSERT INTO courses VALUES (2, 'Sat', '18:00', 10, 45, 15.0, 'Yin Yoga', '', 'Studio B', 'Ben', 'All levels', 0)");
+        db.exec("INSERT INTO courses VALUES (3, 'Friday', '07:00', 12, 30, 8.0, 'Power Yoga', '', 'Studio A', 'Cat', 'Advanced', 2)");
+        db.exec("INSERT INTO instances VALUES (10, 1, 'Monday, 19/10/2026', 'Anna', '', 1, '10:00', '11:00', 5, 20)");
+        db.exec("INSERT INTO instances VALUES (11, 1, '2026-10-21', 'Anna', '', 0, '9:30', '10:30', 3, 20)");
+        db.exec("INSERT INTO instances VALUES (20, 2, 'next week', 'Ben', '', 0, '', '', 2, 10)");
+        db.exec("INSERT INTO instances VALUES (30, 3, '23/10/2026', 'Cat', '', 2, '07:00', '07:30', 4, 12)");
+        db.exec("INSERT INTO activity VALUES ('a1', 'course_added', 'Added Flow Yoga', '2026-10-18 09:00:00', '1')");
+        db.exec("INSERT INTO activity VALUES ('1760000000000', 'course', 'Course added', '2025-10-09 08:53:20', '2')");
+        db.exec("INSERT INTO activity VALUES ('0001760000000001', 'sync', 'Cloud sync started', '2025-10-09 08:53:20', NULL)");
+        db.exec("INSERT INTO activity VALUES ('b2', 'system', 'Data reset', 'unknown', NULL)");
+        insertHistory("millis", "1760000000000");
+        insertHistory("padded", " 1760000000000 ");
+        insertHistory("sample", "2026-10-18 09:30:00");
+        insertHistory("empty", "");
+        insertHistory("garbage", "yesterday");
+        insertHistory("missing", null);
+    }
+
+    private void insertHistory(String id, String timestamp) throws Exception {
+        db.exec("INSERT INTO sync_history VALUES (?, ?, 'success', 'auto', 'data_change', 1000, 0, 1)", id, timestamp);
+    }
+
+    private long historyTimestamp(String id) throws Exception {
+        return db.queryLong("SELECT timestamp FROM sync_history WHERE id = " + SqliteTestDatabase.literal(id));
+    }
+
+    private long activityLoggedAt(String id) throws Exception {
+        return db.queryLong("SELECT loggedAt FROM activity WHERE id = " + SqliteTestDatabase.literal(id));
+    }
+
+    private long instanceLong(long id, String column) throws Exception {
+        return db.queryLong("SELECT " + column + " FROM instances WHERE id = " + id);
+    }
+
+    private String outboxOperation(String entityType, long entityId) throws Exception {
+        return db.queryString("SELECT operation FROM sync_outbox WHERE entityType = " +
+                SqliteTestDatabase.literal(entityType) + " AND entityId = " + entityId);
+    }
+}
@@ -0,0 +1,68 @@
+package com.universalyoga.adminapp.database;
+
+import static org.junit.Assert.assertEquals;
+
+import com.universalyoga.adminapp.utils.ScheduleUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The migrations and triggers parse schedule strings in SQL; ScheduleUtils parses the same
+ * strings in Java for queries. Both must agree, or rows would fall out of their own ranges.
+ */
+public class ScheduleSqlTest {
+
+    private static final String[] DATES = {
+            "Monday, 19/10/2026", "19/10/2026", "2026-10-19", " 2026-10-19 ", "2026-10-19T10:00",
+            "01/01/1970", "31/12/1969", "29/02/2024", "Sunday, 01/03/2026",
+            "", "tomorrow", "19-10-2026", "2026/10/19", "19/10/26", null
+    };
+
+    private static final String[] TIMES = {
+            "10:00", "09:30", "9:30", "23:59", "00:00", " 07:15 ", "10:00 AM", "", "noon", "1000"
+    };
+
+    private static final String[] DAY_LISTS = {
+            "Monday", "Monday,Wednesday,Friday", "Mon,Wed,Fri", "Mon, Wed, Fri", "mon,TUE",
+            "Saturday,Sunday", "Monday,Tuesday,Wednesday,Thursday,Friday,Saturday,Sunday",
+            "Monday,Monday", "Funday,Sunday", "", "Mo,We", null
+    };
+
+    private SqliteTestDatabase db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new SqliteTestDatabase();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    public void epochDayMatchesScheduleUtils() throws Exception {
+        for (String date : DATES) {
+            long sql = db.queryLong("SELECT " + AppDatabase.sqlEpochDay(SqliteTestDatabase.literal(date)));
+            assertEquals("epochDay of " + date, ScheduleUtils.toEpochDay(date), sql);
+        }
+    }
+
+    @Test
+    public void startMinuteMatchesScheduleUtils() throws Exception {
+        for (String time : TIMES) {
+            long sql = db.queryLong("SELECT " + AppDatabase.sqlStartMinute(SqliteTestDatabase.literal(time)));
+            assertEquals("startMinute of " + time, ScheduleUtils.toStartMinute(time), sql);
+        }
+    }
+
+    @Test
+    public void daysMaskMatchesScheduleUtils() throws Exception {
+        for (String days : DAY_LISTS) {
+            long sql = db.queryLong("SELECT " + AppDatabase.sqlDaysMask(SqliteTestDatabase.literal(days)));
+            assertEquals("daysMask of " + days, ScheduleUtils.parseDays(days), sql);
+        }
+    }
+}
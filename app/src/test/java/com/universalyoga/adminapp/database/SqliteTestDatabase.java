@@ -0,0 +1,98 @@
+package com.universalyoga.adminapp.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory SQLite over JDBC, so the SQL that migrations and triggers run can be checked on
+ * the JVM. Only execSQL is supported on the SupportSQLiteDatabase view, which is all the
+ * migrations use.
+ */
+class SqliteTestDatabase implements AutoCloseable {
+    private final Connection connection;
+
+    SqliteTestDatabase() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        exec("PRAGMA foreign_keys = ON");
+    }
+
+    SupportSQLiteDatabase asSupportDatabase() {
+        return (SupportSQLiteDatabase) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SupportSQLiteDatabase.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("execSQL")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    exec((String) args[0], args.length > 1 ? (Object[]) args[1] : new Object[0]);
+                    return null;
+                });
+    }
+
+    void exec(String sql, Object... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            statement.execute();
+        }
+    }
+
+    long queryLong(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            if (!result.next()) {
+                throw new AssertionError("No row for " + sql);
+            }
+            return result.getLong(1);
+        }
+    }
+
+    String queryString(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            if (!result.next()) {
+                throw new AssertionError("No row for " + sql);
+            }
+            return result.getString(1);
+        }
+    }
+
+    // Every row of a query with bound arguments, one array of column values per row
+    List<Object[]> queryRows(String sql, Object... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            List<Object[]> rows = new ArrayList<>();
+            try (ResultSet result = statement.executeQuery()) {
+                int columns = result.getMetaData().getColumnCount();
+                while (result.next()) {
+                    Object[] row = new Object[columns];
+                    for (int column = 0; column < columns; column++) {
+                        row[column] = result.getObject(column + 1);
+                    }
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+    }
+
+    // SQL string literal, or NULL
+    static String literal(String value) {
+        return value == null ? "NULL" : "'" + value.replace("'", "''") + "'";
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
@@ -0,0 +1,164 @@
+package com.universalyoga.adminapp.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteQueueTest {
+
+    // In-memory table; a transaction that throws is rolled back to where it started
+    private final List<Integer> table = new ArrayList<>();
+    private int transactionsStarted;
+
+    private ExecutorService writer;
+    private ScheduledExecutorService scheduler;
+    private WriteQueue queue;
+
+    @Before
+    public void setUp() {
+        writer = Executors.newSingleThreadExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        queue = new WriteQueue(batch -> {
+            transactionsStarted++;
+            int size = table.size();
+            try {
+                batch.run();
+            } catch (RuntimeException e) {
+                table.subList(size, table.size()).clear();
+                throw e;
+            }
+        }, writer, scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void burstSharesOneTransaction() throws Exception {
+        CountDownLatch blocked = blockWriter();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(insert(i));
+        }
+        blocked.countDown();
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Integer.valueOf(i), get(futures.get(i)));
+        }
+        assertEquals(20, table.size());
+        assertEquals(1, queue.getTransactionCount());
+        assertEquals(20, queue.getWriteCount());
+    }
+
+    @Test
+    public void failedWriteRollsBackOnlyItself() throws Exception {
+        IllegalStateException error = new IllegalStateException("constraint failed");
+        CountDownLatch blocked = blockWriter();
+        CompletableFuture<Integer> first = insert(1);
+        CompletableFuture<Integer> second = insert(2);
+        CompletableFuture<Void> failing = queue.execute(() -> {
+            table.add(99);
+            throw error;
+        });
+        CompletableFuture<Integer> fourth = insert(4);
+        blocked.countDown();
+
+        assertEquals(Integer.valueOf(1), get(first));
+        assertEquals(Integer.valueOf(2), get(second));
+        assertEquals(Integer.valueOf(4), get(fourth));
+        try {
+            get(failing);
+            fail("Expected the failing write to report its error");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+
+        // The rolled-back attempt leaves nothing behind; the others commit once, together
+        assertEquals(List.of(1, 2, 4), table);
+        assertEquals(2, transactionsStarted);
+        assertEquals(1, queue.getTransactionCount());
+        assertEquals(3, queue.getWriteCount());
+    }
+
+    @Test
+    public void failedTransactionFailsEveryWrite() throws Exception {
+        IllegalStateException error = new IllegalStateException("disk full");
+        queue = new WriteQueue(batch -> {
+            batch.run();
+            throw error;
+        }, writer, scheduler);
+        CountDownLatch blocked = blockWriter();
+        CompletableFuture<Integer> first = insert(1);
+        CompletableFuture<Integer> second = insert(2);
+        blocked.countDown();
+
+        for (CompletableFuture<Integer> future : List.of(first, second)) {
+            try {
+                get(future);
+                fail("Expected the write to fail with its transaction");
+            } catch (ExecutionException e) {
+                assertSame(error, e.getCause());
+            }
+        }
+        assertEquals(0, queue.getTransactionCount());
+    }
+
+    @Test
+    public void writesCommitInSubmissionOrder() throws Exception {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            futures.add(insert(i));
+        }
+        for (CompletableFuture<Integer> future : futures) {
+            get(future);
+        }
+        for (int i = 0; i < 1200; i++) {
+            assertEquals(Integer.valueOf(i), table.get(i));
+        }
+        assertTrue(queue.getTransactionCount() >= 3); // At most 500 writes per batch
+    }
+
+    private CompletableFuture<Integer> insert(int value) {
+        return queue.submit(() -> {
+            table.add(value);
+            return value;
+        });
+    }
+
+    // Holds the writer thread, so that everything submitted meanwhile is flushed as one batch
+    private CountDownLatch blockWriter() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        return release;
+    }
+
+    private static <T> T get(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
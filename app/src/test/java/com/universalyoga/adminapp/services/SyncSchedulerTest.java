@@ -0,0 +1,217 @@
+package com.universalyoga.adminapp.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SyncSchedulerTest {
+
+    private static final long DEBOUNCE_MS = 30_000;
+    private static final long MAX_WAIT_MS = 300_000;
+
+    private ManualScheduler executor;
+    private final List<CompletableFuture<Void>> syncs = new ArrayList<>();
+    private SyncScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = new ManualScheduler();
+        scheduler = new SyncScheduler(executor, () -> {
+            CompletableFuture<Void> sync = new CompletableFuture<>();
+            syncs.add(sync);
+            return sync;
+        }, DEBOUNCE_MS, MAX_WAIT_MS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void burstCoalescesIntoOneSync() {
+        scheduler.trigger();
+        scheduler.trigger();
+        scheduler.trigger();
+
+        executor.runAll();
+
+        assertEquals(1, syncs.size());
+        assertEquals(3, scheduler.getMetrics().getTriggers());
+        assertEquals(2, scheduler.getMetrics().getCoalesced());
+        assertEquals(1, scheduler.getMetrics().getSyncsExecuted());
+    }
+
+    @Test
+    public void eachTriggerPushesTheSyncBack() {
+        scheduler.trigger();
+        scheduler.trigger();
+
+        assertEquals(List.of(DEBOUNCE_MS, DEBOUNCE_MS), executor.delays);
+    }
+
+    @Test
+    public void maxWaitCapsTheDebounce() throws InterruptedException {
+        scheduler.setDelays(DEBOUNCE_MS, DEBOUNCE_MS);
+        scheduler.trigger();
+        Thread.sleep(20);
+        scheduler.trigger();
+
+        // The second trigger cannot push the sync past the first trigger's deadline
+        assertEquals(Long.valueOf(DEBOUNCE_MS), executor.delays.get(0));
+        assertTrue(executor.delays.get(1) < DEBOUNCE_MS);
+    }
+
+    @Test
+    public void supersededTimerDoesNotSync() {
+        scheduler.trigger();
+        scheduler.trigger();
+
+        // The first timer already started running when the second trigger cancelled it
+        executor.run(0);
+        assertEquals(0, syncs.size());
+
+        executor.run(1);
+        assertEquals(1, syncs.size());
+    }
+
+    @Test
+    public void cancelledTimerDoesNotSync() {
+        scheduler.trigger();
+        scheduler.cancel();
+
+        executor.runAll();
+
+        assertEquals(0, syncs.size());
+    }
+
+    @Test
+    public void triggersDuringSyncCollapseIntoOneFollowUp() {
+        scheduler.trigger();
+        executor.runAll();
+        assertEquals(1, syncs.size());
+
+        scheduler.trigger();
+        scheduler.trigger();
+        scheduler.trigger();
+        assertEquals(1, executor.tasks.size()); // Nothing armed while the sync runs
+
+        syncs.get(0).complete(null);
+        assertEquals(2, executor.tasks.size());
+        executor.run(1);
+
+        assertEquals(2, syncs.size());
+        assertEquals(1, scheduler.getMetrics().getFollowUps());
+    }
+
+    @Test
+    public void idleAfterSyncWithoutNewTriggers() {
+        scheduler.trigger();
+        executor.runAll();
+        syncs.get(0).complete(null);
+
+        assertEquals(1, executor.tasks.size());
+        scheduler.trigger();
+        assertEquals(Long.valueOf(DEBOUNCE_MS), executor.delays.get(1));
+    }
+
+    @Test
+    public void runNowStartsAtOnceWhenIdle() {
+        CompletableFuture<String> oneOff = new CompletableFuture<>();
+        CompletableFuture<String> result = scheduler.runNow(() -> oneOff);
+
+        assertEquals(List.of(0L), executor.delays);
+        executor.runAll();
+        oneOff.complete("done");
+
+        assertEquals("done", result.join());
+        assertEquals(1, scheduler.getMetrics().getSyncsExecuted());
+        scheduler.trigger();
+        assertEquals(Long.valueOf(DEBOUNCE_MS), executor.delays.get(1)); // Back to idle
+    }
+
+    @Test
+    public void runNowWaitsForTheSyncInFlight() {
+        scheduler.trigger();
+        executor.runAll();
+        List<String> started = new ArrayList<>();
+        CompletableFuture<String> result = scheduler.runNow(() -> {
+            started.add("one-off");
+            return CompletableFuture.completedFuture("done");
+        });
+
+        executor.runAll();
+        assertTrue(started.isEmpty());
+
+        syncs.get(0).complete(null);
+        executor.run(executor.tasks.size() - 1);
+        assertEquals(List.of("one-off"), started);
+        assertEquals("done", result.join());
+    }
+
+    @Test
+    public void runNowKeepsAPendingTriggerForAFollowUp() {
+        scheduler.trigger();
+        CompletableFuture<Void> oneOff = new CompletableFuture<>();
+        scheduler.runNow(() -> oneOff);
+
+        // The armed timer is superseded by the one-off
+        executor.run(0);
+        executor.run(1);
+        assertEquals(0, syncs.size());
+
+        oneOff.complete(null);
+        executor.run(2);
+        assertEquals(1, syncs.size());
+        assertEquals(1, scheduler.getMetrics().getFollowUps());
+    }
+
+    @Test
+    public void runNowThatFailsToStartReportsTheFailure() {
+        CompletableFuture<Void> result = scheduler.runNow(() -> {
+            throw new IllegalStateException("offline");
+        });
+        executor.runAll();
+
+        assertTrue(result.isCompletedExceptionally());
+        scheduler.trigger();
+        executor.run(1);
+        assertEquals(1, syncs.size());
+    }
+
+    // Records scheduled tasks so the test decides when each timer fires
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            delays.add(unit.toMillis(delay));
+            return super.schedule(() -> { }, 1, TimeUnit.HOURS);
+        }
+
+        void run(int index) {
+            tasks.get(index).run();
+        }
+
+        void runAll() {
+            for (Runnable task : new ArrayList<>(tasks)) {
+                task.run();
+            }
+        }
+    }
+}
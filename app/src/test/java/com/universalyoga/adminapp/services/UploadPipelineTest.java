@@ -0,0 +1,164 @@
+package com.universalyoga.adminapp.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+
+public class UploadPipelineTest {
+
+    // Every chunk the writer was asked for, with its pending acknowledgement
+    private final List<List<Integer>> chunkCourseIds = new ArrayList<>();
+    private final List<CompletableFuture<Boolean>> acks = new ArrayList<>();
+
+    private final UploadPipeline.ChunkWriter writer = (courses, instances) -> {
+        List<Integer> courseIds = new ArrayList<>();
+        for (YogaCourse course : courses) {
+            courseIds.add(course.getId());
+        }
+        for (YogaInstance instance : instances) {
+            if (!courseIds.contains(instance.getCourseId())) {
+                courseIds.add(instance.getCourseId());
+            }
+        }
+        chunkCourseIds.add(courseIds);
+        CompletableFuture<Boolean> ack = new CompletableFuture<>();
+        acks.add(ack);
+        return ack;
+    };
+
+    @Test
+    public void courseRecordsNeverSpanTwoChunks() {
+        UploadPipeline pipeline = new UploadPipeline(writer, 10, 3);
+        List<YogaCourse> courses = Arrays.asList(course(1), course(2), course(3));
+        List<YogaInstance> instances = Arrays.asList(
+                instance(10, 1), instance(11, 1),
+                instance(20, 2),
+                instance(30, 3), instance(31, 3), instance(32, 3));
+
+        pipeline.upload(courses, instances, null);
+
+        // Course 1 fills a chunk; course 2 does not fit beside it; course 3 is larger than a chunk
+        assertEquals(Arrays.asList(List.of(1), List.of(2), List.of(3)), chunkCourseIds);
+    }
+
+    @Test
+    public void smallCoursesShareAChunk() {
+        UploadPipeline pipeline = new UploadPipeline(writer, 10, 4);
+
+        pipeline.upload(Arrays.asList(course(1), course(2), course(3)),
+                Arrays.asList(instance(10, 1), instance(20, 2)), null);
+
+        assertEquals(Arrays.asList(List.of(1, 2), List.of(3)), chunkCourseIds);
+    }
+
+    @Test
+    public void onlyAcknowledgedCoursesCountAsUploaded() {
+        UploadPipeline pipeline = new UploadPipeline(writer, 10, 2);
+        CompletableFuture<UploadPipeline.Result> result = pipeline.upload(
+                Arrays.asList(course(1), course(2), course(3)),
+                Arrays.asList(instance(10, 1), instance(20, 2), instance(30, 3)), null);
+
+        acks.get(0).complete(true);
+        acks.get(1).complete(false);
+        assertFalse(result.isDone());
+        acks.get(2).complete(true);
+
+        UploadPipeline.Result outcome = result.join();
+        assertEquals(Set.of(1, 3), outcome.getAckedCourseIds());
+        assertEquals(4, outcome.getRecordsAcked());
+        assertEquals(2, outcome.getRecordsFailed());
+        assertEquals(6, outcome.getRecordsTotal());
+        assertEquals(1, outcome.getChunksFailed());
+        assertFalse(outcome.isComplete());
+    }
+
+    @Test
+    public void failedWriteCountsAsFailedChunk() {
+        UploadPipeline pipeline = new UploadPipeline((courses, instances) -> {
+            if (courses.get(0).getId() == 2) {
+                throw new IllegalStateException("offline");
+            }
+            return CompletableFuture.completedFuture(true);
+        }, 1, 1);
+
+        UploadPipeline.Result outcome = pipeline.upload(
+                Arrays.asList(course(1), course(2), course(3)), new ArrayList<>(), null).join();
+
+        assertEquals(Set.of(1, 3), outcome.getAckedCourseIds());
+        assertEquals(1, outcome.getChunksFailed());
+    }
+
+    @Test
+    public void keepsAtMostMaxInFlightChunksOutstanding() {
+        UploadPipeline pipeline = new UploadPipeline(writer, 2, 1);
+        CompletableFuture<UploadPipeline.Result> result = pipeline.upload(
+                Arrays.asList(course(1), course(2), course(3), course(4), course(5)), new ArrayList<>(), null);
+
+        assertEquals(2, acks.size());
+        acks.get(0).complete(true);
+        assertEquals(3, acks.size());
+        acks.get(1).complete(true);
+        acks.get(2).complete(true);
+        assertEquals(5, acks.size());
+        acks.get(3).complete(true);
+        acks.get(4).complete(true);
+
+        assertTrue(result.join().isComplete());
+    }
+
+    @Test
+    public void progressAdvancesOnlyOnAcknowledgement() {
+        List<Integer> acked = new ArrayList<>();
+        UploadPipeline pipeline = new UploadPipeline(writer, 10, 1);
+        pipeline.upload(Arrays.asList(course(1), course(2)), new ArrayList<>(),
+                progress -> acked.add(progress.getRecordsAcked()));
+
+        assertTrue(acked.isEmpty());
+        acks.get(1).complete(true);
+        acks.get(0).complete(true);
+
+        assertEquals(Arrays.asList(1, 2), acked);
+    }
+
+    @Test
+    public void throwingListenerDoesNotStallTheUpload() {
+        UploadPipeline pipeline = new UploadPipeline(writer, 10, 1);
+        CompletableFuture<UploadPipeline.Result> result = pipeline.upload(
+                Arrays.asList(course(1), course(2)), new ArrayList<>(),
+                progress -> { throw new IllegalStateException("screen gone"); });
+
+        acks.get(0).complete(true);
+        acks.get(1).complete(true);
+
+        assertTrue(result.isDone());
+        assertEquals(Set.of(1, 2), result.join().getAckedCourseIds());
+    }
+
+    @Test
+    public void emptyUploadCompletesAtOnce() {
+        UploadPipeline.Result outcome = new UploadPipeline(writer)
+                .upload(new ArrayList<>(), new ArrayList<>(), null).join();
+
+        assertTrue(outcome.isComplete());
+        assertEquals(100, outcome.getPercent());
+        assertTrue(chunkCourseIds.isEmpty());
+    }
+
+    private static YogaCourse course(int id) {
+        return new YogaCourse(id, "Monday", "10:00", 20, 60, 10.0, "Flow Yoga", "", "Studio A", "Anna", "Beginner", 0);
+    }
+
+    private static YogaInstance instance(int id, int courseId) {
+        return new YogaInstance(id, courseId, "2026-10-19", "Anna", "", 0, "10:00", "11:00", 0, 20);
+    }
+}
@@ -0,0 +1,143 @@
+package com.universalyoga.adminapp.viewmodels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatestSearchTest {
+
+    private final List<String> searched = new ArrayList<>();
+    private final List<List<Integer>> delivered = new ArrayList<>();
+    private final List<Runnable> work = new ArrayList<>();
+    private ManualScheduler scheduler;
+    private Runnable duringSearch = () -> { };
+    private LatestSearch latestSearch;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        latestSearch = new LatestSearch(query -> {
+            searched.add(query);
+            duringSearch.run();
+            if (query.equals("fail")) {
+                throw new IllegalStateException("malformed MATCH");
+            }
+            return Arrays.asList(query.length(), 1);
+        }, delivered::add, scheduler, work::add);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void typingRunsOnlyTheLastQuery() {
+        latestSearch.setQuery("y");
+        latestSearch.setQuery("yo");
+        latestSearch.setQuery("yog");
+
+        // Timers already started before being superseded still reach the worker
+        runAll();
+
+        assertEquals(Arrays.asList("yog"), searched);
+        assertEquals(Arrays.asList(Arrays.asList(3, 1)), delivered);
+    }
+
+    @Test
+    public void queriesWaitForTheDebounce() {
+        latestSearch.setQuery("yoga");
+
+        assertEquals(Arrays.asList(LatestSearch.DEBOUNCE_MS), scheduler.delays);
+        assertTrue(searched.isEmpty());
+    }
+
+    @Test
+    public void resultsOfASupersededQueryAreDropped() {
+        latestSearch.setQuery("yo");
+        duringSearch = () -> {
+            duringSearch = () -> { };
+            latestSearch.setQuery("yoga"); // Typed while "yo" is running
+        };
+        runAll();
+        assertEquals(Arrays.asList("yo"), searched);
+        assertTrue(delivered.isEmpty());
+
+        runAll();
+        assertEquals(Arrays.asList("yo", "yoga"), searched);
+        assertEquals(Arrays.asList(Arrays.asList(4, 1)), delivered);
+    }
+
+    @Test
+    public void emptyQueryClearsAtOnce() {
+        latestSearch.setQuery("yoga");
+        latestSearch.setQuery("");
+
+        assertEquals(1, delivered.size());
+        assertNull(delivered.get(0));
+        runAll();
+        assertTrue(searched.isEmpty());
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    public void cancelDropsThePendingQuery() {
+        latestSearch.setQuery("yoga");
+        latestSearch.cancel();
+
+        runAll();
+
+        assertTrue(searched.isEmpty());
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void failedSearchDeliversNoResults() {
+        latestSearch.setQuery("fail");
+
+        runAll();
+
+        assertEquals(Arrays.asList(new ArrayList<Integer>()), delivered);
+    }
+
+    // Fire every timer, then run the searches they handed to the worker
+    private void runAll() {
+        List<Runnable> timers = new ArrayList<>(scheduler.tasks);
+        scheduler.tasks.clear();
+        for (Runnable timer : timers) {
+            timer.run();
+        }
+        List<Runnable> searches = new ArrayList<>(work);
+        work.clear();
+        for (Runnable search : searches) {
+            search.run();
+        }
+    }
+
+    // Records scheduled tasks so the test decides when each timer fires
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            delays.add(unit.toMillis(delay));
+            return super.schedule(() -> { }, 1, TimeUnit.HOURS);
+        }
+    }
+}
@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "YogaCourse"
 include(":app")
+include(":sync-benchmark")
  
\ No newline at end of file
@@ -0,0 +1,43 @@
+// Plain JVM harness that measures sync throughput against in-memory backends.
+// Run with: ./gradlew :sync-benchmark:run
+plugins {
+    java
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+// Reuse the Android-free part of the sync path straight from the app sources
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/universalyoga/adminapp/benchmark/**",
+                "com/universalyoga/adminapp/models/YogaCourse.java",
+                "com/universalyoga/adminapp/models/YogaInstance.java",
+                "com/universalyoga/adminapp/models/OutboxOperation.java",
+                "com/universalyoga/adminapp/models/SyncHistory.java",
+                "com/universalyoga/adminapp/services/UploadPipeline.java",
+                "com/universalyoga/adminapp/services/SyncTelemetry.java",
+                "com/universalyoga/adminapp/services/SyncBackend.java",
+                "com/universalyoga/adminapp/services/OutboxStore.java",
+                "com/universalyoga/adminapp/services/DeltaSyncEngine.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    // Annotations used by the Room entities
+    implementation("androidx.room:room-common:2.6.1")
+    implementation("androidx.annotation:annotation:1.7.1")
+}
+
+application {
+    mainClass.set("com.universalyoga.adminapp.benchmark.SyncBenchmark")
+    applicationDefaultJvmArgs = listOf("-Xmx1g")
+}
@@ -0,0 +1,134 @@
+package com.universalyoga.adminapp.benchmark;
+
+import com.universalyoga.adminapp.models.OutboxOperation;
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.services.SyncBackend;
+import com.universalyoga.adminapp.services.SyncTelemetry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory SyncBackend for measuring sync without a Firebase project. Each write is
+ * acknowledged after latencyMillis plus up to jitterMillis, and fails with probability
+ * failureRate. Records are kept at Realtime Database style paths.
+ */
+public class FakeSyncBackend implements SyncBackend {
+    private static final ScheduledExecutorService ACKNOWLEDGER = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "FakeSyncBackend");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int backendBit;
+    private final String name;
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double failureRate;
+
+    private final Map<String, Object> store = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+
+    public FakeSyncBackend(int backendBit, String name) {
+        this.backendBit = backendBit;
+        this.name = name;
+    }
+
+    public static FakeSyncBackend realtimeDatabase() {
+        return new FakeSyncBackend(OutboxOperation.BACKEND_REALTIME, "Fake Realtime Database");
+    }
+
+    public static FakeSyncBackend firestore() {
+        return new FakeSyncBackend(OutboxOperation.BACKEND_FIRESTORE, "Fake Firestore");
+    }
+
+    public FakeSyncBackend setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        return this;
+    }
+
+    public FakeSyncBackend setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    @Override
+    public int getBackendBit() { return backendBit; }
+
+    @Override
+    public String getName() { return name; }
+
+    public int getStoredCount() { return store.size(); }
+    public long getWrites() { return writes.get(); }
+    public long getFailedWrites() { return failedWrites.get(); }
+
+    public void clear() {
+        store.clear();
+        writes.set(0);
+        failedWrites.set(0);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> upload(List<YogaCourse> courses, List<YogaInstance> instances, SyncTelemetry telemetry) {
+        long serializeStart = SyncTelemetry.start();
+        boolean fails = fails();
+        if (!fails) {
+            for (YogaCourse course : courses) {
+                store.put(course.getId() + "/courseInfo", course);
+            }
+            for (YogaInstance instance : instances) {
+                store.put(instance.getCourseId() + "/instances/" + instance.getId(), instance);
+            }
+        }
+        telemetry.end(SyncTelemetry.Phase.SERIALIZATION, serializeStart);
+
+        long writeStart = SyncTelemetry.start();
+        SyncTelemetry.Phase writePhase = backendBit == OutboxOperation.BACKEND_REALTIME
+                ? SyncTelemetry.Phase.REALTIME_WRITE : SyncTelemetry.Phase.FIRESTORE_WRITE;
+        return acknowledge(!fails).whenComplete((success, throwable) -> telemetry.end(writePhase, writeStart));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(List<Integer> courseIds, List<Map<String, Integer>> instanceIds) {
+        boolean fails = fails();
+        if (!fails) {
+            for (Integer courseId : courseIds) {
+                String prefix = courseId + "/";
+                store.keySet().removeIf(path -> path.startsWith(prefix));
+            }
+            for (Map<String, Integer> instanceInfo : instanceIds) {
+                store.remove(instanceInfo.get("courseId") + "/instances/" + instanceInfo.get("instanceId"));
+            }
+        }
+        return acknowledge(!fails);
+    }
+
+    private boolean fails() {
+        writes.incrementAndGet();
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            failedWrites.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private CompletableFuture<Boolean> acknowledge(boolean success) {
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay == 0) {
+            return CompletableFuture.completedFuture(success);
+        }
+        CompletableFuture<Boolean> acknowledged = new CompletableFuture<>();
+        ACKNOWLEDGER.schedule(() -> acknowledged.complete(success), delay, TimeUnit.MILLISECONDS);
+        return acknowledged;
+    }
+}
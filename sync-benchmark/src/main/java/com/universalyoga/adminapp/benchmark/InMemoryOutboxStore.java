@@ -0,0 +1,259 @@
+package com.universalyoga.adminapp.benchmark;
+
+import com.universalyoga.adminapp.models.OutboxOperation;
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.services.OutboxStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * OutboxStore held in maps, with the same rules as the app database: one outbox row per
+ * entity, re-enqueuing assigns a new id, and rows are only marked synced if unchanged.
+ * Writes apply at once, so a benchmark measures the sync path rather than SQLite.
+ */
+public class InMemoryOutboxStore implements OutboxStore {
+    private final TreeMap<Integer, OutboxOperation> outbox = new TreeMap<>();
+    private final Map<String, Integer> outboxIds = new HashMap<>(); // Outbox id by entity
+    private final Map<Integer, YogaCourse> courses = new HashMap<>();
+    private final Map<Integer, YogaInstance> instances = new HashMap<>();
+    private int nextOutboxId = 1;
+
+    /**
+     * Insert or replace a course and enqueue its upload, as the database triggers do
+     */
+    public synchronized void put(YogaCourse course) {
+        course.setSyncStatus(0);
+        courses.put(course.getId(), course);
+        enqueue(new OutboxOperation(OutboxOperation.ENTITY_COURSE, course.getId(), course.getId(), OutboxOperation.OP_UPSERT));
+    }
+
+    /**
+     * Insert or replace an instance and enqueue its upload, as the database triggers do
+     */
+    public synchronized void put(YogaInstance instance) {
+        instance.setSyncStatus(0);
+        instances.put(instance.getId(), instance);
+        enqueue(new OutboxOperation(OutboxOperation.ENTITY_INSTANCE, instance.getId(), instance.getCourseId(),
+                OutboxOperation.OP_UPSERT));
+    }
+
+    public synchronized void clear() {
+        outbox.clear();
+        outboxIds.clear();
+        courses.clear();
+        instances.clear();
+    }
+
+    public synchronized int getOutboxSize() {
+        return outbox.size();
+    }
+
+    @Override
+    public synchronized <T> T runInTransaction(Supplier<T> reads) {
+        return reads.get();
+    }
+
+    @Override
+    public synchronized List<OutboxOperation> getDue(long now, int limit) {
+        List<OutboxOperation> due = new ArrayList<>();
+        for (OutboxOperation operation : outbox.values()) {
+            if (due.size() == limit) {
+                break;
+            }
+            if (operation.getNextAttemptAt() <= now) {
+                due.add(copy(operation));
+            }
+        }
+        return due;
+    }
+
+    @Override
+    public synchronized List<YogaCourse> getCourses(List<Integer> courseIds) {
+        List<YogaCourse> found = new ArrayList<>();
+        for (Integer id : courseIds) {
+            YogaCourse course = courses.get(id);
+            if (course != null) {
+                found.add(course);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized List<YogaInstance> getInstances(List<Integer> instanceIds) {
+        List<YogaInstance> found = new ArrayList<>();
+        for (Integer id : instanceIds) {
+            YogaInstance instance = instances.get(id);
+            if (instance != null) {
+                found.add(instance);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized List<Integer> getActiveCourseIds(List<Integer> courseIds) {
+        List<Integer> active = new ArrayList<>();
+        for (Integer id : courseIds) {
+            YogaCourse course = courses.get(id);
+            if (course != null && course.getSyncStatus() != 2) {
+                active.add(id);
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<OutboxOperation>> loadDueDeletes(long now, int limit) {
+        List<OutboxOperation> due = new ArrayList<>();
+        for (OutboxOperation operation : outbox.values()) {
+            if (due.size() == limit) {
+                break;
+            }
+            if (operation.isDelete() && operation.getNextAttemptAt() <= now) {
+                due.add(copy(operation));
+            }
+        }
+        return CompletableFuture.completedFuture(due);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> acknowledge(List<OutboxOperation> operations) {
+        for (OutboxOperation operation : operations) {
+            remove(operation.getId());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Integer> acknowledgeUploads(List<OutboxOperation> operations,
+                                                                      List<YogaCourse> uploadedCourses,
+                                                                      List<YogaInstance> uploadedInstances) {
+        acknowledge(operations);
+        int marked = 0;
+        for (YogaCourse course : uploadedCourses) {
+            YogaCourse current = courses.get(course.getId());
+            if (current != null && current.getSyncStatus() == 0 && current.getUpdatedAt() == course.getUpdatedAt()) {
+                current.setSyncStatus(1);
+                marked++;
+            }
+        }
+        for (YogaInstance instance : uploadedInstances) {
+            YogaInstance current = instances.get(instance.getId());
+            if (current != null && current.getSyncStatus() == 0 && current.getUpdatedAt() == instance.getUpdatedAt()) {
+                current.setSyncStatus(1);
+                marked++;
+            }
+        }
+        return CompletableFuture.completedFuture(marked);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> acknowledgeDeletions(List<OutboxOperation> operations) {
+        for (OutboxOperation operation : operations) {
+            if (operation.isCourse()) {
+                YogaCourse course = courses.get(operation.getEntityId());
+                if (course != null && course.getSyncStatus() == 2) {
+                    courses.remove(operation.getEntityId());
+                    // The foreign key cascades to the course's instances
+                    instances.values().removeIf(instance -> instance.getCourseId() == operation.getEntityId());
+                }
+            } else {
+                YogaInstance instance = instances.get(operation.getEntityId());
+                if (instance != null && instance.getSyncStatus() == 2) {
+                    instances.remove(operation.getEntityId());
+                }
+            }
+            remove(operation.getId());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> scheduleRetry(List<OutboxOperation> operations, long[] retryAt, String error) {
+        for (int i = 0; i < retryAt.length; i++) {
+            OutboxOperation stored = outbox.get(operations.get(i).getId());
+            if (stored != null) {
+                stored.setAttempts(stored.getAttempts() + 1);
+                stored.setNextAttemptAt(retryAt[i]);
+                stored.setLastError(error);
+                stored.setPendingBackends(operations.get(i).getPendingBackends());
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized CompletableFuture<YogaCourse> enqueueCourseDeletion(int courseId) {
+        YogaCourse course = courses.get(courseId);
+        if (course == null) {
+            CompletableFuture<YogaCourse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalArgumentException("Course not found"));
+            return failed;
+        }
+        course.setSyncStatus(2);
+        for (YogaInstance instance : instances.values()) {
+            if (instance.getCourseId() == courseId) {
+                instance.setSyncStatus(2);
+            }
+        }
+        enqueue(OutboxOperation.deleteCourse(courseId));
+        return CompletableFuture.completedFuture(course);
+    }
+
+    @Override
+    public synchronized CompletableFuture<YogaInstance> enqueueInstanceDeletion(int instanceId) {
+        YogaInstance instance = instances.get(instanceId);
+        if (instance == null) {
+            CompletableFuture<YogaInstance> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalArgumentException("Instance not found"));
+            return failed;
+        }
+        instance.setSyncStatus(2);
+        enqueue(OutboxOperation.deleteInstance(instanceId, instance.getCourseId()));
+        return CompletableFuture.completedFuture(instance);
+    }
+
+    // INSERT OR REPLACE on the unique (entityType, entityId) index: the old row goes, the new one gets a new id
+    private void enqueue(OutboxOperation operation) {
+        Integer previous = outboxIds.get(key(operation));
+        if (previous != null) {
+            outbox.remove(previous);
+        }
+        operation.setId(nextOutboxId++);
+        outbox.put(operation.getId(), operation);
+        outboxIds.put(key(operation), operation.getId());
+    }
+
+    // Only the row read earlier; one re-enqueued since has a new id and stays
+    private void remove(int id) {
+        OutboxOperation removed = outbox.remove(id);
+        if (removed != null) {
+            outboxIds.remove(key(removed));
+        }
+    }
+
+    // Rows are read as copies, as from a database, so the engine cannot change the stored ones
+    private static OutboxOperation copy(OutboxOperation operation) {
+        OutboxOperation copy = new OutboxOperation(operation.getEntityType(), operation.getEntityId(),
+                operation.getCourseId(), operation.getOperation());
+        copy.setId(operation.getId());
+        copy.setEnqueuedAt(operation.getEnqueuedAt());
+        copy.setAttempts(operation.getAttempts());
+        copy.setNextAttemptAt(operation.getNextAttemptAt());
+        copy.setLastError(operation.getLastError());
+        copy.setPendingBackends(operation.getPendingBackends());
+        return copy;
+    }
+
+    private static String key(OutboxOperation operation) {
+        return operation.getEntityType() + ":" + operation.getEntityId();
+    }
+}
@@ -0,0 +1,196 @@
+package com.universalyoga.adminapp.benchmark;
+
+import com.universalyoga.adminapp.models.YogaCourse;
+import com.universalyoga.adminapp.models.YogaInstance;
+import com.universalyoga.adminapp.services.DeltaSyncEngine;
+import com.universalyoga.adminapp.services.UploadPipeline;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sync throughput benchmark. Runs DeltaSyncEngine itself against an in-memory outbox and
+ * in-memory backends, so no network or device is needed, and reports records/s,
+ * allocation rate and peak heap for each data set size.
+ *
+ * Arguments: [sizes] [latencyMillis] [jitterMillis] [maxInFlight] [chunkSize],
+ * e.g. "1000,10000,100000 20 10 4 400".
+ */
+public class SyncBenchmark {
+    private static final String[] TYPES = {"Flow Yoga", "Aerial Yoga", "Family Yoga", "Hatha Yoga"};
+    private static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
+    // Instances generated per course
+    private static final int INSTANCES_PER_COURSE = 3;
+
+    // Share of the courses that are deleted in each run
+    private static final double DELETED_COURSE_SHARE = 0.01;
+
+    private static final int WARMUP_RECORDS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = parseSizes(args.length > 0 ? args[0] : "1000,10000,100000");
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        long jitterMillis = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int maxInFlight = args.length > 3 ? Integer.parseInt(args[3]) : UploadPipeline.DEFAULT_MAX_IN_FLIGHT;
+        int chunkSize = args.length > 4 ? Integer.parseInt(args[4]) : UploadPipeline.DEFAULT_CHUNK_SIZE;
+
+        FakeSyncBackend realtime = FakeSyncBackend.realtimeDatabase().setLatency(latencyMillis, jitterMillis);
+        FakeSyncBackend firestore = FakeSyncBackend.firestore().setLatency(latencyMillis, jitterMillis);
+
+        System.out.println("Sync benchmark: latency " + latencyMillis + " ms (+" + jitterMillis + " ms jitter), "
+                + maxInFlight + " chunks in flight, " + chunkSize + " records per chunk");
+
+        // Let the JIT compile the sync path before anything is measured
+        run(WARMUP_RECORDS, realtime, firestore, maxInFlight, chunkSize);
+
+        System.out.println(String.format("%10s %10s %12s %14s %12s %12s %8s",
+                "records", "ms", "records/s", "alloc MB/s", "alloc MB", "peak heap MB", "acked"));
+        for (int size : sizes) {
+            Measurement measurement = run(size, realtime, firestore, maxInFlight, chunkSize);
+            System.out.println(String.format("%10d %10d %12.0f %14.1f %12.1f %12.1f %8s",
+                    size, measurement.elapsedMillis, measurement.getRecordsPerSecond(),
+                    measurement.getAllocationMegabytesPerSecond(), toMegabytes(measurement.allocatedBytes),
+                    toMegabytes(measurement.peakHeapBytes), measurement.complete ? "all" : "partial"));
+        }
+    }
+
+    private static class Measurement {
+        final int records;
+        final long elapsedMillis;
+        final long allocatedBytes;
+        final long peakHeapBytes;
+        final boolean complete;
+
+        Measurement(int records, long elapsedMillis, long allocatedBytes, long peakHeapBytes, boolean complete) {
+            this.records = records;
+            this.elapsedMillis = elapsedMillis;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+            this.complete = complete;
+        }
+
+        double getRecordsPerSecond() {
+            return elapsedMillis > 0 ? records * 1000.0 / elapsedMillis : 0;
+        }
+
+        double getAllocationMegabytesPerSecond() {
+            return elapsedMillis > 0 ? toMegabytes(allocatedBytes) * 1000.0 / elapsedMillis : 0;
+        }
+    }
+
+    // Drain the outbox of a freshly generated data set of the given total number of records
+    private static Measurement run(int records, FakeSyncBackend realtime, FakeSyncBackend firestore,
+                                   int maxInFlight, int chunkSize) {
+        realtime.clear();
+        firestore.clear();
+
+        int courseCount = Math.max(1, records / (INSTANCES_PER_COURSE + 1));
+        int deletedCount = Math.max(1, (int) (courseCount * DELETED_COURSE_SHARE));
+        List<YogaCourse> courses = generateCourses(courseCount + deletedCount);
+        List<YogaInstance> instances = generateInstances(courses.subList(0, courseCount), records - courseCount);
+        InMemoryOutboxStore store = new InMemoryOutboxStore();
+        for (YogaCourse course : courses) {
+            store.put(course);
+        }
+        for (YogaInstance instance : instances) {
+            store.put(instance);
+        }
+        for (int id = courseCount + 1; id <= courseCount + deletedCount; id++) {
+            store.enqueueCourseDeletion(id).join();
+        }
+        DeltaSyncEngine engine = new DeltaSyncEngine(store, realtime, firestore, maxInFlight, chunkSize);
+
+        System.gc();
+        resetPeakHeap();
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+
+        // Each sync takes one outbox batch, as the auto sync drain does
+        boolean complete = true;
+        while (complete && store.getOutboxSize() > 0) {
+            DeltaSyncEngine.SyncResult result = engine.sync(engine.collectChanges(true), null).join();
+            complete = result.isComplete();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long allocatedBytes = getAllocatedBytes() - allocatedBefore;
+        return new Measurement(records, elapsedMillis, allocatedBytes, getPeakHeap(), complete);
+    }
+
+    private static List<YogaCourse> generateCourses(int count) {
+        List<YogaCourse> courses = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            YogaCourse course = new YogaCourse(id, DAYS[id % DAYS.length], String.format("%02d:00", 6 + id % 14),
+                    10 + id % 20, 60, 10.0 + id % 5, TYPES[id % TYPES.length], "Benchmark course " + id,
+                    "Room " + (id % 8 + 1), "Instructor " + (id % 50), "Beginner", 1);
+            course.setUpdatedAt(System.currentTimeMillis());
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    // Instances spread evenly over the given courses
+    private static List<YogaInstance> generateInstances(List<YogaCourse> courses, int count) {
+        List<YogaInstance> instances = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            YogaCourse course = courses.get((id - 1) % courses.size());
+            YogaInstance instance = new YogaInstance(id, course.getId(),
+                    String.format("2026-%02d-%02d", 1 + id % 12, 1 + id % 28), course.getInstructor(),
+                    "Session " + id, 1, course.getTime(), "23:00", id % course.getCapacity(), course.getCapacity());
+            instance.setUpdatedAt(System.currentTimeMillis());
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    // Bytes allocated so far by all live threads
+    private static long getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (long allocated : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static int[] parseSizes(String sizes) {
+        String[] parts = sizes.split(",");
+        int[] parsed = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            parsed[i] = Integer.parseInt(parts[i].trim());
+        }
+        return parsed;
+    }
+
+    private static double toMegabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}